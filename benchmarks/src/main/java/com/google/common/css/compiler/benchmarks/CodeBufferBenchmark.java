@@ -0,0 +1,176 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.benchmarks;
+
+import com.google.common.css.JobDescription;
+import com.google.common.css.compiler.ast.CssTree;
+import com.google.common.css.compiler.ast.GssParser;
+import com.google.common.css.compiler.ast.GssParserException;
+import com.google.common.css.compiler.passes.CodeBuffer;
+import com.google.common.css.compiler.passes.CompactPrinter;
+import com.google.common.css.compiler.passes.DummyErrorManager;
+import com.google.common.css.compiler.passes.PassRunner;
+import com.google.common.css.compiler.passes.PrettyPrinter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link CodeBuffer#append(String)} on the tokens of a compiled
+ * stylesheet, printed compactly and pretty, next to the way the buffer used
+ * to append them: splitting every string on newlines and appending the parts
+ * to a {@link StringBuilder}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodeBufferBenchmark {
+
+  /** The characters the printers append on their own, between names and values. */
+  private static final String DELIMITERS = "{}:;, \n";
+
+  @Param({"BOOTSTRAP", "SYNTHETIC"})
+  public Corpora corpus;
+
+  private String[] tokens;
+
+  @Setup
+  public void setUp() throws GssParserException {
+    JobDescription job = Corpora.createJob(corpus.getInputs());
+    CssTree tree = new GssParser(job.inputs).parse();
+    new PassRunner(job, DummyErrorManager.getInstance()).runPasses(tree);
+
+    CompactPrinter compactPrinter = new CompactPrinter(tree);
+    compactPrinter.runPass();
+    PrettyPrinter prettyPrinter = new PrettyPrinter(tree.getVisitController());
+    prettyPrinter.runPass();
+
+    List<String> tokens = new ArrayList<>();
+    tokenize(compactPrinter.getCompactPrintedString(), tokens);
+    tokenize(prettyPrinter.getPrettyPrintedString(), tokens);
+    this.tokens = tokens.toArray(new String[0]);
+  }
+
+  @Benchmark
+  public CodeBuffer codeBuffer() {
+    CodeBuffer buffer = new CodeBuffer();
+    for (String token : tokens) {
+      buffer.append(token);
+    }
+    return buffer;
+  }
+
+  @Benchmark
+  public SplittingCodeBuffer splittingCodeBuffer() {
+    SplittingCodeBuffer buffer = new SplittingCodeBuffer();
+    for (String token : tokens) {
+      buffer.append(token);
+    }
+    return buffer;
+  }
+
+  /**
+   * Cuts the output of a printer into the strings a printer appends: runs of
+   * characters between delimiters, each delimiter on its own, and the
+   * indentation of pretty printed lines along with the newline before it.
+   */
+  private static void tokenize(String output, List<String> tokens) {
+    int start = 0;
+    for (int i = 0; i < output.length(); i++) {
+      char c = output.charAt(i);
+      if (DELIMITERS.indexOf(c) >= 0) {
+        if (start < i) {
+          tokens.add(output.substring(start, i));
+        }
+        int end = i + 1;
+        if (c == '\n') {
+          while (end < output.length() && output.charAt(end) == ' ') {
+            end++;
+          }
+        }
+        tokens.add(output.substring(i, end));
+        i = end - 1;
+        start = end;
+      }
+    }
+    if (start < output.length()) {
+      tokens.add(output.substring(start));
+    }
+  }
+
+  /** The way {@link CodeBuffer} appended strings before it scanned them in place. */
+  static final class SplittingCodeBuffer {
+    private final StringBuilder sb = new StringBuilder();
+    private int nextCharIndex;
+    private int nextLineIndex;
+    private int lastCharIndex = -1;
+
+    void append(String str) {
+      if (str.length() == 1) {
+        append(str.charAt(0));
+      } else {
+        String[] parts = str.split("\n", -1);
+        for (int i = 0; i < parts.length; i++) {
+          sb.append(parts[i]);
+          incrementIndexBy(parts[i].length());
+          if (i != (parts.length - 1)) {
+            startNewLine();
+          }
+        }
+      }
+    }
+
+    void append(char c) {
+      if (c == '\n') {
+        startNewLine();
+      } else {
+        sb.append(c);
+        incrementIndexBy(1);
+      }
+    }
+
+    private void startNewLine() {
+      sb.append('\n');
+      lastCharIndex = nextCharIndex;
+      nextCharIndex = 0;
+      nextLineIndex++;
+    }
+
+    private void incrementIndexBy(int step) {
+      if (step > 0) {
+        lastCharIndex = nextCharIndex + step - 1;
+        nextCharIndex = nextCharIndex + step;
+      }
+    }
+  }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.benchmarks;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.css.JobDescription;
+import com.google.common.css.JobDescription.OutputOrientation;
+import com.google.common.css.JobDescriptionBuilder;
+import com.google.common.css.MinimalSubstitutionMap;
+import com.google.common.css.SourceCode;
+import com.google.common.css.SplittingSubstitutionMap;
+import com.google.common.css.SubstitutionMap;
+import com.google.common.css.SubstitutionMapProvider;
+import com.google.common.css.Vendor;
+import com.google.common.css.compiler.gssfunctions.DefaultGssFunctionMapProvider;
+import com.google.common.io.Files;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * The inputs the benchmarks are run on, and the job options used to compile
+ * them.
+ */
+public enum Corpora {
+
+  /** The Bootstrap 4 stylesheet checked in under {@code styles/}. */
+  BOOTSTRAP {
+    @Override
+    List<SourceCode> getInputs() {
+      File file = findStylesFile("bootstrap.css");
+      try {
+        return ImmutableList.of(
+            new SourceCode(file.getPath(), Files.asCharSource(file, UTF_8).read()));
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    }
+  },
+
+  /**
+   * Generated GSS that leans on the extensions: many {@code @def}s, mixins
+   * and {@code @for} loops spread over several inputs.
+   */
+  SYNTHETIC {
+    @Override
+    List<SourceCode> getInputs() {
+      ImmutableList.Builder<SourceCode> inputs = ImmutableList.builder();
+      inputs.add(new SourceCode("defs.gss", generateDefinitions()));
+      for (int i = 0; i < SYNTHETIC_FILES; i++) {
+        inputs.add(new SourceCode("component" + i + ".gss", generateComponent(i)));
+      }
+      return inputs.build();
+    }
+  };
+
+  private static final int SYNTHETIC_FILES = 20;
+  private static final int SYNTHETIC_DEFS = 500;
+  private static final int SYNTHETIC_MIXINS = 50;
+  private static final int SYNTHETIC_RULES_PER_FILE = 100;
+
+  abstract List<SourceCode> getInputs();
+
+  /**
+   * Returns a job close to what the command line compiler creates by default,
+   * with every optional pass of {@code PassRunner} switched on.
+   */
+  static JobDescription createJob(List<SourceCode> inputs) {
+    return new JobDescriptionBuilder()
+        .setInputs(inputs)
+        .setAllowDefPropagation(true)
+        .setAllowUnrecognizedProperties(false)
+        .setAllowDuplicateDeclarations(true)
+        .setAllowUnrecognizedFunctions(true)
+        .setProcessDependencies(true)
+        .setSimplifyCss(true)
+        .setEliminateDeadStyles(true)
+        .setOutputOrientation(OutputOrientation.RTL)
+        .setVendor(Vendor.WEBKIT)
+        .setExpandBrowserPrefix(true)
+        .setOutputBrowserPrefix("prefixes.css")
+        .setCssSubstitutionMapProvider(new SubstitutionMapProvider() {
+          @Override
+          public SubstitutionMap get() {
+            return new SplittingSubstitutionMap(new MinimalSubstitutionMap());
+          }
+        })
+        .setRootSelector(".root")
+        .setGssFunctionMapProvider(new DefaultGssFunctionMapProvider())
+        .getJobDescription();
+  }
+
+  /**
+   * Looks for a file of the {@code styles/} directory, both from the
+   * repository root and from the {@code benchmarks/} directory.
+   */
+  private static File findStylesFile(String name) {
+    for (String dir : new String[] {"styles", "../styles"}) {
+      File file = new File(dir, name);
+      if (file.exists()) {
+        return file;
+      }
+    }
+    throw new IllegalStateException(
+        "Cannot find styles/" + name + ", run the benchmarks from the repository root");
+  }
+
+  private static String generateDefinitions() {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < SYNTHETIC_DEFS; i++) {
+      sb.append("@def SIZE_").append(i).append(' ').append(i % 40).append("px;\n");
+      sb.append("@def COLOR_").append(i).append(" #")
+          .append(String.format("%06x", (i * 0x10101) & 0xffffff)).append(";\n");
+      sb.append("@def PAD_").append(i).append(" SIZE_").append(i)
+          .append(" SIZE_").append((i + 1) % SYNTHETIC_DEFS).append(";\n");
+    }
+    for (int i = 0; i < SYNTHETIC_MIXINS; i++) {
+      sb.append("@defmixin box").append(i).append("(W, H, C) {\n")
+          .append("  width: W;\n")
+          .append("  height: H;\n")
+          .append("  color: C;\n")
+          .append("  margin: 0px 0px 0px 0px;\n")
+          .append("  border-left: 1px solid C;\n")
+          .append("}\n");
+    }
+    return sb.toString();
+  }
+
+  private static String generateComponent(int file) {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < SYNTHETIC_RULES_PER_FILE; i++) {
+      int def = (file * SYNTHETIC_RULES_PER_FILE + i) % SYNTHETIC_DEFS;
+      sb.append(".c").append(file).append("-r").append(i)
+          .append(", .c").append(file).append("-r").append(i).append(":hover {\n")
+          .append("  @mixin box").append(def % SYNTHETIC_MIXINS)
+          .append("(SIZE_").append(def).append(", SIZE_").append((def + 3) % SYNTHETIC_DEFS)
+          .append(", COLOR_").append(def).append(");\n")
+          .append("  padding: PAD_").append(def).append(";\n")
+          .append("  float: left;\n")
+          .append("  background-color: #ffffff;\n")
+          .append("  transition: opacity 0.2s;\n")
+          .append("}\n");
+    }
+    sb.append("@for $i from 1 to 20 {\n")
+        .append("  .c").append(file).append("-grid-$i {\n")
+        .append("    margin-left: $i;\n")
+        .append("    padding-right: 0em;\n")
+        .append("  }\n")
+        .append("}\n");
+    return sb.toString();
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.benchmarks;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.css.JobDescription;
+import com.google.common.css.compiler.ast.ChunkAware;
+import com.google.common.css.compiler.ast.CssNode;
+import com.google.common.css.compiler.ast.CssSelectorNode;
+import com.google.common.css.compiler.ast.CssTree;
+import com.google.common.css.compiler.ast.GssParser;
+import com.google.common.css.compiler.ast.GssParserException;
+import com.google.common.css.compiler.passes.DummyErrorManager;
+import com.google.common.css.compiler.passes.MultiChunkTemplateCompactPrinter;
+import com.google.common.css.compiler.passes.PassRunner;
+import com.google.common.css.compiler.passes.TemplateCompactPrinter;
+import com.google.common.css.compiler.passes.UniformVisitor;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link MultiChunkTemplateCompactPrinter} against one
+ * {@link TemplateCompactPrinter} per chunk. The top-level rules of a fully
+ * compiled tree are dealt out to the chunks in turn, so that every chunk
+ * prints about the same share of the tree.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MultiChunkPrinterBenchmark {
+
+  @Param({"BOOTSTRAP", "SYNTHETIC"})
+  public Corpora corpus;
+
+  @Param({"1", "60"})
+  public int chunkCount;
+
+  private CssTree tree;
+  private ImmutableList<String> chunks;
+
+  @Setup
+  public void setUp() throws GssParserException {
+    JobDescription job = Corpora.createJob(corpus.getInputs());
+    tree = new GssParser(job.inputs).parse();
+    new PassRunner(job, DummyErrorManager.getInstance()).runPasses(tree);
+
+    ImmutableList.Builder<String> chunks = ImmutableList.builder();
+    for (int i = 0; i < chunkCount; i++) {
+      chunks.add("chunk" + i);
+    }
+    this.chunks = chunks.build();
+    tree.getVisitController().startVisit(
+        UniformVisitor.Adapters.asVisitor(new ChunkAssigner(this.chunks)));
+  }
+
+  @Benchmark
+  public ImmutableMap<String, String> multiChunkPrinter() {
+    MultiChunkTemplateCompactPrinter<String> printer =
+        new MultiChunkTemplateCompactPrinter<>(tree, chunks);
+    printer.runPass();
+    return printer.getCompactPrintedStrings();
+  }
+
+  @Benchmark
+  public ImmutableMap<String, String> printerPerChunk() {
+    ImmutableMap.Builder<String, String> templates = ImmutableMap.builder();
+    for (String chunk : chunks) {
+      TemplateCompactPrinter<String> printer =
+          new TemplateCompactPrinter<>(tree, chunk);
+      printer.runPass();
+      templates.put(chunk, printer.getCompactPrintedString());
+    }
+    return templates.build();
+  }
+
+  /**
+   * Puts each top-level rule, with its selectors and nested rules, in the
+   * next chunk.
+   */
+  private final class ChunkAssigner implements UniformVisitor {
+    private final ImmutableList<String> chunks;
+    private int next;
+    private String chunk;
+
+    ChunkAssigner(ImmutableList<String> chunks) {
+      this.chunks = chunks;
+    }
+
+    @Override
+    public void enter(CssNode node) {
+      if (node.getParent() == tree.getRoot().getBody()) {
+        chunk = chunks.get(next++ % chunks.size());
+      }
+      if (node instanceof CssSelectorNode) {
+        ((CssSelectorNode) node).setChunk(chunk);
+      } else if (node instanceof ChunkAware) {
+        ((ChunkAware) node).setChunk(chunk);
+      }
+    }
+
+    @Override
+    public void leave(CssNode node) {}
+  }
+}
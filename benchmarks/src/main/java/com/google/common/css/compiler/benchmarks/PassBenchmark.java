@@ -0,0 +1,183 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.benchmarks;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Multiset;
+import com.google.common.css.JobDescription;
+import com.google.common.css.compiler.ast.CssCompilerPass;
+import com.google.common.css.compiler.ast.CssTree;
+import com.google.common.css.compiler.ast.GssParser;
+import com.google.common.css.compiler.ast.GssParserException;
+import com.google.common.css.compiler.passes.DummyErrorManager;
+import com.google.common.css.compiler.passes.PassRunner;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures every pass run by {@link PassRunner#runPasses} on its own.
+ *
+ * <p>Before each invocation the corpus is parsed and all the passes preceding
+ * the measured one are run, so the pass sees exactly the tree it would see in
+ * a real compilation. Passes are identified by
+ * {@link PassRunner#getPassName}, so passes fused into a
+ * {@code CompositeVisitor} are measured together; a pass that runs more than
+ * once is suffixed with its occurrence, e.g.
+ * {@code EliminateUselessRulesetNodes#2}.
+ *
+ * <p>Because the setup allocates much more than most passes do, the
+ * normalized allocation figures of the GC profiler are dominated by it. The
+ * {@code allocatedBytes} secondary result only counts the bytes allocated
+ * by the pass itself.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PassBenchmark {
+
+  @Param({"BOOTSTRAP", "SYNTHETIC"})
+  public Corpora corpus;
+
+  @Param({
+      "CheckDependencyNodes",
+      "CreateStandardAtRuleNodes",
+      "CreateMixins",
+      "CreateDefinitionNodes",
+      "CreateConstantReferences",
+      "CreateConditionalNodes",
+      "CreateForLoopNodes",
+      "CreateComponentNodes",
+      "ValidatePropertyValues",
+      "WarnOnCustomProperty",
+      "HandleUnknownAtRuleNodes",
+      "ProcessKeyframes",
+      "CreateVendorPrefixedKeyframes",
+      "EvaluateCompileConstants",
+      "UnrollLoops",
+      "ProcessRefiners",
+      "EliminateConditionalNodes",
+      "CollectMixinDefinitions",
+      "ReplaceMixins",
+      "ProcessComponents",
+      "CollectConstantDefinitions",
+      "ReplaceConstantReferences",
+      "ResolveCustomFunctionNodes",
+      "SimplifyCss",
+      "DisallowDuplicateDeclarations",
+      "SplitRulesetNodes",
+      "MarkRemovableRulesetNodes",
+      "EliminateUselessRulesetNodes",
+      "MergeAdjacentRulesetNodesWithSameSelector",
+      "EliminateUselessRulesetNodes#2",
+      "MergeAdjacentRulesetNodesWithSameDeclarations",
+      "EliminateUselessRulesetNodes#3",
+      "MarkNonFlippableNodes",
+      "BiDiFlipper",
+      "FinalChecks",
+      "CssPrefixing",
+      "AutoExpandBrowserPrefix",
+      "SplitBrowserPrefixes",
+  })
+  public String pass;
+
+  private JobDescription job;
+  private CssCompilerPass target;
+
+  /** Bytes allocated by the measured pass, reported as a rate. */
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  @State(Scope.Thread)
+  public static class Allocation {
+    public long allocatedBytes;
+  }
+
+  @Setup(Level.Trial)
+  public void setUpTrial() {
+    job = Corpora.createJob(corpus.getInputs());
+  }
+
+  @Setup(Level.Invocation)
+  public void setUpInvocation() throws GssParserException {
+    CssTree tree = new GssParser(job.inputs).parse();
+    CapturingPassRunner runner = new CapturingPassRunner(job, pass);
+    runner.runPasses(tree);
+    if (runner.captured == null) {
+      throw new IllegalStateException("Pass " + pass + " is not run by PassRunner");
+    }
+    target = runner.captured;
+  }
+
+  @Benchmark
+  public void runPass(Allocation allocation) {
+    long before = allocatedBytes();
+    target.runPass();
+    allocation.allocatedBytes += allocatedBytes() - before;
+  }
+
+  private static long allocatedBytes() {
+    return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+        .getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  /**
+   * Runs the passes preceding the one with the given id, and keeps that pass
+   * without running it. All the passes after it are skipped.
+   */
+  private static class CapturingPassRunner extends PassRunner {
+    private final String targetId;
+    private final Multiset<String> occurrences = HashMultiset.create();
+    private CssCompilerPass captured;
+
+    CapturingPassRunner(JobDescription job, String targetId) {
+      super(job, DummyErrorManager.getInstance());
+      this.targetId = targetId;
+    }
+
+    @Override
+    protected void runPass(CssTree tree, CssCompilerPass pass) {
+      if (captured != null) {
+        return;
+      }
+      String name = PassRunner.getPassName(pass);
+      occurrences.add(name);
+      int count = occurrences.count(name);
+      String id = count == 1 ? name : name + "#" + count;
+      if (id.equals(targetId)) {
+        captured = pass;
+      } else {
+        pass.runPass();
+      }
+    }
+  }
+}
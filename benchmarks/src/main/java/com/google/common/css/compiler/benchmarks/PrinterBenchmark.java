@@ -0,0 +1,83 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.benchmarks;
+
+import com.google.common.css.JobDescription;
+import com.google.common.css.compiler.ast.CssTree;
+import com.google.common.css.compiler.ast.GssParser;
+import com.google.common.css.compiler.ast.GssParserException;
+import com.google.common.css.compiler.passes.CompactPrinter;
+import com.google.common.css.compiler.passes.DummyErrorManager;
+import com.google.common.css.compiler.passes.NullGssSourceMapGenerator;
+import com.google.common.css.compiler.passes.PassRunner;
+import com.google.common.css.compiler.passes.PrettyPrinter;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link CompactPrinter} and {@link PrettyPrinter} on a fully
+ * compiled tree. The printers do not modify the tree, so it is built once per
+ * trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrinterBenchmark {
+
+  @Param({"BOOTSTRAP", "SYNTHETIC"})
+  public Corpora corpus;
+
+  private CssTree tree;
+
+  @Setup
+  public void setUp() throws GssParserException {
+    JobDescription job = Corpora.createJob(corpus.getInputs());
+    tree = new GssParser(job.inputs).parse();
+    new PassRunner(job, DummyErrorManager.getInstance()).runPasses(tree);
+  }
+
+  @Benchmark
+  public String compactPrinter() {
+    CompactPrinter printer =
+        new CompactPrinter(tree, new NullGssSourceMapGenerator(), false);
+    printer.runPass();
+    return printer.getCompactPrintedString();
+  }
+
+  @Benchmark
+  public String prettyPrinter() {
+    PrettyPrinter printer = new PrettyPrinter(tree.getVisitController(),
+        null /* use external buffer */, new NullGssSourceMapGenerator());
+    printer.runPass();
+    return printer.getPrettyPrintedString();
+  }
+}
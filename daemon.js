@@ -0,0 +1,50 @@
+const { spawn } = require('child_process')
+const { createInterface } = require('readline')
+const closureStylesheets = require('./')
+
+/**
+ * A thin client of the compiler daemon. The JVM is started once, and every
+ * call to `compile` sends the same arguments as the command line compiler
+ * would take, e.g. `['--rename', 'CLOSURE', 'styles/main.css']`.
+ */
+class Daemon {
+  /**
+   * @param {string[]} [javaArgs] Extra arguments for the JVM, e.g. `['-Xmx1g']`.
+   */
+  constructor(javaArgs = []) {
+    this.pending = []
+    this.process = spawn('java', [...javaArgs, '-jar', closureStylesheets, '--daemon'], {
+      stdio: ['pipe', 'pipe', 'inherit'],
+    })
+    this.process.on('exit', (code) => {
+      const err = new Error(`The compiler daemon exited with code ${code}.`)
+      this.pending.splice(0).forEach(({ reject }) => reject(err))
+    })
+    createInterface({ input: this.process.stdout }).on('line', (line) => {
+      const { resolve } = this.pending.shift()
+      resolve(JSON.parse(line))
+    })
+  }
+  /**
+   * Compiles a job. Resolves with its exit code, the CSS unless
+   * `--output-file` was given, the renaming map, the source map and what the
+   * compiler printed to standard error.
+   * @param {string[]} args The command line arguments.
+   * @param {string} [cwd] The directory to resolve relative paths against.
+   * @returns {Promise<{ exitCode: number, css?: string, renamingMap?: string, sourceMap?: string, stderr: string }>}
+   */
+  compile(args, cwd = process.cwd()) {
+    return new Promise((resolve, reject) => {
+      this.pending.push({ resolve, reject })
+      this.process.stdin.write(`${JSON.stringify({ args, cwd })}\n`)
+    })
+  }
+  /**
+   * Stops the daemon once the pending jobs are done.
+   */
+  close() {
+    this.process.stdin.end()
+  }
+}
+
+module.exports = Daemon
@@ -26,6 +26,8 @@ import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.css.compiler.passes.BrowserPrefixRuleTable;
+import com.google.common.css.compiler.passes.PassObserver;
 
 
 /**
@@ -48,12 +50,14 @@ public class JobDescription {
   public final boolean swapLeftRightInUrl;
   public final boolean simplifyCss;
   public final boolean eliminateDeadStyles;
+  public final DeadStyleElimination deadStyleElimination;
   public final boolean allowDefPropagation;
   public final boolean allowUnrecognizedFunctions;
   public final boolean allowDuplicateDeclarations;
   public final boolean expandBrowserPrefix;
   public final String outputBrowserPrefix;
   public final HashMap<String, ArrayList<String>> prefixes;
+  public final BrowserPrefixRuleTable prefixRules;
   public final Set<String> allowedNonStandardFunctions;
   public final boolean allowUnrecognizedProperties;
   public final Set<String> allowedUnrecognizedProperties;
@@ -79,6 +83,9 @@ public class JobDescription {
   public final boolean skipHtmlEscaping;
   public final boolean sourceMapIncludeContent;
   public final String rootSelector;
+  public final PassObserver passObserver;
+  public final int threadCount;
+  public final boolean useGssLexer;
 
   static final String CONDITION_FOR_LTR = "GSS_LTR";
   static final String CONDITION_FOR_RTL = "GSS_RTL";
@@ -123,10 +130,34 @@ public class JobDescription {
     MAXIMUM
   }
 
+  /**
+   * How dead styles are eliminated. Both ways give the same output.
+   */
+  public enum DeadStyleElimination {
+    /**
+     * Splits the rulesets into one ruleset per selector and declaration,
+     * removes the overridden ones and merges the rest back together.
+     */
+    SPLIT,
+
+    /**
+     * Indexes the selectors and declarations of the rulesets, and only
+     * removes and merges declarations.
+     */
+    INDEXED
+  }
+
   /**
    * The source map generation levels.
    */
-  public enum SourceMapDetailLevel { ALL, DEFAULT }
+  public enum SourceMapDetailLevel {
+    /** Maps every printed node that has a source location. */
+    ALL,
+    /** Maps the selectors, blocks, declarations and rules, but not their values. */
+    DEFAULT,
+    /** Maps only the rulesets and at-rules, one mapping for each. */
+    RULES
+  }
 
   JobDescription(List<SourceCode> inputs,
       String copyrightNotice, OutputFormat outputFormat,
@@ -156,7 +187,10 @@ public class JobDescription {
       SourceMapDetailLevel sourceMapLevel,
       boolean preserveImportantComments, boolean skipHtmlEscaping,
       boolean sourceMapIncludeContent,
-      String rootSelector, HashMap<String, ArrayList<String>> prefixes) {
+      String rootSelector, HashMap<String, ArrayList<String>> prefixes,
+      PassObserver passObserver, int threadCount,
+      DeadStyleElimination deadStyleElimination,
+      BrowserPrefixRuleTable prefixRules, boolean useGssLexer) {
     this.allowUndefinedConstants = allowUndefinedConstants;
     Preconditions.checkArgument(!inputs.contains(null));
     Preconditions.checkNotNull(outputFormat);
@@ -167,6 +201,9 @@ public class JobDescription {
     Preconditions.checkNotNull(allowedAtRules);
     Preconditions.checkNotNull(excludedClassesFromRenaming);
     Preconditions.checkNotNull(compileConstants);
+    Preconditions.checkArgument(threadCount > 0);
+    Preconditions.checkNotNull(deadStyleElimination);
+    Preconditions.checkNotNull(prefixRules);
     this.inputs = ImmutableList.copyOf(inputs);
     this.copyrightNotice = copyrightNotice;
     this.outputFormat = outputFormat;
@@ -179,6 +216,7 @@ public class JobDescription {
     this.swapLeftRightInUrl = swapLeftRightInUrl;
     this.simplifyCss = simplifyCss;
     this.eliminateDeadStyles = eliminateDeadStyles;
+    this.deadStyleElimination = deadStyleElimination;
     this.allowDefPropagation = allowDefPropagation;
     this.allowUnrecognizedFunctions = allowUnrecognizedFunctions;
     this.allowDuplicateDeclarations = allowDuplicateDeclarations;
@@ -203,6 +241,7 @@ public class JobDescription {
     this.outputRenamingMapFormat = outputRenamingMapFormat;
     this.inputRenamingMap = inputRenamingMap;
     this.prefixes = prefixes;
+    this.prefixRules = prefixRules;
     this.preserveComments = preserveComments;
     this.suppressDependencyCheck = suppressDependencyCheck;
     this.compileConstants = ImmutableMap.copyOf(compileConstants);
@@ -212,6 +251,9 @@ public class JobDescription {
     this.skipHtmlEscaping = skipHtmlEscaping;
     this.sourceMapIncludeContent = sourceMapIncludeContent;
     this.rootSelector = rootSelector;
+    this.passObserver = passObserver;
+    this.threadCount = threadCount;
+    this.useGssLexer = useGssLexer;
   }
 
   /**
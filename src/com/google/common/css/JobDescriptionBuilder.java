@@ -28,11 +28,14 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
+import com.google.common.css.JobDescription.DeadStyleElimination;
 import com.google.common.css.JobDescription.InputOrientation;
 import com.google.common.css.JobDescription.OptimizeStrategy;
 import com.google.common.css.JobDescription.OutputFormat;
 import com.google.common.css.JobDescription.OutputOrientation;
 import com.google.common.css.JobDescription.SourceMapDetailLevel;
+import com.google.common.css.compiler.passes.BrowserPrefixRuleTable;
+import com.google.common.css.compiler.passes.PassObserver;
 
 /**
  * Aids in the creation of inputs for the compiler. A builder can be used for
@@ -52,6 +55,7 @@ public class JobDescriptionBuilder {
   boolean swapLeftRightInUrl;
   boolean simplifyCss;
   boolean eliminateDeadStyles;
+  DeadStyleElimination deadStyleElimination;
   boolean allowDefPropagation;
   boolean allowUnrecognizedFunctions;
   boolean allowDuplicateDeclarations;
@@ -84,6 +88,10 @@ public class JobDescriptionBuilder {
   boolean createSourceMap;
   SourceMapDetailLevel sourceMapLevel;
   HashMap<String, ArrayList<String>> prefixes;
+  BrowserPrefixRuleTable prefixRules;
+  PassObserver passObserver;
+  int threadCount;
+  boolean useGssLexer;
 
   public JobDescriptionBuilder() {
     this.inputs = Lists.newArrayList();
@@ -98,12 +106,14 @@ public class JobDescriptionBuilder {
     this.swapLeftRightInUrl = false;
     this.simplifyCss = false;
     this.eliminateDeadStyles = false;
+    this.deadStyleElimination = DeadStyleElimination.SPLIT;
     this.allowDefPropagation = false;
     this.allowUnrecognizedFunctions = false;
     this.allowDuplicateDeclarations = false;
     this.expandBrowserPrefix = false;
     this.outputBrowserPrefix = null;
     this.prefixes = new HashMap<>();
+    this.prefixRules = BrowserPrefixRuleTable.getDefault();
     this.allowedNonStandardFunctions = Sets.newHashSet();
     this.allowUnrecognizedProperties = false;
     this.allowedUnrecognizedProperties = Sets.newHashSet();
@@ -128,6 +138,9 @@ public class JobDescriptionBuilder {
     this.skipHtmlEscaping = false;
     this.sourceMapIncludeContent = false;
     this.rootSelector = null;
+    this.passObserver = null;
+    this.threadCount = 1;
+    this.useGssLexer = false;
   }
 
   public JobDescriptionBuilder copyFrom(JobDescription jobToCopy) {
@@ -143,6 +156,7 @@ public class JobDescriptionBuilder {
     this.swapLeftRightInUrl = jobToCopy.swapLeftRightInUrl;
     this.simplifyCss = jobToCopy.simplifyCss;
     this.eliminateDeadStyles = jobToCopy.eliminateDeadStyles;
+    this.deadStyleElimination = jobToCopy.deadStyleElimination;
     this.allowDefPropagation = jobToCopy.allowDefPropagation;
     this.allowUnrecognizedFunctions = jobToCopy.allowUnrecognizedFunctions;
     this.allowDuplicateDeclarations = jobToCopy.allowDuplicateDeclarations;
@@ -175,6 +189,10 @@ public class JobDescriptionBuilder {
     this.sourceMapLevel = jobToCopy.sourceMapLevel;
     this.preserveImportantComments = jobToCopy.preserveImportantComments;
     this.prefixes = jobToCopy.prefixes;
+    this.prefixRules = jobToCopy.prefixRules;
+    this.passObserver = jobToCopy.passObserver;
+    this.threadCount = jobToCopy.threadCount;
+    this.useGssLexer = jobToCopy.useGssLexer;
     return this;
   }
 
@@ -339,6 +357,17 @@ public class JobDescriptionBuilder {
     return setEliminateDeadStyles(true);
   }
 
+  /**
+   * Sets how dead styles are eliminated when they are. The default is
+   * {@link DeadStyleElimination#SPLIT}.
+   */
+  public JobDescriptionBuilder setDeadStyleElimination(
+      DeadStyleElimination deadStyleElimination) {
+    checkJobIsNotAlreadyCreated();
+    this.deadStyleElimination = Preconditions.checkNotNull(deadStyleElimination);
+    return this;
+  }
+
   public JobDescriptionBuilder setGssFunctionMapProvider(
       GssFunctionMapProvider gssFunctionMapProvider) {
     checkJobIsNotAlreadyCreated();
@@ -407,6 +436,17 @@ public class JobDescriptionBuilder {
     return this;
 }
 
+  /**
+   * Sets the rules browser prefixes are expanded with, by default the
+   * built-in ones.
+   */
+  public JobDescriptionBuilder setPrefixRules(BrowserPrefixRuleTable prefixRules) {
+    checkJobIsNotAlreadyCreated();
+    Preconditions.checkNotNull(prefixRules);
+    this.prefixRules = prefixRules;
+    return this;
+  }
+
   public JobDescriptionBuilder setAllowUnrecognizedProperties(boolean allow) {
     checkJobIsNotAlreadyCreated();
     this.allowUnrecognizedProperties = allow;
@@ -567,7 +607,9 @@ public class JobDescriptionBuilder {
         outputRenamingMapFormat, inputRenamingMap, preserveComments,
         suppressDependencyCheck, compileConstants,
         createSourceMap, sourceMapLevel, preserveImportantComments,
-        skipHtmlEscaping, sourceMapIncludeContent, rootSelector, prefixes);
+        skipHtmlEscaping, sourceMapIncludeContent, rootSelector, prefixes,
+        passObserver, threadCount, deadStyleElimination, prefixRules,
+        useGssLexer);
     return job;
   }
 
@@ -591,4 +633,35 @@ public class JobDescriptionBuilder {
     return this;
   }
 
+  public JobDescriptionBuilder setPassObserver(PassObserver passObserver) {
+    checkJobIsNotAlreadyCreated();
+    this.passObserver = passObserver;
+    return this;
+  }
+
+  /**
+   * Sets the number of threads the compiler may use. With more than one
+   * thread, the inputs are parsed in parallel, and unless {@code @def}s
+   * propagate between them, also compiled in parallel. The output is the
+   * same.
+   */
+  public JobDescriptionBuilder setThreadCount(int threadCount) {
+    checkJobIsNotAlreadyCreated();
+    Preconditions.checkArgument(threadCount > 0,
+        "The thread count must be positive: %s", threadCount);
+    this.threadCount = threadCount;
+    return this;
+  }
+
+  /**
+   * Sets whether the inputs are tokenized with the hand-written
+   * {@code GssLexer} instead of the generated token manager. Both produce
+   * the same tokens, so the output is the same.
+   */
+  public JobDescriptionBuilder setUseGssLexer(boolean useGssLexer) {
+    checkJobIsNotAlreadyCreated();
+    this.useGssLexer = useGssLexer;
+    return this;
+  }
+
 }
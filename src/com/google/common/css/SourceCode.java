@@ -18,6 +18,8 @@ package com.google.common.css;
 
 import com.google.common.base.Preconditions;
 
+import java.util.Arrays;
+
 import javax.annotation.Nullable;
 
 /**
@@ -25,12 +27,23 @@ import javax.annotation.Nullable;
  * both the file name and the file contents, so that the parser does not have
  * to deal with IO.
  *
+ * <p>The contents may be any {@link CharSequence}, e.g. a view of a
+ * memory-mapped file, in which case the parser reads them in place and they
+ * are only copied into a string if {@link #getFileContents} is called.
+ *
  * <p>Instances of this class are immutable.
  *
  */
 public final class SourceCode {
   private final String fileName;
-  private final String fileContents;
+  private final CharSequence fileContents;
+  /** The contents as a string, only computed when first asked for. */
+  private volatile String fileContentsString;
+  /**
+   * The character index at which each line starts, line 1 first. It is only
+   * computed when a line number is first asked for.
+   */
+  private volatile int[] lineStarts;
 
   /**
    * Constructs a {@code SourceCode}. At least one of fileName and fileContents
@@ -42,20 +55,91 @@ public final class SourceCode {
    *     the file contents is not yet known (the file has not yet been read)
    */
   public SourceCode(@Nullable String fileName, @Nullable String fileContents) {
+    this(fileName, (CharSequence) fileContents);
+  }
+
+  /**
+   * Constructs a {@code SourceCode} whose contents are read in place. The
+   * contents must not change as long as the source code is in use.
+   *
+   * @param fileName the name of the source code file or {@code null} if the
+   *     input does not come from a file
+   * @param fileContents the contents of the source code file or {@code null} if
+   *     the file contents is not yet known (the file has not yet been read)
+   */
+  public SourceCode(@Nullable String fileName, @Nullable CharSequence fileContents) {
     Preconditions.checkArgument(fileName != null || fileContents != null);
     this.fileName = fileName;
     this.fileContents = fileContents;
+    if (fileContents instanceof String) {
+      this.fileContentsString = (String) fileContents;
+    }
   }
 
   public String getFileName() {
     return fileName;
   }
 
+  /**
+   * Returns the contents as a string. Contents given as another kind of
+   * {@link CharSequence} are copied into a string the first time.
+   */
   public String getFileContents() {
+    String contents = fileContentsString;
+    if (contents == null && fileContents != null) {
+      contents = fileContents.toString();
+      fileContentsString = contents;
+    }
+    return contents;
+  }
+
+  /**
+   * Returns the contents as they were given, without copying them.
+   */
+  public CharSequence getFileContentsAsCharSequence() {
     return fileContents;
   }
 
   int getFileContentsLength() {
     return fileContents.length();
   }
+
+  /**
+   * Returns the number of the line that contains the character at the given
+   * index. Lines are separated by {@code '\n'}, which belongs to the line it
+   * ends, and numbers start at 1.
+   */
+  int getLineNumber(int characterIndex) {
+    int i = Arrays.binarySearch(getLineStarts(), characterIndex);
+    return i >= 0 ? i + 1 : -i - 1;
+  }
+
+  /**
+   * Returns the character index at which the given line starts.
+   */
+  int getLineStart(int lineNumber) {
+    return getLineStarts()[lineNumber - 1];
+  }
+
+  private int[] getLineStarts() {
+    int[] starts = lineStarts;
+    if (starts == null) {
+      Preconditions.checkState(fileContents != null,
+          "The contents of %s are not known", fileName);
+      int[] buffer = new int[16];
+      int count = 1;
+      int length = fileContents.length();
+      for (int i = 0; i < length; i++) {
+        if (fileContents.charAt(i) == '\n') {
+          if (count == buffer.length) {
+            buffer = Arrays.copyOf(buffer, count * 2);
+          }
+          buffer[count++] = i + 1;
+        }
+      }
+      starts = Arrays.copyOf(buffer, count);
+      lineStarts = starts;
+    }
+    return starts;
+  }
 }
@@ -21,6 +21,7 @@ import com.google.common.base.Function;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Iterables;
 import com.google.common.primitives.Ints;
+import java.util.Arrays;
 import java.util.Iterator;
 import javax.annotation.Nullable;
 
@@ -39,6 +40,10 @@ import javax.annotation.Nullable;
  * error has been detected at that point but there is no information regarding
  * the actual token that caused the error.
  *
+ * <p>Locations created by the parser only hold the character indexes of their
+ * begin and end points; line numbers and indexes in lines are derived from the
+ * source code when they are asked for, e.g. for error messages and source maps.
+ *
  * <p>Instances of this class are immutable.
  *
  */
@@ -203,11 +208,32 @@ public class SourceCodeLocation implements Comparable<SourceCodeLocation> {
         0 /* endLineNumber */,
         0 /* endIndexInLine */);
     Preconditions.checkState(result.isUnknown());
-    Preconditions.checkState(result.begin.hasValidUnknownCoordinates());
-    Preconditions.checkState(result.end.hasValidUnknownCoordinates());
+    Preconditions.checkState(result.getBegin().hasValidUnknownCoordinates());
+    Preconditions.checkState(result.getEnd().hasValidUnknownCoordinates());
     return result;
   }
 
+  /**
+   * Returns the location of the characters between the given indexes of a
+   * source code whose contents are known. The line numbers and the indexes in
+   * the lines are derived from the contents when they are asked for, so the
+   * location only holds the two character indexes.
+   *
+   * @param sourceCode the source code the indexes point into
+   * @param beginCharacterIndex the index of the first character
+   * @param endCharacterIndex the index of the character after the last one
+   */
+  public static SourceCodeLocation fromCharacterIndexes(SourceCode sourceCode,
+      int beginCharacterIndex, int endCharacterIndex) {
+    Preconditions.checkNotNull(sourceCode);
+    Preconditions.checkArgument(beginCharacterIndex >= 0,
+        "The character index %s is not valid.", beginCharacterIndex);
+    Preconditions.checkArgument(beginCharacterIndex <= endCharacterIndex,
+        "Beginning location must come before the end location.");
+    return new SourceCodeLocation(sourceCode,
+        pack(beginCharacterIndex, endCharacterIndex), null /* lineCoordinates */);
+  }
+
   /**
    * Returns a new SourceCodeLocation which covers everything between the beginning of the first
    * location and the end of the second location.
@@ -226,14 +252,7 @@ public class SourceCodeLocation implements Comparable<SourceCodeLocation> {
         "Begin location %s must be less than or equal to end location %s",
         beginLocation,
         endLocation);
-    return new SourceCodeLocation(
-        beginLocation.sourceCode,
-        beginLocation.getBeginCharacterIndex(),
-        beginLocation.getBeginLineNumber(),
-        beginLocation.getBeginIndexInLine(),
-        endLocation.getEndCharacterIndex(),
-        endLocation.getEndLineNumber(),
-        endLocation.getEndIndexInLine());
+    return between(beginLocation, endLocation);
   }
 
   /**
@@ -253,21 +272,21 @@ public class SourceCodeLocation implements Comparable<SourceCodeLocation> {
     }
 
     SourceCode sourceCode = loc.sourceCode;
-    SourceCodePoint begin = loc.begin;
-    SourceCodePoint end = loc.end;
+    SourceCodeLocation begin = loc;
+    SourceCodeLocation end = loc;
     while (i.hasNext()) {
       loc = i.next();
       if (loc == null || loc.isUnknown() || !loc.sourceCode.equals(sourceCode)) {
         continue;
       }
-      if (loc.begin.compareTo(begin) < 0) {
-        begin = loc.begin;
+      if (loc.getBeginCharacterIndex() < begin.getBeginCharacterIndex()) {
+        begin = loc;
       }
-      if (loc.end.compareTo(end) > 0) {
-        end = loc.end;
+      if (loc.getEndCharacterIndex() > end.getEndCharacterIndex()) {
+        end = loc;
       }
     }
-    return new SourceCodeLocation(sourceCode, begin, end);
+    return between(begin, end);
   }
 
   /**
@@ -278,28 +297,70 @@ public class SourceCodeLocation implements Comparable<SourceCodeLocation> {
     return mergeAll(Iterables.transform(locations, LOCATABLE_TO_LOCATION));
   }
 
+  /**
+   * Returns the location from the beginning of the first location to the end
+   * of the second one, which must be in the same source code. It only holds
+   * character indexes if both of them do.
+   */
+  private static SourceCodeLocation between(
+      SourceCodeLocation beginLocation, SourceCodeLocation endLocation) {
+    if (beginLocation == endLocation) {
+      return beginLocation;
+    }
+    long characterIndexes = pack(beginLocation.getBeginCharacterIndex(),
+        endLocation.getEndCharacterIndex());
+    if (beginLocation.lineCoordinates == null
+        && endLocation.lineCoordinates == null) {
+      return new SourceCodeLocation(beginLocation.sourceCode, characterIndexes,
+          null /* lineCoordinates */);
+    }
+    return new SourceCodeLocation(beginLocation.sourceCode, characterIndexes,
+        new int[] {
+          beginLocation.getBeginLineNumber(),
+          beginLocation.getBeginIndexInLine(),
+          endLocation.getEndLineNumber(),
+          endLocation.getEndIndexInLine()});
+  }
+
+  private static long pack(int beginCharacterIndex, int endCharacterIndex) {
+    return ((long) beginCharacterIndex << 32) | (endCharacterIndex & 0xffffffffL);
+  }
+
   private final SourceCode sourceCode;
 
   /**
-   * The sequence starts at the character immediately following the begin point.
+   * The index of the character immediately following the begin point in the
+   * upper half, and the one of the character immediately following the end
+   * point in the lower half. The sequence starts at the former and ends right
+   * before the latter; the empty sequence's begin and end are the same.
    */
-  private final SourceCodePoint begin;
+  private final long characterIndexes;
 
   /**
-   * The sequence ends at the character immediately before the end point. The
-   * character immediately after the end point (the one indicated by the end's
-   * {@link SourceCodePoint#characterIndex}) is not part of the sequence. The
-   * empty sequence's begin point and end point are the same:
-   * {@code begin.equals(end)}.
+   * The line numbers and the indexes in the lines of the begin and the end
+   * points, in that order, for locations created with explicit coordinates.
+   * When {@code null}, they are derived from the source code contents.
    */
-  private final SourceCodePoint end;
+  @Nullable
+  private final int[] lineCoordinates;
+
+  private SourceCodeLocation(SourceCode sourceCode, long characterIndexes,
+      @Nullable int[] lineCoordinates) {
+    this.sourceCode = sourceCode;
+    this.characterIndexes = characterIndexes;
+    this.lineCoordinates = lineCoordinates;
+  }
 
   @VisibleForTesting
   public SourceCodeLocation(SourceCode sourceCode, SourceCodePoint begin, SourceCodePoint end) {
     Preconditions.checkNotNull(sourceCode);
     this.sourceCode = sourceCode;
-    this.begin = begin;
-    this.end = end;
+    this.characterIndexes = pack(begin.getCharacterIndex(), end.getCharacterIndex());
+    this.lineCoordinates = new int[] {
+        begin.getLineNumber(),
+        begin.getIndexInLine(),
+        end.getLineNumber(),
+        end.getIndexInLine()};
     Preconditions.checkArgument(begin.compareTo(end) <= 0,
         "Beginning location must come before the end location.");
   }
@@ -324,12 +385,13 @@ public class SourceCodeLocation implements Comparable<SourceCodeLocation> {
   }
 
   public boolean isUnknown() {
-    Preconditions.checkState(begin.isUnknown() == end.isUnknown());
-    return begin.isUnknown();
+    Preconditions.checkState(
+        (getBeginCharacterIndex() == -1) == (getEndCharacterIndex() == -1));
+    return getBeginCharacterIndex() == -1;
   }
 
   public int getBeginCharacterIndex() {
-    return begin.getCharacterIndex();
+    return (int) (characterIndexes >>> 32);
   }
 
   /**
@@ -337,7 +399,10 @@ public class SourceCodeLocation implements Comparable<SourceCodeLocation> {
    * means the location is not known.
    */
   public int getBeginLineNumber() {
-    return begin.getLineNumber();
+    if (lineCoordinates != null) {
+      return lineCoordinates[0];
+    }
+    return sourceCode.getLineNumber(getBeginCharacterIndex());
   }
 
   /**
@@ -345,11 +410,16 @@ public class SourceCodeLocation implements Comparable<SourceCodeLocation> {
    * means the location is not known.
    */
   public int getBeginIndexInLine() {
-    return begin.getIndexInLine();
+    if (lineCoordinates != null) {
+      return lineCoordinates[1];
+    }
+    int characterIndex = getBeginCharacterIndex();
+    return characterIndex
+        - sourceCode.getLineStart(sourceCode.getLineNumber(characterIndex)) + 1;
   }
 
   public int getEndCharacterIndex() {
-    return end.getCharacterIndex();
+    return (int) characterIndexes;
   }
 
   /**
@@ -357,7 +427,10 @@ public class SourceCodeLocation implements Comparable<SourceCodeLocation> {
    * the location is not known.
    */
   public int getEndLineNumber() {
-    return end.getLineNumber();
+    if (lineCoordinates != null) {
+      return lineCoordinates[2];
+    }
+    return getDerivedEndLineNumber();
   }
 
   /**
@@ -365,7 +438,25 @@ public class SourceCodeLocation implements Comparable<SourceCodeLocation> {
    * means the location is not known.
    */
   public int getEndIndexInLine() {
-    return end.getIndexInLine();
+    if (lineCoordinates != null) {
+      return lineCoordinates[3];
+    }
+    return getEndCharacterIndex() - sourceCode.getLineStart(getDerivedEndLineNumber()) + 1;
+  }
+
+  /**
+   * Returns the line of the last character, rather than the one of the
+   * character after it: a sequence ending with a line break ends on the line
+   * of the break, past its last column, as the parser reports it.
+   */
+  private int getDerivedEndLineNumber() {
+    int characterIndex = getEndCharacterIndex();
+    int lineNumber = sourceCode.getLineNumber(characterIndex);
+    if (lineNumber > 1 && characterIndex > getBeginCharacterIndex()
+        && sourceCode.getLineStart(lineNumber) == characterIndex) {
+      lineNumber--;
+    }
+    return lineNumber;
   }
 
   public int getCharacterIndex() {
@@ -381,11 +472,13 @@ public class SourceCodeLocation implements Comparable<SourceCodeLocation> {
   }
 
   public SourceCodePoint getBegin() {
-    return begin;
+    return new SourceCodePoint(
+        getBeginCharacterIndex(), getBeginLineNumber(), getBeginIndexInLine());
   }
 
   public SourceCodePoint getEnd() {
-    return end;
+    return new SourceCodePoint(
+        getEndCharacterIndex(), getEndLineNumber(), getEndIndexInLine());
   }
 
   @Override
@@ -397,13 +490,34 @@ public class SourceCodeLocation implements Comparable<SourceCodeLocation> {
       return false;
     }
     SourceCodeLocation other = (SourceCodeLocation) o;
-    return sourceCode == other.sourceCode && begin.equals(other.begin)
-        && end.equals(other.end);
+    if (sourceCode != other.sourceCode
+        || characterIndexes != other.characterIndexes) {
+      return false;
+    }
+    if (lineCoordinates == null && other.lineCoordinates == null) {
+      // Both derive their lines from the same contents.
+      return true;
+    }
+    return getBeginLineNumber() == other.getBeginLineNumber()
+        && getBeginIndexInLine() == other.getBeginIndexInLine()
+        && getEndLineNumber() == other.getEndLineNumber()
+        && getEndIndexInLine() == other.getEndIndexInLine();
   }
 
+  /**
+   * Hashes the line coordinates along with the character indexes, deriving
+   * them if they were not given, so that a location with explicit coordinates
+   * hashes like an equal one without.
+   */
   @Override
   public int hashCode() {
-    return sourceCode.hashCode() ^ begin.hashCode() ^ (end.hashCode() << 16);
+    int hash = sourceCode.hashCode() ^ getBeginCharacterIndex()
+        ^ (getEndCharacterIndex() << 16);
+    return 31 * hash + Arrays.hashCode(new int[] {
+        getBeginLineNumber(),
+        getBeginIndexInLine(),
+        getEndLineNumber(),
+        getEndIndexInLine()});
   }
 
   /**
@@ -426,11 +540,12 @@ public class SourceCodeLocation implements Comparable<SourceCodeLocation> {
         return sourceCode.hashCode() - o.sourceCode.hashCode();
       }
     }
-    int startPointsComparison = begin.compareTo(o.begin);
+    int startPointsComparison =
+        Ints.compare(getBeginCharacterIndex(), o.getBeginCharacterIndex());
     if (startPointsComparison != 0) {
       return startPointsComparison;
     }
-    return end.compareTo(o.end);
+    return Ints.compare(getEndCharacterIndex(), o.getEndCharacterIndex());
   }
 
   @Override
@@ -438,9 +553,9 @@ public class SourceCodeLocation implements Comparable<SourceCodeLocation> {
     return String.format(
         "%s: [line %d, col %d -> line %d, col %d)", // half-open interval notation
         sourceCode.getFileName(),
-        begin.getLineNumber(),
-        begin.getIndexInLine(),
-        end.getLineNumber(),
-        end.getIndexInLine());
+        getBeginLineNumber(),
+        getBeginIndexInLine(),
+        getEndLineNumber(),
+        getEndIndexInLine());
   }
 }
@@ -15,10 +15,18 @@
  */
 package com.google.common.css.compiler.ast;
 
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
 import com.google.common.css.SourceCode;
 
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import javax.annotation.Nullable;
 
 /**
  * Base parser implementation that delegates management of the underlying
@@ -52,15 +60,95 @@ public abstract class AbstractGssParser {
     CssTree tree = new CssTree(globalSourceCode, new CssRootNode(globalBlock));
     ImmutableList.Builder<GssParserException> builder =
         ImmutableList.builder();
+    // The sources share a table, so that the names they repeat are one
+    // string in the tree.
+    IdentifierTable identifiers = new IdentifierTable();
     for (SourceCode source : sources) {
-      getParser().parse(globalBlock, source, errorHandling, builder);
+      GssParserCC parser = getParser();
+      parser.setIdentifierTable(identifiers);
+      parser.parse(globalBlock, source, errorHandling, builder);
+    }
+    return new ParseResult(tree, builder.build());
+  }
+
+  /**
+   * Parses a list of GSS sources like {@link #parseInternal(List, boolean)},
+   * but parses each source into a block of its own on the given executor.
+   * The blocks are then spliced into the global block in input order, so the
+   * resulting tree and the order of the errors are the same as for a
+   * sequential parse. If error handling is disabled, the exception of the
+   * first source that fails to parse is thrown, as sources after it would
+   * not have been parsed. Each source interns its names in a table of its
+   * own, as the tables are not thread-safe.
+   *
+   * @param sources a list of GSS {@link SourceCode} objects to parse
+   * @param errorHandling if error handling should be enabled
+   * @param executor the executor to parse on, or {@code null} to parse
+   *     sequentially on the calling thread
+   * @return ParseResult the result containing the {@link CssTree} and
+   *     parsing errors
+   */
+  protected final ParseResult parseInternal(List<SourceCode> sources,
+      final boolean errorHandling, @Nullable ExecutorService executor)
+      throws GssParserException {
+    if (executor == null || sources.size() < 2) {
+      return parseInternal(sources, errorHandling);
+    }
+    List<Future<ParseResult>> futures =
+        Lists.newArrayListWithCapacity(sources.size());
+    for (final SourceCode source : sources) {
+      futures.add(executor.submit(new Callable<ParseResult>() {
+        @Override
+        public ParseResult call() throws GssParserException {
+          return parseInternal(ImmutableList.of(source), errorHandling);
+        }
+      }));
+    }
+
+    SourceCode globalSourceCode = new SourceCode("global", null);
+    CssBlockNode globalBlock =
+        new CssBlockNode(false /* isEnclosedWithBraces */);
+    CssTree tree = new CssTree(globalSourceCode, new CssRootNode(globalBlock));
+    ImmutableList.Builder<GssParserException> builder =
+        ImmutableList.builder();
+    try {
+      for (Future<ParseResult> future : futures) {
+        ParseResult result = getResult(future);
+        CssBlockNode block = result.getCssTree().getRoot().getBody();
+        // Adding a child to the global block also detaches it from its
+        // former parent, so the nodes are moved rather than copied.
+        for (CssNode child : Lists.newArrayList(block.getChildren())) {
+          globalBlock.addChildToBack(child);
+        }
+        builder.addAll(result.getHandledErrors());
+      }
+    } finally {
+      for (Future<ParseResult> future : futures) {
+        future.cancel(false /* mayInterruptIfRunning */);
+      }
     }
     return new ParseResult(tree, builder.build());
   }
 
+  private static ParseResult getResult(Future<ParseResult> future)
+      throws GssParserException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    } catch (ExecutionException e) {
+      Throwables.throwIfInstanceOf(e.getCause(), GssParserException.class);
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new RuntimeException(e.getCause());
+    }
+  }
+
   /**
    * Implementations must return an empty {@code GssParserCC} object. Whether
    * this object is actually new or not isn't important which allows pooling.
+   * When parsing on an executor this method is called from several threads
+   * at once, so pooled parsers must not be handed out twice concurrently.
    */
   protected abstract GssParserCC getParser();
 
@@ -16,8 +16,10 @@
 
 package com.google.common.css.compiler.ast;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 
+import java.util.List;
 import java.util.SortedSet;
 
 /**
@@ -44,15 +46,26 @@ public abstract class BasicErrorManager implements ErrorManager {
 
   @Override
   public void generateReport() {
+    for (String msg : getReport()) {
+      print(msg);
+    }
+  }
+
+  /**
+   * Returns the messages {@link #generateReport()} prints, in order.
+   */
+  public List<String> getReport() {
     SortedSet<GssError> all = Sets.newTreeSet();
     all.addAll(warnings);
     all.addAll(errors);
+    List<String> report = Lists.newArrayListWithCapacity(all.size() + 1);
     for (GssError error : all) {
-      print(error.format());
+      report.add(error.format());
     }
     if (!all.isEmpty()) {
-      print(errors.size() + " error(s), " + warnings.size() + " warning(s)\n");
+      report.add(errors.size() + " error(s), " + warnings.size() + " warning(s)\n");
     }
+    return report;
   }
 
   public int getErrorCount() {
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.ast;
+
+import com.google.common.collect.Lists;
+
+import java.util.List;
+
+/**
+ * An error manager that keeps the errors and warnings reported to it, in the
+ * order they were reported, so that they can be passed on to another error
+ * manager with {@link #reportTo}. This lets work done concurrently report its
+ * errors in a deterministic order, and work that is reused report them
+ * again.
+ */
+public final class BufferedErrorManager implements ErrorManager {
+
+  private final List<GssError> reported = Lists.newArrayList();
+  private final List<Boolean> isWarning = Lists.newArrayList();
+  private boolean hasErrors = false;
+
+  @Override
+  public void report(GssError error) {
+    reported.add(error);
+    isWarning.add(false);
+    hasErrors = true;
+  }
+
+  @Override
+  public void reportWarning(GssError warning) {
+    reported.add(warning);
+    isWarning.add(true);
+  }
+
+  /**
+   * Not supported, the errors are reported by the error manager they are
+   * passed on to.
+   */
+  @Override
+  public void generateReport() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public boolean hasErrors() {
+    return hasErrors;
+  }
+
+  /**
+   * Reports the buffered errors and warnings to the given error manager, in
+   * the order they were reported.
+   */
+  public void reportTo(ErrorManager errorManager) {
+    for (int i = 0; i < reported.size(); i++) {
+      if (isWarning.get(i)) {
+        errorManager.reportWarning(reported.get(i));
+      } else {
+        errorManager.report(reported.get(i));
+      }
+    }
+  }
+}
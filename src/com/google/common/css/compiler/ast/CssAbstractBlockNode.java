@@ -57,20 +57,33 @@ public abstract class CssAbstractBlockNode
    * Copy constructor.
    */
   public CssAbstractBlockNode(CssAbstractBlockNode node) {
+    this(node, true /* copyChildren */);
+  }
+
+  /**
+   * Copy constructor that may leave out the children. The copy keeps the
+   * source code location of the block either way.
+   */
+  CssAbstractBlockNode(CssAbstractBlockNode node, boolean copyChildren) {
     super(node.isEnclosedWithBraces(), node.getComments());
     this.setParent(node.getParent());
     this.setSourceCodeLocation(node.getSourceCodeLocation());
     // The valid superclasses have to be set before children are added.
     this.validNodeClasses = node.validNodeClasses;
-    for (CssNode child : node.childIterable()) {
-      CssNode childCopy = child.deepCopy();
-      addChildToBack(childCopy);
+    if (copyChildren) {
+      for (CssNode child : node.childIterable()) {
+        CssNode childCopy = child.deepCopy();
+        addChildToBack(childCopy);
+      }
     }
   }
 
   @Override
   public abstract CssAbstractBlockNode deepCopy();
 
+  /** Returns a copy of this block without its children. */
+  public abstract CssAbstractBlockNode shallowCopy();
+
   @Override
   public void addChildToBack(CssNode child) {
     checkChild(child);
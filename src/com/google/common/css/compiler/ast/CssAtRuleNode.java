@@ -194,8 +194,12 @@ public abstract class CssAtRuleNode extends CssNodesListNode<CssValueNode> {
   }
 
   CssAtRuleNode(CssAtRuleNode node) {
-    this(node.getType(), node.getName().deepCopy(),
-        node.getBlock() != null ? node.getBlock().deepCopy() : null,
+    this(node, node.getBlock() != null ? node.getBlock().deepCopy() : null);
+  }
+
+  /** Copy constructor that takes the copy of the block. */
+  CssAtRuleNode(CssAtRuleNode node, @Nullable CssAbstractBlockNode block) {
+    this(node.getType(), node.getName().deepCopy(), block,
         deepCopyNodes(node.getComments()));
     setParameters(deepCopyNodes(node.getParameters()));
     setSourceCodeLocation(node.getSourceCodeLocation());
@@ -214,6 +218,7 @@ public abstract class CssAtRuleNode extends CssNodesListNode<CssValueNode> {
     removeAsParentOfNode(this.name);
     this.name = name;
     becomeParentForNode(this.name);
+    invalidateStructuralHashCode();
   }
 
   public List<CssValueNode> getParameters() {
@@ -242,6 +247,7 @@ public abstract class CssAtRuleNode extends CssNodesListNode<CssValueNode> {
     removeAsParentOfNode(this.block);
     this.block = block;
     becomeParentForNode(this.block);
+    invalidateStructuralHashCode();
   }
 
   /**
@@ -261,4 +267,17 @@ public abstract class CssAtRuleNode extends CssNodesListNode<CssValueNode> {
 
     return output;
   }
+
+  // At-rules print their name, parameters and block rather than a list of
+  // children, so they are compared by their string representation.
+
+  @Override
+  int computeStructuralHashCode() {
+    return toString().hashCode();
+  }
+
+  @Override
+  boolean hasSameStructure(CssNode other) {
+    return toString().equals(other.toString());
+  }
 }
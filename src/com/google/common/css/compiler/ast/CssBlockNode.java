@@ -48,8 +48,17 @@ public class CssBlockNode extends CssAbstractBlockNode {
     super(node);
   }
 
+  private CssBlockNode(CssBlockNode node, boolean copyChildren) {
+    super(node, copyChildren);
+  }
+
   @Override
   public CssBlockNode deepCopy() {
     return new CssBlockNode(this);
   }
+
+  @Override
+  public CssBlockNode shallowCopy() {
+    return new CssBlockNode(this, false /* copyChildren */);
+  }
 }
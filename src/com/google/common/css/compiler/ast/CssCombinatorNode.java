@@ -104,6 +104,7 @@ public class CssCombinatorNode extends CssNode {
     }
     this.selector = selector;
     becomeParentForNode(this.selector);
+    invalidateStructuralHashCode();
   }
 
   public Combinator getCombinatorType() {
@@ -157,6 +157,7 @@ public class CssCompositeValueNode extends CssValueNode {
   void addValue(CssValueNode value) {
     values.add(value);
     becomeParentForNode(value);
+    invalidateStructuralHashCode();
   }
 
   public Operator getOperator() {
@@ -172,4 +173,32 @@ public class CssCompositeValueNode extends CssValueNode {
     String value = Joiner.on(operator.getOperatorName()).join(values);
     return hasParenthesis ? "(" + value + ")" : value;
   }
+
+  @Override
+  int computeStructuralHashCode() {
+    int hash = 31 * operator.hashCode() + (hasParenthesis ? 1 : 0);
+    for (int i = 0; i < values.size(); i++) {
+      hash = 31 * hash + values.get(i).structuralHashCode();
+    }
+    return hash;
+  }
+
+  @Override
+  boolean hasSameStructure(CssNode other) {
+    if (other.getClass() != getClass()) {
+      return false;
+    }
+    CssCompositeValueNode composite = (CssCompositeValueNode) other;
+    if (operator != composite.operator
+        || hasParenthesis != composite.hasParenthesis
+        || values.size() != composite.values.size()) {
+      return false;
+    }
+    for (int i = 0; i < values.size(); i++) {
+      if (!values.get(i).structurallyEquals(composite.values.get(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
 }
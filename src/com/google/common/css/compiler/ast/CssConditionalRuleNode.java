@@ -95,6 +95,7 @@ public class CssConditionalRuleNode extends CssAtRuleNode {
     Preconditions.checkState(getType() != Type.ELSE);
     Preconditions.checkState(getParametersCount() <= 1);
     this.setParameters(ImmutableList.<CssValueNode>of(condition));
+    invalidateStructuralHashCode();
   }
 
   @Override
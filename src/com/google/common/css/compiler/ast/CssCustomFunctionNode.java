@@ -90,6 +90,17 @@ public class CssCustomFunctionNode extends CssFunctionNode
     return gssFunctionName + super.toString();
   }
 
+  @Override
+  int computeStructuralHashCode() {
+    return 31 * gssFunctionName.hashCode() + super.computeStructuralHashCode();
+  }
+
+  @Override
+  boolean hasSameStructure(CssNode other) {
+    return super.hasSameStructure(other)
+        && gssFunctionName.equals(((CssCustomFunctionNode) other).gssFunctionName);
+  }
+
   /** {@inheritDoc} */
   @Override
   public void setArguments(CssFunctionArgumentsNode arguments) {
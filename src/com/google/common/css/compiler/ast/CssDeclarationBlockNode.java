@@ -38,10 +38,20 @@ public class CssDeclarationBlockNode extends CssAbstractBlockNode {
     super(node);
   }
 
+  private CssDeclarationBlockNode(CssDeclarationBlockNode node,
+      boolean copyChildren) {
+    super(node, copyChildren);
+  }
+
   @Override
   public CssDeclarationBlockNode deepCopy() {
     return new CssDeclarationBlockNode(this);
   }
+
+  @Override
+  public CssDeclarationBlockNode shallowCopy() {
+    return new CssDeclarationBlockNode(this, false /* copyChildren */);
+  }
   public void removeChildren() {
     this.removeAsParentOfNodes(this.children);
   }
@@ -134,6 +134,7 @@ public class CssDeclarationNode extends CssNode {
     removeAsParentOfNode(this.propertyName);
     this.propertyName = propertyName;
     becomeParentForNode(this.propertyName);
+    invalidateStructuralHashCode();
   }
 
   public CssPropertyValueNode getPropertyValue() {
@@ -145,6 +146,7 @@ public class CssDeclarationNode extends CssNode {
     removeAsParentOfNode(this.propertyValue);
     this.propertyValue = propertyValue;
     becomeParentForNode(this.propertyValue);
+    invalidateStructuralHashCode();
   }
 
   /**
@@ -154,6 +156,7 @@ public class CssDeclarationNode extends CssNode {
    */
   public void setStarHack(boolean hasStarHack) {
     this.hasStarHack = hasStarHack;
+    invalidateStructuralHashCode();
   }
 
   /**
@@ -186,4 +189,24 @@ public class CssDeclarationNode extends CssNode {
 
     return output;
   }
+
+  @Override
+  int computeStructuralHashCode() {
+    // Like toString(), the star hack takes the place of the comments.
+    int hash = hasStarHack ? 1 : commentsHashCode();
+    hash = 31 * hash + propertyName.getValue().hashCode();
+    return 31 * hash + propertyValue.structuralHashCode();
+  }
+
+  @Override
+  boolean hasSameStructure(CssNode other) {
+    if (other.getClass() != getClass()) {
+      return false;
+    }
+    CssDeclarationNode declaration = (CssDeclarationNode) other;
+    return hasStarHack == declaration.hasStarHack
+        && (hasStarHack || hasSameComments(declaration))
+        && propertyName.getValue().equals(declaration.propertyName.getValue())
+        && propertyValue.structurallyEquals(declaration.propertyValue);
+  }
 }
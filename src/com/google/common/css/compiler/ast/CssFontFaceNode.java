@@ -46,7 +46,13 @@ public class CssFontFaceNode extends CssAtRuleNode implements ChunkAware {
 
   /** Copy constructor so this can be cloned by {@link #deepCopy()}. */
   private CssFontFaceNode(CssFontFaceNode node) {
-    super(node);
+    this(node, node.getBlock() != null ? node.getBlock().deepCopy() : null);
+  }
+
+  /** Copy constructor that takes the copy of the block. */
+  CssFontFaceNode(CssFontFaceNode node,
+      @Nullable CssDeclarationBlockNode block) {
+    super(node, block);
     this.chunk = node.getChunk();
   }
 
@@ -61,6 +67,12 @@ public class CssFontFaceNode extends CssAtRuleNode implements ChunkAware {
     return new CssFontFaceNode(this);
   }
 
+  /** Returns a copy of this rule whose block is empty. */
+  public CssFontFaceNode shallowCopy() {
+    return new CssFontFaceNode(this,
+        getBlock() != null ? getBlock().shallowCopy() : null);
+  }
+
   @Override
   public void setChunk(Object chunk) {
     this.chunk = chunk;
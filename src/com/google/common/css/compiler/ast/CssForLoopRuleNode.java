@@ -76,14 +76,17 @@ public class CssForLoopRuleNode extends CssAtRuleNode {
 
   public void setFrom(CssValueNode value) {
     from = value;
+    invalidateStructuralHashCode();
   }
 
   public void setTo(CssValueNode value) {
     to = value;
+    invalidateStructuralHashCode();
   }
 
   public void setStep(CssValueNode value) {
     step = value;
+    invalidateStructuralHashCode();
   }
 
   public String getVariableName() {
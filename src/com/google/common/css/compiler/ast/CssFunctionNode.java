@@ -16,6 +16,7 @@
 
 package com.google.common.css.compiler.ast;
 
+import com.google.common.base.Objects;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.css.SourceCodeLocation;
@@ -293,6 +294,7 @@ public class CssFunctionNode extends CssValueNode implements ChunkAware {
     removeAsParentOfNode(this.arguments);
     this.arguments = arguments;
     becomeParentForNode(this.arguments);
+    invalidateStructuralHashCode();
   }
 
   @Override
@@ -309,6 +311,40 @@ public class CssFunctionNode extends CssValueNode implements ChunkAware {
     return output.toString();
   }
 
+  @Override
+  int computeStructuralHashCode() {
+    // Like toString(), the comments of the arguments are left out.
+    int hash = Objects.hashCode(function.getFunctionName());
+    List<CssValueNode> args = getArguments().getChildren();
+    for (int i = 0; i < args.size(); i++) {
+      hash = 31 * hash + args.get(i).structuralHashCode();
+    }
+    return hash;
+  }
+
+  @Override
+  boolean hasSameStructure(CssNode other) {
+    if (other.getClass() != getClass()) {
+      return false;
+    }
+    CssFunctionNode otherFunction = (CssFunctionNode) other;
+    if (!Objects.equal(function.getFunctionName(),
+        otherFunction.function.getFunctionName())) {
+      return false;
+    }
+    List<CssValueNode> args = getArguments().getChildren();
+    List<CssValueNode> otherArgs = otherFunction.getArguments().getChildren();
+    if (args.size() != otherArgs.size()) {
+      return false;
+    }
+    for (int i = 0; i < args.size(); i++) {
+      if (!args.get(i).structurallyEquals(otherArgs.get(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   @Override
   public Object getChunk() {
     return chunk;
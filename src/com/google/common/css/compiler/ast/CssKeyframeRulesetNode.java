@@ -82,15 +82,27 @@ public class CssKeyframeRulesetNode extends CssNode {
    * @param node
    */
   public CssKeyframeRulesetNode(CssKeyframeRulesetNode node) {
-    this(node.getDeclarations().deepCopy());
+    this(node, node.getDeclarations().deepCopy());
+  }
+
+  /** Copy constructor that takes the copy of the declarations. */
+  CssKeyframeRulesetNode(CssKeyframeRulesetNode node,
+      CssDeclarationBlockNode declarations) {
+    this(declarations);
     this.setComments(node.getComments());
     this.keys = node.getKeys().deepCopy();
+    becomeParentForNode(this.keys);
   }
   
   @Override
   public CssKeyframeRulesetNode deepCopy() {
     return new CssKeyframeRulesetNode(this);
   }
+
+  /** Returns a copy of this keyframe ruleset whose declaration block is empty. */
+  public CssKeyframeRulesetNode shallowCopy() {
+    return new CssKeyframeRulesetNode(this, getDeclarations().shallowCopy());
+  }
   
   public CssKeyListNode getKeys() {
     return keys;
@@ -101,6 +113,7 @@ public class CssKeyframeRulesetNode extends CssNode {
     removeAsParentOfNode(this.keys);
     this.keys = keys;
     becomeParentForNode(this.keys);
+    invalidateStructuralHashCode();
   }
 
   public CssDeclarationBlockNode getDeclarations() {
@@ -30,7 +30,12 @@ public class CssKeyframesNode extends CssAtRuleNode implements ChunkAware {
   }
 
   public CssKeyframesNode(CssKeyframesNode node) {
-    super(node);
+    this(node, node.getBlock().deepCopy());
+  }
+
+  /** Copy constructor that takes the copy of the block. */
+  CssKeyframesNode(CssKeyframesNode node, CssBlockNode block) {
+    super(node, block);
     setChunk(node.getChunk());
   }
 
@@ -49,6 +54,11 @@ public class CssKeyframesNode extends CssAtRuleNode implements ChunkAware {
     return new CssKeyframesNode(this);
   }
 
+  /** Returns a copy of this rule whose block is empty. */
+  public CssKeyframesNode shallowCopy() {
+    return new CssKeyframesNode(this, getBlock().shallowCopy());
+  }
+
   /**
    * For debugging only.
    */
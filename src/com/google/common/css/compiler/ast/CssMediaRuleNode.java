@@ -56,8 +56,12 @@ public class CssMediaRuleNode extends CssAtRuleNode implements ChunkAware {
    * Copy constructor.
    */
   public CssMediaRuleNode(CssMediaRuleNode node) {
-    super(node);
+    this(node, node.getBlock().deepCopy());
+  }
 
+  /** Copy constructor that takes the copy of the block. */
+  CssMediaRuleNode(CssMediaRuleNode node, CssBlockNode block) {
+    super(node, block);
     this.chunk = node.getChunk();
   }
 
@@ -66,6 +70,11 @@ public class CssMediaRuleNode extends CssAtRuleNode implements ChunkAware {
     return new CssMediaRuleNode(this);
   }
 
+  /** Returns a copy of this rule whose block is empty. */
+  public CssMediaRuleNode shallowCopy() {
+    return new CssMediaRuleNode(this, getBlock().shallowCopy());
+  }
+
   @Override
   public CssBlockNode getBlock() {
     // This type is ensured by the constructor.
@@ -55,6 +55,7 @@ public class CssMixinDefinitionNode extends CssAtRuleNode {
     super(node);
     this.name = node.name;
     this.declarations = node.declarations.deepCopy();
+    becomeParentForNode(declarations);
     this.arguments = node.arguments.deepCopy();
   }
 
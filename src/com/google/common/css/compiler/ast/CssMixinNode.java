@@ -47,6 +47,7 @@ public class CssMixinNode extends CssAtRuleNode {
     super(node);
     this.definitionName = new String(node.definitionName);
     this.args = node.args.deepCopy();
+    becomeParentForNode(args);
   }
 
   @Override
@@ -43,6 +43,10 @@ public abstract class CssNode implements Locatable {
   private List<CssCommentNode> comments;
   /** Annotation of a node to show whether it should be flipped. */
   private boolean shouldBeFlipped = true;
+  /** The cached result of {@link #structuralHashCode()}. */
+  private int structuralHashCode;
+  /** Whether {@link #structuralHashCode} is up to date. */
+  private boolean hasStructuralHashCode = false;
 
   /**
    * Constructor of a node.
@@ -190,6 +194,7 @@ public abstract class CssNode implements Locatable {
   public void appendComment(CssCommentNode comment) {
     comments.add(comment);
     becomeParentForNode(comment);
+    invalidateStructuralHashCode();
   }
 
   public void setComments(List<CssCommentNode> comments) {
@@ -197,6 +202,7 @@ public abstract class CssNode implements Locatable {
     removeAsParentOfNodes(this.comments);
     this.comments = Lists.newArrayList(comments);
     becomeParentForNodes(this.comments);
+    invalidateStructuralHashCode();
   }
 
   public List<CssCommentNode> getComments() {
@@ -265,6 +271,76 @@ public abstract class CssNode implements Locatable {
     return super.hashCode();
   }
 
+  /**
+   * Returns a hash code of the structure of this node, which is the same for
+   * nodes that are {@linkplain #structurallyEquals structurally equal}. It is
+   * cached until this node or one of its descendants changes.
+   */
+  public final int structuralHashCode() {
+    if (!hasStructuralHashCode) {
+      structuralHashCode = computeStructuralHashCode();
+      hasStructuralHashCode = true;
+    }
+    return structuralHashCode;
+  }
+
+  /**
+   * Returns whether this node and the given one have the same structure,
+   * which means that they have the same {@link #toString()} representation.
+   * Declarations, values and selectors are compared child by child without
+   * building their strings, and most nodes that differ are told apart by
+   * their cached {@link #structuralHashCode()}.
+   */
+  public final boolean structurallyEquals(@Nullable CssNode other) {
+    if (other == this) {
+      return true;
+    }
+    if (other == null || structuralHashCode() != other.structuralHashCode()) {
+      return false;
+    }
+    return hasSameStructure(other);
+  }
+
+  /**
+   * Computes the structural hash code of this node. Nodes that hold children
+   * combine the structural hash codes of their children, the others hash
+   * their string representation.
+   */
+  int computeStructuralHashCode() {
+    return toString().hashCode();
+  }
+
+  /**
+   * Returns whether this node has the same structure as the given node,
+   * whose structural hash code is the same as the one of this node.
+   */
+  boolean hasSameStructure(CssNode other) {
+    return toString().equals(other.toString());
+  }
+
+  /** Hashes the comments the way {@link #hasSameComments} compares them. */
+  final int commentsHashCode() {
+    return comments.isEmpty() ? 0 : comments.toString().hashCode();
+  }
+
+  /** Returns whether the comments of the nodes print the same. */
+  final boolean hasSameComments(CssNode other) {
+    if (comments.isEmpty() || other.comments.isEmpty()) {
+      return comments.isEmpty() && other.comments.isEmpty();
+    }
+    return comments.toString().equals(other.comments.toString());
+  }
+
+  /**
+   * Forgets the structural hash codes of this node and of its ancestors. It
+   * is called whenever a node changes in a way that changes how it prints.
+   */
+  final void invalidateStructuralHashCode() {
+    for (CssNode node = this; node != null; node = node.parent) {
+      node.hasStructuralHashCode = false;
+    }
+  }
+
   /**
    * This is the default implementation of {@code toString()}.
    *
@@ -122,6 +122,7 @@ public abstract class CssNodesListNode<T extends CssNode> extends CssNode {
     removeAsParentOfNodes(this.children);
     this.children = copyToList(children);
     becomeParentForNodes(this.children);
+    invalidateStructuralHashCode();
   }
 
   T removeChildAt(int index) {
@@ -129,6 +130,7 @@ public abstract class CssNodesListNode<T extends CssNode> extends CssNode {
     T child = children.get(index);
     removeAsParentOfNode(child);
     children.remove(index);
+    invalidateStructuralHashCode();
     return child;
   }
 
@@ -140,6 +142,7 @@ public abstract class CssNodesListNode<T extends CssNode> extends CssNode {
     removeChildAt(index);
     children.addAll(index, newChildren);
     becomeParentForNodes(newChildren);
+    invalidateStructuralHashCode();
   }
 
   public T getChildAt(int index) {
@@ -163,6 +166,7 @@ public abstract class CssNodesListNode<T extends CssNode> extends CssNode {
     Preconditions.checkNotNull(child);
     this.children.add(child);
     becomeParentForNode(child);
+    invalidateStructuralHashCode();
   }
 
   public boolean isEmpty() {
@@ -191,6 +195,32 @@ public abstract class CssNodesListNode<T extends CssNode> extends CssNode {
     return output.toString();
   }
 
+  @Override
+  int computeStructuralHashCode() {
+    int hash = commentsHashCode();
+    for (int i = 0; i < children.size(); i++) {
+      hash = 31 * hash + children.get(i).structuralHashCode();
+    }
+    return hash;
+  }
+
+  @Override
+  boolean hasSameStructure(CssNode other) {
+    if (other.getClass() != getClass()) {
+      return false;
+    }
+    CssNodesListNode<?> list = (CssNodesListNode<?>) other;
+    if (children.size() != list.children.size() || !hasSameComments(list)) {
+      return false;
+    }
+    for (int i = 0; i < children.size(); i++) {
+      if (!children.get(i).structurallyEquals(list.children.get(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   @Override
   public SourceCodeLocation getSourceCodeLocation() {
     SourceCodeLocation location = super.getSourceCodeLocation();
@@ -38,7 +38,12 @@ public class CssPageRuleNode extends CssAtRuleNode {
    * Copy constructor.
    */
   public CssPageRuleNode(CssPageRuleNode node) {
-    super(node);
+    this(node, node.getBlock().deepCopy());
+  }
+
+  /** Copy constructor that takes the copy of the block. */
+  CssPageRuleNode(CssPageRuleNode node, CssDeclarationBlockNode block) {
+    super(node, block);
   }
 
   @Override
@@ -46,6 +51,11 @@ public class CssPageRuleNode extends CssAtRuleNode {
     return new CssPageRuleNode(this);
   }
 
+  /** Returns a copy of this rule whose block is empty. */
+  public CssPageRuleNode shallowCopy() {
+    return new CssPageRuleNode(this, getBlock().shallowCopy());
+  }
+
   @Override
   public CssDeclarationBlockNode getBlock() {
     // The type is ensured by the constructor.
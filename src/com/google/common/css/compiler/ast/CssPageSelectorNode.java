@@ -41,7 +41,12 @@ public class CssPageSelectorNode extends CssAtRuleNode {
    * Copy constructor.
    */
   public CssPageSelectorNode(CssPageSelectorNode node) {
-    super(node);
+    this(node, node.getBlock().deepCopy());
+  }
+
+  /** Copy constructor that takes the copy of the block. */
+  CssPageSelectorNode(CssPageSelectorNode node, CssDeclarationBlockNode block) {
+    super(node, block);
   }
 
   @Override
@@ -49,6 +54,11 @@ public class CssPageSelectorNode extends CssAtRuleNode {
     return new CssPageSelectorNode(this);
   }
 
+  /** Returns a copy of this rule whose block is empty. */
+  public CssPageSelectorNode shallowCopy() {
+    return new CssPageSelectorNode(this, getBlock().shallowCopy());
+  }
+
   @Override
   public CssDeclarationBlockNode getBlock() {
     // The type is ensured by the constructor.
@@ -83,7 +83,8 @@ public class CssPseudoClassNode extends CssRefinerNode {
   }
 
   public CssPseudoClassNode(CssPseudoClassNode node) {
-    this(node.functionType, node.refinerName, node.argument, node.notSelector,
+    this(node.functionType, node.refinerName, node.argument,
+        node.notSelector != null ? node.notSelector.deepCopy() : null,
         node.getSourceCodeLocation());
     this.setComments(node.getComments());
   }
@@ -112,6 +113,7 @@ public class CssPseudoClassNode extends CssRefinerNode {
 
   public void setArgument(String argument) {
     this.argument = argument;
+    invalidateStructuralHashCode();
   }
 
   public CssSelectorNode getNotSelector() {
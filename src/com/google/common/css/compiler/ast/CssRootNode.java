@@ -54,11 +54,17 @@ public class CssRootNode extends CssNode {
   }
 
   public CssRootNode(CssRootNode node) {
-    this(node.getBody().deepCopy());
+    this(node, node.getBody().deepCopy());
+  }
+
+  /** Copy constructor that takes the copy of the body. */
+  CssRootNode(CssRootNode node, CssBlockNode body) {
+    this(body);
     this.setParent(node.getParent());
     // TODO(oana): When charset rules are added to the tree, a deep copy of it
     // must be created here.
     this.importRules = node.getImportRules().deepCopy();
+    becomeParentForNode(this.importRules);
   }
 
   @Override
@@ -66,6 +72,11 @@ public class CssRootNode extends CssNode {
     return new CssRootNode(this);
   }
 
+  /** Returns a copy of this root whose body is empty. */
+  public CssRootNode shallowCopy() {
+    return new CssRootNode(this, getBody().shallowCopy());
+  }
+
   @Override
   void removeParent() {
     Preconditions.checkState(false,
@@ -86,6 +97,7 @@ public class CssRootNode extends CssNode {
     removeAsParentOfNode(this.charsetRule);
     this.charsetRule = charsetRule;
     becomeParentForNode(this.charsetRule);
+    invalidateStructuralHashCode();
   }
 
   public CssImportBlockNode getImportRules() {
@@ -96,6 +108,7 @@ public class CssRootNode extends CssNode {
     removeAsParentOfNode(this.importRules);
     this.importRules = importRules;
     becomeParentForNode(this.importRules);
+    invalidateStructuralHashCode();
   }
 
   public CssBlockNode getBody() {
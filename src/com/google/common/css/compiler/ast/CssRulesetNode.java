@@ -80,10 +80,16 @@ public class CssRulesetNode extends CssNode {
    * @param node
    */
   public CssRulesetNode(CssRulesetNode node) {
-    this(node.getDeclarations().deepCopy());
+    this(node, node.getDeclarations().deepCopy());
+  }
+
+  /** Copy constructor that takes the copy of the declarations. */
+  CssRulesetNode(CssRulesetNode node, CssDeclarationBlockNode declarations) {
+    this(declarations);
     this.setSourceCodeLocation(node.getSourceCodeLocation());
     this.setComments(node.getComments());
     this.selectors = node.getSelectors().deepCopy();
+    becomeParentForNode(this.selectors);
   }
 
   @Override
@@ -91,6 +97,11 @@ public class CssRulesetNode extends CssNode {
     return new CssRulesetNode(this);
   }
 
+  /** Returns a copy of this ruleset whose declaration block is empty. */
+  public CssRulesetNode shallowCopy() {
+    return new CssRulesetNode(this, getDeclarations().shallowCopy());
+  }
+
   public CssSelectorListNode getSelectors() {
     return selectors;
   }
@@ -100,6 +111,7 @@ public class CssRulesetNode extends CssNode {
     removeAsParentOfNode(this.selectors);
     this.selectors = selectors;
     becomeParentForNode(this.selectors);
+    invalidateStructuralHashCode();
   }
 
   public CssDeclarationBlockNode getDeclarations() {
@@ -89,6 +89,7 @@ public class CssSelectorNode extends CssNode implements ChunkAware {
     removeAsParentOfNode(this.refiners);
     this.refiners = refiners;
     becomeParentForNode(this.refiners);
+    invalidateStructuralHashCode();
   }
 
   public CssCombinatorNode getCombinator() {
@@ -101,10 +102,12 @@ public class CssSelectorNode extends CssNode implements ChunkAware {
     }
     this.combinator = combinator;
     becomeParentForNode(this.combinator);
+    invalidateStructuralHashCode();
   }
 
   public void setSelectorName(String selectorName) {
     this.selectorName = selectorName;
+    invalidateStructuralHashCode();
   }
 
   public String getSelectorName() {
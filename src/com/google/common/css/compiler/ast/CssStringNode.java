@@ -114,12 +114,13 @@ public class CssStringNode extends CssValueNode {
    */
   public CssStringNode(Type type, SourceCodeLocation location) {
     super("", location);
-    setConcreteValue(location.getSourceCode().getFileContents()
-                     .substring(location.getBeginCharacterIndex()
-                                // for the quote
-                                + 1,
-                                // we end after the quote, so adjust
-                                location.getEndCharacterIndex() - 1));
+    setConcreteValue(location.getSourceCode().getFileContentsAsCharSequence()
+                     .subSequence(location.getBeginCharacterIndex()
+                                  // for the quote
+                                  + 1,
+                                  // we end after the quote, so adjust
+                                  location.getEndCharacterIndex() - 1)
+                     .toString());
     this.type = type;
   }
 
@@ -55,8 +55,12 @@ public class CssSupportsRuleNode extends CssAtRuleNode implements ChunkAware {
    * Copy constructor.
    */
   public CssSupportsRuleNode(CssSupportsRuleNode node) {
-    super(node);
+    this(node, node.getBlock().deepCopy());
+  }
 
+  /** Copy constructor that takes the copy of the block. */
+  CssSupportsRuleNode(CssSupportsRuleNode node, CssBlockNode block) {
+    super(node, block);
     this.chunk = node.getChunk();
   }
 
@@ -65,6 +69,11 @@ public class CssSupportsRuleNode extends CssAtRuleNode implements ChunkAware {
     return new CssSupportsRuleNode(this);
   }
 
+  /** Returns a copy of this rule whose block is empty. */
+  public CssSupportsRuleNode shallowCopy() {
+    return new CssSupportsRuleNode(this, getBlock().shallowCopy());
+  }
+
   @Override
   public CssBlockNode getBlock() {
     // This type is ensured by the constructor.
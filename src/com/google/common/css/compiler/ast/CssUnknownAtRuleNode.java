@@ -18,6 +18,8 @@ package com.google.common.css.compiler.ast;
 
 import com.google.common.collect.ImmutableSet;
 
+import javax.annotation.Nullable;
+
 /**
  * An unknown or generic at-rule node.
  *
@@ -42,7 +44,13 @@ public class CssUnknownAtRuleNode extends CssAtRuleNode {
   }
 
   public CssUnknownAtRuleNode(CssUnknownAtRuleNode node) {
-    super(node);
+    this(node, node.getBlock() != null ? node.getBlock().deepCopy() : null);
+  }
+
+  /** Copy constructor that takes the copy of the block. */
+  CssUnknownAtRuleNode(CssUnknownAtRuleNode node,
+      @Nullable CssAbstractBlockNode block) {
+    super(node, block);
   }
 
   @Override
@@ -50,6 +58,12 @@ public class CssUnknownAtRuleNode extends CssAtRuleNode {
     return new CssUnknownAtRuleNode(this);
   }
 
+  /** Returns a copy of this rule whose block is empty. */
+  public CssUnknownAtRuleNode shallowCopy() {
+    return new CssUnknownAtRuleNode(this,
+        getBlock() != null ? getBlock().shallowCopy() : null);
+  }
+
   public boolean isOkWithoutProcessing() {
    return OK_WITHOUT_PROCESSING.contains(getName().getValue());
   }
@@ -92,6 +92,7 @@ public abstract class CssValueNode extends CssNode {
   public void setValue(String value) {
     Preconditions.checkNotNull(value);
     this.value = value;
+    invalidateStructuralHashCode();
   }
 
   public void setIsDefault(boolean isDefault) {
@@ -1494,6 +1494,7 @@ class DefaultVisitController implements MutatingVisitController {
     @Override
     public void removeCurrentChild() {
       children.remove(currentIndex);
+      node.invalidateStructuralHashCode();
       intervalueStateIsNext = false;
       doNotIncreaseIndex = true;
       if (currentIndex == children.size()) {
@@ -1536,6 +1537,7 @@ class DefaultVisitController implements MutatingVisitController {
 
       children.addAll(currentIndex, replacementNodes);
       node.becomeParentForNodes(replacementNodes);
+      node.invalidateStructuralHashCode();
       if (!visitTheReplacementNodes) {
         currentIndex += replacementNodes.size() - 1;
       } else {
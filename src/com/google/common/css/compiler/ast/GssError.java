@@ -49,14 +49,14 @@ public class GssError implements Comparable<GssError> {
 
   public String getLine() {
     if (line == null) {
-      String source = location.getSourceCode().getFileContents();
+      CharSequence source = location.getSourceCode().getFileContentsAsCharSequence();
       int beginLineIndex =
           location.getBeginCharacterIndex() - location.getBeginIndexInLine() + 1;
-      int endLineIndex = source.indexOf('\n', location.getBeginCharacterIndex());
-      if (endLineIndex == -1) {
-        endLineIndex = source.length();
+      int endLineIndex = location.getBeginCharacterIndex();
+      while (endLineIndex < source.length() && source.charAt(endLineIndex) != '\n') {
+        endLineIndex++;
       }
-      line = source.substring(beginLineIndex, endLineIndex);
+      line = source.subSequence(beginLineIndex, endLineIndex).toString();
     }
     return line;
   }
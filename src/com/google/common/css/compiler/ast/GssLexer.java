@@ -0,0 +1,528 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.ast;
+
+/**
+ * A hand-written token manager that produces the same tokens as the one
+ * JavaCC generates from {@code GssParserCC.jj}: same kinds, images, special
+ * tokens for comments and locations. Instead of reading the input one
+ * character at a time through {@link CharStream#readChar()} and backing up,
+ * it dispatches on the first character of a token and scans the input
+ * directly. Tokens that always have the same text share their image, as do
+ * tokens of a single ASCII character; other images are interned by the
+ * stream if it has an {@link IdentifierTable}.
+ *
+ * <p>Like the generated token manager, it returns the longest match of the
+ * token definitions, and the first definition among matches of the same
+ * length. The {@code match} and {@code skip} methods below follow the
+ * definitions of the grammar; each returns the end of its match, and the
+ * {@code match} methods set {@link #matchedKind}.
+ */
+class GssLexer extends GssParserCCTokenManager {
+
+  /** The kind of the special token of a comment. */
+  private static final int COMMENT = 1;
+
+  private static final String[] ASCII_IMAGES = new String[128];
+
+  static {
+    for (char c = 0; c < ASCII_IMAGES.length; c++) {
+      ASCII_IMAGES[c] = String.valueOf(c);
+    }
+  }
+
+  private final StringCharStream stream;
+  private final CharSequence input;
+  private final int length;
+
+  /** The index of the first character of the next token. */
+  private int pos;
+  private int matchedKind;
+
+  /** The line of the last located character. */
+  private int line = 1;
+  private int column;
+
+  /** The location of the last token, which is also the one of EOF. */
+  private int beginLine = 1;
+  private int beginColumn;
+
+  GssLexer(StringCharStream stream) {
+    super(stream);
+    this.stream = stream;
+    this.input = stream.getInput();
+    this.length = input.length();
+  }
+
+  @Override
+  public Token getNextToken() {
+    Token specialToken = null;
+    while (pos < length) {
+      int start = pos;
+      pos = match(start);
+      Token token = newToken(matchedKind, start, pos);
+      if (matchedKind != COMMENT) {
+        token.specialToken = specialToken;
+        return token;
+      }
+      if (specialToken != null) {
+        token.specialToken = specialToken;
+        specialToken.next = token;
+      }
+      specialToken = token;
+    }
+    Token eof = Token.newToken(EOF, jjstrLiteralImages[EOF]);
+    eof.beginLine = beginLine;
+    eof.beginColumn = beginColumn;
+    if (length > 0) {
+      locate(length - 1);
+    }
+    eof.endLine = line;
+    eof.endColumn = column;
+    eof.specialToken = specialToken;
+    return eof;
+  }
+
+  private Token newToken(int kind, int start, int end) {
+    String image = jjstrLiteralImages[kind];
+    if (image == null) {
+      char first = input.charAt(start);
+      image = end - start == 1 && first < ASCII_IMAGES.length
+          ? ASCII_IMAGES[first]
+          : stream.getImage(start, end);
+    }
+    Token token = Token.newToken(kind, image);
+    locate(start);
+    token.beginLine = beginLine = line;
+    token.beginColumn = beginColumn = column;
+    locate(end - 1);
+    token.endLine = line;
+    token.endColumn = column;
+    return token;
+  }
+
+  /**
+   * Sets the line and column of a character, which must not be before the
+   * last located one.
+   */
+  private void locate(int index) {
+    line = stream.getLineNumber(index, line);
+    column = index - stream.convertToCharacterIndex(line, 1) + 1;
+  }
+
+  private int match(int p) {
+    char c = input.charAt(p);
+    switch (c) {
+      case ' ':
+      case '\t':
+      case '\n':
+      case '\r':
+      case '\f':
+        return matchWhitespace(p);
+      case ';':
+        return matchChar(SEMICOLON, p);
+      case ':':
+        return matchChar(COLON, p);
+      case ',':
+        return matchChar(COMMA, p);
+      case '=':
+        return matchChar(EQUALS, p);
+      case '%':
+        return matchChar(PERCENT, p);
+      case '[':
+        return matchChar(LEFTSQUARE, p);
+      case ']':
+        return matchChar(RIGHTSQUARE, p);
+      case '(':
+        return matchChar(LEFTROUND, p);
+      case ')':
+        return matchChar(RIGHTROUND, p);
+      case '{':
+        return matchChar(LEFTBRACE, p);
+      case '}':
+        return matchChar(RIGHTBRACE, p);
+      case '+':
+        return matchChar(WPLUS, p);
+      case '>':
+        return matchChar(WGREATER, p);
+      case '~':
+        return charAt(p + 1) == '=' ? matchChars(TILDE_EQUALS, p, 2) : matchChar(WTILDE, p);
+      case '*':
+        return charAt(p + 1) == '='
+            ? matchChars(ASTERISK_EQUALS, p, 2) : matchChar(ASTERISK, p);
+      case '^':
+        return charAt(p + 1) == '=' ? matchChars(CARET_EQUALS, p, 2) : matchChar(CARET, p);
+      case '|':
+        if (charAt(p + 1) == '|') {
+          return matchChars(OR, p, 2);
+        }
+        return charAt(p + 1) == '=' ? matchChars(PIPE_EQUALS, p, 2) : matchChar(BAD_TOKEN, p);
+      case '&':
+        return charAt(p + 1) == '&' ? matchChars(AND, p, 2) : matchChar(BAD_TOKEN, p);
+      case '$':
+        if (charAt(p + 1) == '=') {
+          return matchChars(DOLLAR_EQUALS, p, 2);
+        }
+        return isNameStart(charAt(p + 1))
+            ? matchKind(FOR_VARIABLE, skipNameChars(p + 2)) : matchChar(BAD_TOKEN, p);
+      case '<':
+        return startsWith(p, "<!--") ? matchChars(CDO, p, 4) : matchChar(BAD_TOKEN, p);
+      case '/':
+        if (charAt(p + 1) == '*') {
+          return matchComment(p);
+        }
+        return startsWith(p, "/deep/") ? matchChars(WDEEP, p, 6) : matchChar(SLASH, p);
+      case '.':
+        return isDigit(charAt(p + 1)) ? matchNumber(p) : matchChar(DOT, p);
+      case '!':
+        return matchExclamationMark(p);
+      case '#':
+        return skipNameChars(p + 1) > p + 1
+            ? matchKind(HASH_NAME, skipNameChars(p + 1)) : matchChar(BAD_TOKEN, p);
+      case '"':
+        return matchString(DOUBLE_QUOTED_STRING, p);
+      case '\'':
+        return matchString(SINGLE_QUOTED_STRING, p);
+      case '@':
+        return matchAtKeyword(p);
+      case '-':
+        return matchMinus(p);
+      default:
+        if (isDigit(c)) {
+          return matchNumber(p);
+        }
+        if (c == 'U' && charAt(p + 1) == '+' && isRangeDigit(charAt(p + 2))) {
+          return matchUnicodeRange(p);
+        }
+        if (isNameStart(c)) {
+          return matchIdentifier(p);
+        }
+        return matchChar(BAD_TOKEN, p);
+    }
+  }
+
+  private int matchKind(int kind, int end) {
+    matchedKind = kind;
+    return end;
+  }
+
+  private int matchChar(int kind, int p) {
+    return matchKind(kind, p + 1);
+  }
+
+  private int matchChars(int kind, int p, int count) {
+    return matchKind(kind, p + count);
+  }
+
+  /** Matches S, WMINUSW, WPLUS, WGREATER, WTILDE and WDEEP. */
+  private int matchWhitespace(int p) {
+    int end = skipWhitespace(p);
+    switch (charAt(end)) {
+      case '-':
+        return isWhitespace(charAt(end + 1))
+            ? matchKind(WMINUSW, skipWhitespace(end + 1)) : matchKind(S, end);
+      case '+':
+        return matchChar(WPLUS, end);
+      case '>':
+        return matchChar(WGREATER, end);
+      case '~':
+        return matchChar(WTILDE, end);
+      default:
+        return startsWith(end, "/deep/") ? matchChars(WDEEP, end, 6) : matchKind(S, end);
+    }
+  }
+
+  /**
+   * Matches a comment up to the first {@code *}{@code /}, or to the end of
+   * the input if it is not terminated, and the whitespace after it.
+   */
+  private int matchComment(int p) {
+    int end = length;
+    for (int i = p + 2; i + 1 < length; i++) {
+      if (input.charAt(i) == '*' && input.charAt(i + 1) == '/') {
+        end = i + 2;
+        break;
+      }
+    }
+    return matchKind(COMMENT, skipWhitespace(end));
+  }
+
+  /** Matches IMPORTANT_SYM or EXCL_MARK. */
+  private int matchExclamationMark(int p) {
+    int end = skipWhitespace(p + 1);
+    return startsWith(end, "important")
+        ? matchChars(IMPORTANT_SYM, end, "important".length()) : matchChar(EXCL_MARK, p);
+  }
+
+  private int matchNumber(int p) {
+    int end = skipDigits(p);
+    if (charAt(end) == '.' && isDigit(charAt(end + 1))) {
+      end = skipDigits(end + 1);
+    }
+    return matchKind(NUMBER, end);
+  }
+
+  /**
+   * Matches a quoted string, or the quote as a BAD_TOKEN if the string is
+   * not terminated on its line.
+   */
+  private int matchString(int kind, int p) {
+    char quote = input.charAt(p);
+    int i = p + 1;
+    while (i < length) {
+      char c = input.charAt(i);
+      if (c == quote) {
+        return matchKind(kind, i + 1);
+      }
+      if (c == '\n' || c == '\r' || c == '\f') {
+        break;
+      }
+      if (c != '\\') {
+        i++;
+      } else if (i + 1 == length) {
+        break;
+      } else if (isHexDigit(input.charAt(i + 1))) {
+        // A unicode escape, which may be followed by one whitespace.
+        i = skipHexDigits(i + 1, false);
+        if (startsWith(i, "\r\n")) {
+          i += 2;
+        } else if (isWhitespace(charAt(i))) {
+          i++;
+        }
+      } else {
+        // Another escape, or an escaped newline.
+        i += startsWith(i + 1, "\r\n") ? 3 : 2;
+      }
+    }
+    return matchChar(BAD_TOKEN, p);
+  }
+
+  /** Matches UNICODE_RANGE, which must have at least one digit. */
+  private int matchUnicodeRange(int p) {
+    int end = skipHexDigits(p + 2, true);
+    if (charAt(end) == '-' && isRangeDigit(charAt(end + 1))) {
+      end = skipHexDigits(end + 1, true);
+    } else {
+      int max = end + 6;
+      while (end < max && charAt(end) == '?') {
+        end++;
+      }
+    }
+    return matchKind(UNICODE_RANGE, end);
+  }
+
+  /**
+   * Matches ATLIST, ATSUPPORTS, WEBKITKEYFRAMES, ATRULESWITHDECLBLOCK and
+   * ATKEYWORD.
+   */
+  private int matchAtKeyword(int p) {
+    int end = skipIdentifier(p + 1);
+    if (end == p + 1) {
+      return matchChar(BAD_TOKEN, p);
+    }
+    if (regionEquals(p + 1, end, "list")) {
+      return matchKind(ATLIST, end);
+    }
+    if (regionEquals(p + 1, end, "supports")) {
+      return matchKind(ATSUPPORTS, end);
+    }
+    if (regionEquals(p + 1, end, "keyframes")
+        || regionEquals(p + 1, end, "-webkit-keyframes")
+        || regionEquals(p + 1, end, "-moz-keyframes")
+        || regionEquals(p + 1, end, "-ms-keyframes")
+        || regionEquals(p + 1, end, "-o-keyframes")) {
+      return matchKind(WEBKITKEYFRAMES, end);
+    }
+    if (regionEquals(p + 1, end, "page")
+        || regionEquals(p + 1, end, "defmixin")
+        || regionEquals(p + 1, end, "font-face")) {
+      return matchKind(ATRULESWITHDECLBLOCK, end);
+    }
+    return matchKind(ATKEYWORD, end);
+  }
+
+  /** Matches CDC, CUSTOM_PROPERTY_NAME, the identifiers and MINUS. */
+  private int matchMinus(int p) {
+    if (charAt(p + 1) == '-') {
+      if (charAt(p + 2) == '>') {
+        return matchChars(CDC, p, 3);
+      }
+      int end = skipIdentifier(p + 2);
+      return end > p + 2 ? matchKind(CUSTOM_PROPERTY_NAME, end) : matchChar(MINUS, p);
+    }
+    return skipIdentifier(p) > p ? matchIdentifier(p) : matchChar(MINUS, p);
+  }
+
+  /**
+   * Matches IDENTIFIER, URI, the functions with a token of their own and
+   * FUNCTION.
+   */
+  private int matchIdentifier(int p) {
+    int end = skipIdentifier(p);
+    if (charAt(end) != '(') {
+      return matchKind(IDENTIFIER, end);
+    }
+    if (regionEquals(p, end, "url")
+        || regionEquals(p, end, "url-prefix")
+        || regionEquals(p, end, "domain")) {
+      int uriEnd = skipUri(end + 1);
+      if (uriEnd > 0) {
+        return matchKind(URI, uriEnd);
+      }
+    }
+    if (regionEquals(p, end, "not")) {
+      return matchKind(NOTFUNCTION, end + 1);
+    }
+    if (regionEquals(p, end, "lang")) {
+      return matchKind(LANGFUNCTION, end + 1);
+    }
+    if (regionEquals(p, end, "calc")
+        || regionEquals(p, end, "-webkit-calc")
+        || regionEquals(p, end, "-moz-calc")) {
+      return matchKind(CALC, end + 1);
+    }
+    if (regionEquals(p, end, "var")) {
+      return matchKind(VARFUNCTION, end + 1);
+    }
+    return matchKind(FUNCTION, end + 1);
+  }
+
+  /** Returns the end of the IDENTIFIER at {@code p}, or {@code p}. */
+  private int skipIdentifier(int p) {
+    int i = charAt(p) == '-' ? p + 1 : p;
+    if (!isNameStart(charAt(i))) {
+      return p;
+    }
+    i++;
+    while (i < length) {
+      char c = input.charAt(i);
+      if (isNameChar(c)) {
+        i++;
+      } else if (c == '$' && input.charAt(i - 1) == '-' && isNameStart(charAt(i + 1))) {
+        // A FOR_VARIABLE after a minus.
+        i += 2;
+      } else {
+        break;
+      }
+    }
+    return i;
+  }
+
+  /**
+   * Returns the end of the arguments of a URI from after the opening
+   * parenthesis, or -1 if they are not a bare URL.
+   */
+  private int skipUri(int p) {
+    int i = skipWhitespace(p);
+    while (i < length && isUrlChar(input.charAt(i))) {
+      i++;
+    }
+    i = skipWhitespace(i);
+    return charAt(i) == ')' ? i + 1 : -1;
+  }
+
+  private int skipWhitespace(int p) {
+    int i = p;
+    while (i < length && isWhitespace(input.charAt(i))) {
+      i++;
+    }
+    return i;
+  }
+
+  private int skipDigits(int p) {
+    int i = p;
+    while (i < length && isDigit(input.charAt(i))) {
+      i++;
+    }
+    return i;
+  }
+
+  private int skipNameChars(int p) {
+    int i = p;
+    while (i < length && isNameChar(input.charAt(i))) {
+      i++;
+    }
+    return i;
+  }
+
+  /**
+   * Skips up to six hex digits, which are lower case in escapes and of any
+   * case in unicode ranges.
+   */
+  private int skipHexDigits(int p, boolean anyCase) {
+    int i = p;
+    int max = p + 6;
+    while (i < max && i < length
+        && (anyCase ? isRangeDigit(input.charAt(i)) : isHexDigit(input.charAt(i)))) {
+      i++;
+    }
+    return i;
+  }
+
+  /** Returns the character at an index, or 0 past the end of the input. */
+  private char charAt(int index) {
+    return index < length ? input.charAt(index) : '\u0000';
+  }
+
+  private boolean startsWith(int p, String prefix) {
+    if (p + prefix.length() > length) {
+      return false;
+    }
+    for (int i = 0; i < prefix.length(); i++) {
+      if (input.charAt(p + i) != prefix.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean regionEquals(int start, int end, String text) {
+    return end - start == text.length() && startsWith(start, text);
+  }
+
+  private static boolean isWhitespace(char c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f';
+  }
+
+  private static boolean isDigit(char c) {
+    return c >= '0' && c <= '9';
+  }
+
+  private static boolean isHexDigit(char c) {
+    return isDigit(c) || (c >= 'a' && c <= 'f');
+  }
+
+  private static boolean isRangeDigit(char c) {
+    return isHexDigit(c) || (c >= 'A' && c <= 'F');
+  }
+
+  private static boolean isNameStart(char c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_' || c >= '\u0080';
+  }
+
+  private static boolean isNameChar(char c) {
+    return isNameStart(c) || isDigit(c) || c == '-';
+  }
+
+  private static boolean isUrlChar(char c) {
+    if (c >= '\u0080') {
+      return true;
+    }
+    return c > ' ' && c < '\u007f'
+        && c != '"' && c != '\'' && c != '(' && c != ')' && c != '\\';
+  }
+}
@@ -20,6 +20,9 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.css.SourceCode;
 
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import javax.annotation.Nullable;
 
 /**
  * A wrapper around the JavaCC generated GSS parser.
@@ -28,10 +31,43 @@ import java.util.List;
 public class GssParser extends AbstractGssParser {
 
   private final List<SourceCode> sources;
+  @Nullable private final ExecutorService executor;
+  private final boolean useGssLexer;
   private ImmutableList<GssParserException> handledErrors = ImmutableList.of();
 
   public GssParser(List<SourceCode> sources) {
+    this(sources, null);
+  }
+
+  /**
+   * Creates a parser that parses the sources in parallel on the given
+   * executor. The result is the same as if they were parsed one after
+   * another.
+   *
+   * @param sources the sources to parse
+   * @param executor the executor to parse on, or {@code null} to parse on
+   *     the calling thread
+   */
+  public GssParser(List<SourceCode> sources,
+      @Nullable ExecutorService executor) {
+    this(sources, executor, false);
+  }
+
+  /**
+   * Creates a parser that may tokenize the sources with the hand-written
+   * {@code GssLexer} instead of the generated token manager. Both produce
+   * the same tokens.
+   *
+   * @param sources the sources to parse
+   * @param executor the executor to parse on, or {@code null} to parse on
+   *     the calling thread
+   * @param useGssLexer whether to use the hand-written lexer
+   */
+  public GssParser(List<SourceCode> sources,
+      @Nullable ExecutorService executor, boolean useGssLexer) {
     this.sources = sources;
+    this.executor = executor;
+    this.useGssLexer = useGssLexer;
   }
 
   public GssParser(SourceCode source) {
@@ -43,7 +79,7 @@ public class GssParser extends AbstractGssParser {
   }
 
   public CssTree parse(boolean errorHandling) throws GssParserException {
-    ParseResult result = parseInternal(sources, errorHandling);
+    ParseResult result = parseInternal(sources, errorHandling, executor);
     this.handledErrors = result.getHandledErrors();
     return result.getCssTree();
   }
@@ -57,6 +93,8 @@ public class GssParser extends AbstractGssParser {
 
   @Override
   protected GssParserCC getParser() {
-    return new GssParserCC(EMPTY_CHAR_STREAM);
+    GssParserCC parser = new GssParserCC(EMPTY_CHAR_STREAM);
+    parser.setUseGssLexer(useGssLexer);
+    return parser;
   }
 }
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.ast;
+
+/**
+ * Interns the short token images of the sources of a compilation, so that
+ * an identifier, unit or keyword that a stylesheet repeats is a single
+ * string in the tree. Lookups hash the characters of the input in place, so
+ * an image that is already in the table is returned without allocating.
+ *
+ * <p>A table is not thread-safe. Sources parsed in parallel each use one of
+ * their own.
+ */
+final class IdentifierTable {
+
+  /**
+   * Images longer than this are mostly strings, comments and URLs, which
+   * seldom repeat and are not interned.
+   */
+  static final int MAX_LENGTH = 32;
+
+  private static final int INITIAL_CAPACITY = 512;
+
+  /** Open addressing with linear probing, at most half full. */
+  private String[] strings = new String[INITIAL_CAPACITY];
+  private int size;
+
+  /**
+   * Returns the characters of {@code input} between {@code start} and
+   * {@code end} as a string, which is the same instance for equal
+   * characters unless there are more than {@link #MAX_LENGTH} of them.
+   */
+  String intern(CharSequence input, int start, int end) {
+    if (end - start > MAX_LENGTH) {
+      return input.subSequence(start, end).toString();
+    }
+    int hash = 0;
+    for (int i = start; i < end; i++) {
+      hash = 31 * hash + input.charAt(i);
+    }
+    int mask = strings.length - 1;
+    int index = spread(hash) & mask;
+    String string;
+    while ((string = strings[index]) != null) {
+      // The hash code of a string is the one computed above, and cached.
+      if (string.hashCode() == hash && regionMatches(string, input, start, end)) {
+        return string;
+      }
+      index = (index + 1) & mask;
+    }
+    string = input.subSequence(start, end).toString();
+    strings[index] = string;
+    if (++size * 2 > strings.length) {
+      resize();
+    }
+    return string;
+  }
+
+  /** Returns the interned instance of {@code string}. */
+  String intern(String string) {
+    return intern(string, 0, string.length());
+  }
+
+  int size() {
+    return size;
+  }
+
+  private static boolean regionMatches(
+      String string, CharSequence input, int start, int end) {
+    if (string.length() != end - start) {
+      return false;
+    }
+    for (int i = start; i < end; i++) {
+      if (string.charAt(i - start) != input.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Mixes the high bits of the hash into the low ones used as index. */
+  private static int spread(int hash) {
+    return hash ^ (hash >>> 16);
+  }
+
+  private void resize() {
+    String[] old = strings;
+    strings = new String[old.length * 2];
+    int mask = strings.length - 1;
+    for (String string : old) {
+      if (string != null) {
+        int index = spread(string.hashCode()) & mask;
+        while (strings[index] != null) {
+          index = (index + 1) & mask;
+        }
+        strings[index] = string;
+      }
+    }
+  }
+}
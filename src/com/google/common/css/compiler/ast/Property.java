@@ -18,6 +18,10 @@ package com.google.common.css.compiler.ast;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
 import com.google.common.collect.BiMap;
 import com.google.common.collect.ImmutableBiMap;
 import com.google.common.collect.ImmutableList;
@@ -53,6 +57,27 @@ public final class Property {
    */
   private static final BiMap<String, Property> NAME_TO_PROPERTY_MAP;
 
+  /** The most properties that are not recognized kept by {@link #byName(String)}. */
+  @VisibleForTesting
+  static final int MAX_USER_DEFINED_PROPERTIES = 10000;
+
+  /**
+   * The properties that are not recognized, such as custom properties, indexed by name. They are
+   * shared by all compilations of the process, so the least recently used ones are evicted once
+   * there are too many.
+   */
+  private static final LoadingCache<String, Property> USER_DEFINED_PROPERTIES =
+      CacheBuilder.newBuilder()
+          .maximumSize(MAX_USER_DEFINED_PROPERTIES)
+          .recordStats()
+          .build(
+              new CacheLoader<String, Property>() {
+                @Override
+                public Property load(String name) {
+                  return createUserDefinedProperty(name);
+                }
+              });
+
 
   static {
     List<Builder> recognizedProperties = ImmutableList.of(
@@ -867,10 +892,18 @@ public final class Property {
   /**
    * @return a {@code Property} with the specified {@code name}. If {@code name}
    *     corresponds to a recognized property, then the corresponding
-   *     {@code Property} will be returned; otherwise, a new {@code Property}
-   *     with the specified {@code name} will be created.
+   *     {@code Property} will be returned; otherwise, a {@code Property}
+   *     with the specified {@code name} will be created, or reused if one was
+   *     created for the same name before.
    */
   public static Property byName(String name) {
+    // Recognized names are in lower case, as most names in stylesheets are,
+    // so they are looked up as they are before being converted.
+    Property recognized = NAME_TO_PROPERTY_MAP.get(name);
+    if (recognized != null) {
+      return recognized;
+    }
+
     // All CSS property names are case-insensitive, except for custom properties.
     if (!name.startsWith(CUSTOM_PROPERTY_PREFIX)) {
       name = name.toLowerCase();
@@ -880,10 +913,23 @@ public final class Property {
     if (property != null) {
       return property;
     } else {
-      return Property.createUserDefinedProperty(name);
+      return USER_DEFINED_PROPERTIES.getUnchecked(name);
     }
   }
 
+  /**
+   * @return the hits, misses and evictions of the cache of properties that are not recognized,
+   *     since the start of the process
+   */
+  public static CacheStats getUserDefinedPropertyCacheStats() {
+    return USER_DEFINED_PROPERTIES.stats();
+  }
+
+  /** @return the number of properties that are not recognized in the cache */
+  public static long getUserDefinedPropertyCacheSize() {
+    return USER_DEFINED_PROPERTIES.size();
+  }
+
   /**
    * @return the name of this CSS property as it appears in a stylesheet, such
    *     as "z-index"
@@ -17,14 +17,16 @@
 package com.google.common.css.compiler.ast;
 
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.collect.Lists;
-import com.google.common.primitives.Ints;
 
 import java.io.IOException;
-import java.util.List;
+import java.util.Arrays;
+
+import javax.annotation.Nullable;
 
 /**
- * Efficient {@code String} based {@link CharStream} implementation.
+ * Efficient {@code String} based {@link CharStream} implementation. Any
+ * {@link CharSequence} with a fast {@link CharSequence#charAt} can be read,
+ * e.g. a view of a memory-mapped file, without copying it into a string.
  *
  * @author dgajda@google.com (Damian Gajda)
  */
@@ -33,7 +35,7 @@ public class StringCharStream implements CharStream {
   private static final IOException END_OF_STREAM = new IOException();
 
   /** The input string. */
-  private final String input;
+  private final CharSequence input;
   private final int length;
   private int charPos;
   private int line;
@@ -44,6 +46,9 @@ public class StringCharStream implements CharStream {
   private int beginLine;
   private int beginColumn;
 
+  /** Interns the images of the tokens, if not {@code null}. */
+  @Nullable private final IdentifierTable identifiers;
+
   private int tabSize = 1;
   private boolean trackLineColumn;
 
@@ -59,8 +64,20 @@ public class StringCharStream implements CharStream {
    *
    * @param inputString input string for this stream
    */
-  public StringCharStream(String inputString) {
+  public StringCharStream(CharSequence inputString) {
+    this(inputString, null);
+  }
+
+  /**
+   * Creates a character stream for a given string, which interns the images
+   * of the tokens in the given table.
+   *
+   * @param inputString input string for this stream
+   * @param identifiers the table to intern images in, or {@code null}
+   */
+  StringCharStream(CharSequence inputString, @Nullable IdentifierTable identifiers) {
     input = inputString;
+    this.identifiers = identifiers;
     length = input.length();
 
     lastChar = '\u0000';
@@ -75,16 +92,20 @@ public class StringCharStream implements CharStream {
     initCharIndex(input);
   }
 
-  private void initCharIndex(String source) {
-    List<Integer> lineToCharIndexList = Lists.newArrayList();
-    int charIndex = -1;
-    lineToCharIndexList.add(charIndex);
-    do {
-      charIndex++;
-      lineToCharIndexList.add(charIndex);
-      charIndex = source.indexOf('\n', charIndex);
-    } while (charIndex >= 0);
-    lineToCharIndex = Ints.toArray(lineToCharIndexList);
+  private void initCharIndex(CharSequence source) {
+    int[] lineStarts = new int[16];
+    lineStarts[0] = -1;
+    lineStarts[1] = 0;
+    int lines = 1;
+    for (int i = 0; i < length; i++) {
+      if (source.charAt(i) == '\n') {
+        if (++lines == lineStarts.length) {
+          lineStarts = Arrays.copyOf(lineStarts, lines * 2);
+        }
+        lineStarts[lines] = i + 1;
+      }
+    }
+    lineToCharIndex = Arrays.copyOf(lineStarts, lines + 1);
   }
 
   /**
@@ -98,6 +119,27 @@ public class StringCharStream implements CharStream {
     return lineToCharIndex[lineNumber] + indexInLine - 1;
   }
 
+  /** Returns the input this stream reads. */
+  CharSequence getInput() {
+    return input;
+  }
+
+  /**
+   * Returns the line (1 based) of a character index, searching forward from
+   * a line that is known not to be after it.
+   *
+   * @param charIndex 0 based absolute character index in the input string
+   * @param fromLine a line at or before the line of {@code charIndex}
+   */
+  int getLineNumber(int charIndex, int fromLine) {
+    int lineNumber = fromLine;
+    while (lineNumber + 1 < lineToCharIndex.length
+        && lineToCharIndex[lineNumber + 1] <= charIndex) {
+      lineNumber++;
+    }
+    return lineNumber;
+  }
+
   /**
    * @return index of last read character
    */
@@ -191,7 +233,14 @@ public class StringCharStream implements CharStream {
 
   /** {@inheritDoc} */
   public String getImage() {
-    return input.substring(tokenStart, charPos + 1);
+    return getImage(tokenStart, charPos + 1);
+  }
+
+  /** Returns the image of a token, interned if this stream has a table. */
+  String getImage(int start, int end) {
+    return identifiers != null
+        ? identifiers.intern(input, start, end)
+        : input.subSequence(start, end).toString();
   }
 
   /** {@inheritDoc} */
@@ -199,7 +248,9 @@ public class StringCharStream implements CharStream {
     int end = charPos + 1;
     int start = end - len;
     char[] chars = new char[end - start];
-    input.getChars(start, end, chars, 0);
+    for (int i = start; i < end; i++) {
+      chars[i - start] = input.charAt(i);
+    }
     return chars;
   }
 
@@ -20,10 +20,12 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.io.Reader;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -50,6 +52,9 @@ import com.google.common.css.OutputRenamingMapFormat;
 import com.google.common.css.SourceCode;
 import com.google.common.css.Vendor;
 import com.google.common.css.compiler.ast.ErrorManager;
+import com.google.common.css.compiler.passes.BrowserPrefixRuleTable;
+import com.google.common.css.compiler.passes.PassProfiler;
+import com.google.common.io.CharSink;
 import com.google.common.io.Files;
 
 import org.kohsuke.args4j.Argument;
@@ -147,7 +152,8 @@ public class ClosureCommandLineCompiler extends DefaultCommandLineCompiler {
     @Option(name = "--source_map_output_level", usage = "The level to generate "
         + "source maps. You could choose between DEFAULT, which will generate "
         + "source map only for selectors, blocks, rules, variables and symbol "
-        + "mappings, and ALL, which outputs mappings for all elements.")
+        + "mappings, RULES, which only maps each ruleset and at-rule, and ALL, "
+        + "which outputs mappings for all elements.")
     private SourceMapDetailLevel sourceMapLevel = SourceMapDetailLevel.DEFAULT;
 
     @Option(name = "--source_map_include_content", usage = "Includes sources' "
@@ -189,6 +195,12 @@ public class ClosureCommandLineCompiler extends DefaultCommandLineCompiler {
         "The prefixes to be expanded into the output file directly.")
     private List<String> prefixes = Lists.newArrayList();
 
+    @Option(name = "--prefix-rules", usage = "A JSON file with the rules"
+        + " --expand-browser-prefix expands declarations with, instead of the"
+        + " built-in rules, e.g. to only keep the prefixes the supported"
+        + " browsers need.")
+    private String prefixRulesFile = null;
+
     @Option(name = "--allowed-non-standard-function", usage =
         "Specify a non-standard function to whitelist, like alpha()")
     private List<String> allowedNonStandardFunctions = Lists.newArrayList();
@@ -252,6 +264,71 @@ public class ClosureCommandLineCompiler extends DefaultCommandLineCompiler {
     @Option(name = "--root-selector", usage = "The string to prepend to selectors of each ruleset.")
     private String rootSelector = null;
 
+    @Option(name = "--profile-passes", usage = "Print the wall time, CPU time,"
+        + " allocated memory and node counts of every compiler pass to standard"
+        + " error, the most expensive pass first.")
+    private boolean profilePasses = false;
+
+    @Option(name = "--profile-passes-output", usage = "Write the profile of the"
+        + " compiler passes as JSON to this file instead of printing it."
+        + " Implies --profile-passes.")
+    private String profilePassesOutput = null;
+
+    @Option(name = "--threads", usage = "The number of threads to use. With"
+        + " more than one, the inputs are parsed in parallel, and also compiled"
+        + " in parallel when @defs do not propagate between them. The output"
+        + " is the same for any number of threads.")
+    private int threadCount = 1;
+
+    @Option(name = "--gss-lexer", usage = "Tokenize the inputs with the"
+        + " hand-written lexer instead of the generated one. The output is"
+        + " the same.")
+    private boolean useGssLexer = false;
+
+    @Option(name = "--cache-dir", usage = "A directory to keep the outputs"
+        + " of compilations in. Compiling the same files with the same options"
+        + " again writes the kept outputs, and prints the kept warnings,"
+        + " instead of compiling the files. Compilations that report errors"
+        + " are not kept.")
+    private String cacheDir = null;
+
+    @Option(name = "--cache-size", usage = "The number of megabytes the"
+        + " files of --cache-dir may take. The least recently used outputs"
+        + " are deleted first.")
+    private int cacheSizeMegabytes = 100;
+
+    @Option(name = "--daemon", usage = "Keep running and read compile jobs"
+        + " from standard input, one JSON object per line, instead of"
+        + " compiling the given files. Each job holds the command line"
+        + " arguments to use and optionally the directory to resolve their"
+        + " paths against, e.g. {\"args\": [\"--rename\", \"CLOSURE\","
+        + " \"a.css\"], \"cwd\": \"/home/project\"}. The result of each job"
+        + " is written to standard output as one line of JSON.")
+    private boolean daemon = false;
+
+    /** The directory relative file names are resolved against. */
+    @Nullable private File baseDirectory = null;
+
+    /**
+     * The function map providers shared by the jobs of a daemon, by class
+     * name.
+     */
+    @Nullable
+    private Map<String, GssFunctionMapProvider> gssFunctionMapProviders = null;
+
+    /**
+     * The browser prefix rule tables shared by the jobs of a daemon, by the
+     * contents of their files.
+     */
+    @Nullable
+    private Map<String, BrowserPrefixRuleTable> prefixRuleTables = null;
+
+    /** The cache of the work on the inputs, kept by a daemon between jobs. */
+    @Nullable private InputCache inputCache = null;
+
+    /** Collects the pass profile, if profiling was requested. */
+    private PassProfiler passProfiler = null;
+
     /**
      * All remaining arguments are considered input CSS files.
      */
@@ -297,9 +374,18 @@ public class ClosureCommandLineCompiler extends DefaultCommandLineCompiler {
       builder.setSourceMapIncludeContent(sourceMapIncludeContent);
       builder.setRootSelector(rootSelector);
       builder.setPrefixes(prefixes);
+      if (prefixRulesFile != null) {
+        builder.setPrefixRules(getPrefixRuleTable());
+      }
+      builder.setThreadCount(threadCount);
+      builder.setUseGssLexer(useGssLexer);
+      if (profilePasses || profilePassesOutput != null) {
+        passProfiler = new PassProfiler();
+        builder.setPassObserver(passProfiler);
+      }
 
       GssFunctionMapProvider gssFunctionMapProvider =
-          getGssFunctionMapProviderForName(gssFunctionMapProviderClassName);
+          getGssFunctionMapProvider();
       builder.setGssFunctionMapProvider(gssFunctionMapProvider);
       builder.setSourceMapLevel(sourceMapLevel);
       builder.setCreateSourceMap(!Strings.isNullOrEmpty(sourceMapFile));
@@ -310,7 +396,7 @@ public class ClosureCommandLineCompiler extends DefaultCommandLineCompiler {
         }
 
         try {
-          File inputRenamingMapFile = new File(inputRenamingMapFileName);
+          File inputRenamingMapFile = toFile(inputRenamingMapFileName);
           Reader inputRenamingMapReader = Files.newReader(inputRenamingMapFile, UTF_8);
           ImmutableMap<String, String> inputRenamingMap =
               inputRenamingMapFormat.readRenamingMap(inputRenamingMapReader);
@@ -322,15 +408,19 @@ public class ClosureCommandLineCompiler extends DefaultCommandLineCompiler {
       }
 
       for (String fileName : arguments) {
-        File file = new File(fileName);
+        File file = toFile(fileName);
         if (!file.exists()) {
           throw new RuntimeException(String.format(
               "Input file %s does not exist", fileName));
         }
 
-        String fileContents;
+        // The daemon keeps inputs across jobs, so it needs a copy that does
+        // not change with the file.
+        CharSequence fileContents;
         try {
-          fileContents = Files.asCharSource(file, UTF_8).read();
+          fileContents = inputCache == null
+              ? InputFiles.read(file)
+              : Files.asCharSource(file, UTF_8).read();
         } catch (IOException e) {
           throw new RuntimeException(e);
         }
@@ -341,14 +431,111 @@ public class ClosureCommandLineCompiler extends DefaultCommandLineCompiler {
 
     private OutputInfo createOutputInfo() {
       return new OutputInfo(
-          (outputFile == null) ? null : new File(outputFile),
-          (renameFile == null) ? null : new File(renameFile),
-          (sourceMapFile == null) ? null : new File(sourceMapFile),
-          (outputBrowserPrefix == null) ? null : new File(outputBrowserPrefix),
-          (outputBrowserPrefix == null) ? null : new File(outputBrowserPrefix + ".json")
+          (outputFile == null) ? null : toFile(outputFile),
+          (renameFile == null) ? null : toFile(renameFile),
+          (sourceMapFile == null) ? null : toFile(sourceMapFile),
+          (outputBrowserPrefix == null) ? null : toFile(outputBrowserPrefix),
+          (outputBrowserPrefix == null) ? null : toFile(outputBrowserPrefix + ".json"),
+          passProfiler,
+          (profilePassesOutput == null) ? null : toFile(profilePassesOutput)
       );
     }
 
+    @Nullable
+    private CompilationCache createCompilationCache() {
+      if (cacheDir == null) {
+        return null;
+      }
+      return new CompilationCache(
+          toFile(cacheDir), cacheSizeMegabytes * 1024L * 1024L);
+    }
+
+    boolean isDaemon() {
+      return daemon;
+    }
+
+    /** Resolves the relative file names of the flags against the directory. */
+    void setBaseDirectory(@Nullable File baseDirectory) {
+      this.baseDirectory = baseDirectory;
+    }
+
+    /**
+     * Makes the job reuse the function map providers of the given map, and
+     * the maps they provide, instead of creating them.
+     */
+    void setGssFunctionMapProviders(
+        Map<String, GssFunctionMapProvider> gssFunctionMapProviders) {
+      this.gssFunctionMapProviders = gssFunctionMapProviders;
+    }
+
+    /**
+     * Makes the job reuse the browser prefix rule tables of the given map,
+     * instead of reading them again when their files did not change.
+     */
+    void setPrefixRuleTables(Map<String, BrowserPrefixRuleTable> prefixRuleTables) {
+      this.prefixRuleTables = prefixRuleTables;
+    }
+
+    /**
+     * Makes the job reuse the work on its inputs that is kept in the cache,
+     * for the inputs that did not change.
+     */
+    void setInputCache(@Nullable InputCache inputCache) {
+      this.inputCache = inputCache;
+    }
+
+    private GssFunctionMapProvider getGssFunctionMapProvider() {
+      if (gssFunctionMapProviders == null) {
+        return getGssFunctionMapProviderForName(
+            gssFunctionMapProviderClassName);
+      }
+      GssFunctionMapProvider provider =
+          gssFunctionMapProviders.get(gssFunctionMapProviderClassName);
+      if (provider == null) {
+        provider = new MemoizingGssFunctionMapProvider(
+            getGssFunctionMapProviderForName(gssFunctionMapProviderClassName));
+        gssFunctionMapProviders.put(gssFunctionMapProviderClassName, provider);
+      }
+      return provider;
+    }
+
+    private BrowserPrefixRuleTable getPrefixRuleTable() {
+      String json;
+      try {
+        json = Files.asCharSource(toFile(prefixRulesFile), UTF_8).read();
+      } catch (IOException e) {
+        throw new RuntimeException(String.format(
+            "Prefix rules file %s can not be read", prefixRulesFile), e);
+      }
+      BrowserPrefixRuleTable table =
+          (prefixRuleTables == null) ? null : prefixRuleTables.get(json);
+      if (table == null) {
+        try {
+          table = BrowserPrefixRuleTable.parse(json);
+        } catch (IllegalArgumentException e) {
+          throw new RuntimeException(String.format(
+              "Prefix rules file %s is not valid: %s", prefixRulesFile,
+              e.getMessage()), e);
+        }
+        if (prefixRuleTables != null) {
+          prefixRuleTables.put(json, table);
+        }
+      }
+      return table;
+    }
+
+    /**
+     * Returns the file with the given name, resolving relative names against
+     * the base directory if there is one.
+     */
+    private File toFile(String fileName) {
+      File file = new File(fileName);
+      if (baseDirectory == null || file.isAbsolute()) {
+        return file;
+      }
+      return new File(baseDirectory, fileName);
+    }
+
     /**
      * Parses the values in the compile constants to integers.
      */
@@ -398,41 +585,124 @@ public class ClosureCommandLineCompiler extends DefaultCommandLineCompiler {
     }
   }
 
+  /**
+   * A {@link GssFunctionMapProvider} that only asks its delegate once for the
+   * map of each function class. The functions themselves are stateless, so
+   * the maps can be shared by all the jobs of a daemon.
+   */
+  private static class MemoizingGssFunctionMapProvider
+      implements GssFunctionMapProvider {
+    private final GssFunctionMapProvider delegate;
+    private final Map<Class<?>, Map<String, ?>> maps = new HashMap<>();
+
+    MemoizingGssFunctionMapProvider(GssFunctionMapProvider delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public synchronized <F> Map<String, F> get(Class<F> gssFunctionClass) {
+      if (!maps.containsKey(gssFunctionClass)) {
+        maps.put(gssFunctionClass, delegate.get(gssFunctionClass));
+      }
+      @SuppressWarnings("unchecked")
+      Map<String, F> map = (Map<String, F>) maps.get(gssFunctionClass);
+      return map;
+    }
+  }
+
   private static class OutputInfo {
     @Nullable public final File outputFile;
     @Nullable public final File renameFile;
     @Nullable public final File sourceMapFile;
     @Nullable public final File prefixesFile;
     @Nullable public final File prefixesMap;
+    @Nullable public final PassProfiler passProfiler;
+    @Nullable public final File passProfileFile;
 
     private OutputInfo(File outputFile, File renameFile, File sourceMapFile,
-      File prefixesFile, File prefixesMap) {
+      File prefixesFile, File prefixesMap, PassProfiler passProfiler,
+      File passProfileFile) {
       this.outputFile = outputFile;
       this.renameFile = renameFile;
       this.sourceMapFile = sourceMapFile;
       this.prefixesFile = prefixesFile;
       this.prefixesMap = prefixesMap;
+      this.passProfiler = passProfiler;
+      this.passProfileFile = passProfileFile;
     }
   }
 
-  private static void executeJob(
-      JobDescription job, ExitCodeHandler exitCodeHandler, OutputInfo outputInfo) {
+  /**
+   * Writes the compiled CSS to whatever {@link System#out} is when the sink is
+   * opened, encoded as UTF-8. Closing the writer flushes standard output
+   * without closing it.
+   */
+  private static final CharSink STANDARD_OUTPUT = new CharSink() {
+    @Override
+    public Writer openStream() {
+      return new OutputStreamWriter(System.out, UTF_8) {
+        @Override
+        public void close() throws IOException {
+          flush();
+        }
+      };
+    }
+  };
+
+  /**
+   * Compiles the job described by the flags and writes its outputs, like a
+   * run from the command line. Returns the compiler, from which the renaming
+   * map and the source map can be read back.
+   */
+  static ClosureCommandLineCompiler executeJob(
+      Flags flags, ExitCodeHandler exitCodeHandler) {
+    JobDescription job = flags.createJobDescription();
+    OutputInfo info = flags.createOutputInfo();
+    return executeJob(job, exitCodeHandler, info, flags.inputCache,
+        flags.createCompilationCache());
+  }
+
+  private static ClosureCommandLineCompiler executeJob(
+      JobDescription job, ExitCodeHandler exitCodeHandler, OutputInfo outputInfo,
+      @Nullable InputCache inputCache,
+      @Nullable CompilationCache compilationCache) {
     CompilerErrorManager errorManager = new CompilerErrorManager();
 
     ClosureCommandLineCompiler compiler =
         new ClosureCommandLineCompiler(job, exitCodeHandler, errorManager);
+    compiler.setInputCache(inputCache);
+    compiler.setCompilationCache(compilationCache);
 
-    String compilerOutput = compiler.execute(outputInfo.renameFile, outputInfo.sourceMapFile,
-      outputInfo.prefixesFile, outputInfo.prefixesMap);
+    CharSink cssSink = (outputInfo.outputFile == null)
+        ? STANDARD_OUTPUT : Files.asCharSink(outputInfo.outputFile, UTF_8);
+    compiler.execute(outputInfo.renameFile, outputInfo.sourceMapFile,
+        outputInfo.prefixesFile, outputInfo.prefixesMap, cssSink);
 
-    if (outputInfo.outputFile == null) {
-      System.out.print(compilerOutput);
-    } else {
-      try {
-        Files.asCharSink(outputInfo.outputFile, UTF_8).write(compilerOutput);
-      } catch (IOException e) {
-        AbstractCommandLineCompiler.exitOnUnhandledException(e, exitCodeHandler);
-      }
+    if (outputInfo.passProfiler != null) {
+      writePassProfile(outputInfo.passProfiler, outputInfo.passProfileFile,
+          exitCodeHandler);
+    }
+    return compiler;
+  }
+
+  /**
+   * Writes the profile of the compiler passes as JSON to the given file, or
+   * prints it as a table to standard error if there is no file.
+   */
+  private static void writePassProfile(PassProfiler passProfiler,
+      @Nullable File passProfileFile, ExitCodeHandler exitCodeHandler) {
+    if (passProfileFile == null) {
+      passProfiler.printTable(
+          new PrintWriter(new OutputStreamWriter(System.err, UTF_8)));
+      return;
+    }
+    try {
+      PrintWriter profileWriter =
+          new PrintWriter(Files.newWriter(passProfileFile, UTF_8));
+      passProfiler.writeJson(profileWriter);
+      profileWriter.close();
+    } catch (IOException e) {
+      AbstractCommandLineCompiler.exitOnUnhandledException(e, exitCodeHandler);
     }
   }
 
@@ -469,12 +739,24 @@ public class ClosureCommandLineCompiler extends DefaultCommandLineCompiler {
       return null;
     }
 
-    if (flags.arguments.isEmpty()) {
+    if (flags.arguments.isEmpty() && !flags.daemon) {
       System.err.println("\nERROR: No input files specified.\n");
       argsParser.printUsage(System.err);
       exitCodeHandler.processExitCode(
           AbstractCommandLineCompiler.ERROR_MESSAGE_EXIT_CODE);
       return null;
+    } else if (flags.threadCount < 1) {
+      System.err.println("\nERROR: The number of threads must be positive.\n");
+      argsParser.printUsage(System.err);
+      exitCodeHandler.processExitCode(
+          AbstractCommandLineCompiler.ERROR_MESSAGE_EXIT_CODE);
+      return null;
+    } else if (flags.cacheSizeMegabytes < 1) {
+      System.err.println("\nERROR: The cache size must be positive.\n");
+      argsParser.printUsage(System.err);
+      exitCodeHandler.processExitCode(
+          AbstractCommandLineCompiler.ERROR_MESSAGE_EXIT_CODE);
+      return null;
     } else {
       return flags;
     }
@@ -487,8 +769,16 @@ public class ClosureCommandLineCompiler extends DefaultCommandLineCompiler {
       return;
     }
 
-    JobDescription job = flags.createJobDescription();
-    OutputInfo info = flags.createOutputInfo();
-    executeJob(job, exitCodeHandler, info);
+    if (flags.daemon) {
+      try {
+        new CompilerDaemon(new InputStreamReader(System.in, UTF_8), System.out)
+            .run();
+      } catch (IOException e) {
+        AbstractCommandLineCompiler.exitOnUnhandledException(e, exitCodeHandler);
+      }
+      return;
+    }
+
+    executeJob(flags, exitCodeHandler);
   }
 }
@@ -0,0 +1,381 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.commandline;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Ordering;
+import com.google.common.css.JobDescription;
+import com.google.common.css.SourceCode;
+import com.google.common.css.compiler.ast.GssFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.security.CodeSource;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+/**
+ * Keeps the outputs of compilations in a directory, so that compiling the
+ * same inputs with the same options again, e.g. on every run of a continuous
+ * build, replays them instead of parsing and compiling the inputs.
+ *
+ * <p>Each compilation is stored in a file named after its key, a hash of the
+ * contents of the inputs, of the options of the job that change the outputs
+ * and of the version of the compiler. Jobs renaming with a custom
+ * substitution map provider are not cached, as nothing tells how it is
+ * configured. Files are written to a temporary file
+ * first and then renamed, so that several compilers can share a directory.
+ * When the files take more than the maximum size, the least recently used
+ * ones are deleted.
+ */
+public final class CompilationCache {
+
+  /** Changed whenever the contents or the layout of the files change. */
+  private static final int FORMAT_VERSION = 1;
+
+  private static final String SUFFIX = ".json";
+
+  private static final Gson GSON =
+      new GsonBuilder().disableHtmlEscaping().serializeNulls().create();
+
+  private final File directory;
+  private final long maxSizeBytes;
+
+  /** The outputs of one compilation. */
+  @VisibleForTesting
+  static final class Entry {
+    String css;
+    @Nullable String renamingMap;
+    @Nullable String sourceMap;
+    @Nullable String prefixesTree;
+    @Nullable String prefixesMap;
+    /** The warnings the compilation reported, as printed. */
+    List<String> report = ImmutableList.of();
+  }
+
+  /**
+   * @param directory the directory to keep the outputs in, created if it
+   *     does not exist
+   * @param maxSizeBytes how many bytes the files of the directory may take
+   */
+  public CompilationCache(File directory, long maxSizeBytes) {
+    Preconditions.checkArgument(maxSizeBytes > 0);
+    this.directory = directory;
+    this.maxSizeBytes = maxSizeBytes;
+  }
+
+  /**
+   * Returns whether the outputs of a job can be cached: its renamings must
+   * come from one of the {@link RenamingType} providers, which the key
+   * describes by name. Another provider may be configured in ways its class
+   * does not tell, and replaying its outputs could replay the renamings of
+   * another configuration.
+   */
+  static boolean canCache(JobDescription job) {
+    return job.cssSubstitutionMapProvider == null
+        || describeSubstitutionMapProvider(job) != null;
+  }
+
+  /**
+   * Returns the key of the compilation of a job. The source map names its
+   * output file, so the name of the source map file is part of the key.
+   */
+  static String computeKey(JobDescription job, String sourceMapFileName) {
+    Preconditions.checkArgument(canCache(job));
+    Hasher hasher = Hashing.sha256().newHasher();
+    putString(hasher, GSON.toJson(describeOptions(job, sourceMapFileName)));
+    hasher.putInt(job.inputs.size());
+    for (SourceCode input : job.inputs) {
+      putString(hasher, input.getFileName());
+      putString(hasher, input.getFileContentsAsCharSequence());
+    }
+    return hasher.hash().toString();
+  }
+
+  private static void putString(Hasher hasher, CharSequence value) {
+    hasher.putInt(value.length());
+    hasher.putString(value, UTF_8);
+  }
+
+  /**
+   * Returns the options of the job that change its outputs, with every
+   * collection in a stable order. The number of threads, the lexer and the
+   * pass observer do not change the outputs and are left out.
+   */
+  private static Map<String, Object> describeOptions(
+      JobDescription job, String sourceMapFileName) {
+    Map<String, Object> options = Maps.newLinkedHashMap();
+    options.put("formatVersion", FORMAT_VERSION);
+    options.put("compilerVersion", getCompilerVersion());
+    options.put("sourceMapFileName", sourceMapFileName);
+    options.put("copyrightNotice", job.copyrightNotice);
+    options.put("outputFormat", job.outputFormat);
+    options.put("inputOrientation", job.inputOrientation);
+    options.put("outputOrientation", job.outputOrientation);
+    options.put("optimize", job.optimize);
+    options.put("trueConditionNames", sorted(job.trueConditionNames));
+    options.put("useInternalBidiFlipper", job.useInternalBidiFlipper);
+    options.put("swapLtrRtlInUrl", job.swapLtrRtlInUrl);
+    options.put("swapLeftRightInUrl", job.swapLeftRightInUrl);
+    options.put("simplifyCss", job.simplifyCss);
+    options.put("eliminateDeadStyles", job.eliminateDeadStyles);
+    options.put("deadStyleElimination", job.deadStyleElimination);
+    options.put("allowDefPropagation", job.allowDefPropagation);
+    options.put("allowUnrecognizedFunctions", job.allowUnrecognizedFunctions);
+    options.put("allowDuplicateDeclarations", job.allowDuplicateDeclarations);
+    options.put("expandBrowserPrefix", job.expandBrowserPrefix);
+    // Only whether the prefixes are split out matters, not their file.
+    options.put("outputBrowserPrefix", job.outputBrowserPrefix != null);
+    options.put("prefixes", sorted(job.prefixes));
+    // The rules read from a file are described by its contents.
+    options.put("prefixRules", job.prefixRules.getSource());
+    options.put("allowedNonStandardFunctions",
+        sorted(job.allowedNonStandardFunctions));
+    options.put("allowUnrecognizedProperties",
+        job.allowUnrecognizedProperties);
+    options.put("allowedUnrecognizedProperties",
+        sorted(job.allowedUnrecognizedProperties));
+    options.put("allowUndefinedConstants", job.allowUndefinedConstants);
+    options.put("allowMozDocument", job.allowMozDocument);
+    options.put("vendor", job.vendor);
+    options.put("allowKeyframes", job.allowKeyframes);
+    options.put("allowWebkitKeyframes", job.allowWebkitKeyframes);
+    options.put("processDependencies", job.processDependencies);
+    options.put("allowedAtRules", sorted(job.allowedAtRules));
+    options.put("cssRenamingPrefix", job.cssRenamingPrefix);
+    options.put("excludedClassesFromRenaming",
+        sorted(job.excludedClassesFromRenaming));
+    options.put("gssFunctions", describeGssFunctions(job));
+    options.put("cssSubstitutionMapProvider",
+        describeSubstitutionMapProvider(job));
+    options.put("outputRenamingMapFormat", job.outputRenamingMapFormat);
+    options.put("inputRenamingMap", sorted(job.inputRenamingMap));
+    options.put("preserveComments", job.preserveComments);
+    options.put("suppressDependencyCheck", job.suppressDependencyCheck);
+    options.put("compileConstants", sorted(job.compileConstants));
+    options.put("createSourceMap", job.createSourceMap);
+    options.put("sourceMapLevel", job.sourceMapLevel);
+    options.put("preserveImportantComments", job.preserveImportantComments);
+    options.put("skipHtmlEscaping", job.skipHtmlEscaping);
+    options.put("sourceMapIncludeContent", job.sourceMapIncludeContent);
+    options.put("rootSelector", job.rootSelector);
+    return options;
+  }
+
+  /**
+   * Describes the functions of the job by their names and classes rather
+   * than by the class of the provider, which may wrap another provider.
+   */
+  @Nullable
+  private static Map<String, String> describeGssFunctions(JobDescription job) {
+    if (job.gssFunctionMapProvider == null) {
+      return null;
+    }
+    Map<String, GssFunction> functions =
+        job.gssFunctionMapProvider.get(GssFunction.class);
+    if (functions == null) {
+      return null;
+    }
+    Map<String, String> classes = Maps.newTreeMap();
+    for (Map.Entry<String, GssFunction> function : functions.entrySet()) {
+      classes.put(function.getKey(), function.getValue().getClass().getName());
+    }
+    return classes;
+  }
+
+  /**
+   * Returns the name of the {@link RenamingType} whose provider the job
+   * renames with, or {@code null} if it has none or another provider.
+   */
+  @Nullable
+  private static String describeSubstitutionMapProvider(JobDescription job) {
+    for (RenamingType renamingType : RenamingType.values()) {
+      if (job.cssSubstitutionMapProvider
+          == renamingType.getCssSubstitutionMapProvider()) {
+        return renamingType.name();
+      }
+    }
+    return null;
+  }
+
+  @Nullable
+  private static <V> Map<String, V> sorted(@Nullable Map<String, V> map) {
+    return (map == null) ? null : ImmutableSortedMap.copyOf(map);
+  }
+
+  @Nullable
+  private static List<String> sorted(@Nullable Collection<String> values) {
+    return (values == null) ? null : Ordering.natural().sortedCopy(values);
+  }
+
+  private static String getCompilerVersion() {
+    return CompilerVersionHolder.VERSION;
+  }
+
+  /** Computes the version of the compiler once, when it is first needed. */
+  private static final class CompilerVersionHolder {
+    static final String VERSION = computeCompilerVersion();
+  }
+
+  /**
+   * Identifies the build of the compiler by a hash of the jar or of the
+   * class files its classes are loaded from, so that the outputs of another
+   * build are not replayed. The modification time of a classes directory
+   * does not change when the class files in it are rebuilt.
+   */
+  private static String computeCompilerVersion() {
+    CodeSource codeSource =
+        CompilationCache.class.getProtectionDomain().getCodeSource();
+    if (codeSource != null) {
+      try {
+        return hashContents(new File(codeSource.getLocation().toURI()));
+      } catch (URISyntaxException | IllegalArgumentException | IOException e) {
+        // Falls back to the version of the package below.
+      }
+    }
+    String version =
+        CompilationCache.class.getPackage().getImplementationVersion();
+    return (version == null) ? "" : version;
+  }
+
+  /**
+   * Hashes the contents of a file, or the names and contents of the files
+   * under a directory.
+   */
+  @VisibleForTesting
+  static String hashContents(File location) throws IOException {
+    Hasher hasher = Hashing.sha256().newHasher();
+    putContents(hasher, location, "");
+    return hasher.hash().toString();
+  }
+
+  private static void putContents(Hasher hasher, File file, String path)
+      throws IOException {
+    if (file.isDirectory()) {
+      File[] children = file.listFiles();
+      if (children == null) {
+        throw new IOException("Cannot list " + file);
+      }
+      Arrays.sort(children);
+      for (File child : children) {
+        putContents(hasher, child, path + "/" + child.getName());
+      }
+    } else {
+      putString(hasher, path);
+      hasher.putLong(file.length());
+      hasher.putBytes(Files.toByteArray(file));
+    }
+  }
+
+  /**
+   * Returns the outputs of the compilation with the given key, or
+   * {@code null} if they are not in the cache or cannot be read.
+   */
+  @Nullable
+  Entry get(String key) {
+    File file = getFile(key);
+    if (!file.isFile()) {
+      return null;
+    }
+    Entry entry;
+    try {
+      entry = GSON.fromJson(Files.asCharSource(file, UTF_8).read(), Entry.class);
+    } catch (IOException | JsonParseException e) {
+      // Another compiler may be evicting the file, or it is corrupted.
+      return null;
+    }
+    if (entry == null || entry.css == null || entry.report == null) {
+      return null;
+    }
+    // Marks the file as recently used for the eviction.
+    file.setLastModified(System.currentTimeMillis());
+    return entry;
+  }
+
+  /**
+   * Stores the outputs of the compilation with the given key, then deletes
+   * the least recently used files until the directory is small enough.
+   */
+  void put(String key, Entry entry) throws IOException {
+    Files.createParentDirs(getFile(key));
+    File temporaryFile = File.createTempFile(key, ".tmp", directory);
+    try {
+      Files.asCharSink(temporaryFile, UTF_8).write(GSON.toJson(entry));
+      Files.move(temporaryFile, getFile(key));
+    } finally {
+      temporaryFile.delete();
+    }
+    evict();
+  }
+
+  private File getFile(String key) {
+    return new File(directory, key + SUFFIX);
+  }
+
+  private void evict() {
+    File[] files = directory.listFiles();
+    if (files == null) {
+      return;
+    }
+    List<File> entries = Lists.newArrayList();
+    long size = 0;
+    for (File file : files) {
+      if (file.getName().endsWith(SUFFIX)) {
+        entries.add(file);
+        size += file.length();
+      }
+    }
+    if (size <= maxSizeBytes) {
+      return;
+    }
+    Collections.sort(entries, new Comparator<File>() {
+      @Override
+      public int compare(File a, File b) {
+        return Long.compare(a.lastModified(), b.lastModified());
+      }
+    });
+    for (File file : entries) {
+      if (size <= maxSizeBytes) {
+        break;
+      }
+      long length = file.length();
+      if (file.delete()) {
+        size -= length;
+      }
+    }
+  }
+}
@@ -0,0 +1,282 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.commandline;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
+import com.google.common.css.AbstractCommandLineCompiler;
+import com.google.common.css.ExitCodeHandler;
+import com.google.common.css.GssFunctionMapProvider;
+import com.google.common.css.compiler.ast.Property;
+import com.google.common.css.compiler.gssfunctions.GssFunctions;
+import com.google.common.css.compiler.passes.BrowserPrefixRuleTable;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.UnsupportedEncodingException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+/**
+ * Runs the compile jobs read from a stream in a single, long-lived JVM, so
+ * that a build compiling many stylesheets only pays once for the start of the
+ * JVM and for the built-in tables of the compiler.
+ *
+ * <p>Each line of the input is a job, given as a JSON object with the command
+ * line arguments of the compiler and optionally the directory their relative
+ * paths are resolved against:
+ * <pre>
+ * {"args": ["--rename", "CLOSURE", "a.css"], "cwd": "/home/project"}
+ * </pre>
+ * The files named by the arguments are written as they would be by the
+ * command line compiler. Then one line of JSON is written to the output with
+ * the exit code the compiler would have exited with, the compiled CSS unless
+ * {@code --output-file} was given, the renaming map if classes were renamed,
+ * the source map if {@code --output-source-map} was given, and the messages
+ * the compiler printed to standard error:
+ * <pre>
+ * {"exitCode": 0, "css": ".a{color:red}", "renamingMap": "{...}", "stderr": ""}
+ * </pre>
+ * Jobs are run one at a time, in the order they are read.
+ *
+ * <p>Jobs with the same arguments and directory share an {@link InputCache},
+ * so that compiling a job again, e.g. when a watcher sees a file change,
+ * only redoes the work on the inputs that changed.
+ */
+class CompilerDaemon {
+
+  private static final Gson GSON =
+      new GsonBuilder().disableHtmlEscaping().create();
+
+  /** The number of distinct jobs whose input caches are kept. */
+  private static final int MAX_INPUT_CACHES = 8;
+
+  /** The number of distinct browser prefix rule tables that are kept. */
+  private static final int MAX_PREFIX_RULE_TABLES = 8;
+
+  private final BufferedReader in;
+  private final PrintStream out;
+
+  /** The function map providers shared by all the jobs. */
+  private final Map<String, GssFunctionMapProvider> gssFunctionMapProviders =
+      new HashMap<>();
+
+  /**
+   * The browser prefix rule tables of the most recent jobs, by the contents
+   * of their files, the least recently used first.
+   */
+  @SuppressWarnings("serial")
+  private final Map<String, BrowserPrefixRuleTable> prefixRuleTables =
+      new LinkedHashMap<String, BrowserPrefixRuleTable>(
+          16, 0.75f, true /* accessOrder */) {
+        @Override
+        protected boolean removeEldestEntry(
+            Map.Entry<String, BrowserPrefixRuleTable> eldest) {
+          return size() > MAX_PREFIX_RULE_TABLES;
+        }
+      };
+
+  /**
+   * The input caches of the most recent jobs, by their directory and
+   * arguments, the least recently used first.
+   */
+  @SuppressWarnings("serial")
+  private final Map<List<String>, InputCache> inputCaches =
+      new LinkedHashMap<List<String>, InputCache>(
+          16, 0.75f, true /* accessOrder */) {
+        @Override
+        protected boolean removeEldestEntry(
+            Map.Entry<List<String>, InputCache> eldest) {
+          return size() > MAX_INPUT_CACHES;
+        }
+      };
+
+  /** A compile job, as read from the input. */
+  @VisibleForTesting
+  static class Request {
+    List<String> args = Lists.newArrayList();
+    @Nullable String cwd;
+  }
+
+  /** The result of a compile job, as written to the output. */
+  @VisibleForTesting
+  static class Response {
+    int exitCode = AbstractCommandLineCompiler.SUCCESS_EXIT_CODE;
+    @Nullable String css;
+    @Nullable String renamingMap;
+    @Nullable String sourceMap;
+    String stderr = "";
+  }
+
+  /**
+   * Thrown by the {@link ExitCodeHandler} of a job to stop it. It is not a
+   * {@link RuntimeException}, so that the compiler does not catch it.
+   */
+  @SuppressWarnings("serial")
+  private static class JobExit extends Error {
+    private final int exitCode;
+
+    JobExit(int exitCode) {
+      this.exitCode = exitCode;
+    }
+  }
+
+  private static final ExitCodeHandler EXIT_CODE_HANDLER =
+      new ExitCodeHandler() {
+        @Override
+        public void processExitCode(int exitCode) {
+          throw new JobExit(exitCode);
+        }
+      };
+
+  CompilerDaemon(Reader in, PrintStream out) {
+    this.in = new BufferedReader(in);
+    this.out = out;
+  }
+
+  /** Runs the jobs until the end of the input. */
+  void run() throws IOException {
+    warmUp();
+    String line;
+    while ((line = in.readLine()) != null) {
+      if (line.trim().isEmpty()) {
+        continue;
+      }
+      // Jobs must run one at a time: each job captures what the compiler
+      // prints by replacing System.out and System.err for the whole JVM.
+      out.println(GSON.toJson(runJob(line)));
+      out.flush();
+    }
+  }
+
+  /**
+   * Builds the tables of properties, browser prefixes and functions, which
+   * otherwise take the first job much longer than the following ones.
+   */
+  private static void warmUp() {
+    Property.byName("color");
+    BrowserPrefixRuleTable.getDefault();
+    GssFunctions.getFunctionMap();
+  }
+
+  /**
+   * Runs the job described by a line of the input. The compiler prints to
+   * System.out and System.err, which are replaced while the job runs, so no
+   * other job may run at the same time.
+   */
+  @VisibleForTesting
+  Response runJob(String line) {
+    Response response = new Response();
+    Request request;
+    try {
+      request = GSON.fromJson(line, Request.class);
+    } catch (JsonParseException e) {
+      return invalidJob(response, e.getMessage());
+    }
+    if (request == null || request.args == null) {
+      return invalidJob(response, "no args");
+    }
+
+    PrintStream systemOut = System.out;
+    PrintStream systemErr = System.err;
+    ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+    ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+    try {
+      System.setOut(newPrintStream(stdout));
+      System.setErr(newPrintStream(stderr));
+      ClosureCommandLineCompiler compiler = compile(request);
+      response.renamingMap = compiler.getRenamingMapOutput();
+      response.sourceMap = compiler.getSourceMapOutput();
+    } catch (JobExit e) {
+      response.exitCode = e.exitCode;
+    } catch (RuntimeException e) {
+      // The command line compiler would die of it, the daemon keeps going.
+      System.err.println("Compiler internal error: " + e.getMessage());
+      e.printStackTrace();
+      response.exitCode = AbstractCommandLineCompiler.INTERNAL_ERROR_EXIT_CODE;
+    } finally {
+      System.out.flush();
+      System.err.flush();
+      System.setOut(systemOut);
+      System.setErr(systemErr);
+    }
+    if (stdout.size() > 0) {
+      response.css = new String(stdout.toByteArray(), UTF_8);
+    }
+    response.stderr = new String(stderr.toByteArray(), UTF_8);
+    return response;
+  }
+
+  private static Response invalidJob(Response response, String message) {
+    response.exitCode = AbstractCommandLineCompiler.ERROR_MESSAGE_EXIT_CODE;
+    response.stderr = "Invalid job: " + message + "\n";
+    return response;
+  }
+
+  private ClosureCommandLineCompiler compile(Request request) {
+    String[] args = request.args.toArray(new String[0]);
+    ClosureCommandLineCompiler.Flags flags =
+        ClosureCommandLineCompiler.parseArgs(args, EXIT_CODE_HANDLER);
+    if (flags.isDaemon()) {
+      System.err.println("ERROR: --daemon cannot be given to a job.");
+      throw new JobExit(AbstractCommandLineCompiler.ERROR_MESSAGE_EXIT_CODE);
+    }
+    if (request.cwd != null) {
+      flags.setBaseDirectory(new File(request.cwd));
+    }
+    flags.setGssFunctionMapProviders(gssFunctionMapProviders);
+    flags.setPrefixRuleTables(prefixRuleTables);
+    flags.setInputCache(getInputCache(request));
+    return ClosureCommandLineCompiler.executeJob(flags, EXIT_CODE_HANDLER);
+  }
+
+  /** Returns the input cache of the jobs with the same options. */
+  @VisibleForTesting
+  InputCache getInputCache(Request request) {
+    List<String> key = Lists.newArrayList();
+    key.add(Strings.nullToEmpty(request.cwd));
+    key.addAll(request.args);
+    InputCache inputCache = inputCaches.get(key);
+    if (inputCache == null) {
+      inputCache = new InputCache();
+      inputCaches.put(key, inputCache);
+    }
+    return inputCache;
+  }
+
+  private static PrintStream newPrintStream(ByteArrayOutputStream out) {
+    try {
+      return new PrintStream(out, true, UTF_8.name());
+    } catch (UnsupportedEncodingException e) {
+      throw new AssertionError(e);
+    }
+  }
+}
@@ -20,6 +20,9 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
 import com.google.common.css.AbstractCommandLineCompiler;
 import com.google.common.css.ExitCodeHandler;
 import com.google.common.css.JobDescription;
@@ -27,27 +30,44 @@ import com.google.common.css.JobDescription.OutputFormat;
 import com.google.common.css.RecordingSubstitutionMap;
 import com.google.common.css.SourceCode;
 import com.google.common.css.compiler.ast.BasicErrorManager;
+import com.google.common.css.compiler.ast.BufferedErrorManager;
+import com.google.common.css.compiler.ast.CssBlockNode;
+import com.google.common.css.compiler.ast.CssNode;
 import com.google.common.css.compiler.ast.CssTree;
 import com.google.common.css.compiler.ast.ErrorManager;
 import com.google.common.css.compiler.ast.GssError;
 import com.google.common.css.compiler.ast.GssParser;
 import com.google.common.css.compiler.ast.GssParserException;
+import com.google.common.css.compiler.passes.CodeBuffer;
 import com.google.common.css.compiler.passes.CompactPrinter;
 import com.google.common.css.compiler.passes.DefaultGssSourceMapGenerator;
+import com.google.common.css.compiler.passes.DeferredSubstitutionMap;
 import com.google.common.css.compiler.passes.GssSourceMapGenerator;
 import com.google.common.css.compiler.passes.NullGssSourceMapGenerator;
 import com.google.common.css.compiler.passes.PassRunner;
 import com.google.common.css.compiler.passes.PrettyPrinter;
+import com.google.common.io.CharSink;
+import com.google.common.io.CharStreams;
 import com.google.common.io.Files;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import javax.annotation.Nullable;
 
 /**
@@ -72,6 +92,19 @@ public class DefaultCommandLineCompiler extends AbstractCommandLineCompiler<JobD
   private String prefixesTree;
   private HashMap<String, ArrayList<String>> tests;
 
+  /**
+   * The buffers the compiled inputs were printed into, in order. They are
+   * written out only once the compilation is known to have succeeded, and
+   * without being copied into one string first.
+   */
+  private final List<CodeBuffer> outputBuffers = new ArrayList<>();
+
+  @Nullable private String renamingMapOutput;
+  @Nullable private String sourceMapOutput;
+
+  @Nullable private InputCache inputCache;
+  @Nullable private CompilationCache compilationCache;
+
   /**
    * Constructs a {@code DefaultCommandLineCompiler}.
    *
@@ -93,6 +126,25 @@ public class DefaultCommandLineCompiler extends AbstractCommandLineCompiler<JobD
     return new DefaultGssSourceMapGenerator(job.sourceMapLevel, job.sourceMapIncludeContent);
   }
 
+  /**
+   * Sets the cache to take the work on unchanged inputs from, and to keep the
+   * work on the inputs of this compilation in. The cache must only be shared
+   * by jobs with the same options.
+   */
+  public void setInputCache(@Nullable InputCache inputCache) {
+    Preconditions.checkState(!compilerWasUsed);
+    this.inputCache = inputCache;
+  }
+
+  /**
+   * Sets the cache that {@link #execute} replays the outputs of a job from
+   * if the same job was compiled before, and stores them in otherwise.
+   */
+  public void setCompilationCache(@Nullable CompilationCache compilationCache) {
+    Preconditions.checkState(!compilerWasUsed);
+    this.compilationCache = compilationCache;
+  }
+
   /**
    * Parses all the inputs, reports error messages and combines the parsed
    * inputs into one stylesheet.
@@ -100,8 +152,7 @@ public class DefaultCommandLineCompiler extends AbstractCommandLineCompiler<JobD
    * @return the resulting stylesheet in string format
    */
   public String compile() throws GssParserException {
-    Preconditions.checkState(!compilerWasUsed);
-    compilerWasUsed = true;
+    compileInputs();
 
     // Reserving the input length might not be enough for pretty printed output,
     // but it will certainly save resizing the buffers for compressed output.
@@ -110,59 +161,298 @@ public class DefaultCommandLineCompiler extends AbstractCommandLineCompiler<JobD
         ? job.copyrightNotice.length() : 0;
     StringBuilder result = new StringBuilder(job.getAllInputsLength()
         + copyrightNoticeSize);
+    try {
+      writeCompiledCss(result);
+    } catch (IOException e) {
+      throw new AssertionError("A StringBuilder does not throw", e);
+    }
+    return result.toString();
+  }
+
+  /**
+   * Writes the stylesheet compiled by {@link #compileInputs} to {@code out}:
+   * the copyright notice followed by each printed buffer.
+   */
+  private void writeCompiledCss(Appendable out) throws IOException {
     if (job.copyrightNotice != null) {
-      result.append(job.copyrightNotice);
+      out.append(job.copyrightNotice);
+    }
+    for (CodeBuffer buffer : outputBuffers) {
+      buffer.writeTo(out);
     }
+  }
 
-    if (job.allowDefPropagation) {
-      GssParser parser = new GssParser(job.inputs);
-      parseAndPrint(result, parser);
-    } else {
-      for (SourceCode source : job.inputs) {
-        GssParser parser = new GssParser(source);
-        parseAndPrint(result, parser);
+  /**
+   * Parses all the inputs, reports error messages and prints the parsed
+   * inputs into {@link #outputBuffers}.
+   */
+  private void compileInputs() throws GssParserException {
+    Preconditions.checkState(!compilerWasUsed);
+    compilerWasUsed = true;
+
+    ExecutorService executor = createExecutor();
+    try {
+      if (job.allowDefPropagation && inputCache != null) {
+        compileIncrementally((executor != null)
+            ? executor : MoreExecutors.newDirectExecutorService());
+      } else if (job.allowDefPropagation) {
+        GssParser parser = new GssParser(job.inputs, executor, job.useGssLexer);
+        parseAndPrint(parser);
+      } else if (executor != null || inputCache != null) {
+        compileSeparately((executor != null)
+            ? executor : MoreExecutors.newDirectExecutorService());
+      } else {
+        for (SourceCode source : job.inputs) {
+          GssParser parser = createParser(job, source);
+          parseAndPrint(parser);
+        }
+      }
+    } finally {
+      if (executor != null) {
+        executor.shutdownNow();
       }
     }
+    if (inputCache != null) {
+      inputCache.retainInputs(job.inputs);
+    }
+  }
 
-    return result.toString();
+  /**
+   * Creates the executor to parse and compile the inputs on, or returns
+   * {@code null} if they should be compiled on the calling thread.
+   */
+  @Nullable
+  private ExecutorService createExecutor() {
+    int threads = Math.min(job.threadCount, job.inputs.size());
+    if (threads < 2) {
+      return null;
+    }
+    return Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder()
+        .setNameFormat("gss-compiler-%d")
+        .setDaemon(true)
+        .build());
   }
 
   /**
    * Helper method for parsing and outputting the result.
    */
-  private void parseAndPrint(StringBuilder result, GssParser parser)
+  private void parseAndPrint(GssParser parser)
       throws GssParserException {
     cssTree = parser.parse();
+    runPassesAndPrint();
+  }
+
+  private void runPassesAndPrint() {
     if (job.outputFormat != OutputFormat.DEBUG) {
       passRunner.runPasses(cssTree);
     }
+    print(cssTree, passRunner);
+  }
+
+  /**
+   * Compiles the inputs, whose definitions propagate, with
+   * {@link IncrementalCompilation}, so that only the inputs that changed and
+   * the inputs that use their definitions are compiled again. Falls back to
+   * compiling all the inputs as one tree if they have errors, so that these
+   * are reported like in a fresh compilation.
+   */
+  private void compileIncrementally(ExecutorService executor)
+      throws GssParserException {
+    if (job.outputFormat != OutputFormat.DEBUG) {
+      cssTree = new IncrementalCompilation(job, inputCache, executor)
+          .compile(errorManager);
+      if (cssTree != null) {
+        passRunner.runMergingPasses(cssTree);
+        passRunner.runPrefixingPasses(cssTree);
+        print(cssTree, passRunner);
+        return;
+      }
+    }
+    cssTree = parseWithCache(executor);
+    runPassesAndPrint();
+  }
+
+  /**
+   * Parses all the inputs into one tree like {@link GssParser}, but takes the
+   * parsed trees of the inputs that did not change from the input cache.
+   */
+  private CssTree parseWithCache(ExecutorService executor)
+      throws GssParserException {
+    List<Future<CssTree>> parsed =
+        Lists.newArrayListWithCapacity(job.inputs.size());
+    for (final SourceCode source : job.inputs) {
+      parsed.add(executor.submit(new Callable<CssTree>() {
+        @Override
+        public CssTree call() throws GssParserException {
+          CssTree tree = inputCache.getParsedTree(source);
+          if (tree == null) {
+            tree = createParser(job, source).parse();
+            inputCache.putParsedTree(source, new CssTree(tree));
+          }
+          return tree;
+        }
+      }));
+    }
+
+    CssTree tree = new CssTree(new SourceCode("global", null));
+    CssBlockNode globalBlock = tree.getRoot().getBody();
+    for (Future<CssTree> future : parsed) {
+      CssBlockNode block = getResult(future).getRoot().getBody();
+      for (CssNode child : Lists.newArrayList(block.getChildren())) {
+        globalBlock.addChildToBack(child);
+      }
+    }
+    return tree;
+  }
 
-    runPrinter(result, cssTree);
+  /**
+   * Prints the compiled tree, and the browser prefixes the pass runner
+   * collected from it if they were requested.
+   */
+  private void print(CssTree tree, PassRunner runner) {
+    outputBuffers.add(runPrinter(tree));
 
     if (job.outputBrowserPrefix != null) {
-      StringBuilder prefixesTree = new StringBuilder();
-      runPrinter(prefixesTree, passRunner.getPrefixesTree());
-      this.prefixesTree = prefixesTree.toString();
-      this.tests = passRunner.getTests();
+      this.prefixesTree = runPrinter(runner.getPrefixesTree()).getOutput();
+      this.tests = runner.getTests();
     }
   }
 
-  void runPrinter(StringBuilder result, CssTree tree) {
+  /**
+   * Compiles each input on its own like the sequential loop of
+   * {@link #compile}, but parses the inputs and runs their passes on the
+   * executor, which may run them concurrently, or takes them from the input
+   * cache. Each input has its own {@link PassRunner} and buffers its errors.
+   * Classes are renamed, errors reported and trees printed in input order,
+   * so the result is the same as compiling one input after another.
+   */
+  private void compileSeparately(ExecutorService executor)
+      throws GssParserException {
+    List<Future<InputCompilation>> renamed =
+        Lists.newArrayListWithCapacity(job.inputs.size());
+    for (SourceCode source : job.inputs) {
+      final InputCompilation compilation = new InputCompilation(source);
+      renamed.add(executor.submit(new Callable<InputCompilation>() {
+        @Override
+        public InputCompilation call() throws GssParserException {
+          compilation.parseAndRename();
+          return compilation;
+        }
+      }));
+    }
+
+    // Resolving the renaming must follow input order, as the substitution
+    // map may hand out names in the order it is asked for them.
+    RecordingSubstitutionMap recordingSubstitutionMap =
+        passRunner.getRecordingSubstitutionMap();
+    List<Future<InputCompilation>> prefixed =
+        Lists.newArrayListWithCapacity(job.inputs.size());
+    for (Future<InputCompilation> future : renamed) {
+      final InputCompilation compilation = getResult(future);
+      if (recordingSubstitutionMap != null) {
+        compilation.renamingMap.resolve(recordingSubstitutionMap,
+            compilation.tree);
+      }
+      prefixed.add(executor.submit(new Callable<InputCompilation>() {
+        @Override
+        public InputCompilation call() {
+          compilation.prefix();
+          return compilation;
+        }
+      }));
+    }
+
+    for (Future<InputCompilation> future : prefixed) {
+      InputCompilation compilation = getResult(future);
+      compilation.errors.reportTo(errorManager);
+      cssTree = compilation.tree;
+      print(compilation.tree, compilation.runner);
+    }
+  }
+
+  /** Creates a parser for one input, with the lexer the job asks for. */
+  static GssParser createParser(JobDescription job, SourceCode source) {
+    return new GssParser(ImmutableList.of(source), null /* executor */,
+        job.useGssLexer);
+  }
+
+  static <T> T getResult(Future<T> future)
+      throws GssParserException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    } catch (ExecutionException e) {
+      Throwables.throwIfInstanceOf(e.getCause(), GssParserException.class);
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new RuntimeException(e.getCause());
+    }
+  }
+
+  /** The state of one input compiled by {@link #compileSeparately}. */
+  private class InputCompilation {
+    final SourceCode source;
+    final BufferedErrorManager errors = new BufferedErrorManager();
+    DeferredSubstitutionMap renamingMap = new DeferredSubstitutionMap();
+    final PassRunner runner;
+    CssTree tree;
+
+    InputCompilation(SourceCode source) {
+      this.source = source;
+      this.runner = new PassRunner(job, errors,
+          passRunner.getRecordingSubstitutionMap() != null ? renamingMap : null);
+    }
+
+    void parseAndRename() throws GssParserException {
+      InputCache.CompiledInput cached = (inputCache != null)
+          ? inputCache.getCompiledInput(source) : null;
+      if (cached != null) {
+        tree = cached.copyTree();
+        cached.getErrors().reportTo(errors);
+        renamingMap = cached.getRenamingMap();
+        return;
+      }
+      tree = createParser(job, source).parse();
+      if (job.outputFormat != OutputFormat.DEBUG) {
+        runner.runRenamingPasses(tree);
+      }
+      if (inputCache != null) {
+        BufferedErrorManager errorsSoFar = new BufferedErrorManager();
+        errors.reportTo(errorsSoFar);
+        inputCache.putCompiledInput(source, new InputCache.CompiledInput(
+            new CssTree(tree), errorsSoFar, renamingMap));
+      }
+    }
+
+    void prefix() {
+      if (job.outputFormat != OutputFormat.DEBUG) {
+        runner.runPrefixingPasses(tree);
+      }
+    }
+  }
+
+  /**
+   * Prints the tree into a new buffer. Only the buffer is kept, not the
+   * printer, which would keep the tree alive.
+   */
+  CodeBuffer runPrinter(CssTree tree) {
+    CodeBuffer buffer = new CodeBuffer();
     if (job.outputFormat == OutputFormat.COMPRESSED) {
-      CompactPrinter compactPrinterPass = new CompactPrinter(tree, gssSourceMapGenerator, job.skipHtmlEscaping);
+      CompactPrinter compactPrinterPass = new CompactPrinter(tree, buffer,
+          gssSourceMapGenerator, job.skipHtmlEscaping);
       compactPrinterPass.setPreserveMarkedComments(job.preserveImportantComments);
       compactPrinterPass.runPass();
-      result.append(compactPrinterPass.getCompactPrintedString());
     } else {
       PrettyPrinter prettyPrinterPass = new PrettyPrinter(tree
           .getVisitController(),
-          null /* use external buffer */,
+          buffer,
           gssSourceMapGenerator);
       prettyPrinterPass
           .setPreserveComments(job.preserveComments)
           .runPass();
-      result.append(prettyPrinterPass.getPrettyPrintedString());
     }
+    return buffer;
   }
 
   /**
@@ -170,11 +460,60 @@ public class DefaultCommandLineCompiler extends AbstractCommandLineCompiler<JobD
    * as a string. If {@code renameFile} is specified along with a
    * {@link RecordingSubstitutionMap}, then the renaming file will be written,
    * as well.
+   *
+   * <p>If there is a compilation cache, the outputs and the warnings of a
+   * job that was compiled before are written from the cache, and those of a
+   * job that compiled without errors are stored in it. The error manager has
+   * to be a {@link BasicErrorManager} for its report to be replayed.
    */
   protected String execute(@Nullable File renameFile, @Nullable File sourcemapFile,
   @Nullable File prefixesFile, @Nullable File prefixesMap) {
+    final StringBuilder css = new StringBuilder();
+    CharSink cssSink = new CharSink() {
+      @Override
+      public Writer openStream() {
+        return CharStreams.asWriter(css);
+      }
+    };
+    if (!execute(renameFile, sourcemapFile, prefixesFile, prefixesMap, cssSink)) {
+      return null;
+    }
+    return css.toString();
+  }
+
+  /**
+   * Executes the job associated with this compiler like
+   * {@link #execute(File, File, File, File)}, but writes the compiled CSS to
+   * {@code cssSink} instead of returning it. Unless the compilation cache
+   * needs it, the CSS is streamed from the printed buffers to the sink, and
+   * never held as a whole in one string. The sink is only opened once the
+   * job compiled without errors.
+   *
+   * @return whether the CSS was written
+   */
+  protected boolean execute(@Nullable File renameFile, @Nullable File sourcemapFile,
+      @Nullable File prefixesFile, @Nullable File prefixesMap, CharSink cssSink) {
     try {
-      String compilerOutput = compile();
+      String cacheKey = null;
+      if (compilationCache != null && job.passObserver == null
+          && errorManager instanceof BasicErrorManager
+          && CompilationCache.canCache(job)) {
+        cacheKey = CompilationCache.computeKey(job,
+            (sourcemapFile == null) ? "" : sourcemapFile.getName());
+        CompilationCache.Entry cached = compilationCache.get(cacheKey);
+        if (cached != null) {
+          compilerWasUsed = true;
+          for (String msg : cached.report) {
+            ((BasicErrorManager) errorManager).print(msg);
+          }
+          writeOutputs(cached, renameFile, sourcemapFile, prefixesFile,
+              prefixesMap);
+          cssSink.write(cached.css);
+          return true;
+        }
+      }
+
+      compileInputs();
 
       // Print any errors or warnings.
       errorManager.generateReport();
@@ -185,42 +524,53 @@ public class DefaultCommandLineCompiler extends AbstractCommandLineCompiler<JobD
             AbstractCommandLineCompiler.ERROR_MESSAGE_EXIT_CODE);
       }
 
+      CompilationCache.Entry outputs = new CompilationCache.Entry();
+
       // Write the class substitution map to file, using same format as
       // VariableMap in jscomp.
       RecordingSubstitutionMap recordingSubstitutionMap = passRunner
           .getRecordingSubstitutionMap();
-      if (recordingSubstitutionMap != null && renameFile != null) {
-        PrintWriter renamingMapWriter = new PrintWriter(
-            Files.newWriter(renameFile, UTF_8));
-        Map<String, String> renamingMap = recordingSubstitutionMap
-            .getMappings();
-        writeRenamingMap(renamingMap, renamingMapWriter);
-        renamingMapWriter.close();
+      if (recordingSubstitutionMap != null) {
+        StringWriter renamingMap = new StringWriter();
+        PrintWriter renamingMapWriter = new PrintWriter(renamingMap);
+        writeRenamingMap(recordingSubstitutionMap.getMappings(),
+            renamingMapWriter);
+        renamingMapWriter.flush();
+        outputs.renamingMap = renamingMap.toString();
       }
 
       if (job.createSourceMap
           && sourcemapFile != null && !Strings.isNullOrEmpty(sourcemapFile.getName())) {
-        PrintWriter sourceMapWriter = new PrintWriter(
-            Files.newWriter(sourcemapFile, UTF_8));
-        gssSourceMapGenerator.appendOutputTo(sourceMapWriter, sourcemapFile.getName());
-        sourceMapWriter.close();
+        StringBuilder sourceMap = new StringBuilder();
+        gssSourceMapGenerator.appendOutputTo(sourceMap, sourcemapFile.getName());
+        outputs.sourceMap = sourceMap.toString();
       }
 
       if (job.outputBrowserPrefix != null) {
-        PrintWriter prefixesWriter = new PrintWriter(
-            Files.newWriter(prefixesFile, UTF_8));
-        prefixesWriter.write(this.prefixesTree);
-        prefixesWriter.close();
-
-        PrintWriter prefixesMapWriter = new PrintWriter(
-            Files.newWriter(prefixesMap, UTF_8));
+        outputs.prefixesTree = this.prefixesTree;
         // Write the JSON wrapped in this output format's formatString.
         Gson gson = new GsonBuilder().setPrettyPrinting().create();
-        prefixesMapWriter.write(gson.toJson(this.tests));
-        prefixesMapWriter.close();
+        outputs.prefixesMap = gson.toJson(this.tests);
       }
 
-      return compilerOutput;
+      writeOutputs(outputs, renameFile, sourcemapFile, prefixesFile,
+          prefixesMap);
+      if (cacheKey != null && !errorManager.hasErrors()) {
+        StringBuilder css = new StringBuilder();
+        writeCompiledCss(css);
+        outputs.css = css.toString();
+        outputs.report = ((BasicErrorManager) errorManager).getReport();
+        compilationCache.put(cacheKey, outputs);
+        cssSink.write(outputs.css);
+      } else {
+        Writer out = cssSink.openBufferedStream();
+        try {
+          writeCompiledCss(out);
+        } finally {
+          out.close();
+        }
+      }
+      return true;
     } catch (IOException e) {
       AbstractCommandLineCompiler.exitOnUnhandledException(e, exitCodeHandler);
     } catch (GssParserException e) {
@@ -237,7 +587,56 @@ public class DefaultCommandLineCompiler extends AbstractCommandLineCompiler<JobD
 
     // This line is unreachable because all paths through the above code block
     // result in calling System.exit().
-    return null;
+    return false;
+  }
+
+  /**
+   * Writes the renaming map, the source map and the browser prefixes of a
+   * compilation to their files.
+   */
+  private void writeOutputs(CompilationCache.Entry outputs,
+      @Nullable File renameFile, @Nullable File sourcemapFile,
+      @Nullable File prefixesFile, @Nullable File prefixesMap)
+      throws IOException {
+    renamingMapOutput = outputs.renamingMap;
+    if (renamingMapOutput != null && renameFile != null) {
+      Files.asCharSink(renameFile, UTF_8).write(renamingMapOutput);
+    }
+
+    sourceMapOutput = outputs.sourceMap;
+    if (sourceMapOutput != null) {
+      Files.asCharSink(sourcemapFile, UTF_8).write(sourceMapOutput);
+    }
+
+    if (job.outputBrowserPrefix != null) {
+      PrintWriter prefixesWriter = new PrintWriter(
+          Files.newWriter(prefixesFile, UTF_8));
+      prefixesWriter.write(outputs.prefixesTree);
+      prefixesWriter.close();
+
+      PrintWriter prefixesMapWriter = new PrintWriter(
+          Files.newWriter(prefixesMap, UTF_8));
+      prefixesMapWriter.write(outputs.prefixesMap);
+      prefixesMapWriter.close();
+    }
+  }
+
+  /**
+   * Returns the renaming map written by {@link #execute}, or {@code null} if
+   * classes were not renamed.
+   */
+  @Nullable
+  protected String getRenamingMapOutput() {
+    return renamingMapOutput;
+  }
+
+  /**
+   * Returns the source map written by {@link #execute}, or {@code null} if no
+   * source map was requested.
+   */
+  @Nullable
+  protected String getSourceMapOutput() {
+    return sourceMapOutput;
   }
 
   /**
@@ -0,0 +1,461 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.commandline;
+
+import com.google.common.collect.ForwardingMap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.css.JobDescription;
+import com.google.common.css.SourceCode;
+import com.google.common.css.SubstitutionMap;
+import com.google.common.css.compiler.ast.BufferedErrorManager;
+import com.google.common.css.compiler.ast.CssAtRuleNode;
+import com.google.common.css.compiler.ast.CssBlockNode;
+import com.google.common.css.compiler.ast.CssComponentNode;
+import com.google.common.css.compiler.ast.CssDefinitionNode;
+import com.google.common.css.compiler.ast.CssMixinDefinitionNode;
+import com.google.common.css.compiler.ast.CssNode;
+import com.google.common.css.compiler.ast.CssProvideNode;
+import com.google.common.css.compiler.ast.CssRequireNode;
+import com.google.common.css.compiler.ast.CssTree;
+import com.google.common.css.compiler.ast.ErrorManager;
+import com.google.common.css.compiler.ast.GssParserException;
+import com.google.common.css.compiler.passes.CheckDependencyNodes;
+import com.google.common.css.compiler.passes.CollectConstantDefinitions;
+import com.google.common.css.compiler.passes.CollectMixinDefinitions;
+import com.google.common.css.compiler.passes.ConstantDefinitions;
+import com.google.common.css.compiler.passes.PassRunner;
+import com.google.common.css.compiler.passes.ReplaceConstantReferences;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import javax.annotation.Nullable;
+
+/**
+ * Runs the passes of {@link PassRunner#runRenamingPasses} up to the merging
+ * passes on the inputs of a job whose {@code @def}s propagate between the
+ * inputs, redoing the work only for the inputs that changed and the inputs
+ * that use their definitions.
+ *
+ * <p>Each input goes through three stages, which are kept in the
+ * {@link InputCache}:
+ * <ol>
+ * <li>the passes that only look at the input itself, which also collect its
+ *     mixin definitions and its {@code @provide} and {@code @require} rules;
+ * <li>the replacement of its mixins and the expansion of its components;
+ * <li>the replacement of its constants and the resolution of its functions.
+ * </ol>
+ * The last two stages record which definition each mixin, component and
+ * constant name they looked up resolved to. A stage is taken from the cache
+ * if the stage before it was, and each of the names still resolves to the
+ * same definition node; the nodes of an input are only created anew when
+ * the input or a definition it uses is compiled again.
+ *
+ * <p>The result is the same as running the passes on all the inputs at once
+ * as long as the inputs compile without errors. Otherwise, or if the inputs
+ * use {@code @import}, {@link #compile} returns {@code null} and the job is
+ * compiled as a whole, so that the errors are the same as well.
+ */
+final class IncrementalCompilation {
+
+  private final JobDescription job;
+  private final InputCache inputCache;
+  private final ExecutorService executor;
+
+  IncrementalCompilation(JobDescription job, InputCache inputCache,
+      ExecutorService executor) {
+    this.job = job;
+    this.inputCache = inputCache;
+    this.executor = executor;
+  }
+
+  /** An input after the passes that only look at the input itself. */
+  static final class LocalInput {
+    private final CssTree tree;
+    private final BufferedErrorManager errors;
+    private final List<CssAtRuleNode> dependencies;
+    private final Map<String, CssMixinDefinitionNode> mixinDefinitions;
+
+    private LocalInput(CssTree tree, BufferedErrorManager errors,
+        List<CssAtRuleNode> dependencies,
+        Map<String, CssMixinDefinitionNode> mixinDefinitions) {
+      this.tree = tree;
+      this.errors = errors;
+      this.dependencies = dependencies;
+      this.mixinDefinitions = mixinDefinitions;
+    }
+  }
+
+  /** An input after its mixins were replaced and its components expanded. */
+  static final class ExpandedInput {
+    private final LocalInput localInput;
+    private final CssTree tree;
+    private final BufferedErrorManager errors;
+    private final Map<String, CssMixinDefinitionNode> usedMixins;
+    private final Map<String, CssComponentNode> usedComponents;
+    private final Map<String, CssComponentNode> components;
+    private final List<CssDefinitionNode> constantDefinitions;
+
+    private ExpandedInput(LocalInput localInput, CssTree tree,
+        BufferedErrorManager errors,
+        Map<String, CssMixinDefinitionNode> usedMixins,
+        Map<String, CssComponentNode> usedComponents,
+        Map<String, CssComponentNode> components,
+        List<CssDefinitionNode> constantDefinitions) {
+      this.localInput = localInput;
+      this.tree = tree;
+      this.errors = errors;
+      this.usedMixins = usedMixins;
+      this.usedComponents = usedComponents;
+      this.components = components;
+      this.constantDefinitions = constantDefinitions;
+    }
+  }
+
+  /** An input after its constants were replaced. */
+  static final class ResolvedInput {
+    private final ExpandedInput expandedInput;
+    private final CssTree tree;
+    private final BufferedErrorManager errors;
+    private final Map<String, CssDefinitionNode> usedConstants;
+
+    private ResolvedInput(ExpandedInput expandedInput, CssTree tree,
+        BufferedErrorManager errors,
+        Map<String, CssDefinitionNode> usedConstants) {
+      this.expandedInput = expandedInput;
+      this.tree = tree;
+      this.errors = errors;
+      this.usedConstants = usedConstants;
+    }
+  }
+
+  /**
+   * Compiles the inputs, reports their warnings to {@code errorManager} and
+   * returns the tree of all the inputs, on which the merging passes are still
+   * to be run. Returns {@code null} without reporting anything if the job
+   * has to be compiled as a whole.
+   */
+  @Nullable
+  CssTree compile(ErrorManager errorManager) throws GssParserException {
+    try {
+      return compileInputs(errorManager);
+    } catch (RuntimeException e) {
+      // A pass failed on an input. Compiling the job as a whole reports the
+      // errors found before it fails the same way.
+      return null;
+    }
+  }
+
+  @Nullable
+  private CssTree compileInputs(ErrorManager errorManager)
+      throws GssParserException {
+    List<LocalInput> localInputs = compileLocally();
+    if (!canCompileIncrementally(localInputs)) {
+      return null;
+    }
+
+    // The first definition of a mixin is used, a second one is an error.
+    Map<String, CssMixinDefinitionNode> mixinDefinitions = Maps.newHashMap();
+    for (LocalInput localInput : localInputs) {
+      for (Map.Entry<String, CssMixinDefinitionNode> entry
+          : localInput.mixinDefinitions.entrySet()) {
+        if (mixinDefinitions.put(entry.getKey(), entry.getValue()) != null) {
+          return null;
+        }
+      }
+    }
+
+    // Components are expanded in input order, as each may only extend the
+    // components defined before it.
+    Map<String, CssComponentNode> components = Maps.newHashMap();
+    List<ExpandedInput> expandedInputs =
+        Lists.newArrayListWithCapacity(localInputs.size());
+    for (int i = 0; i < localInputs.size(); i++) {
+      SourceCode source = job.inputs.get(i);
+      LocalInput localInput = localInputs.get(i);
+      ExpandedInput expanded = inputCache.getExpandedInput(source);
+      if (expanded != null && expanded.localInput == localInput
+          && resolveToSame(expanded.usedMixins, mixinDefinitions)
+          && resolveToSame(expanded.usedComponents, components)) {
+        components.putAll(expanded.components);
+      } else {
+        expanded = expand(localInput, mixinDefinitions, components);
+        if (expanded.errors.hasErrors()) {
+          return null;
+        }
+        inputCache.putExpandedInput(source, expanded);
+      }
+      expandedInputs.add(expanded);
+    }
+
+    // The last definition of a constant is used.
+    Map<String, CssDefinitionNode> constants = Maps.newHashMap();
+    for (ExpandedInput expanded : expandedInputs) {
+      for (CssDefinitionNode definition : expanded.constantDefinitions) {
+        constants.put(definition.getName().getValue(), definition);
+      }
+    }
+
+    List<ResolvedInput> resolvedInputs =
+        Lists.newArrayListWithCapacity(expandedInputs.size());
+    for (int i = 0; i < expandedInputs.size(); i++) {
+      SourceCode source = job.inputs.get(i);
+      ExpandedInput expanded = expandedInputs.get(i);
+      ResolvedInput resolved = inputCache.getResolvedInput(source);
+      if (resolved == null || resolved.expandedInput != expanded
+          || !resolveToSame(resolved.usedConstants, constants)) {
+        resolved = resolve(expanded, constants);
+        if (resolved.errors.hasErrors()) {
+          return null;
+        }
+        inputCache.putResolvedInput(source, resolved);
+      }
+      resolvedInputs.add(resolved);
+    }
+
+    CssTree tree = new CssTree(new SourceCode("global", null));
+    CssBlockNode globalBlock = tree.getRoot().getBody();
+    for (ResolvedInput resolved : resolvedInputs) {
+      CssBlockNode block = new CssTree(resolved.tree).getRoot().getBody();
+      for (CssNode child : Lists.newArrayList(block.getChildren())) {
+        globalBlock.addChildToBack(child);
+      }
+      resolved.expandedInput.localInput.errors.reportTo(errorManager);
+      resolved.expandedInput.errors.reportTo(errorManager);
+      resolved.errors.reportTo(errorManager);
+    }
+    return tree;
+  }
+
+  /**
+   * Runs the passes that only look at each input, on the executor, or takes
+   * their result from the cache.
+   */
+  private List<LocalInput> compileLocally() throws GssParserException {
+    List<Future<LocalInput>> futures =
+        Lists.newArrayListWithCapacity(job.inputs.size());
+    for (final SourceCode source : job.inputs) {
+      futures.add(executor.submit(new Callable<LocalInput>() {
+        @Override
+        public LocalInput call() throws GssParserException {
+          LocalInput localInput = inputCache.getLocalInput(source);
+          if (localInput == null) {
+            localInput = compileLocally(source);
+            inputCache.putLocalInput(source, localInput);
+          }
+          return localInput;
+        }
+      }));
+    }
+    List<LocalInput> localInputs =
+        Lists.newArrayListWithCapacity(futures.size());
+    for (Future<LocalInput> future : futures) {
+      localInputs.add(DefaultCommandLineCompiler.getResult(future));
+    }
+    return localInputs;
+  }
+
+  private LocalInput compileLocally(SourceCode source)
+      throws GssParserException {
+    CssTree tree = DefaultCommandLineCompiler.createParser(job, source).parse();
+    BufferedErrorManager errors = new BufferedErrorManager();
+    // Whether a @require follows its @provide is checked across the inputs.
+    CheckDependencyNodes checkDependencyNodes = new CheckDependencyNodes(
+        tree.getMutatingVisitController(), errors,
+        job.suppressDependencyCheck, false /* checkOrder */);
+    checkDependencyNodes.runPass();
+    createPassRunner(errors).runLocalPasses(tree);
+    CollectMixinDefinitions collectMixinDefinitions =
+        new CollectMixinDefinitions(tree.getMutatingVisitController(), errors);
+    collectMixinDefinitions.runPass();
+    return new LocalInput(tree, errors, checkDependencyNodes.getDependencies(),
+        collectMixinDefinitions.getDefinitions());
+  }
+
+  /**
+   * Returns whether compiling the inputs one by one gives the same result as
+   * compiling them at once: no input has errors, no {@code @import} rule
+   * depends on the inputs before it, and each {@code @require} follows its
+   * {@code @provide} across the inputs.
+   */
+  private boolean canCompileIncrementally(List<LocalInput> localInputs) {
+    Set<String> provides = Sets.newHashSet();
+    for (LocalInput localInput : localInputs) {
+      if (localInput.errors.hasErrors()
+          || !localInput.tree.getRoot().getImportRules().isEmpty()) {
+        return false;
+      }
+      if (job.suppressDependencyCheck) {
+        continue;
+      }
+      for (CssAtRuleNode dependency : localInput.dependencies) {
+        if (dependency instanceof CssProvideNode) {
+          if (!provides.add(((CssProvideNode) dependency).getProvide())) {
+            return false;
+          }
+        } else if (!provides.contains(
+            ((CssRequireNode) dependency).getRequire())) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private ExpandedInput expand(LocalInput localInput,
+      Map<String, CssMixinDefinitionNode> mixinDefinitions,
+      Map<String, CssComponentNode> components) {
+    CssTree tree = new CssTree(localInput.tree);
+    BufferedErrorManager errors = new BufferedErrorManager();
+    RecordingMap<CssMixinDefinitionNode> usedMixins =
+        new RecordingMap<>(mixinDefinitions);
+    RecordingMap<CssComponentNode> usedComponents =
+        new RecordingMap<>(components);
+    createPassRunner(errors).runMixinAndComponentPasses(
+        tree, usedMixins, usedComponents);
+    CollectConstantDefinitions collectConstantDefinitions =
+        new CollectConstantDefinitions(tree);
+    collectConstantDefinitions.runPass();
+    return new ExpandedInput(localInput, tree, errors, usedMixins.lookups,
+        usedComponents.lookups, usedComponents.added,
+        ImmutableList.copyOf(collectConstantDefinitions.getConstantDefinitions()
+            .getConstantMultimap().values()));
+  }
+
+  private ResolvedInput resolve(ExpandedInput expanded,
+      Map<String, CssDefinitionNode> constants) {
+    CssTree tree = new CssTree(expanded.tree);
+    BufferedErrorManager errors = new BufferedErrorManager();
+    InputConstantDefinitions constantDefinitions =
+        new InputConstantDefinitions(constants);
+    createPassRunner(errors).runConstantPasses(tree, constantDefinitions);
+    return new ResolvedInput(expanded, tree, errors,
+        constantDefinitions.lookups);
+  }
+
+  private PassRunner createPassRunner(ErrorManager errors) {
+    return new PassRunner(job, errors, (SubstitutionMap) null);
+  }
+
+  /**
+   * Returns whether each of the names still resolves to the same node as
+   * when it was looked up.
+   */
+  private static <V> boolean resolveToSame(Map<String, V> lookups,
+      Map<String, V> current) {
+    for (Map.Entry<String, V> lookup : lookups.entrySet()) {
+      if (current.get(lookup.getKey()) != lookup.getValue()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Records the values that the names a pass looked up in the map resolved
+   * to, and the entries the pass added. Names looked up after the pass added
+   * them are not recorded, as they resolve within the input.
+   */
+  private static final class RecordingMap<V> extends ForwardingMap<String, V> {
+    private final Map<String, V> delegate;
+    final Map<String, V> lookups = Maps.newHashMap();
+    final Map<String, V> added = Maps.newHashMap();
+
+    RecordingMap(Map<String, V> delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    protected Map<String, V> delegate() {
+      return delegate;
+    }
+
+    @Override
+    public V get(@Nullable Object key) {
+      V value = delegate.get(key);
+      record(key, value);
+      return value;
+    }
+
+    @Override
+    public boolean containsKey(@Nullable Object key) {
+      return get(key) != null;
+    }
+
+    @Override
+    public V put(String key, V value) {
+      added.put(key, value);
+      return delegate.put(key, value);
+    }
+
+    private void record(Object key, @Nullable V value) {
+      if (key instanceof String && !added.containsKey(key)) {
+        lookups.put((String) key, value);
+      }
+    }
+  }
+
+  /**
+   * The constant definitions of all the inputs as seen by one input. Each
+   * definition the input looks up is copied, so that the passes on the input
+   * do not change the definitions other inputs use, and the names it looked
+   * up are recorded.
+   */
+  private static final class InputConstantDefinitions
+      extends ConstantDefinitions {
+    private final Map<String, CssDefinitionNode> constants;
+    private final Map<String, CssDefinitionNode> copies = Maps.newHashMap();
+    final Map<String, CssDefinitionNode> lookups = Maps.newHashMap();
+
+    InputConstantDefinitions(Map<String, CssDefinitionNode> constants) {
+      this.constants = constants;
+    }
+
+    @Override
+    @Nullable
+    public CssDefinitionNode getConstantDefinition(String constant) {
+      CssDefinitionNode definition = constants.get(constant);
+      lookups.put(constant, definition);
+      if (definition == null) {
+        return null;
+      }
+      CssDefinitionNode copy = copies.get(constant);
+      if (copy == null) {
+        copy = definition.deepCopy();
+        ReplaceConstantReferences.replaceParametersWithProxies(copy);
+        copies.put(constant, copy);
+      }
+      return copy;
+    }
+
+    /**
+     * Returns no names, as the definitions are prepared when they are first
+     * looked up.
+     */
+    @Override
+    public Iterable<String> getConstantsNames() {
+      return ImmutableList.of();
+    }
+  }
+}
@@ -0,0 +1,268 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.commandline;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.css.SourceCode;
+import com.google.common.css.compiler.ast.BufferedErrorManager;
+import com.google.common.css.compiler.ast.CssTree;
+import com.google.common.css.compiler.passes.DeferredSubstitutionMap;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nullable;
+
+/**
+ * Keeps the work done on each input of a job, so that compiling the job again
+ * only redoes it for the inputs whose contents changed, e.g. when a watcher
+ * recompiles a stylesheet after one of its files was edited.
+ *
+ * <p>Inputs are looked up by file name, and an entry is only used if the
+ * contents of the input are the same as when it was stored. When
+ * {@code @def}s propagate between the inputs, the trees of each input are
+ * kept at the stages of {@link IncrementalCompilation}, together with the
+ * definitions of other inputs they used, and the parsed trees are kept for
+ * the jobs that have to be compiled as a whole. Otherwise each input is
+ * compiled on its own, and its tree is kept as it is right after the
+ * classes were renamed, see {@link DeferredSubstitutionMap}.
+ *
+ * <p>The work depends on the options of the job, so a cache must only be
+ * used for jobs with the same options. It may be used from several threads.
+ */
+public final class InputCache {
+
+  private final Map<String, Entry> entries = Maps.newHashMap();
+  private int hits = 0;
+  private int misses = 0;
+
+  /** The work kept for one input. Its trees are never handed out. */
+  private static final class Entry {
+    /** A hash of the contents, so that they are not kept as a string. */
+    final HashCode contentsHash;
+    /**
+     * The last input found to have these contents. A job asks for each of
+     * its inputs several times, and only hashes them once.
+     */
+    SourceCode checkedInput;
+    @Nullable CssTree parsedTree;
+    @Nullable CompiledInput compiledInput;
+    @Nullable IncrementalCompilation.LocalInput localInput;
+    @Nullable IncrementalCompilation.ExpandedInput expandedInput;
+    @Nullable IncrementalCompilation.ResolvedInput resolvedInput;
+
+    Entry(HashCode contentsHash, SourceCode checkedInput) {
+      this.contentsHash = contentsHash;
+      this.checkedInput = checkedInput;
+    }
+  }
+
+  /** An input compiled up to and including the renaming of its classes. */
+  static final class CompiledInput {
+    private final CssTree tree;
+    private final BufferedErrorManager errors;
+    private final DeferredSubstitutionMap renamingMap;
+
+    CompiledInput(CssTree tree, BufferedErrorManager errors,
+        DeferredSubstitutionMap renamingMap) {
+      this.tree = tree;
+      this.errors = errors;
+      this.renamingMap = renamingMap;
+    }
+
+    /** Returns a copy of the tree that may be changed. */
+    CssTree copyTree() {
+      return new CssTree(tree);
+    }
+
+    /** Returns the errors and warnings reported while compiling the input. */
+    BufferedErrorManager getErrors() {
+      return errors;
+    }
+
+    /** Returns the map the classes of the tree were renamed with. */
+    DeferredSubstitutionMap getRenamingMap() {
+      return renamingMap;
+    }
+  }
+
+  /**
+   * Returns a copy of the parsed tree of the input, or {@code null} if it is
+   * not cached.
+   */
+  @Nullable
+  synchronized CssTree getParsedTree(SourceCode input) {
+    Entry entry = getEntry(input);
+    if (entry == null || entry.parsedTree == null) {
+      misses++;
+      return null;
+    }
+    hits++;
+    return new CssTree(entry.parsedTree);
+  }
+
+  /**
+   * Keeps the parsed tree of the input. The tree must not be changed
+   * afterwards, so callers store a copy.
+   */
+  synchronized void putParsedTree(SourceCode input, CssTree tree) {
+    getOrCreateEntry(input).parsedTree = tree;
+  }
+
+  /** Returns the compiled input, or {@code null} if it is not cached. */
+  @Nullable
+  synchronized CompiledInput getCompiledInput(SourceCode input) {
+    Entry entry = getEntry(input);
+    if (entry == null || entry.compiledInput == null) {
+      misses++;
+      return null;
+    }
+    hits++;
+    return entry.compiledInput;
+  }
+
+  /**
+   * Keeps the compiled input. Its tree must not be changed afterwards, so
+   * callers store a copy.
+   */
+  synchronized void putCompiledInput(SourceCode input,
+      CompiledInput compiledInput) {
+    getOrCreateEntry(input).compiledInput = compiledInput;
+  }
+
+  /**
+   * Returns the input after the passes that only look at the input itself,
+   * or {@code null} if it is not cached.
+   */
+  @Nullable
+  synchronized IncrementalCompilation.LocalInput getLocalInput(
+      SourceCode input) {
+    Entry entry = getEntry(input);
+    if (entry == null || entry.localInput == null) {
+      misses++;
+      return null;
+    }
+    hits++;
+    return entry.localInput;
+  }
+
+  synchronized void putLocalInput(SourceCode input,
+      IncrementalCompilation.LocalInput localInput) {
+    getOrCreateEntry(input).localInput = localInput;
+  }
+
+  /**
+   * Returns the input after its mixins and components were expanded, or
+   * {@code null} if it is not cached. It is up to the caller to check that
+   * the definitions it used did not change.
+   */
+  @Nullable
+  synchronized IncrementalCompilation.ExpandedInput getExpandedInput(
+      SourceCode input) {
+    Entry entry = getEntry(input);
+    return entry != null ? entry.expandedInput : null;
+  }
+
+  synchronized void putExpandedInput(SourceCode input,
+      IncrementalCompilation.ExpandedInput expandedInput) {
+    getOrCreateEntry(input).expandedInput = expandedInput;
+  }
+
+  /**
+   * Returns the input after its constants were replaced, or {@code null} if
+   * it is not cached. It is up to the caller to check that the definitions it
+   * used did not change.
+   */
+  @Nullable
+  synchronized IncrementalCompilation.ResolvedInput getResolvedInput(
+      SourceCode input) {
+    Entry entry = getEntry(input);
+    return entry != null ? entry.resolvedInput : null;
+  }
+
+  synchronized void putResolvedInput(SourceCode input,
+      IncrementalCompilation.ResolvedInput resolvedInput) {
+    getOrCreateEntry(input).resolvedInput = resolvedInput;
+  }
+
+  /**
+   * Drops the work kept for inputs other than the given ones, so that the
+   * cache does not grow with files a job no longer compiles.
+   */
+  public synchronized void retainInputs(Collection<SourceCode> inputs) {
+    Set<String> fileNames = Sets.newHashSet();
+    for (SourceCode input : inputs) {
+      fileNames.add(input.getFileName());
+    }
+    for (Iterator<String> it = entries.keySet().iterator(); it.hasNext();) {
+      if (!fileNames.contains(it.next())) {
+        it.remove();
+      }
+    }
+  }
+
+  /** Returns how many times work for an input was found in the cache. */
+  public synchronized int getHitCount() {
+    return hits;
+  }
+
+  /** Returns how many times work for an input had to be redone. */
+  public synchronized int getMissCount() {
+    return misses;
+  }
+
+  @Nullable
+  private Entry getEntry(SourceCode input) {
+    Entry entry = entries.get(input.getFileName());
+    if (entry == null) {
+      return null;
+    }
+    if (entry.checkedInput != input) {
+      if (!entry.contentsHash.equals(hashContents(input))) {
+        return null;
+      }
+      entry.checkedInput = input;
+    }
+    return entry;
+  }
+
+  private Entry getOrCreateEntry(SourceCode input) {
+    Entry entry = getEntry(input);
+    if (entry == null) {
+      entry = new Entry(hashContents(input), input);
+      entries.put(input.getFileName(), entry);
+    }
+    return entry;
+  }
+
+  /**
+   * Hashes the contents of the input without copying them into a string,
+   * as the contents of a file may be read from a mapped buffer.
+   */
+  private static HashCode hashContents(SourceCode input) {
+    CharSequence contents = input.getFileContentsAsCharSequence();
+    return Hashing.murmur3_128().newHasher()
+        .putInt(contents.length())
+        .putUnencodedChars(contents)
+        .hash();
+  }
+}
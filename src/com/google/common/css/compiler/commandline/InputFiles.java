@@ -0,0 +1,298 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.commandline;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.base.Preconditions;
+import com.google.common.io.Files;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.util.Arrays;
+
+import javax.annotation.Nullable;
+
+/**
+ * Reads the input files of the command line compiler.
+ *
+ * <p>Large files are memory-mapped and read in place, so the parser does not
+ * need a copy of them in a string, which takes two bytes per character. Files
+ * that only contain ASCII characters, which is the case of most generated
+ * stylesheets, are read byte by byte. Other valid UTF-8 files are decoded in
+ * chunks of {@link #CHUNK_SIZE} characters as the parser reaches them, and
+ * only the last decoded chunks are kept. Files that are not valid UTF-8 are
+ * decoded into a string, with malformed bytes replaced.
+ */
+final class InputFiles {
+
+  /** Files smaller than this are read into a string. */
+  static final int MIN_MAPPED_SIZE = 1 << 20;
+
+  /** The number of characters decoded at once from a UTF-8 file. */
+  static final int CHUNK_SIZE = 1 << 13;
+
+  private static final long NON_ASCII_BITS = 0x8080808080808080L;
+
+  private InputFiles() {}
+
+  /**
+   * Returns the contents of a file. Mapped contents follow the file, so it
+   * must not be modified while they are in use.
+   */
+  static CharSequence read(File file) throws IOException {
+    long size = file.length();
+    if (size >= MIN_MAPPED_SIZE && size <= Integer.MAX_VALUE) {
+      ByteBuffer bytes = Files.map(file);
+      if (isAscii(bytes)) {
+        return new AsciiCharSequence(bytes, 0, bytes.limit());
+      }
+      CharSequence contents = Utf8CharSequence.create(bytes);
+      if (contents != null) {
+        return contents;
+      }
+    }
+    return Files.asCharSource(file, UTF_8).read();
+  }
+
+  /** Checks the bytes eight at a time for one with the high bit set. */
+  private static boolean isAscii(ByteBuffer bytes) {
+    int limit = bytes.limit();
+    int i = 0;
+    for (; i + 8 <= limit; i += 8) {
+      if ((bytes.getLong(i) & NON_ASCII_BITS) != 0) {
+        return false;
+      }
+    }
+    for (; i < limit; i++) {
+      if (bytes.get(i) < 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** A view of ASCII bytes as characters. */
+  private static final class AsciiCharSequence implements CharSequence {
+    private final ByteBuffer bytes;
+    private final int offset;
+    private final int length;
+
+    AsciiCharSequence(ByteBuffer bytes, int offset, int length) {
+      this.bytes = bytes;
+      this.offset = offset;
+      this.length = length;
+    }
+
+    @Override
+    public int length() {
+      return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+      Preconditions.checkElementIndex(index, length);
+      return (char) bytes.get(offset + index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+      Preconditions.checkPositionIndexes(start, end, length);
+      return new AsciiCharSequence(bytes, offset + start, end - start);
+    }
+
+    @Override
+    public String toString() {
+      byte[] chars = new byte[length];
+      ByteBuffer view = bytes.duplicate();
+      ((Buffer) view).position(offset);
+      view.get(chars);
+      return new String(chars, ISO_8859_1);
+    }
+  }
+
+  /**
+   * A view of UTF-8 bytes as characters, which decodes them a chunk at a
+   * time. Chunks start on the first character at or after a multiple of
+   * {@link #CHUNK_SIZE}, so that surrogate pairs are never split.
+   */
+  private static final class Utf8CharSequence implements CharSequence {
+    private final ByteBuffer bytes;
+    private final int length;
+    /** The first character of each chunk, then the length. */
+    private final int[] chunkStarts;
+    /** The first byte of each chunk, then the size of the file. */
+    private final int[] chunkOffsets;
+
+    /** The last two decoded chunks, replaced as a whole for thread safety. */
+    private Chunk current;
+    private Chunk previous;
+
+    private Utf8CharSequence(ByteBuffer bytes, int length, int[] chunkStarts,
+        int[] chunkOffsets) {
+      this.bytes = bytes;
+      this.length = length;
+      this.chunkStarts = chunkStarts;
+      this.chunkOffsets = chunkOffsets;
+      this.current = decode(0);
+      this.previous = current;
+    }
+
+    /**
+     * Checks that the bytes are valid UTF-8, as the JDK decoder would, and
+     * finds where the chunks start. Returns {@code null} if they are not.
+     */
+    @Nullable
+    static Utf8CharSequence create(ByteBuffer bytes) {
+      int limit = bytes.limit();
+      int[] chunkStarts = new int[limit / CHUNK_SIZE + 2];
+      int[] chunkOffsets = new int[chunkStarts.length];
+      int chunks = 0;
+      int nextChunk = 0;
+      int chars = 0;
+      int i = 0;
+      while (i < limit) {
+        if (chars >= nextChunk) {
+          chunkStarts[chunks] = chars;
+          chunkOffsets[chunks] = i;
+          chunks++;
+          nextChunk = chars + CHUNK_SIZE;
+        }
+        int lead = bytes.get(i) & 0xff;
+        if (lead < 0x80) {
+          i++;
+          chars++;
+          continue;
+        }
+        // The bounds of the second byte, which exclude overlong forms,
+        // surrogates and code points past U+10FFFF.
+        int min = 0x80;
+        int max = 0xbf;
+        int size;
+        if (lead >= 0xc2 && lead <= 0xdf) {
+          size = 2;
+        } else if (lead >= 0xe0 && lead <= 0xef) {
+          size = 3;
+          min = lead == 0xe0 ? 0xa0 : min;
+          max = lead == 0xed ? 0x9f : max;
+        } else if (lead >= 0xf0 && lead <= 0xf4) {
+          size = 4;
+          min = lead == 0xf0 ? 0x90 : min;
+          max = lead == 0xf4 ? 0x8f : max;
+        } else {
+          return null;
+        }
+        if (i + size > limit) {
+          return null;
+        }
+        int second = bytes.get(i + 1) & 0xff;
+        if (second < min || second > max) {
+          return null;
+        }
+        for (int j = 2; j < size; j++) {
+          int next = bytes.get(i + j) & 0xff;
+          if (next < 0x80 || next > 0xbf) {
+            return null;
+          }
+        }
+        i += size;
+        chars += size == 4 ? 2 : 1;
+      }
+      chunkStarts[chunks] = chars;
+      chunkOffsets[chunks] = limit;
+      return new Utf8CharSequence(bytes, chars,
+          Arrays.copyOf(chunkStarts, chunks + 1),
+          Arrays.copyOf(chunkOffsets, chunks + 1));
+    }
+
+    @Override
+    public int length() {
+      return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+      Preconditions.checkElementIndex(index, length);
+      Chunk chunk = current;
+      if (!chunk.contains(index)) {
+        chunk = previous;
+        if (!chunk.contains(index)) {
+          chunk = decode(findChunk(index));
+          previous = current;
+          current = chunk;
+        }
+      }
+      return chunk.chars[index - chunk.start];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+      Preconditions.checkPositionIndexes(start, end, length);
+      char[] chars = new char[end - start];
+      for (int i = start; i < end; i++) {
+        chars[i - start] = charAt(i);
+      }
+      return new String(chars);
+    }
+
+    @Override
+    public String toString() {
+      return UTF_8.decode(bytes.duplicate()).toString();
+    }
+
+    private int findChunk(int index) {
+      int chunk = Arrays.binarySearch(chunkStarts, index);
+      return chunk >= 0 ? chunk : -chunk - 2;
+    }
+
+    private Chunk decode(int chunk) {
+      int start = chunkStarts[Math.min(chunk, chunkStarts.length - 1)];
+      if (chunk >= chunkStarts.length - 1) {
+        return new Chunk(start, new char[0]);
+      }
+      ByteBuffer in = bytes.duplicate();
+      ((Buffer) in).limit(chunkOffsets[chunk + 1]);
+      ((Buffer) in).position(chunkOffsets[chunk]);
+      char[] chars = new char[chunkStarts[chunk + 1] - start];
+      CharsetDecoder decoder = UTF_8.newDecoder();
+      CharBuffer out = CharBuffer.wrap(chars);
+      decoder.decode(in, out, true);
+      decoder.flush(out);
+      return new Chunk(start, chars);
+    }
+  }
+
+  /** The characters of a chunk of a UTF-8 file. */
+  private static final class Chunk {
+    final int start;
+    final char[] chars;
+
+    Chunk(int start, char[] chars) {
+      this.start = start;
+      this.chars = chars;
+    }
+
+    boolean contains(int index) {
+      return index >= start && index - start < chars.length;
+    }
+  }
+}
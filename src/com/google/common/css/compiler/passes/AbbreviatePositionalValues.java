@@ -18,7 +18,6 @@ package com.google.common.css.compiler.passes;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Lists;
-import com.google.common.css.compiler.ast.CssCompilerPass;
 import com.google.common.css.compiler.ast.CssDeclarationNode;
 import com.google.common.css.compiler.ast.CssHexColorNode;
 import com.google.common.css.compiler.ast.CssLiteralNode;
@@ -42,7 +41,7 @@ import java.util.List;
  * @see Property#hasPositionalParameters()
  */
 public class AbbreviatePositionalValues extends DefaultTreeVisitor
-    implements CssCompilerPass {
+    implements FusablePass {
 
   private final MutatingVisitController visitController;
 
@@ -51,8 +50,10 @@ public class AbbreviatePositionalValues extends DefaultTreeVisitor
     this.visitController = visitController;
   }
 
+  // The values are only compared once they have been visited, so that they may
+  // first be normalized by other passes fused with this one.
   @Override
-  public boolean enterDeclaration(CssDeclarationNode declaration) {
+  public void leaveDeclaration(CssDeclarationNode declaration) {
     Property property = declaration.getPropertyName().getProperty();
     if (property.hasPositionalParameters()) {
       CssPropertyValueNode valueNode = declaration.getPropertyValue();
@@ -68,7 +69,6 @@ public class AbbreviatePositionalValues extends DefaultTreeVisitor
         visitController.replaceCurrentBlockChildWith(replacementList, false);
       }
     }
-    return true;
   }
 
   /**
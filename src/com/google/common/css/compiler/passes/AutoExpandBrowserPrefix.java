@@ -39,7 +39,8 @@ import java.util.List;
 /**
  * A compiler pass that automatically detects certain properties that need additional
  * browser specific property declarations, and adds them.
- * The properties to be matched for expansion are provided by the {@link BrowserPrefixGenerator}.
+ * The properties to be matched for expansion are provided by a {@link BrowserPrefixRuleTable},
+ * by default the rules of the {@link BrowserPrefixGenerator}.
  *
  * <p>This mechanism is an alternative to using conventional mixins.
  * Problems with conventional mixins:
@@ -58,15 +59,20 @@ import java.util.List;
 public class AutoExpandBrowserPrefix extends DefaultTreeVisitor implements CssCompilerPass {
 
   private final MutatingVisitController visitController;
-  private final ImmutableList<BrowserPrefixRule> expansionRules;
+  private final BrowserPrefixRuleIndex expansionRules;
   private boolean inDefMixinBlock;
   private HashMap<String, String> noValues;
   PrefixMap prefixMap;
   private HashMap<String, ArrayList<String>> prefixes;
 
   public AutoExpandBrowserPrefix(MutatingVisitController visitController, HashMap<String, ArrayList<String>> prefixes) {
+    this(visitController, prefixes, BrowserPrefixRuleTable.getDefault());
+  }
+
+  public AutoExpandBrowserPrefix(MutatingVisitController visitController,
+      HashMap<String, ArrayList<String>> prefixes, BrowserPrefixRuleTable rules) {
     this.visitController = visitController;
-    this.expansionRules = BrowserPrefixGenerator.getExpansionRules();
+    this.expansionRules = rules.getIndex();
     this.prefixMap = new PrefixMap();
     this.noValues = new HashMap<>();
     this.prefixes = prefixes;
@@ -109,12 +115,9 @@ public class AutoExpandBrowserPrefix extends DefaultTreeVisitor implements CssCo
     boolean noValue = false;
     String matchingValueFunction = null;
 
-    for (BrowserPrefixRule rule : expansionRules) {
-      // If the name is present in the rule then it must match the declaration.
-      if (rule.getMatchPropertyName() != null
-          && !rule.getMatchPropertyName().equals(declaration.getPropertyName().getPropertyName())) {
-        continue;
-      }
+    // Only the rules with the declaration's property name, or matching one of
+    // its functions, can expand it.
+    for (BrowserPrefixRule rule : expansionRules.getCandidateRules(declaration)) {
       // Handle case #1 when no property value is available.
       if (rule.getMatchPropertyValue() == null) {
         for (CssDeclarationNode ruleExpansionNode : rule.getExpansionNodes()) {
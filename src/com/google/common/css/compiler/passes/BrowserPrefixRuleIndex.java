@@ -0,0 +1,114 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.passes;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.css.compiler.ast.CssDeclarationNode;
+import com.google.common.css.compiler.ast.CssFunctionNode;
+import com.google.common.css.compiler.ast.CssValueNode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The {@link BrowserPrefixRule}s of a list indexed by what a declaration has
+ * to contain for them to apply: rules with a property name by that name, and
+ * value-only function rules by the name of the function.
+ *
+ * <p>{@link AutoExpandBrowserPrefix} tries the rules in the order of the list
+ * and stops at the first one that expands a declaration, so the candidates
+ * are returned in that order too.
+ */
+final class BrowserPrefixRuleIndex {
+
+  private final ImmutableListMultimap<String, BrowserPrefixRule> rulesByPropertyName;
+  private final ImmutableListMultimap<String, BrowserPrefixRule> rulesByFunctionName;
+  /** The rules without a property name that do not match a function. */
+  private final ImmutableList<BrowserPrefixRule> otherRules;
+  /** The position of each rule in the original list. */
+  private final ImmutableMap<BrowserPrefixRule, Integer> positions;
+
+  private final Comparator<BrowserPrefixRule> byPosition =
+      new Comparator<BrowserPrefixRule>() {
+        @Override
+        public int compare(BrowserPrefixRule a, BrowserPrefixRule b) {
+          return positions.get(a) - positions.get(b);
+        }
+      };
+
+  BrowserPrefixRuleIndex(List<BrowserPrefixRule> rules) {
+    ImmutableListMultimap.Builder<String, BrowserPrefixRule> byPropertyName =
+        ImmutableListMultimap.builder();
+    ImmutableListMultimap.Builder<String, BrowserPrefixRule> byFunctionName =
+        ImmutableListMultimap.builder();
+    ImmutableList.Builder<BrowserPrefixRule> others = ImmutableList.builder();
+    ImmutableMap.Builder<BrowserPrefixRule, Integer> positionsBuilder = ImmutableMap.builder();
+    for (int i = 0; i < rules.size(); i++) {
+      BrowserPrefixRule rule = rules.get(i);
+      positionsBuilder.put(rule, i);
+      if (rule.getMatchPropertyName() != null) {
+        byPropertyName.put(rule.getMatchPropertyName(), rule);
+      } else if (rule.isFunction()) {
+        byFunctionName.put(rule.getMatchPropertyValue(), rule);
+      } else {
+        others.add(rule);
+      }
+    }
+    this.rulesByPropertyName = byPropertyName.build();
+    this.rulesByFunctionName = byFunctionName.build();
+    this.otherRules = others.build();
+    this.positions = positionsBuilder.build();
+  }
+
+  /**
+   * Returns the rules that may expand the declaration, in the order of the
+   * original list. The others are known not to match it.
+   */
+  List<BrowserPrefixRule> getCandidateRules(CssDeclarationNode declaration) {
+    List<BrowserPrefixRule> byName =
+        rulesByPropertyName.get(declaration.getPropertyName().getPropertyName());
+    List<BrowserPrefixRule> candidates = null;
+    for (CssValueNode value : declaration.getPropertyValue().getChildren()) {
+      if (!(value instanceof CssFunctionNode)) {
+        continue;
+      }
+      List<BrowserPrefixRule> byFunction =
+          rulesByFunctionName.get(((CssFunctionNode) value).getFunctionName());
+      for (BrowserPrefixRule rule : byFunction) {
+        if (candidates == null) {
+          candidates = new ArrayList<>(byName);
+          candidates.addAll(otherRules);
+        }
+        if (!candidates.contains(rule)) {
+          candidates.add(rule);
+        }
+      }
+    }
+    if (candidates == null) {
+      if (otherRules.isEmpty()) {
+        return byName;
+      }
+      candidates = new ArrayList<>(byName);
+      candidates.addAll(otherRules);
+    }
+    Collections.sort(candidates, byPosition);
+    return candidates;
+  }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.passes;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.css.compiler.ast.CssFunctionNode;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import java.util.List;
+import javax.annotation.Nullable;
+
+/**
+ * The {@link BrowserPrefixRule}s the {@link AutoExpandBrowserPrefix} pass
+ * expands declarations with, indexed for lookup.
+ *
+ * <p>The built-in rules of {@link BrowserPrefixGenerator} are used by
+ * default. A table can also be read from JSON, e.g. to keep only the rules a
+ * project's browsers need. The JSON is an array of rules, each of which
+ * matches either a property, a property with a value, or a function, and
+ * lists what to expand it into:
+ * <pre>
+ * [
+ *   {"name": "flex-grow", "expandNames": ["-webkit-flex-grow"]},
+ *   {"name": "display", "value": "flex", "expandValues": ["-webkit-flex"]},
+ *   {"value": "calc", "function": true, "expandValues": ["-webkit-calc"]}
+ * ]
+ * </pre>
+ * Rules are tried in the order of the array, and a declaration is only
+ * expanded by the first rule that applies to it.
+ *
+ * <p>Tables are immutable and may be shared by the jobs of a long-running
+ * process.
+ */
+public final class BrowserPrefixRuleTable {
+
+  private static final Gson GSON = new Gson();
+
+  private static final BrowserPrefixRuleTable DEFAULT =
+      new BrowserPrefixRuleTable(BrowserPrefixGenerator.getExpansionRules(), null);
+
+  private final ImmutableList<BrowserPrefixRule> rules;
+  private final BrowserPrefixRuleIndex index;
+  @Nullable private final String source;
+
+  /** A rule as it is written in JSON. */
+  private static final class RuleJson {
+    @Nullable String name;
+    @Nullable String value;
+    boolean function;
+    @Nullable List<String> expandNames;
+    @Nullable List<String> expandValues;
+  }
+
+  private BrowserPrefixRuleTable(List<BrowserPrefixRule> rules, @Nullable String source) {
+    this.rules = ImmutableList.copyOf(rules);
+    this.index = new BrowserPrefixRuleIndex(this.rules);
+    this.source = source;
+  }
+
+  /** Returns the table of the built-in rules. */
+  public static BrowserPrefixRuleTable getDefault() {
+    return DEFAULT;
+  }
+
+  /**
+   * Reads a table from its JSON, see the format above.
+   *
+   * @throws IllegalArgumentException if the JSON is not a valid table
+   */
+  public static BrowserPrefixRuleTable parse(String json) {
+    RuleJson[] rulesJson;
+    try {
+      rulesJson = GSON.fromJson(json, RuleJson[].class);
+    } catch (JsonParseException e) {
+      throw new IllegalArgumentException(e.getMessage(), e);
+    }
+    if (rulesJson == null) {
+      throw new IllegalArgumentException("Expected an array of rules");
+    }
+    ImmutableList.Builder<BrowserPrefixRule> rules = ImmutableList.builder();
+    for (int i = 0; i < rulesJson.length; i++) {
+      rules.add(createRule(rulesJson[i], i));
+    }
+    return new BrowserPrefixRuleTable(rules.build(), json);
+  }
+
+  private static BrowserPrefixRule createRule(@Nullable RuleJson json, int position) {
+    String error = null;
+    if (json == null) {
+      error = "is null";
+    } else if (json.name == null && json.value == null) {
+      error = "matches neither a name nor a value";
+    } else if (json.function && json.value == null) {
+      error = "matches a function without a name";
+    } else if (isEmpty(json.expandNames) == isEmpty(json.expandValues)) {
+      error = "must have either expandNames or expandValues";
+    } else if (!isEmpty(json.expandNames) && json.value != null) {
+      error = "cannot expand the name of a declaration matched by its value";
+    } else if (!isEmpty(json.expandValues) && json.value == null) {
+      error = "cannot expand the value of a declaration matched by its name only";
+    } else if (!isEmpty(json.expandValues) && !json.function && json.name == null) {
+      error = "expands a value that is not a function without matching a name";
+    } else if (json.function) {
+      for (String function : json.expandValues) {
+        if (CssFunctionNode.Function.byName(function) == null) {
+          error = "expands into the unknown function " + function;
+          break;
+        }
+      }
+    }
+    if (error != null) {
+      throw new IllegalArgumentException("Rule " + position + " " + error);
+    }
+    BrowserPrefixRule.Builder builder = new BrowserPrefixRule.Builder()
+        .matchPropertyName(json.name)
+        .matchPropertyValue(json.value)
+        .isFunction(json.function);
+    if (json.expandNames != null) {
+      for (String name : json.expandNames) {
+        builder.addExpandPropertyName(name);
+      }
+    }
+    if (json.expandValues != null) {
+      for (String value : json.expandValues) {
+        builder.addExpandPropertyValue(value);
+      }
+    }
+    return builder.build();
+  }
+
+  private static boolean isEmpty(@Nullable List<String> list) {
+    return list == null || list.isEmpty();
+  }
+
+  /** Returns the rules, in the order they are tried. */
+  public ImmutableList<BrowserPrefixRule> getRules() {
+    return rules;
+  }
+
+  BrowserPrefixRuleIndex getIndex() {
+    return index;
+  }
+
+  /**
+   * Returns the JSON the table was read from, or {@code null} for the
+   * built-in rules.
+   */
+  @Nullable
+  public String getSource() {
+    return source;
+  }
+}
@@ -53,6 +53,7 @@ public class CheckDependencyNodes extends DefaultTreeVisitor
   private final MutatingVisitController visitController;
   private final ErrorManager errorManager;
   private final boolean suppressDependencyCheck;
+  private final boolean checkOrder;
 
   /**
    * A linked collection is used so the dependencies can be iterated in the
@@ -60,6 +61,9 @@ public class CheckDependencyNodes extends DefaultTreeVisitor
    */
   private Set<String> provides = Sets.newLinkedHashSet();
 
+  /** The dependency nodes created, in the order they appear in the tree. */
+  private final List<CssAtRuleNode> dependencies = Lists.newArrayList();
+
   public CheckDependencyNodes(MutatingVisitController visitController,
       ErrorManager errorManager) {
     this(visitController, errorManager, true /* suppressDependencyCheck */);
@@ -67,9 +71,24 @@ public class CheckDependencyNodes extends DefaultTreeVisitor
 
   public CheckDependencyNodes(MutatingVisitController visitController,
       ErrorManager errorManager, boolean suppressDependencyCheck) {
+    this(visitController, errorManager, suppressDependencyCheck,
+        true /* checkOrder */);
+  }
+
+  /**
+   * Creates the pass. If {@code checkOrder} is false, a {@code @require}
+   * without a preceding {@code @provide} and a repeated {@code @provide} are
+   * not reported, so that the order can be checked with
+   * {@link #getDependencies} once the tree is compiled together with trees
+   * that may provide them.
+   */
+  public CheckDependencyNodes(MutatingVisitController visitController,
+      ErrorManager errorManager, boolean suppressDependencyCheck,
+      boolean checkOrder) {
     this.visitController = visitController;
     this.errorManager = errorManager;
     this.suppressDependencyCheck = suppressDependencyCheck;
+    this.checkOrder = checkOrder;
   }
 
   @Override
@@ -129,10 +148,11 @@ public class CheckDependencyNodes extends DefaultTreeVisitor
         node.getComments(),
         node.getSourceCodeLocation());
     String provide = provideNode.getProvide();
-    if (provides.contains(provide)) {
+    if (checkOrder && provides.contains(provide)) {
       reportError("Duplicate provide for: " + provide, node);
     }
     provides.add(provide);
+    dependencies.add(provideNode);
     return provideNode;
   }
 
@@ -143,9 +163,10 @@ public class CheckDependencyNodes extends DefaultTreeVisitor
         node.getComments(),
         node.getSourceCodeLocation());
     String require = requireNode.getRequire();
-    if (!provides.contains(require)) {
+    if (checkOrder && !provides.contains(require)) {
       reportError("Missing provide for: " + require, node);
     }
+    dependencies.add(requireNode);
     return requireNode;
   }
 
@@ -161,6 +182,14 @@ public class CheckDependencyNodes extends DefaultTreeVisitor
     visitController.startVisit(this);
   }
 
+  /**
+   * Returns the {@link CssProvideNode}s and {@link CssRequireNode}s created,
+   * in the order they appear in the tree.
+   */
+  public List<CssAtRuleNode> getDependencies() {
+    return ImmutableList.copyOf(dependencies);
+  }
+
   @VisibleForTesting
   List<String> getProvidesInOrder() {
     return ImmutableList.copyOf(provides);
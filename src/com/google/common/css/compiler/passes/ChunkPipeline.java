@@ -0,0 +1,237 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.passes;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.css.compiler.ast.ChunkAware;
+import com.google.common.css.compiler.ast.CssBlockNode;
+import com.google.common.css.compiler.ast.CssCommentNode;
+import com.google.common.css.compiler.ast.CssCompilerPass;
+import com.google.common.css.compiler.ast.CssFontFaceNode;
+import com.google.common.css.compiler.ast.CssImportRuleNode;
+import com.google.common.css.compiler.ast.CssKeyframesNode;
+import com.google.common.css.compiler.ast.CssMediaRuleNode;
+import com.google.common.css.compiler.ast.CssNode;
+import com.google.common.css.compiler.ast.CssRootNode;
+import com.google.common.css.compiler.ast.CssRulesetNode;
+import com.google.common.css.compiler.ast.CssSelectorNode;
+import com.google.common.css.compiler.ast.CssTree;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import javax.annotation.Nullable;
+
+/**
+ * Runs the chunk-local passes and prints the template of each chunk of a tree whose chunks have
+ * been assigned, e.g. by {@link MapChunkAwareNodesToChunk}.
+ *
+ * <p>The chunk-local work is removing the rulesets of the chunk that are overridden within the
+ * chunk ({@link MarkRemovableRulesetNodesForChunk}), and printing the chunk with a {@link
+ * TemplateCompactPrinter}. Passes that still work on the whole tree, like renaming or {@link
+ * ResolveCustomFunctionNodesForChunks}, have to run before this one.
+ *
+ * <p>Without an executor, the chunks are compiled one after another on the tree itself. With an
+ * executor, the tree is partitioned into one subtree per chunk, holding copies of the top-level
+ * nodes the chunk prints, and the subtrees are compiled as concurrent tasks, e.g. on a {@link
+ * java.util.concurrent.ForkJoinPool}; dead styles are then only removed from the copies.
+ * Each chunk's template is the same either way.
+ *
+ * @param <T> type of chunk id objects
+ */
+public class ChunkPipeline<T> implements CssCompilerPass {
+
+  private final CssTree tree;
+  private final ImmutableList<T> chunks;
+  @Nullable private final ExecutorService executor;
+
+  private boolean eliminateDeadStyles = false;
+  private boolean preserveMarkedComments = false;
+
+  private ImmutableMap<T, String> templates = null;
+
+  /**
+   * Creates the pipeline for the given chunks.
+   *
+   * @param tree CSS AST whose chunks have been assigned
+   * @param chunks the chunks to compile
+   * @param executor the executor to compile the chunks on, or {@code null} to compile them on the
+   *     calling thread
+   */
+  public ChunkPipeline(CssTree tree, Iterable<T> chunks, @Nullable ExecutorService executor) {
+    this.tree = tree;
+    this.chunks = ImmutableList.copyOf(chunks);
+    this.executor = executor;
+  }
+
+  /**
+   * Whether to remove the rulesets overridden within their chunk before printing. The tree must
+   * then have one selector and one declaration per ruleset, as {@link MarkRemovableRulesetNodes}
+   * requires.
+   */
+  public void setEliminateDeadStyles(boolean eliminateDeadStyles) {
+    this.eliminateDeadStyles = eliminateDeadStyles;
+  }
+
+  /** Whether special comments are preserved in the printed templates. */
+  public void setPreserveMarkedComments(boolean preserveMarkedComments) {
+    this.preserveMarkedComments = preserveMarkedComments;
+  }
+
+  /** Returns the template printed for {@code chunk} by the last run of the pass. */
+  @Nullable
+  public String getCompactPrintedString(T chunk) {
+    Preconditions.checkState(templates != null, "The pass has not been run");
+    return templates.get(chunk);
+  }
+
+  /** Returns the template printed for each chunk, in the order the chunks were given. */
+  public ImmutableMap<T, String> getCompactPrintedStrings() {
+    Preconditions.checkState(templates != null, "The pass has not been run");
+    return templates;
+  }
+
+  @Override
+  public void runPass() {
+    ImmutableMap.Builder<T, String> templates = ImmutableMap.builder();
+    if (executor == null) {
+      for (T chunk : chunks) {
+        templates.put(chunk, compileChunk(tree, chunk));
+      }
+    } else {
+      // The subtrees are copied on the calling thread: copying a node is not a pure read of it,
+      // as the copy takes over the node's comments.
+      List<Future<String>> futures = new ArrayList<>(chunks.size());
+      for (Map.Entry<T, List<CssNode>> entry : partition().entrySet()) {
+        final T chunk = entry.getKey();
+        final CssTree subtree = createSubtree(entry.getValue());
+        futures.add(
+            executor.submit(
+                new Callable<String>() {
+                  @Override
+                  public String call() {
+                    return compileChunk(subtree, chunk);
+                  }
+                }));
+      }
+      for (int i = 0; i < chunks.size(); i++) {
+        templates.put(chunks.get(i), getResult(futures.get(i)));
+      }
+    }
+    this.templates = templates.build();
+  }
+
+  private String compileChunk(CssTree chunkTree, T chunk) {
+    if (eliminateDeadStyles) {
+      new MarkRemovableRulesetNodesForChunk<>(chunk, chunkTree, false /* skipping */).runPass();
+      new EliminateUselessRulesetNodes(chunkTree).runPass();
+    }
+    TemplateCompactPrinter<T> printer = new TemplateCompactPrinter<>(chunkTree, chunk);
+    printer.setPreserveMarkedComments(preserveMarkedComments);
+    printer.runPass();
+    return printer.getCompactPrintedString();
+  }
+
+  /**
+   * Lists the top-level nodes of each chunk's subtree, in tree order: the rulesets with a selector
+   * of the chunk, the {@link ChunkAware} at-rules of the chunk and every other node, which a
+   * template prints whatever its chunk.
+   */
+  private Map<T, List<CssNode>> partition() {
+    Map<T, List<CssNode>> partition = new LinkedHashMap<>();
+    for (T chunk : chunks) {
+      partition.put(chunk, new ArrayList<CssNode>());
+    }
+    for (CssNode node : tree.getRoot().getBody().childIterable()) {
+      if (node instanceof CssRulesetNode) {
+        // A ruleset with selectors of several chunks is printed by each of them.
+        for (Map.Entry<T, List<CssNode>> entry : partition.entrySet()) {
+          if (hasSelectorOfChunk((CssRulesetNode) node, entry.getKey())) {
+            entry.getValue().add(node);
+          }
+        }
+      } else if (node instanceof CssMediaRuleNode
+          || node instanceof CssKeyframesNode
+          || node instanceof CssFontFaceNode) {
+        List<CssNode> nodes = partition.get(((ChunkAware) node).getChunk());
+        if (nodes != null) {
+          nodes.add(node);
+        }
+      } else {
+        for (List<CssNode> nodes : partition.values()) {
+          nodes.add(node);
+        }
+      }
+    }
+    return partition;
+  }
+
+  private static boolean hasSelectorOfChunk(CssRulesetNode ruleset, Object chunk) {
+    for (CssSelectorNode selector : ruleset.getSelectors().childIterable()) {
+      if (chunk.equals(selector.getChunk())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Creates a tree holding copies of the given top-level nodes of the tree. */
+  private CssTree createSubtree(List<CssNode> nodes) {
+    CssRootNode root = tree.getRoot();
+    List<CssNode> copies = new ArrayList<>(nodes.size());
+    for (CssNode node : nodes) {
+      copies.add(node.deepCopy());
+    }
+    CssBlockNode body = new CssBlockNode(false /* isEnclosedWithBraces */, copies);
+    body.setSourceCodeLocation(root.getBody().getSourceCodeLocation());
+    body.setComments(copyComments(root.getBody()));
+    CssRootNode subtreeRoot = new CssRootNode(body);
+    subtreeRoot.setSourceCodeLocation(root.getSourceCodeLocation());
+    subtreeRoot.setComments(copyComments(root));
+    for (CssImportRuleNode importRule : root.getImportRules().childIterable()) {
+      subtreeRoot.getImportRules().addChildToBack(importRule.deepCopy());
+    }
+    return new CssTree(tree.getSourceCode(), subtreeRoot);
+  }
+
+  private static List<CssCommentNode> copyComments(CssNode node) {
+    List<CssCommentNode> comments = new ArrayList<>(node.getComments().size());
+    for (CssCommentNode comment : node.getComments()) {
+      comments.add(comment.deepCopy());
+    }
+    return comments;
+  }
+
+  private static String getResult(Future<String> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    } catch (ExecutionException e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new RuntimeException(e.getCause());
+    }
+  }
+}
@@ -17,6 +17,10 @@
 package com.google.common.css.compiler.passes;
 
 import com.google.common.base.Preconditions;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.util.Arrays;
 import javax.annotation.Nullable;
 
 /**
@@ -33,7 +37,18 @@ import javax.annotation.Nullable;
  */
 public class CodeBuffer {
 
-  private final StringBuilder sb;
+  /** The capacity of a new or reset buffer. */
+  private static final int INITIAL_CAPACITY = 256;
+
+  /**
+   * The characters written to the buffer, followed by unused capacity. Appending scans the
+   * appended characters for newlines in place, which a {@link StringBuilder} would not allow
+   * without copying them out again.
+   */
+  private char[] chars;
+
+  /** The number of characters written to the buffer. */
+  private int length;
 
   /**
    * The index within the line of the next character to be written to the buffer.
@@ -54,23 +69,39 @@ public class CodeBuffer {
   private int lastCharIndex;
 
   public CodeBuffer() {
-    this.sb = new StringBuilder();
+    this.chars = new char[INITIAL_CAPACITY];
     resetIndex();
   }
 
   /** Returns buffer as String. */
   public final String getOutput() {
-    return sb.toString();
+    return new String(chars, 0, length);
+  }
+
+  /**
+   * Writes the contents of the buffer to {@code out}, without first copying them into a String as
+   * {@link #getOutput} does.
+   */
+  public final void writeTo(Appendable out) throws IOException {
+    if (out instanceof Writer) {
+      // Writer.append(CharSequence) would copy the whole buffer into a String.
+      ((Writer) out).write(chars, 0, length);
+    } else {
+      out.append(CharBuffer.wrap(chars, 0, length));
+    }
   }
 
   /** Returns the current length of the buffer. */
   public final int getCurrentLength() {
-    return sb.length();
+    return length;
   }
 
   /** Returns the last character in the buffer. */
   public final char getLastChar() {
-    return sb.charAt(sb.length() - 1);
+    if (length == 0) {
+      throw new IndexOutOfBoundsException("The buffer is empty");
+    }
+    return chars[length - 1];
   }
 
   /**
@@ -100,7 +131,7 @@ public class CodeBuffer {
    */
   public final int getLastLineIndex() {
     return nextLineIndex - (
-        (sb.length() > 0 && sb.charAt(sb.length() - 1) == '\n') ? 1 : 0);
+        (length > 0 && chars[length - 1] == '\n') ? 1 : 0);
   }
 
   /**
@@ -114,19 +145,20 @@ public class CodeBuffer {
       return this;
     }
 
-    if (str.length() == 1) {
-      append(str.charAt(0));
-    } else {
-      String[] parts = str.split("\n", -1);
-      for (int i = 0; i < parts.length; i++) {
-        sb.append(parts[i]);
-        incrementIndexBy(parts[i].length());
-        if (i != (parts.length - 1)) {
-          startNewLine();
-        }
+    int end = length + str.length();
+    ensureCapacity(end);
+    str.getChars(0, str.length(), chars, length);
+    // The characters of the current line not yet counted in the indexes start at lineStart.
+    int lineStart = length;
+    for (int i = length; i < end; i++) {
+      if (chars[i] == '\n') {
+        incrementIndexBy(i - lineStart);
+        incrementIndexForNewline();
+        lineStart = i + 1;
       }
     }
-
+    incrementIndexBy(end - lineStart);
+    length = end;
     return this;
   }
 
@@ -137,7 +169,8 @@ public class CodeBuffer {
     if (c == '\n') {
       startNewLine();
     } else {
-      sb.append(c);
+      ensureCapacity(length + 1);
+      chars[length++] = c;
       incrementIndexBy(1);
     }
     return this;
@@ -154,7 +187,8 @@ public class CodeBuffer {
    * {@code nextLineIndex}.
    */
   public final CodeBuffer startNewLine() {
-    sb.append('\n');
+    ensureCapacity(length + 1);
+    chars[length++] = '\n';
     incrementIndexForNewline();
     return this;
   }
@@ -166,7 +200,7 @@ public class CodeBuffer {
   public final CodeBuffer deleteLastChar() {
     if (getCurrentLength() > 0) {
       decrementIndex();
-      sb.deleteCharAt(getCurrentLength() - 1);
+      length--;
     }
     return this;
   }
@@ -185,8 +219,11 @@ public class CodeBuffer {
    */
   public final CodeBuffer reset() {
     resetIndex();
-    sb.setLength(0);
-    sb.trimToSize();
+    length = 0;
+    if (chars.length > INITIAL_CAPACITY) {
+      // Like StringBuilder.trimToSize, let go of the memory held for the previous contents.
+      chars = new char[INITIAL_CAPACITY];
+    }
     return this;
   }
 
@@ -206,9 +243,16 @@ public class CodeBuffer {
 
   /** Deletes the end of the buffer if it exactly equals {@code s}. */
   public void deleteEndingIfEndingIs(String s) {
-    if (sb.subSequence(sb.length() - s.length(), sb.length()).equals(s)) {
-      deleteLastChars(s.length());
+    int start = length - s.length();
+    if (start < 0) {
+      return;
+    }
+    for (int i = 0; i < s.length(); i++) {
+      if (chars[start + i] != s.charAt(i)) {
+        return;
+      }
     }
+    deleteLastChars(s.length());
   }
 
   /**
@@ -251,14 +295,14 @@ public class CodeBuffer {
     int lastIndex = getCurrentLength() - 1;
 
     // As a '\n' will be removed, {@code nextLineIndex} should be moved to previous line
-    if (sb.charAt(lastIndex) == '\n') {
+    if (chars[lastIndex] == '\n') {
       nextLineIndex--;
     }
 
     // When the second to last char is a newline, needs to recalculate the {@code lastCharIndex}
-    if (lastIndex - 1 > 0 && sb.charAt(lastIndex - 1) == '\n') {
-      int lastNewline = sb.lastIndexOf("\n");
-      int secondToLastNewLine = sb.substring(0, lastNewline - 1).lastIndexOf('\n');
+    if (lastIndex - 1 > 0 && chars[lastIndex - 1] == '\n') {
+      int lastNewline = lastIndexOfNewline(length);
+      int secondToLastNewLine = lastIndexOfNewline(lastNewline - 1);
       if (secondToLastNewLine == -1) {
         // when only one line left after deletion
         lastCharIndex = lastNewline - 1;
@@ -272,6 +316,23 @@ public class CodeBuffer {
     }
   }
 
+  /** Returns the index of the last newline before {@code end} in the buffer, or -1 if none. */
+  private int lastIndexOfNewline(int end) {
+    for (int i = end - 1; i >= 0; i--) {
+      if (chars[i] == '\n') {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /** Grows the array holding the characters so that it can hold {@code capacity} of them. */
+  private void ensureCapacity(int capacity) {
+    if (capacity > chars.length) {
+      chars = Arrays.copyOf(chars, Math.max(capacity, chars.length * 2));
+    }
+  }
+
   private void resetIndex() {
     nextCharIndex = 0;
     nextLineIndex = 0;
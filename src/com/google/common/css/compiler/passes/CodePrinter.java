@@ -23,6 +23,7 @@ import com.google.common.css.compiler.ast.CssNode;
 import com.google.common.css.compiler.ast.CssTree;
 import com.google.common.css.compiler.ast.CssTreeVisitor;
 import com.google.common.css.compiler.ast.VisitController;
+import java.io.IOException;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.regex.Pattern;
@@ -48,6 +49,9 @@ public abstract class CodePrinter implements CssCompilerPass {
   /** Whether or not to preserve special comments in the output. */
   private boolean preserveMarkedComments;
 
+  /** The comment visitor of the last {@link #createCompleteVisitor}, if comments are preserved. */
+  @Nullable private UniformVisitor commentVisitor;
+
   /**
    * Initializes this instance from the given {@link VisitController}, could optionally accept
    * {@link CodeBuffer} and {@link GssSourceMapGenerator} to use.
@@ -70,6 +74,15 @@ public abstract class CodePrinter implements CssCompilerPass {
       VisitController visitController, CodeBuffer codeBuffer);
 
   protected final void visit() {
+    visitController.startVisit(createCompleteVisitor());
+  }
+
+  /**
+   * Returns the visitor {@link #visit} runs: the one created by {@link #createVisitor} preceded by
+   * the source map and comment visitors this printer needs. Lets a caller drive several printers
+   * from a single traversal of the tree.
+   */
+  final CssTreeVisitor createCompleteVisitor() {
     List<CssTreeVisitor> visitors = new LinkedList<>();
     /*
      * NOTE(flan): This order is important. We need the SourceMapVisitor to be called first because
@@ -79,11 +92,24 @@ public abstract class CodePrinter implements CssCompilerPass {
     if (generator != null) {
       visitors.add(UniformVisitor.Adapters.asVisitor(new SourceMapVisitor()));
     }
-    if (preserveMarkedComments) {
-      visitors.add(UniformVisitor.Adapters.asVisitor(new CommentPrintingVisitor()));
+    commentVisitor = preserveMarkedComments ? new CommentPrintingVisitor() : null;
+    if (commentVisitor != null) {
+      visitors.add(UniformVisitor.Adapters.asVisitor(commentVisitor));
     }
     visitors.add(createVisitor(visitController, buffer));
-    visitController.startVisit(DelegatingVisitor.from(visitors));
+    return DelegatingVisitor.from(visitors);
+  }
+
+  /**
+   * Prints what the visitor of the last {@link #createCompleteVisitor} prints for a node it is
+   * known to decline, without calling it: the comments preserved with the node. The source map
+   * mapping the visitor would start is left out, as a mapping that is never finished does not
+   * appear in the source map.
+   */
+  final void skipDeclinedNode(CssNode node) {
+    if (commentVisitor != null) {
+      commentVisitor.enter(node);
+    }
   }
 
   // Proxy method for external usage.
@@ -95,6 +121,10 @@ public abstract class CodePrinter implements CssCompilerPass {
     return buffer.getOutput();
   }
 
+  protected final void writeOutputBufferTo(Appendable out) throws IOException {
+    buffer.writeTo(out);
+  }
+
   /**
    * Whether special comments in the CSS nodes are preserved in the printed
    * output. Currently supported special comments are annotated with one of the following:
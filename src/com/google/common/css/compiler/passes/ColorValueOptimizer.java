@@ -19,7 +19,6 @@ package com.google.common.css.compiler.passes;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
-import com.google.common.css.compiler.ast.CssCompilerPass;
 import com.google.common.css.compiler.ast.CssFunctionArgumentsNode;
 import com.google.common.css.compiler.ast.CssFunctionNode;
 import com.google.common.css.compiler.ast.CssFunctionNode.Function;
@@ -41,7 +40,7 @@ import java.util.logging.Logger;
  * @author oana@google.com (Oana Florescu)
  */
 public class ColorValueOptimizer extends DefaultTreeVisitor
-    implements CssCompilerPass {
+    implements FusablePass {
 
   private static final Logger logger = Logger.getLogger(
       ColorValueOptimizer.class.getName());
@@ -54,8 +53,10 @@ public class ColorValueOptimizer extends DefaultTreeVisitor
     this.visitController = visitController;
   }
 
+  // The arguments are only read once they have been visited, so that they may
+  // first be normalized by other passes fused with this one.
   @Override
-  public boolean enterFunctionNode(CssFunctionNode function) {
+  public void leaveFunctionNode(CssFunctionNode function) {
     if (function.getFunction() == RGB) {
       try {
         String hexValue = parseRgbArguments(function);
@@ -72,7 +73,6 @@ public class ColorValueOptimizer extends DefaultTreeVisitor
         logger.info("Error parsing rgb() function: " + nfe.toString());
       }
     }
-    return true;
   }
 
   @Override
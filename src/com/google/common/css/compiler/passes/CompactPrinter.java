@@ -16,18 +16,24 @@
 
 package com.google.common.css.compiler.passes;
 
+import com.google.common.base.Preconditions;
 import com.google.common.css.compiler.ast.CssNode;
 import com.google.common.css.compiler.ast.CssTree;
 import com.google.common.css.compiler.ast.CssTreeVisitor;
 import com.google.common.css.compiler.ast.VisitController;
+import java.io.IOException;
 import javax.annotation.Nullable;
 
 /** A compact-printer for {@link CssTree} instances. */
 public class CompactPrinter extends CodePrinter {
   private boolean skipHtmlEscaping = false;
 
+  /** The printed output, copied out of the buffer the first time it is asked for. */
   private String compactedPrintedString = null;
 
+  /** Whether the pass has been run, so that the buffer holds the printed output. */
+  private boolean printed = false;
+
   /**
    * Disable important priority printing.
    */
@@ -65,7 +71,15 @@ public class CompactPrinter extends CodePrinter {
   }
 
   public CompactPrinter(CssTree tree, GssSourceMapGenerator generator, boolean skipHtmlEscaping) {
-    this(tree, null /* buffer */, generator);
+    this(tree, null /* buffer */, generator, skipHtmlEscaping);
+  }
+
+  public CompactPrinter(
+      CssTree tree,
+      @Nullable CodeBuffer buffer,
+      @Nullable GssSourceMapGenerator generator,
+      boolean skipHtmlEscaping) {
+    this(tree, buffer, generator);
     this.skipHtmlEscaping = skipHtmlEscaping;
   }
 
@@ -80,14 +94,27 @@ public class CompactPrinter extends CodePrinter {
 
   /** Returns the CSS compacted printed output. */
   public String getCompactPrintedString() {
+    if (compactedPrintedString == null && printed) {
+      compactedPrintedString = getOutputBuffer();
+    }
     return compactedPrintedString;
   }
 
+  /**
+   * Writes the CSS compacted printed output to {@code out}, without materializing it as a String
+   * like {@link #getCompactPrintedString} does.
+   */
+  public void writeCompactPrintedStringTo(Appendable out) throws IOException {
+    Preconditions.checkState(printed, "The pass has not been run");
+    writeOutputBufferTo(out);
+  }
+
   @Override
   public void runPass() {
     resetBuffer();
     visit();
-    compactedPrintedString = getOutputBuffer();
+    compactedPrintedString = null;
+    printed = true;
   }
 
   public static String printCompactly(CssNode n) {
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.passes;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.css.compiler.ast.CssCompilerPass;
+import com.google.common.css.compiler.ast.CssNode;
+import com.google.common.css.compiler.ast.CssTreeVisitor;
+import com.google.common.css.compiler.ast.MutatingVisitController;
+
+import java.util.List;
+
+/**
+ * Runs several {@link FusablePass}es in a single traversal of the tree.
+ *
+ * <p>The passes are created with the controller returned by
+ * {@link #getVisitController}, added in the order they would otherwise run,
+ * and the composite is then run as one pass. Visits are dispatched as by a
+ * {@link DelegatingVisitor}, except that once a pass removes or replaces the
+ * current node the remaining passes no longer see it, just as they would not
+ * if the passes ran one after the other.
+ */
+public class CompositeVisitor implements CssCompilerPass {
+
+  private final String name;
+  private final MutatingVisitController visitController;
+  private final ImmutableList.Builder<FusablePass> passes =
+      ImmutableList.builder();
+  private final TrackingVisitController trackingVisitController =
+      new TrackingVisitController();
+
+  /** Whether the node being dispatched was removed or replaced. */
+  private boolean currentNodeChanged = false;
+
+  /**
+   * @param name the name reported for the fused passes, e.g. by a
+   *     {@link PassObserver}
+   * @param visitController the controller of the tree to visit
+   */
+  public CompositeVisitor(String name,
+      MutatingVisitController visitController) {
+    this.name = Preconditions.checkNotNull(name);
+    this.visitController = Preconditions.checkNotNull(visitController);
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Returns the controller the fused passes must be created with, so that
+   * their changes to the tree are seen by the composite.
+   */
+  public MutatingVisitController getVisitController() {
+    return trackingVisitController;
+  }
+
+  /** Adds a pass, which runs after the ones already added. */
+  public CompositeVisitor add(FusablePass pass) {
+    passes.add(pass);
+    return this;
+  }
+
+  public List<FusablePass> getPasses() {
+    return passes.build();
+  }
+
+  @Override
+  public void runPass() {
+    List<FusablePass> fusedPasses = getPasses();
+    Preconditions.checkState(!fusedPasses.isEmpty(), "No pass to run");
+    visitController.startVisit(DelegatingVisitor.from(
+        ImmutableList.<CssTreeVisitor>copyOf(fusedPasses),
+        new DelegatingVisitor.DispatchControl() {
+          @Override
+          public void startDispatch() {
+            currentNodeChanged = false;
+          }
+
+          @Override
+          public boolean continueDispatch() {
+            return !currentNodeChanged;
+          }
+        }));
+  }
+
+  /**
+   * Forwards to the controller of the tree and records the changes made to
+   * the node being visited.
+   */
+  private class TrackingVisitController implements MutatingVisitController {
+    @Override
+    public void startVisit(CssTreeVisitor visitor) {
+      visitController.startVisit(visitor);
+    }
+
+    @Override
+    public void stopVisit() {
+      visitController.stopVisit();
+    }
+
+    @Override
+    public void removeCurrentNode() {
+      visitController.removeCurrentNode();
+      currentNodeChanged = true;
+    }
+
+    @Override
+    public <T extends CssNode> void replaceCurrentBlockChildWith(
+        List<T> replacementNodes, boolean visitTheReplacementNodes) {
+      visitController.replaceCurrentBlockChildWith(
+          replacementNodes, visitTheReplacementNodes);
+      currentNodeChanged = true;
+    }
+  }
+}
@@ -19,7 +19,6 @@ package com.google.common.css.compiler.passes;
 import com.google.common.collect.ImmutableList;
 import com.google.common.css.SubstitutionMap;
 import com.google.common.css.compiler.ast.CssClassSelectorNode;
-import com.google.common.css.compiler.ast.CssCompilerPass;
 import com.google.common.css.compiler.ast.CssIdSelectorNode;
 import com.google.common.css.compiler.ast.DefaultTreeVisitor;
 import com.google.common.css.compiler.ast.MutatingVisitController;
@@ -31,7 +30,7 @@ import com.google.common.css.compiler.ast.MutatingVisitController;
  * @author fbenz@google.com (Florian Benz)
  */
 public class CssClassRenaming extends DefaultTreeVisitor
-    implements CssCompilerPass {
+    implements FusablePass {
 
   private final MutatingVisitController visitController;
   private final SubstitutionMap cssClassRenamingMap;
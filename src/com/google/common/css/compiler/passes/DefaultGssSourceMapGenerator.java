@@ -22,7 +22,13 @@ import com.google.common.base.Predicates;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
 import com.google.common.css.JobDescription.SourceMapDetailLevel;
+import com.google.common.css.compiler.ast.CssAbstractBlockNode;
+import com.google.common.css.compiler.ast.CssAtRuleNode;
+import com.google.common.css.compiler.ast.CssDeclarationNode;
+import com.google.common.css.compiler.ast.CssKeyframeRulesetNode;
 import com.google.common.css.compiler.ast.CssNode;
+import com.google.common.css.compiler.ast.CssRulesetNode;
+import com.google.common.css.compiler.ast.CssSelectorNode;
 import com.google.debugging.sourcemap.FilePosition;
 // import com.google.debugging.sourcemap.SourceMapFormat;
 import com.google.debugging.sourcemap.SourceMapGenerator;
@@ -33,14 +39,23 @@ import com.google.debugging.sourcemap.SourceMapGeneratorV3;
 import java.io.IOException;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Deque;
+import java.util.HashSet;
 import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
 
 /**
  * Class to collect and generate source map(v3) for Gss compiler. It is intended to be used by
  * {@link com.google.common.css.compiler.passes.CodePrinter}.
  *
+ * <p>Mappings are kept in the order the printer starts them, which is the order of their
+ * positions in the output except where the printer deleted output it had already written or
+ * started over in a fresh buffer. Each such step back opens a new run of mappings, and the runs
+ * are merged when the source map is written, so the mappings never need a global sort. A
+ * mapping only refers to its node while it is open; once closed it keeps just the positions
+ * and the name of its source file.
+ *
  * <p>Source Map Revision 3 Proposal:
  * https://docs.google.com/document/d/1U1RGAehQwRypUTovF1KRlpiOFze0b-_2gc6fAH0KY0k/edit?usp=sharing
  *
@@ -59,9 +74,50 @@ public final class DefaultGssSourceMapGenerator implements GssSourceMapGenerator
    * later on by the SourceMap.
    */
   static class Mapping {
+    /** The node being printed, or {@code null} once the mapping is closed or dropped. */
     CssNode node;
-    FilePosition start;
-    FilePosition end;
+    final String sourceFile;
+    final int inputLine;
+    final int inputColumn;
+    final int startLine;
+    final int startColumn;
+    int endLine = -1;
+    int endColumn;
+
+    Mapping(CssNode node, String sourceFile, int startLine, int startColumn) {
+      this.node = node;
+      this.sourceFile = sourceFile;
+      this.inputLine = getStartLineno(node);
+      this.inputColumn = getStartCharIndex(node);
+      this.startLine = startLine;
+      this.startColumn = startColumn;
+    }
+
+    boolean isClosed() {
+      return endLine >= 0;
+    }
+
+    boolean startsBefore(Mapping m) {
+      return startLine < m.startLine
+          || (startLine == m.startLine && startColumn < m.startColumn);
+    }
+
+    /**
+     * Gets the start line index in the source code of {@code node} adjusted to 0-based indices.
+     *
+     * <p>
+     * Note: Gss compiler uses a 1-based line number and source map V3 uses a 0-based line number.
+     */
+    private static int getStartLineno(CssNode node) {
+      return node.getSourceCodeLocation().getLineNumber() - 1;
+    }
+
+    /**
+     * Gets the start character index in the output buffer for current {@code node}.
+     */
+    private static int getStartCharIndex(CssNode node) {
+      return node.getSourceCodeLocation().getCharacterIndex();
+    }
   }
 
   /**
@@ -71,7 +127,10 @@ public final class DefaultGssSourceMapGenerator implements GssSourceMapGenerator
    *   <li>{@code ALL} provides the most details by generating source map for every nodes containing
    *       source locations.
    *   <li>{@code DEFAULT} generates source map for selected nodes and results in a smaller output
-   *       suitable to use in production.
+   *       suitable to use in production: selectors, blocks, declarations, rulesets and at-rules,
+   *       which include the definitions of variables, but none of the values.
+   *   <li>{@code RULES} only generates source map for rulesets and at-rules, which is enough to
+   *       find the rule a piece of output comes from.
    * </ul>
    */
   private static final ImmutableMap<SourceMapDetailLevel, Predicate<CssNode>>
@@ -81,13 +140,32 @@ public final class DefaultGssSourceMapGenerator implements GssSourceMapGenerator
                   SourceMapDetailLevel.ALL,
                   Predicates.<CssNode>alwaysTrue(),
                   SourceMapDetailLevel.DEFAULT,
-                  Predicates.<CssNode>alwaysTrue()));
+                  Predicates.<CssNode>or(
+                      Predicates.instanceOf(CssSelectorNode.class),
+                      Predicates.instanceOf(CssAbstractBlockNode.class),
+                      Predicates.instanceOf(CssDeclarationNode.class),
+                      Predicates.instanceOf(CssRulesetNode.class),
+                      Predicates.instanceOf(CssKeyframeRulesetNode.class),
+                      Predicates.instanceOf(CssAtRuleNode.class)),
+                  SourceMapDetailLevel.RULES,
+                  Predicates.<CssNode>or(
+                      Predicates.instanceOf(CssRulesetNode.class),
+                      Predicates.instanceOf(CssKeyframeRulesetNode.class),
+                      Predicates.instanceOf(CssAtRuleNode.class))));
 
   /** Deque to hold current mappings on stack while visiting the subtree. **/
   private final Deque<Mapping> mappings;
 
-  /** List of all the mappings generated for code visit **/
-  private final List<Mapping> allMappings;
+  /**
+   * Runs of the mappings generated for code visit, each in the order of their start positions.
+   **/
+  private final List<List<Mapping>> runs;
+
+  /** The run new mappings are added to, the last one of {@link #runs}. */
+  private List<Mapping> currentRun;
+
+  /** The source files whose contents have been passed to {@link #generator}. */
+  private final Set<String> sourcesWithContent;
 
   private SourceMapDetailLevel sourceMapDetailLevel;
 
@@ -106,7 +184,8 @@ public final class DefaultGssSourceMapGenerator implements GssSourceMapGenerator
     Preconditions.checkState(sourceMapDetailLevel != null);
     this.mappings = new ArrayDeque<>();
     this.generator = new SourceMapGeneratorV3();
-    this.allMappings = new ArrayList<>();
+    this.runs = new ArrayList<>();
+    this.sourcesWithContent = new HashSet<>();
     this.sourceMapDetailLevel = sourceMapDetailLevel;
     this.detailLevelPredicate = DETAIL_LEVEL_PREDICATES.get(this.sourceMapDetailLevel);
     this.sourceMapIncludeContent = sourceMapIncludeContent;
@@ -139,14 +218,24 @@ public final class DefaultGssSourceMapGenerator implements GssSourceMapGenerator
     Preconditions.checkState(node != null);
     Preconditions.checkState(startLine >= 0);
     Preconditions.checkState(startCharIndex >= 0);
-    if (node.getSourceCodeLocation() != null
-        && detailLevelPredicate.apply(node)) {
-      Mapping mapping = new Mapping();
-      mapping.node = node;
-      mapping.start = new FilePosition(startLine, startCharIndex);
-      mappings.push(mapping);
-      allMappings.add(mapping);
+    // If the node does not have an associated source file or source location
+    // is unknown, then the node does not have sufficient info for source map.
+    if (node.getSourceCodeLocation() == null
+        || node.getSourceCodeLocation().isUnknown()
+        || !detailLevelPredicate.apply(node)) {
+      return;
     }
+    String sourceFile = node.getSourceCodeLocation().getSourceCode().getFileName();
+    if (sourceFile == null) {
+      return;
+    }
+    Mapping mapping = new Mapping(node, sourceFile, startLine, startCharIndex);
+    mappings.push(mapping);
+    if (currentRun == null || mapping.startsBefore(currentRun.get(currentRun.size() - 1))) {
+      currentRun = new ArrayList<>();
+      runs.add(currentRun);
+    }
+    currentRun.add(mapping);
   }
 
   /**
@@ -166,10 +255,35 @@ public final class DefaultGssSourceMapGenerator implements GssSourceMapGenerator
     // copyright comment.
     Preconditions.checkState(endCharIndex >= -1);
     endCharIndex++; //
-    if (!mappings.isEmpty() && mappings.peek().node == node) {
-      Mapping mapping = mappings.pop();
-      mapping.end = new FilePosition(endLine, endCharIndex);
+    if (mappings.isEmpty()) {
+      return;
+    }
+    if (mappings.peek().node != node && !isMappingOpen(node)) {
+      return;
     }
+    // Mappings above the node's were started for nodes the printer declined to print, and that
+    // are never finished; they are left without an end and dropped from the output.
+    Mapping mapping = mappings.pop();
+    while (mapping.node != node) {
+      mapping.node = null;
+      mapping = mappings.pop();
+    }
+    mapping.node = null;
+    mapping.endLine = endLine;
+    mapping.endColumn = endCharIndex;
+    if (sourceMapIncludeContent && sourcesWithContent.add(mapping.sourceFile)) {
+      generator.addSourcesContent(
+          mapping.sourceFile, node.getSourceCodeLocation().getSourceCode().getFileContents());
+    }
+  }
+
+  private boolean isMappingOpen(CssNode node) {
+    for (Mapping mapping : mappings) {
+      if (mapping.node == node) {
+        return true;
+      }
+    }
+    return false;
   }
 
   /**
@@ -185,90 +299,74 @@ public final class DefaultGssSourceMapGenerator implements GssSourceMapGenerator
   }
 
   /**
-   * Generates the source map by passing all mappings to {@link #generator}.
+   * Generates the source map by passing all closed mappings to {@link #generator} in the order
+   * of their start positions. The runs are merged the way a stable sort would order them: of
+   * mappings starting at the same position, the one started first comes first.
    */
   private void generateSourceMap() {
-    List<CompleteMapping> completeMappings = new ArrayList<>(allMappings.size());
-    for (Mapping mapping : allMappings) {
-      // If the node does not have an associated source file or source location
-      // is unknown, then the node does not have sufficient info for source map.
-      if (mapping.node.getSourceCodeLocation().isUnknown()) {
-        continue;
+    if (runs.size() == 1) {
+      for (Mapping mapping : currentRun) {
+        addMapping(mapping);
       }
-      CompleteMapping completeMapping = new CompleteMapping(mapping);
-      if (completeMapping.sourceFile == null) {
-        continue;
+    } else if (!runs.isEmpty()) {
+      PriorityQueue<RunCursor> queue = new PriorityQueue<>(runs.size());
+      for (int i = 0; i < runs.size(); i++) {
+        queue.add(new RunCursor(runs.get(i), i));
       }
-      completeMappings.add(completeMapping);
-    }
-    Collections.sort(completeMappings);
-    for (CompleteMapping completeMapping : completeMappings) {
-      // TODO: could pass in an optional symbol name
-      generator.addMapping(
-          completeMapping.sourceFile, null,
-          completeMapping.inputStart,
-          completeMapping.outputStart, completeMapping.outputEnd);
-
-      if (sourceMapIncludeContent) {
-        generator.addSourcesContent(
-          completeMapping.sourceFile, completeMapping.sourceContents);
+      while (!queue.isEmpty()) {
+        RunCursor cursor = queue.poll();
+        addMapping(cursor.next());
+        if (cursor.hasNext()) {
+          queue.add(cursor);
+        }
       }
     }
+    runs.clear();
+    currentRun = null;
   }
 
-
-  private static final class CompleteMapping implements Comparable<CompleteMapping> {
-    final String sourceFile;
-    final String sourceContents;
-    final FilePosition inputStart;
-    final FilePosition outputStart;
-    final FilePosition outputEnd;
-
-    CompleteMapping(Mapping mapping) {
-      CssNode node = mapping.node;
-      this.sourceFile = getSourceFileName(node);
-      this.sourceContents = getSourceFileContents(node);
-      this.inputStart = new FilePosition(
-          getStartLineno(node), getStartCharIndex(node));
-      this.outputStart = mapping.start;
-      this.outputEnd = mapping.end;
+  private void addMapping(Mapping mapping) {
+    if (!mapping.isClosed()) {
+      return;
     }
+    // TODO: could pass in an optional symbol name
+    generator.addMapping(
+        mapping.sourceFile, null,
+        new FilePosition(mapping.inputLine, mapping.inputColumn),
+        new FilePosition(mapping.startLine, mapping.startColumn),
+        new FilePosition(mapping.endLine, mapping.endColumn));
+  }
 
-    private static String getSourceFileContents(CssNode node) {
-      return node.getSourceCodeLocation().getSourceCode().getFileContents();
-    }
+  /** The position reached in one of the {@link #runs} while they are being merged. */
+  private static final class RunCursor implements Comparable<RunCursor> {
+    final List<Mapping> run;
+    final int runIndex;
+    int index;
 
-    @Override
-    public int compareTo(CompleteMapping m) {
-      int delta = outputStart.getLine() - m.outputStart.getLine();
-      if (delta == 0) {
-        delta = outputStart.getColumn() - m.outputStart.getColumn();
-      }
-      return delta;
+    RunCursor(List<Mapping> run, int runIndex) {
+      this.run = run;
+      this.runIndex = runIndex;
     }
 
-    /**
-     * Gets the source file file for current node.
-     */
-    private static String getSourceFileName(CssNode node) {
-      return node.getSourceCodeLocation().getSourceCode().getFileName();
+    boolean hasNext() {
+      return index < run.size();
     }
 
-    /**
-     * Gets the start line index in the source code of {@code node} adjusted to 0-based indices.
-     *
-     * <p>
-     * Note: Gss compiler uses a 1-based line number and source map V3 uses a 0-based line number.
-     */
-    private static int getStartLineno(CssNode node) {
-      return node.getSourceCodeLocation().getLineNumber() - 1;
+    Mapping next() {
+      return run.get(index++);
     }
 
-    /**
-     * Gets the start character index in the output buffer for current {@code node}.
-     */
-    private static int getStartCharIndex(CssNode node) {
-      return node.getSourceCodeLocation().getCharacterIndex();
+    @Override
+    public int compareTo(RunCursor c) {
+      Mapping m = run.get(index);
+      Mapping other = c.run.get(c.index);
+      if (m.startsBefore(other)) {
+        return -1;
+      }
+      if (other.startsBefore(m)) {
+        return 1;
+      }
+      return runIndex - c.runIndex;
     }
   }
 }
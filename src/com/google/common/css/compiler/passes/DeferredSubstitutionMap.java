@@ -0,0 +1,76 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.passes;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import com.google.common.css.SubstitutionMap;
+import com.google.common.css.compiler.ast.CssTree;
+
+import java.util.List;
+
+/**
+ * A {@link SubstitutionMap} that lets trees compiled concurrently be renamed
+ * as if they were compiled one after another. Instead of renaming, it records
+ * the keys it is asked for and hands out placeholders. Once it is the tree's
+ * turn, {@link #resolve} asks the real map for the same keys in the same
+ * order, which leaves the real map in the state renaming the tree directly
+ * would have, and puts the real names in place of the placeholders. A map may
+ * be resolved again for a copy of the tree, e.g. when the tree is cached and
+ * compiled into a later output.
+ *
+ * <p>Placeholders cannot clash with class names of the source, as they start
+ * with a character the parser does not accept in identifiers.
+ */
+public class DeferredSubstitutionMap implements SubstitutionMap {
+
+  private static final char PLACEHOLDER_PREFIX = '\u0000';
+
+  private final List<String> keys = Lists.newArrayList();
+
+  @Override
+  public String get(String key) {
+    Preconditions.checkNotNull(key);
+    keys.add(key);
+    return PLACEHOLDER_PREFIX + Integer.toString(keys.size() - 1);
+  }
+
+  /**
+   * Renames the recorded keys with the given map, in the order they were
+   * recorded, and replaces the placeholders in the tree this map was used to
+   * rename, or in a copy of it.
+   */
+  public void resolve(SubstitutionMap map, CssTree tree) {
+    final String[] values = new String[keys.size()];
+    for (int i = 0; i < values.length; i++) {
+      String key = keys.get(i);
+      String value = map.get(key);
+      values[i] = (value != null) ? value : key;
+    }
+    SubstitutionMap placeholders = new SubstitutionMap() {
+      @Override
+      public String get(String key) {
+        if (key.isEmpty() || key.charAt(0) != PLACEHOLDER_PREFIX) {
+          return null;
+        }
+        return values[Integer.parseInt(key.substring(1))];
+      }
+    };
+    new CssClassRenaming(tree.getMutatingVisitController(), placeholders,
+        null).runPass();
+  }
+}
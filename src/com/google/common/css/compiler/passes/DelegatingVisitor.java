@@ -36,6 +36,29 @@ import java.util.List;
 public class DelegatingVisitor {
   private DelegatingVisitor() {}
 
+  /**
+   * Decides whether a call that is being dispatched should reach the remaining delegates. Used by
+   * {@link CompositeVisitor} to stop dispatching a node once a delegate has removed or replaced it.
+   */
+  interface DispatchControl {
+    /** Called before a method is dispatched to the first delegate. */
+    void startDispatch();
+
+    /** Returns whether the method being dispatched should be passed on to the next delegate. */
+    boolean continueDispatch();
+  }
+
+  private static final DispatchControl DISPATCH_TO_ALL =
+      new DispatchControl() {
+        @Override
+        public void startDispatch() {}
+
+        @Override
+        public boolean continueDispatch() {
+          return true;
+        }
+      };
+
   /**
    * Creates a {@code DelegatingVisitor} from the given list of visitors. The list must have at
    * least one element.
@@ -45,7 +68,17 @@ public class DelegatingVisitor {
     if (originalVisitors.size() == 1) {
       return originalVisitors.get(0);
     }
+    return from(originalVisitors, DISPATCH_TO_ALL);
+  }
 
+  /**
+   * Creates a {@code DelegatingVisitor} which asks {@code control} before each delegate but the
+   * first whether the call should still be dispatched. The value returned by a method is the one
+   * returned by the last delegate actually called.
+   */
+  static CssTreeVisitor from(
+      List<CssTreeVisitor> originalVisitors, final DispatchControl control) {
+    Preconditions.checkArgument(originalVisitors.size() >= 1);
     final ImmutableList<CssTreeVisitor> visitors = ImmutableList.copyOf(originalVisitors);
     final ImmutableList<CssTreeVisitor> reverseVisitors = visitors.reverse();
     return Reflection.newProxy(
@@ -61,8 +94,14 @@ public class DelegatingVisitor {
               } else { // assume it's a leave* method
                 visitorsInOrderForMethod = reverseVisitors;
               }
+              control.startDispatch();
+              boolean first = true;
               for (CssTreeVisitor visitor : visitorsInOrderForMethod) {
+                if (!first && !control.continueDispatch()) {
+                  break;
+                }
                 returnValue = method.invoke(visitor, args);
+                first = false;
               }
               return returnValue;
             } catch (InvocationTargetException e) {
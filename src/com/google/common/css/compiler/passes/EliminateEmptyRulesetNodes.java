@@ -16,7 +16,6 @@
 
 package com.google.common.css.compiler.passes;
 
-import com.google.common.css.compiler.ast.CssCompilerPass;
 import com.google.common.css.compiler.ast.CssKeyframeRulesetNode;
 import com.google.common.css.compiler.ast.CssKeyframesNode;
 import com.google.common.css.compiler.ast.CssMediaRuleNode;
@@ -31,7 +30,7 @@ import com.google.common.css.compiler.ast.MutatingVisitController;
  * @author oana@google.com (Oana Florescu)
  */
 public class EliminateEmptyRulesetNodes extends DefaultTreeVisitor
-    implements CssCompilerPass {
+    implements FusablePass {
 
   private final MutatingVisitController visitController;
 
@@ -17,7 +17,6 @@
 package com.google.common.css.compiler.passes;
 
 import com.google.common.collect.ImmutableSet;
-import com.google.common.css.compiler.ast.CssCompilerPass;
 import com.google.common.css.compiler.ast.CssCompositeValueNode.Operator;
 import com.google.common.css.compiler.ast.CssMathNode;
 import com.google.common.css.compiler.ast.CssNode;
@@ -41,7 +40,7 @@ import java.util.logging.Logger;
  * @author fbenz@google.com (Florian Benz)
  */
 public class EliminateUnitsFromZeroNumericValues extends DefaultTreeVisitor
-    implements CssCompilerPass {
+    implements FusablePass {
   private static final ImmutableSet<String> REMOVABLE_LENGTH_UNITS =
       ImmutableSet.of("em", "ex", "px", "gd", "rem", "vw", "vh", "vm", "ch",
           "in", "cm", "mm", "pt", "pc");
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.passes;
+
+import com.google.common.css.compiler.ast.CssCompilerPass;
+import com.google.common.css.compiler.ast.CssTreeVisitor;
+
+/**
+ * A compiler pass that can share a single traversal of the tree with other
+ * passes through a {@link CompositeVisitor}.
+ *
+ * <p>A pass may only be declared fusable if running it in the same traversal
+ * as the passes it is grouped with gives the same tree as running them one
+ * after the other. In particular it must:
+ * <ul>
+ * <li>not look in {@code enter*} methods at the parts of the subtree that
+ *     the other passes of the group change, as they have not visited them
+ *     yet; code depending on them belongs in the {@code leave*} methods;
+ * <li>only return {@code false} from an {@code enter*} method for a node it
+ *     has removed or replaced;
+ * <li>leave alone the nodes created by the other passes of the group, which
+ *     it may now visit;
+ * <li>never call {@code stopVisit}.
+ * </ul>
+ * The pass must mutate the tree through the controller it was given, which in
+ * a fused traversal is the one of the {@link CompositeVisitor}.
+ */
+public interface FusablePass extends CssCompilerPass, CssTreeVisitor {
+}
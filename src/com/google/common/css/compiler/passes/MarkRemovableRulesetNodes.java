@@ -70,6 +70,9 @@ public class MarkRemovableRulesetNodes extends SkippingTreeVisitor
   /** The prefix of the class names. TODO(oana): This should be a namespace. */
   private String prefixOfReferencedRules = "";
 
+  /** The buffer the selector keys are printed into, reused between rulesets. */
+  private final StringBuilder selectorBuffer = new StringBuilder();
+
   /**
    * Creates a new pass over the specified tree.
    */
@@ -184,8 +187,9 @@ public class MarkRemovableRulesetNodes extends SkippingTreeVisitor
       propertyName = "*" + propertyName;
     }
 
-    String selector = PassUtil.printSelector(
-        ruleset.getSelectors().getChildAt(0));
+    selectorBuffer.setLength(0);
+    PassUtil.appendSelector(ruleset.getSelectors().getChildAt(0), selectorBuffer);
+    String selector = selectorBuffer.toString();
 
     CssRulesetNode previousRuleset = rules.get(selector, propertyName);
     if (previousRuleset != null) {
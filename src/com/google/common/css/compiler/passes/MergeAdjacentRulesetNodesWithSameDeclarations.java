@@ -83,8 +83,8 @@ public class MergeAdjacentRulesetNodesWithSameDeclarations
       CssRulesetNode currentRule = (CssRulesetNode) node;
 
       if (ruleToMergeTo != null &&
-          ruleToMergeTo.getDeclarations().toString().equals(
-              currentRule.getDeclarations().toString())) {
+          ruleToMergeTo.getDeclarations().structurallyEquals(
+              currentRule.getDeclarations())) {
         for (CssSelectorNode decl : currentRule.getSelectors().childIterable()) {
           ruleToMergeTo.addSelector(decl);
         }
@@ -115,7 +115,7 @@ public class MergeAdjacentRulesetNodesWithSameDeclarations
    * <p>Note that this issue occurs with any unrecognized pseudo element. For example, ::foo
    * will break the rest of the selectors, whereas ::before will not (since it is recognized).
    */
-  private boolean hasProblematicSelectors(CssRulesetNode rule) {
+  static boolean hasProblematicSelectors(CssRulesetNode rule) {
     for (CssSelectorNode selector : rule.getSelectors().childIterable()) {
       for (CssRefinerNode refiner : selector.getRefiners().childIterable()) {
         if (refiner.getRefinerType() == CssRefinerNode.Refiner.PSEUDO_ELEMENT) {
@@ -40,6 +40,16 @@ public class MergeAdjacentRulesetNodesWithSameSelector
   private final CssTree tree;
   private final MutatingVisitController visitController;
 
+  /**
+   * The printed selectors of the ruleset merged to, kept while they are
+   * compared with those of the following rulesets.
+   */
+  private final StringBuilder printedSelectors = new StringBuilder();
+  private CssSelectorListNode printedSelectorsNode = null;
+
+  /** The buffer the selectors of the current ruleset are printed into. */
+  private final StringBuilder currentSelectors = new StringBuilder();
+
   public MergeAdjacentRulesetNodesWithSameSelector(CssTree tree) {
     this(tree, false);
   }
@@ -54,6 +64,7 @@ public class MergeAdjacentRulesetNodesWithSameSelector
   @Override
   public boolean enterTree(CssRootNode root) {
     tree.resetRulesetNodesToRemove();
+    printedSelectorsNode = null;
     return true;
   }
 
@@ -115,8 +126,14 @@ public class MergeAdjacentRulesetNodesWithSameSelector
    */
   private boolean sameSelectors(
       CssSelectorListNode s1, CssSelectorListNode s2) {
-    if (!PassUtil.printSelectorList(s1).equals(
-        PassUtil.printSelectorList(s2))) {
+    if (s1 != printedSelectorsNode) {
+      printedSelectors.setLength(0);
+      PassUtil.appendSelectorList(s1, printedSelectors);
+      printedSelectorsNode = s1;
+    }
+    currentSelectors.setLength(0);
+    PassUtil.appendSelectorList(s2, currentSelectors);
+    if (!contentEquals(printedSelectors, currentSelectors)) {
       return false;
     }
     int n = s1.numChildren();
@@ -134,6 +151,19 @@ public class MergeAdjacentRulesetNodesWithSameSelector
     return true;
   }
 
+  private static boolean contentEquals(CharSequence s1, CharSequence s2) {
+    int n = s1.length();
+    if (n != s2.length()) {
+      return false;
+    }
+    for (int i = 0; i < n; i++) {
+      if (s1.charAt(i) != s2.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   private CssNode skipNonRulesetNode(CssNode node, Iterator<CssNode> iterator) {
     while (!(node instanceof CssRulesetNode)) {
       if (iterator.hasNext()) {
@@ -0,0 +1,291 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.passes;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.css.compiler.ast.ChunkAware;
+import com.google.common.css.compiler.ast.CssCompilerPass;
+import com.google.common.css.compiler.ast.CssNode;
+import com.google.common.css.compiler.ast.CssRulesetNode;
+import com.google.common.css.compiler.ast.CssSelectorNode;
+import com.google.common.css.compiler.ast.CssTree;
+import com.google.common.css.compiler.ast.CssTreeVisitor;
+import com.google.common.reflect.Reflection;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * Prints the templates of several chunks in a single traversal of the tree. The output is the
+ * same as running one {@link TemplateCompactPrinter} per chunk, but the tree is walked once
+ * instead of once per chunk.
+ *
+ * <p>Every chunk has its own printer, and so its own {@link CodeBuffer} and, optionally, its own
+ * {@link GssSourceMapGenerator} whose segments refer to the positions in that chunk's template.
+ *
+ * @param <T> type of chunk id objects
+ */
+public class MultiChunkTemplateCompactPrinter<T> implements CssCompilerPass {
+
+  private final CssTree tree;
+
+  /** The printer of each chunk, in the order the chunks were given. */
+  private final ImmutableMap<T, TemplateCompactPrinter<T>> printers;
+
+  /** The enter* methods of the chunk aware at-rules printed in a single chunk. */
+  private static final ImmutableSet<String> ROUTED_AT_RULES =
+      ImmutableSet.of("enterMediaRule", "enterFontFace", "enterKeyframesRule");
+
+  private ImmutableMap<T, String> templates = null;
+
+  /**
+   * Creates a printer for the given chunks.
+   *
+   * @param tree CSS AST to be printed
+   * @param chunks the chunks to print a template for
+   */
+  public MultiChunkTemplateCompactPrinter(CssTree tree, Iterable<T> chunks) {
+    this(tree, chunks, ImmutableMap.<T, GssSourceMapGenerator>of());
+  }
+
+  /**
+   * Creates a printer for the chunks of {@code generators}, recording the source map of each
+   * chunk's template with the generator it is mapped to.
+   *
+   * @param tree CSS AST to be printed
+   * @param generators the source map generator of each chunk to print a template for
+   */
+  public MultiChunkTemplateCompactPrinter(
+      CssTree tree, Map<T, ? extends GssSourceMapGenerator> generators) {
+    this(tree, generators.keySet(), generators);
+  }
+
+  private MultiChunkTemplateCompactPrinter(
+      CssTree tree, Iterable<T> chunks, Map<T, ? extends GssSourceMapGenerator> generators) {
+    this.tree = tree;
+    Map<T, TemplateCompactPrinter<T>> printers = new LinkedHashMap<>();
+    for (T chunk : chunks) {
+      Preconditions.checkArgument(
+          !printers.containsKey(chunk), "Chunk %s is given more than once", chunk);
+      printers.put(chunk, new TemplateCompactPrinter<>(tree, chunk, generators.get(chunk)));
+    }
+    this.printers = ImmutableMap.copyOf(printers);
+  }
+
+  /** Whether special comments are preserved in the printed templates. */
+  public void setPreserveMarkedComments(boolean preserveMarkedComments) {
+    for (TemplateCompactPrinter<T> printer : printers.values()) {
+      printer.setPreserveMarkedComments(preserveMarkedComments);
+    }
+  }
+
+  /** Returns the template printed for {@code chunk} by the last run of the pass. */
+  @Nullable
+  public String getCompactPrintedString(T chunk) {
+    Preconditions.checkState(templates != null, "The pass has not been run");
+    return templates.get(chunk);
+  }
+
+  /** Returns the template printed for each chunk, in the order the chunks were given. */
+  public ImmutableMap<T, String> getCompactPrintedStrings() {
+    Preconditions.checkState(templates != null, "The pass has not been run");
+    return templates;
+  }
+
+  @Override
+  public void runPass() {
+    List<CssTreeVisitor> visitors = new ArrayList<>(printers.size());
+    for (TemplateCompactPrinter<T> printer : printers.values()) {
+      printer.resetBuffer();
+      visitors.add(printer.createCompleteVisitor());
+    }
+    tree.getVisitController()
+        .startVisit(Reflection.newProxy(CssTreeVisitor.class, new ChunkDispatcher(visitors)));
+
+    ImmutableMap.Builder<T, String> templates = ImmutableMap.builder();
+    for (Map.Entry<T, TemplateCompactPrinter<T>> entry : printers.entrySet()) {
+      templates.put(entry.getKey(), entry.getValue().getOutputBuffer());
+    }
+    this.templates = templates.build();
+  }
+
+  /** A node on which some chunk visitors were suspended, and the visitors active before it. */
+  private static final class Suspension {
+    final Object node;
+    /** The leave* method matching the enter* method that suspended the visitors. */
+    final String leaveMethod;
+    final int[] active;
+
+    Suspension(Object node, String enterMethod, int[] active) {
+      this.node = node;
+      this.leaveMethod = "leave" + enterMethod.substring("enter".length());
+      this.active = active;
+    }
+  }
+
+  /**
+   * Dispatches every call to the visitor of each chunk. Unlike {@link DelegatingVisitor}, the
+   * visitors do not have to agree on which nodes to descend into: when an {@code enter*} method
+   * returns {@code false} for some chunks but not for others, the traversal goes on, and the chunks
+   * that declined the node are suspended until the matching {@code leave*} call, which is not
+   * dispatched to them. Since the visit controller skips the children and the {@code leave*} call
+   * of the nodes a template printer may decline, a chunk visitor sees exactly the calls it would
+   * have seen by visiting the tree on its own.
+   *
+   * <p>Rulesets and media, font-face and keyframes rules are only dispatched to the visitors of
+   * the chunks they belong to, since {@link TemplateCompactPrintingVisitor} declines them in the
+   * other chunks. Those chunks are suspended right away, so with many chunks most calls only reach
+   * one visitor.
+   */
+  private final class ChunkDispatcher implements InvocationHandler {
+    private final List<CssTreeVisitor> visitors;
+    private final List<TemplateCompactPrinter<T>> chunkPrinters = printers.values().asList();
+    private final List<T> chunks = printers.keySet().asList();
+
+    /** The indexes of the visitors that are not suspended, in increasing order. */
+    private int[] active;
+
+    /**
+     * The nodes on which visitors were suspended, innermost first. The method is kept with each
+     * node because some nodes are entered twice, e.g. composite values with both
+     * enterCompositeValueNode and enterCompositeValueNodeOperator.
+     */
+    private final Deque<Suspension> suspensions = new ArrayDeque<>();
+
+    ChunkDispatcher(List<CssTreeVisitor> visitors) {
+      this.visitors = visitors;
+      this.active = new int[visitors.size()];
+      for (int i = 0; i < active.length; i++) {
+        active[i] = i;
+      }
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      String name = method.getName();
+      Object node = args != null && args.length > 0 ? args[0] : null;
+      try {
+        if (name.startsWith("enter")) {
+          return enter(method, name, node, args);
+        }
+        for (int i : active) {
+          method.invoke(visitors.get(i), args);
+        }
+        Suspension suspension = suspensions.peek();
+        if (suspension != null && suspension.node == node && suspension.leaveMethod.equals(name)) {
+          active = suspensions.pop().active;
+        }
+        return null;
+      } catch (InvocationTargetException e) {
+        throw e.getTargetException();
+      }
+    }
+
+    private Object enter(Method method, String name, Object node, Object[] args)
+        throws IllegalAccessException, InvocationTargetException {
+      boolean returnsBoolean = method.getReturnType() == boolean.class;
+      int[] called = returnsBoolean && isRoutedByChunk(name, node) ? route(node) : active;
+      // The visitors that entered the node, only filled in once one of the active ones has not.
+      int[] entered = called == active ? null : called;
+      int count = 0;
+      for (int k = 0; k < called.length; k++) {
+        int i = called[k];
+        Object result = method.invoke(visitors.get(i), args);
+        if (!returnsBoolean || (Boolean) result) {
+          if (entered != null) {
+            entered[count] = i;
+          }
+          count++;
+        } else if (entered == null) {
+          entered = called.clone();
+        }
+      }
+      if (!returnsBoolean) {
+        return null;
+      }
+      if (count == 0) {
+        // No chunk descends into the node, so the traversal skips it and no leave* call will come
+        // to resume the chunks suspended here.
+        return false;
+      }
+      if (entered != null) {
+        suspensions.push(new Suspension(node, name, active));
+        active = count == entered.length ? entered : Arrays.copyOf(entered, count);
+      }
+      return true;
+    }
+
+    /**
+     * Returns the active visitors of the chunks the node belongs to, and lets the other ones print
+     * what they print for a node they decline.
+     */
+    private int[] route(Object node) {
+      // Only copied once one of the active visitors turns out not to be an owner.
+      int[] owners = null;
+      int count = 0;
+      for (int k = 0; k < active.length; k++) {
+        int i = active[k];
+        if (belongsToChunk(node, chunks.get(i))) {
+          if (owners != null) {
+            owners[count] = i;
+          }
+          count++;
+        } else {
+          if (owners == null) {
+            owners = active.clone();
+          }
+          chunkPrinters.get(i).skipDeclinedNode((CssNode) node);
+        }
+      }
+      return owners == null ? active : Arrays.copyOf(owners, count);
+    }
+  }
+
+  /**
+   * Returns whether {@link TemplateCompactPrintingVisitor} declines a node entered with the given
+   * method in the chunks the node does not belong to, and only then.
+   */
+  private static boolean isRoutedByChunk(String enterMethod, Object node) {
+    if (node instanceof CssRulesetNode) {
+      return enterMethod.equals("enterRuleset");
+    }
+    return node instanceof ChunkAware && ROUTED_AT_RULES.contains(enterMethod);
+  }
+
+  /** Whether the node, a ruleset or a chunk aware at-rule, is printed in the given chunk. */
+  private static boolean belongsToChunk(Object node, Object chunk) {
+    if (node instanceof CssRulesetNode) {
+      for (CssSelectorNode selector : ((CssRulesetNode) node).getSelectors().childIterable()) {
+        if (chunk.equals(selector.getChunk())) {
+          return true;
+        }
+      }
+      return false;
+    }
+    return chunk.equals(((ChunkAware) node).getChunk());
+  }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.passes;
+
+import com.google.common.css.compiler.ast.CssCompilerPass;
+
+/**
+ * {@link PassObserver} is notified by {@link PassRunner} when each of the
+ * passes it runs starts and finishes. It is set on the job with
+ * {@link com.google.common.css.JobDescriptionBuilder#setPassObserver}.
+ *
+ * <p>Observers are called on the thread that runs the passes, and the time
+ * they spend in the callbacks is not included in the statistics. When the
+ * inputs of a job are compiled in parallel, they are called from several
+ * threads at once.
+ */
+public interface PassObserver {
+
+  /**
+   * Called right before the pass is run.
+   */
+  void passStarted(CssCompilerPass pass);
+
+  /**
+   * Called right after the pass was run.
+   */
+  void passFinished(CssCompilerPass pass, PassStatistics statistics);
+}
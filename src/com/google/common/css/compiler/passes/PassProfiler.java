@@ -0,0 +1,164 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.passes;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Ordering;
+import com.google.common.css.compiler.ast.CssCompilerPass;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.io.PrintWriter;
+import java.util.Map;
+
+/**
+ * A {@link PassObserver} that sums up the statistics of every pass by pass
+ * name, so that passes which are run several times, or once per input file,
+ * are reported on a single line. The totals can be printed as a table sorted
+ * by wall time or written as JSON.
+ */
+public class PassProfiler implements PassObserver {
+
+  private final Map<String, Entry> entries = Maps.newLinkedHashMap();
+
+  /**
+   * The totals recorded for one pass name.
+   */
+  public static final class Entry {
+    private final String passName;
+    private int runs;
+    private long wallTimeNanos;
+    private long cpuTimeNanos;
+    private long allocatedBytes;
+    private long nodeCountBefore;
+    private long nodeCountAfter;
+
+    private Entry(String passName) {
+      this.passName = passName;
+    }
+
+    private void add(PassStatistics statistics) {
+      runs++;
+      wallTimeNanos += statistics.getWallTimeNanos();
+      cpuTimeNanos = sum(cpuTimeNanos, statistics.getCpuTimeNanos());
+      allocatedBytes = sum(allocatedBytes, statistics.getAllocatedBytes());
+      nodeCountBefore += statistics.getNodeCountBefore();
+      nodeCountAfter += statistics.getNodeCountAfter();
+    }
+
+    /** Adds up measurements, keeping the {@code -1} of unsupported ones. */
+    private static long sum(long total, long value) {
+      return total < 0 || value < 0 ? -1 : total + value;
+    }
+
+    public String getPassName() {
+      return passName;
+    }
+
+    public int getRuns() {
+      return runs;
+    }
+
+    public long getWallTimeNanos() {
+      return wallTimeNanos;
+    }
+
+    public long getCpuTimeNanos() {
+      return cpuTimeNanos;
+    }
+
+    public long getAllocatedBytes() {
+      return allocatedBytes;
+    }
+
+    public long getNodeCountBefore() {
+      return nodeCountBefore;
+    }
+
+    public long getNodeCountAfter() {
+      return nodeCountAfter;
+    }
+  }
+
+  private static final Ordering<Entry> BY_WALL_TIME = new Ordering<Entry>() {
+    @Override
+    public int compare(Entry left, Entry right) {
+      return Long.compare(right.wallTimeNanos, left.wallTimeNanos);
+    }
+  };
+
+  @Override
+  public void passStarted(CssCompilerPass pass) {}
+
+  @Override
+  public synchronized void passFinished(CssCompilerPass pass,
+      PassStatistics statistics) {
+    Entry entry = entries.get(statistics.getPassName());
+    if (entry == null) {
+      entry = new Entry(statistics.getPassName());
+      entries.put(statistics.getPassName(), entry);
+    }
+    entry.add(statistics);
+  }
+
+  /**
+   * Returns the recorded totals, the most expensive pass first.
+   */
+  public synchronized ImmutableList<Entry> getEntries() {
+    return BY_WALL_TIME.immutableSortedCopy(entries.values());
+  }
+
+  /**
+   * Prints the recorded totals as a table, the most expensive pass first.
+   */
+  public void printTable(PrintWriter writer) {
+    ImmutableList<Entry> sorted = getEntries();
+    long totalWallTimeNanos = 0;
+    for (Entry entry : sorted) {
+      totalWallTimeNanos += entry.wallTimeNanos;
+    }
+    String format = "%-48s %5s %10s %6s %10s %12s %10s %10s%n";
+    writer.printf(format, "pass", "runs", "wall ms", "%", "cpu ms",
+        "alloc KB", "nodes in", "nodes out");
+    for (Entry entry : sorted) {
+      writer.printf(format, entry.passName, entry.runs,
+          formatMillis(entry.wallTimeNanos),
+          totalWallTimeNanos == 0 ? "-" : String.format("%.1f",
+              100.0 * entry.wallTimeNanos / totalWallTimeNanos),
+          formatMillis(entry.cpuTimeNanos),
+          entry.allocatedBytes < 0 ? "-" : String.valueOf(entry.allocatedBytes / 1024),
+          entry.nodeCountBefore, entry.nodeCountAfter);
+    }
+    writer.printf(format, "total", "", formatMillis(totalWallTimeNanos), "",
+        "", "", "", "");
+    writer.flush();
+  }
+
+  /**
+   * Writes the recorded totals as a JSON array, the most expensive pass first.
+   */
+  public void writeJson(PrintWriter writer) {
+    Gson gson = new GsonBuilder().setPrettyPrinting().create();
+    writer.write(gson.toJson(getEntries()));
+    writer.flush();
+  }
+
+  private static String formatMillis(long nanos) {
+    return nanos < 0 ? "-" : String.format("%.2f", nanos / 1e6);
+  }
+}
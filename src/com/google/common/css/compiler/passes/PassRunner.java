@@ -16,6 +16,8 @@
 
 package com.google.common.css.compiler.passes;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
@@ -26,13 +28,18 @@ import com.google.common.base.Predicates;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.css.JobDescription;
+import com.google.common.css.JobDescription.DeadStyleElimination;
 import com.google.common.css.PrefixingSubstitutionMap;
 import com.google.common.css.RecordingSubstitutionMap;
 import com.google.common.css.SubstitutionMap;
 import com.google.common.css.compiler.ast.CssCompilerPass;
+import com.google.common.css.compiler.ast.CssComponentNode;
+import com.google.common.css.compiler.ast.CssMixinDefinitionNode;
+import com.google.common.css.compiler.ast.CssNode;
 import com.google.common.css.compiler.ast.CssTree;
 import com.google.common.css.compiler.ast.ErrorManager;
 import com.google.common.css.compiler.ast.GssFunction;
+import com.google.common.css.compiler.ast.MutatingVisitController;
 
 /**
  * {@link PassRunner} runs applies a sequence of {@link CssCompilerPass}es to a
@@ -45,9 +52,13 @@ public class PassRunner {
   private static final ImmutableMap<String, GssFunction>
       EMPTY_GSS_FUNCTION_MAP = ImmutableMap.of();
 
+  private static final ThreadMXBean THREAD_MX_BEAN =
+      ManagementFactory.getThreadMXBean();
+
   private final JobDescription job;
   private final ErrorManager errorManager;
   private final RecordingSubstitutionMap recordingSubstitutionMap;
+  private final SubstitutionMap cssClassRenamingMap;
   private final String rootSelector;
   private CssTree prefixTree;
   private HashMap<String, ArrayList<String>> tests;
@@ -58,9 +69,27 @@ public class PassRunner {
 
   public PassRunner(JobDescription job, ErrorManager errorManager,
       RecordingSubstitutionMap recordingSubstitutionMap, String rootSelector) {
+    this(job, errorManager, recordingSubstitutionMap, recordingSubstitutionMap,
+        rootSelector);
+  }
+
+  /**
+   * Creates a pass runner that renames classes with the given map, which
+   * need not record the mappings. This is used to rename the classes of
+   * trees compiled concurrently, see {@link DeferredSubstitutionMap}.
+   */
+  public PassRunner(JobDescription job, ErrorManager errorManager,
+      @Nullable SubstitutionMap cssClassRenamingMap) {
+    this(job, errorManager, null, cssClassRenamingMap, job.rootSelector);
+  }
+
+  private PassRunner(JobDescription job, ErrorManager errorManager,
+      RecordingSubstitutionMap recordingSubstitutionMap,
+      SubstitutionMap cssClassRenamingMap, String rootSelector) {
     this.job = job;
     this.errorManager = errorManager;
     this.recordingSubstitutionMap = recordingSubstitutionMap;
+    this.cssClassRenamingMap = cssClassRenamingMap;
     this.rootSelector = rootSelector;
     this.prefixTree = null;
     this.tests = null;
@@ -80,150 +109,306 @@ public class PassRunner {
    * per input file.
    */
   public void runPasses(CssTree cssTree) {
-    new CheckDependencyNodes(cssTree.getMutatingVisitController(),
-        errorManager, job.suppressDependencyCheck).runPass();
-    new CreateStandardAtRuleNodes(cssTree.getMutatingVisitController(),
-        errorManager).runPass();
-    new CreateMixins(cssTree.getMutatingVisitController(),
-        errorManager).runPass();
-    new CreateDefinitionNodes(cssTree.getMutatingVisitController(),
-        errorManager).runPass();
-    new CreateConstantReferences(cssTree.getMutatingVisitController())
-        .runPass();
-    new CreateConditionalNodes(cssTree.getMutatingVisitController(),
-        errorManager).runPass();
-    new CreateForLoopNodes(cssTree.getMutatingVisitController(),
-        errorManager).runPass();
-    new CreateComponentNodes(cssTree.getMutatingVisitController(),
-        errorManager).runPass();
-    new ValidatePropertyValues(cssTree.getVisitController(), errorManager).runPass();
-    new WarnOnCustomProperty(cssTree.getVisitController(), errorManager).runPass();
-
-    new HandleUnknownAtRuleNodes(cssTree.getMutatingVisitController(),
-        errorManager, job.allowedAtRules,
-        true /* report */, false /* remove */).runPass();
-    new ProcessKeyframes(cssTree.getMutatingVisitController(),
-        errorManager, job.allowKeyframes || job.allowWebkitKeyframes,
-        job.simplifyCss).runPass();
-    new CreateVendorPrefixedKeyframes(cssTree.getMutatingVisitController(),
-        errorManager).runPass();
-    new EvaluateCompileConstants(cssTree.getMutatingVisitController(),
-        job.compileConstants).runPass();
-    new UnrollLoops(cssTree.getMutatingVisitController(), errorManager).runPass();
-    new ProcessRefiners(cssTree.getMutatingVisitController(), errorManager,
-        job.simplifyCss).runPass();
+    runRenamingPasses(cssTree);
+    runPrefixingPasses(cssTree);
+  }
 
-    // Eliminate conditional nodes.
-    new EliminateConditionalNodes(
+  /**
+   * Runs the first part of {@link #runPasses}, up to and including the
+   * renaming of classes. Together with {@link #runPrefixingPasses} this lets
+   * a compiler finish the renaming of a tree before it is prefixed, as
+   * prefixing looks at the renamed selectors.
+   */
+  public void runRenamingPasses(CssTree cssTree) {
+    runPass(cssTree, new CheckDependencyNodes(
         cssTree.getMutatingVisitController(),
-        ImmutableSet.copyOf(job.trueConditionNames)).runPass();
+        errorManager, job.suppressDependencyCheck));
+    runLocalPasses(cssTree);
 
     // Collect mixin definitions and replace mixins
     CollectMixinDefinitions collectMixinDefinitions =
         new CollectMixinDefinitions(cssTree.getMutatingVisitController(),
             errorManager);
-    collectMixinDefinitions.runPass();
-    new ReplaceMixins(cssTree.getMutatingVisitController(), errorManager,
-        collectMixinDefinitions.getDefinitions()).runPass();
+    runPass(cssTree, collectMixinDefinitions);
+    runMixinAndComponentPasses(cssTree,
+        collectMixinDefinitions.getDefinitions(),
+        new HashMap<String, CssComponentNode>());
 
-    new ProcessComponents<Object>(cssTree.getMutatingVisitController(),
-        errorManager).runPass();
     // Collect constant definitions.
     CollectConstantDefinitions collectConstantDefinitionsPass =
         new CollectConstantDefinitions(cssTree);
-    collectConstantDefinitionsPass.runPass();
+    runPass(cssTree, collectConstantDefinitionsPass);
+    runConstantPasses(cssTree,
+        collectConstantDefinitionsPass.getConstantDefinitions());
+    runMergingPasses(cssTree);
+  }
+
+  /**
+   * Runs the passes of {@link #runRenamingPasses} that only look at the tree
+   * they run on, from the creation of the at-rule nodes to the elimination of
+   * conditionals. The {@code @provide} and {@code @require} rules are
+   * expected to be handled by {@link CheckDependencyNodes} before.
+   */
+  public void runLocalPasses(CssTree cssTree) {
+    runPass(cssTree, new CreateStandardAtRuleNodes(
+        cssTree.getMutatingVisitController(), errorManager));
+    runPass(cssTree, new CreateMixins(cssTree.getMutatingVisitController(),
+        errorManager));
+    runPass(cssTree, new CreateDefinitionNodes(
+        cssTree.getMutatingVisitController(), errorManager));
+    runPass(cssTree, new CreateConstantReferences(
+        cssTree.getMutatingVisitController()));
+    runPass(cssTree, new CreateConditionalNodes(
+        cssTree.getMutatingVisitController(), errorManager));
+    runPass(cssTree, new CreateForLoopNodes(
+        cssTree.getMutatingVisitController(), errorManager));
+    runPass(cssTree, new CreateComponentNodes(
+        cssTree.getMutatingVisitController(), errorManager));
+    runPass(cssTree, new ValidatePropertyValues(cssTree.getVisitController(),
+        errorManager));
+    runPass(cssTree, new WarnOnCustomProperty(cssTree.getVisitController(),
+        errorManager));
+
+    runPass(cssTree, new HandleUnknownAtRuleNodes(
+        cssTree.getMutatingVisitController(),
+        errorManager, job.allowedAtRules,
+        true /* report */, false /* remove */));
+    runPass(cssTree, new ProcessKeyframes(cssTree.getMutatingVisitController(),
+        errorManager, job.allowKeyframes || job.allowWebkitKeyframes,
+        job.simplifyCss));
+    runPass(cssTree, new CreateVendorPrefixedKeyframes(
+        cssTree.getMutatingVisitController(), errorManager));
+    runPass(cssTree, new EvaluateCompileConstants(
+        cssTree.getMutatingVisitController(), job.compileConstants));
+    runPass(cssTree, new UnrollLoops(cssTree.getMutatingVisitController(),
+        errorManager));
+    runPass(cssTree, new ProcessRefiners(cssTree.getMutatingVisitController(),
+        errorManager, job.simplifyCss));
+
+    // Eliminate conditional nodes.
+    runPass(cssTree, new EliminateConditionalNodes(
+        cssTree.getMutatingVisitController(),
+        ImmutableSet.copyOf(job.trueConditionNames)));
+  }
+
+  /**
+   * Replaces the mixins of the tree with the given definitions, and expands
+   * its components. Components defined by the tree are added to
+   * {@code components}, which may hold the components of trees compiled
+   * before.
+   */
+  public void runMixinAndComponentPasses(CssTree cssTree,
+      Map<String, CssMixinDefinitionNode> mixinDefinitions,
+      Map<String, CssComponentNode> components) {
+    runPass(cssTree, new ReplaceMixins(cssTree.getMutatingVisitController(),
+        errorManager, mixinDefinitions));
+    runPass(cssTree, new ProcessComponents<Object>(
+        cssTree.getMutatingVisitController(), errorManager, null, components));
+  }
+
+  /**
+   * Replaces the constant references of the tree with the given definitions,
+   * removes the definitions from the tree, resolves the custom functions and
+   * simplifies the values if the job asks for it.
+   */
+  public void runConstantPasses(CssTree cssTree,
+      ConstantDefinitions constantDefinitions) {
     // Replace constant references.
     ReplaceConstantReferences replaceConstantReferences =
-        new ReplaceConstantReferences(cssTree,
-            collectConstantDefinitionsPass.getConstantDefinitions(),
+        new ReplaceConstantReferences(cssTree, constantDefinitions,
             true /* removeDefs */, errorManager, job.allowUndefinedConstants);
-    replaceConstantReferences.runPass();
+    runPass(cssTree, replaceConstantReferences);
 
     Map<String, GssFunction> gssFunctionMap = getGssFunctionMap();
-    new ResolveCustomFunctionNodes(
+    runPass(cssTree, new ResolveCustomFunctionNodes(
         cssTree.getMutatingVisitController(), errorManager,
         gssFunctionMap, job.allowUnrecognizedFunctions,
-        job.allowedNonStandardFunctions)
-        .runPass();
+        job.allowedNonStandardFunctions));
 
     if (job.simplifyCss) {
+      // These passes only rewrite nodes locally and share one traversal.
+      CompositeVisitor simplifications = new CompositeVisitor("SimplifyCss",
+          cssTree.getMutatingVisitController());
+      MutatingVisitController controller =
+          simplifications.getVisitController();
       // Eliminate empty rules.
-      new EliminateEmptyRulesetNodes(cssTree.getMutatingVisitController())
-          .runPass();
+      simplifications.add(new EliminateEmptyRulesetNodes(controller));
       // Eliminating units for zero values.
-      new EliminateUnitsFromZeroNumericValues(
-          cssTree.getMutatingVisitController()).runPass();
+      simplifications.add(new EliminateUnitsFromZeroNumericValues(controller));
       // Optimize color values.
-      new ColorValueOptimizer(
-          cssTree.getMutatingVisitController()).runPass();
+      simplifications.add(new ColorValueOptimizer(controller));
       // Compress redundant top-right-bottom-left value lists.
-      new AbbreviatePositionalValues(
-          cssTree.getMutatingVisitController()).runPass();
+      simplifications.add(new AbbreviatePositionalValues(controller));
+      runPass(cssTree, simplifications);
     }
+  }
+
+  /**
+   * Runs the rest of {@link #runRenamingPasses}, which looks at all the
+   * rulesets at once: the elimination of dead styles, BiDi flipping, the
+   * final checks and the renaming of classes.
+   */
+  public void runMergingPasses(CssTree cssTree) {
     if (job.eliminateDeadStyles) {
       // Report errors for duplicate declarations
-      new DisallowDuplicateDeclarations(
-          cssTree.getVisitController(), errorManager, job.allowDuplicateDeclarations).runPass();
-      // Split rules by selector and declaration.
-      new SplitRulesetNodes(cssTree.getMutatingVisitController()).runPass();
-      // Dead code elimination.
-      new MarkRemovableRulesetNodes(cssTree).runPass();
-      new EliminateUselessRulesetNodes(cssTree).runPass();
-      // Merge of rules with same selector.
-      new MergeAdjacentRulesetNodesWithSameSelector(cssTree).runPass();
-      new EliminateUselessRulesetNodes(cssTree).runPass();
-      // Merge of rules with same styles.
-      new MergeAdjacentRulesetNodesWithSameDeclarations(cssTree).runPass();
-      new EliminateUselessRulesetNodes(cssTree).runPass();
+      runPass(cssTree, new DisallowDuplicateDeclarations(
+          cssTree.getVisitController(), errorManager,
+          job.allowDuplicateDeclarations));
+      if (job.deadStyleElimination == DeadStyleElimination.INDEXED) {
+        // Dead code elimination and merge of rules without splitting them.
+        runPass(cssTree, new PruneAndMergeRulesetNodes(
+            cssTree.getMutatingVisitController()));
+      } else {
+        // Split rules by selector and declaration.
+        runPass(cssTree, new SplitRulesetNodes(
+            cssTree.getMutatingVisitController()));
+        // Dead code elimination.
+        runPass(cssTree, new MarkRemovableRulesetNodes(cssTree));
+        runPass(cssTree, new EliminateUselessRulesetNodes(cssTree));
+        // Merge of rules with same selector.
+        runPass(cssTree, new MergeAdjacentRulesetNodesWithSameSelector(cssTree));
+        runPass(cssTree, new EliminateUselessRulesetNodes(cssTree));
+        // Merge of rules with same styles.
+        runPass(cssTree,
+            new MergeAdjacentRulesetNodesWithSameDeclarations(cssTree));
+        runPass(cssTree, new EliminateUselessRulesetNodes(cssTree));
+      }
     }
     // Perform BiDi flipping if required.
     if (job.needsBiDiFlipping()) {
-      new MarkNonFlippableNodes(cssTree.getVisitController(),
-          errorManager).runPass();
-      new BiDiFlipper(cssTree.getMutatingVisitController(),
-                        job.swapLtrRtlInUrl, job.swapLeftRightInUrl).runPass();
+      runPass(cssTree, new MarkNonFlippableNodes(cssTree.getVisitController(),
+          errorManager));
+      runPass(cssTree, new BiDiFlipper(cssTree.getMutatingVisitController(),
+          job.swapLtrRtlInUrl, job.swapLeftRightInUrl));
     }
+    // The following passes share one traversal.
+    CompositeVisitor finalChecks = new CompositeVisitor("FinalChecks",
+        cssTree.getMutatingVisitController());
+    MutatingVisitController controller = finalChecks.getVisitController();
     // If specified, remove all vendor-specific properties except for the
     // whitelisted vendor.
     if (job.vendor != null) {
-      new RemoveVendorSpecificProperties(job.vendor,
-          cssTree.getMutatingVisitController()).runPass();
+      finalChecks.add(new RemoveVendorSpecificProperties(job.vendor,
+          controller));
     }
     // Unless all unrecognized properties are allowed, check for unrecognized
     // properties.
     if (!job.allowUnrecognizedProperties) {
-      new VerifyRecognizedProperties(job.allowedUnrecognizedProperties,
-          cssTree.getVisitController(), errorManager).runPass();
+      finalChecks.add(new VerifyRecognizedProperties(
+          job.allowedUnrecognizedProperties, controller, errorManager));
     }
     // Rename class names
-    if (recordingSubstitutionMap != null) {
-      new CssClassRenaming(
-          cssTree.getMutatingVisitController(),
-          recordingSubstitutionMap, null).runPass();
+    if (cssClassRenamingMap != null) {
+      finalChecks.add(new CssClassRenaming(controller,
+          cssClassRenamingMap, null));
+    }
+    if (!finalChecks.getPasses().isEmpty()) {
+      runPass(cssTree, finalChecks);
     }
+  }
+
+  /**
+   * Runs the second part of {@link #runPasses}: prefixing the rulesets with
+   * the root selector and expanding browser prefixes.
+   */
+  public void runPrefixingPasses(CssTree cssTree) {
     // prefix
     if (rootSelector != null) {
-      new CssPrefixing(cssTree.getMutatingVisitController(),
-        rootSelector).runPass();
+      runPass(cssTree, new CssPrefixing(cssTree.getMutatingVisitController(),
+        rootSelector));
     }
 
     if (job.expandBrowserPrefix) {
-      AutoExpandBrowserPrefix pass = new AutoExpandBrowserPrefix(cssTree.getMutatingVisitController(), job.prefixes);
-      pass.runPass();
+      AutoExpandBrowserPrefix pass = new AutoExpandBrowserPrefix(
+          cssTree.getMutatingVisitController(), job.prefixes, job.prefixRules);
+      runPass(cssTree, pass);
       if (job.outputBrowserPrefix != null) {
-        this.prefixTree = new CssTree(cssTree);
-        new AutoExpandBrowserPrefix2(cssTree.getMutatingVisitController(),
-          true, job.prefixes).runPass();
-        new AutoExpandBrowserPrefix2(this.prefixTree.getMutatingVisitController(),
-          false, job.prefixes, pass.prefixMap).runPass();
-        // Eliminate empty rules.
-        new EliminateEmptyRulesetNodes(this.prefixTree.getMutatingVisitController())
-            .runPass();
+        SplitBrowserPrefixes split = new SplitBrowserPrefixes(
+            cssTree, job.prefixes, pass.prefixMap);
+        runPass(cssTree, split);
+        this.prefixTree = split.getPrefixesTree();
         this.tests = pass.prefixMap.getHashMap(); //   pass.tests;
       }
     }
   }
 
+  /**
+   * Runs a single pass of the pipeline on the given tree. Every pass
+   * constructed by {@link #runPasses} goes through this method, so subclasses
+   * may override it to time, trace or skip individual passes. If the job has a
+   * {@link PassObserver}, it is notified around the pass.
+   */
+  protected void runPass(CssTree tree, CssCompilerPass pass) {
+    PassObserver observer = job.passObserver;
+    if (observer == null) {
+      pass.runPass();
+      return;
+    }
+    int nodeCountBefore = countNodes(tree);
+    observer.passStarted(pass);
+    long allocatedBytesBefore = getCurrentThreadAllocatedBytes();
+    long cpuTimeBefore = getCurrentThreadCpuTime();
+    long wallTimeBefore = System.nanoTime();
+    pass.runPass();
+    long wallTime = System.nanoTime() - wallTimeBefore;
+    long cpuTime = elapsed(cpuTimeBefore, getCurrentThreadCpuTime());
+    long allocatedBytes =
+        elapsed(allocatedBytesBefore, getCurrentThreadAllocatedBytes());
+    observer.passFinished(pass, new PassStatistics(
+        getPassName(pass), wallTime, cpuTime, allocatedBytes,
+        nodeCountBefore, countNodes(tree)));
+  }
+
+  /**
+   * Returns the name a pass is reported under: its simple class name, or the
+   * name given to a {@link CompositeVisitor}.
+   */
+  public static String getPassName(CssCompilerPass pass) {
+    if (pass instanceof CompositeVisitor) {
+      return ((CompositeVisitor) pass).getName();
+    }
+    return pass.getClass().getSimpleName();
+  }
+
+  private static long elapsed(long before, long after) {
+    return before < 0 || after < 0 ? -1 : after - before;
+  }
+
+  private static long getCurrentThreadCpuTime() {
+    return THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported()
+        ? THREAD_MX_BEAN.getCurrentThreadCpuTime() : -1;
+  }
+
+  private static long getCurrentThreadAllocatedBytes() {
+    if (THREAD_MX_BEAN instanceof com.sun.management.ThreadMXBean) {
+      com.sun.management.ThreadMXBean bean =
+          (com.sun.management.ThreadMXBean) THREAD_MX_BEAN;
+      if (bean.isThreadAllocatedMemorySupported()
+          && bean.isThreadAllocatedMemoryEnabled()) {
+        return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+      }
+    }
+    return -1;
+  }
+
+  private static int countNodes(@Nullable CssTree tree) {
+    if (tree == null) {
+      return 0;
+    }
+    final int[] count = new int[1];
+    tree.getVisitController().startVisit(UniformVisitor.Adapters.asVisitor(
+        new UniformVisitor() {
+          @Override
+          public void enter(CssNode node) {
+            count[0]++;
+          }
+
+          @Override
+          public void leave(CssNode node) {}
+        }));
+    return count[0];
+  }
+
   @Nullable public RecordingSubstitutionMap getRecordingSubstitutionMap() {
     return recordingSubstitutionMap;
   }
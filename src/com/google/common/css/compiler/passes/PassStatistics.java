@@ -0,0 +1,84 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.passes;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * The resources used by one run of a compiler pass, as reported to a
+ * {@link PassObserver}. Measurements that are not supported by the running
+ * JVM are reported as {@code -1}.
+ */
+public final class PassStatistics {
+  private final String passName;
+  private final long wallTimeNanos;
+  private final long cpuTimeNanos;
+  private final long allocatedBytes;
+  private final int nodeCountBefore;
+  private final int nodeCountAfter;
+
+  public PassStatistics(String passName, long wallTimeNanos, long cpuTimeNanos,
+      long allocatedBytes, int nodeCountBefore, int nodeCountAfter) {
+    this.passName = passName;
+    this.wallTimeNanos = wallTimeNanos;
+    this.cpuTimeNanos = cpuTimeNanos;
+    this.allocatedBytes = allocatedBytes;
+    this.nodeCountBefore = nodeCountBefore;
+    this.nodeCountAfter = nodeCountAfter;
+  }
+
+  /** The simple class name of the pass. */
+  public String getPassName() {
+    return passName;
+  }
+
+  public long getWallTimeNanos() {
+    return wallTimeNanos;
+  }
+
+  /** The CPU time used by the thread that ran the pass. */
+  public long getCpuTimeNanos() {
+    return cpuTimeNanos;
+  }
+
+  /** The bytes allocated on the heap by the thread that ran the pass. */
+  public long getAllocatedBytes() {
+    return allocatedBytes;
+  }
+
+  /** The number of nodes of the tree the pass was run on, before the pass. */
+  public int getNodeCountBefore() {
+    return nodeCountBefore;
+  }
+
+  /** The number of nodes of the tree the pass was run on, after the pass. */
+  public int getNodeCountAfter() {
+    return nodeCountAfter;
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("passName", passName)
+        .add("wallTimeNanos", wallTimeNanos)
+        .add("cpuTimeNanos", cpuTimeNanos)
+        .add("allocatedBytes", allocatedBytes)
+        .add("nodeCountBefore", nodeCountBefore)
+        .add("nodeCountAfter", nodeCountAfter)
+        .toString();
+  }
+}
@@ -18,11 +18,19 @@ package com.google.common.css.compiler.passes;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
+import com.google.common.css.compiler.ast.CssAttributeSelectorNode;
 import com.google.common.css.compiler.ast.CssBlockNode;
+import com.google.common.css.compiler.ast.CssClassSelectorNode;
+import com.google.common.css.compiler.ast.CssCombinatorNode;
 import com.google.common.css.compiler.ast.CssCommentNode;
 import com.google.common.css.compiler.ast.CssDeclarationBlockNode;
+import com.google.common.css.compiler.ast.CssIdSelectorNode;
 import com.google.common.css.compiler.ast.CssNode;
 import com.google.common.css.compiler.ast.CssPropertyValueNode;
+import com.google.common.css.compiler.ast.CssPseudoClassNode;
+import com.google.common.css.compiler.ast.CssPseudoClassNode.FunctionType;
+import com.google.common.css.compiler.ast.CssPseudoElementNode;
+import com.google.common.css.compiler.ast.CssRefinerNode;
 import com.google.common.css.compiler.ast.CssRootNode;
 import com.google.common.css.compiler.ast.CssRulesetNode;
 import com.google.common.css.compiler.ast.CssSelectorListNode;
@@ -49,30 +57,95 @@ public class PassUtil {
 
   /**
    * Prints a selector including the combinators and refiners but without
-   * a block behind with the compact printer.
+   * a block behind, the same way as the compact printer does.
    */
   public static String printSelector(CssSelectorNode selector) {
-    CssTree t = createTreeWithSelector(selector);
-    // Print the whole tree.
-    String selectorString = compactPrintTree(t);
-    // As the whole tree is printed, the output is the selector with an empty
-    // declaration block (e.g. 'foo{}'). The two curly brackets are removed so
-    // that only the selector remains.
-    return selectorString.substring(0, selectorString.length() - 2);
+    StringBuilder sb = new StringBuilder();
+    appendSelector(selector, sb);
+    return sb.toString();
   }
 
   /**
    * Prints a list of selector including the combinators and refiners but
-   * without a block behind with the compact printer.
+   * without a block behind, the same way as the compact printer does.
    */
   public static String printSelectorList(CssSelectorListNode selectorList) {
-    CssTree t = createTreeWithSelectorList(selectorList.deepCopy());
-    // Print the whole tree.
-    String selectorListString = compactPrintTree(t);
-    // As the whole tree is printed, the output is the selector with an empty
-    // declaration block (e.g. 'foo{}'). The two curly brackets are removed so
-    // that only the selector remains.
-    return selectorListString.substring(0, selectorListString.length() - 2);
+    StringBuilder sb = new StringBuilder();
+    appendSelectorList(selectorList, sb);
+    return sb.toString();
+  }
+
+  /**
+   * Appends a list of selectors to {@code sb} as printed by
+   * {@link #printSelectorList}.
+   */
+  public static void appendSelectorList(
+      CssSelectorListNode selectorList, StringBuilder sb) {
+    for (int i = 0; i < selectorList.numChildren(); i++) {
+      if (i > 0) {
+        sb.append(',');
+      }
+      appendSelector(selectorList.getChildAt(i), sb);
+    }
+  }
+
+  /**
+   * Appends a selector to {@code sb} as printed by {@link #printSelector}.
+   * Unlike printing a tree, this neither creates nodes nor changes the parent
+   * of the selector, so it is cheap enough to compute keys from selectors.
+   */
+  public static void appendSelector(CssSelectorNode selector, StringBuilder sb) {
+    if (selector.getSelectorName() != null) {
+      sb.append(selector.getSelectorName());
+    }
+    for (CssRefinerNode refiner : selector.getRefiners().childIterable()) {
+      appendRefiner(refiner, sb);
+    }
+    CssCombinatorNode combinator = selector.getCombinator();
+    if (combinator != null) {
+      sb.append(combinator.getCombinatorType().getCanonicalName());
+      appendSelector(combinator.getSelector(), sb);
+    }
+  }
+
+  private static void appendRefiner(CssRefinerNode refiner, StringBuilder sb) {
+    if (refiner instanceof CssPseudoClassNode) {
+      CssPseudoClassNode pseudoClass = (CssPseudoClassNode) refiner;
+      sb.append(pseudoClass.getPrefix());
+      sb.append(pseudoClass.getRefinerName());
+      switch (pseudoClass.getFunctionType()) {
+        case NTH:
+          sb.append(pseudoClass.getArgument().replace(" ", ""));
+          sb.append(')');
+          break;
+        case LANG:
+          sb.append(pseudoClass.getArgument());
+          sb.append(')');
+          break;
+        default:
+          break;
+      }
+      if (pseudoClass.getNotSelector() != null) {
+        appendSelector(pseudoClass.getNotSelector(), sb);
+      }
+      if (pseudoClass.getFunctionType() == FunctionType.NOT) {
+        sb.append(')');
+      } else if (pseudoClass.getNotSelector() != null) {
+        sb.append(',');
+      }
+    } else if (refiner instanceof CssAttributeSelectorNode) {
+      CssAttributeSelectorNode attribute = (CssAttributeSelectorNode) refiner;
+      sb.append(attribute.getPrefix());
+      sb.append(attribute.getAttributeName());
+      sb.append(attribute.getMatchSymbol());
+      sb.append(attribute.getValue());
+      sb.append(attribute.getSuffix());
+    } else if (refiner instanceof CssClassSelectorNode
+        || refiner instanceof CssIdSelectorNode
+        || refiner instanceof CssPseudoElementNode) {
+      sb.append(refiner.getPrefix());
+      sb.append(refiner.getRefinerName());
+    }
   }
 
   /**
@@ -110,14 +183,6 @@ public class PassUtil {
     return createTreeWithRuleset(rulesetNode);
   }
 
-  private static CssTree createTreeWithSelectorList(
-      CssSelectorListNode selectorList) {
-    CssDeclarationBlockNode declarations = new CssDeclarationBlockNode();
-    CssRulesetNode rulesetNode = new CssRulesetNode(declarations);
-    rulesetNode.setSelectors(selectorList);
-    return createTreeWithRuleset(rulesetNode);
-  }
-
   private static CssTree createTreeWithRuleset(CssRulesetNode rulesetNode) {
     List<CssNode> blockChildren = ImmutableList.of((CssNode) rulesetNode);
     CssBlockNode block = new CssBlockNode(false, blockChildren);
@@ -125,12 +190,6 @@ public class PassUtil {
     return new CssTree(null, root);
   }
 
-  private static String compactPrintTree(CssTree tree) {
-    CompactPrinter compactPrinter = new CompactPrinter(tree);
-    compactPrinter.runPass();
-    return compactPrinter.getCompactPrintedString();
-  }
-
   /**
    * Returns whether the ALTERNATE comment has been found among the comments of
    * the node.
@@ -16,10 +16,12 @@
 
 package com.google.common.css.compiler.passes;
 
+import com.google.common.base.Preconditions;
 import com.google.common.css.compiler.ast.CssCompilerPass;
 import com.google.common.css.compiler.ast.CssTree;
 import com.google.common.css.compiler.ast.CssTreeVisitor;
 import com.google.common.css.compiler.ast.VisitController;
+import java.io.IOException;
 import javax.annotation.Nullable;
 
 /**
@@ -32,6 +34,7 @@ import javax.annotation.Nullable;
  */
 public class PrettyPrinter extends CodePrinter implements CssCompilerPass {
   private String prettyPrintedString = null;
+  private boolean printed = false;
   private boolean stripQuotes = false;
   private boolean preserveComments = false;
 
@@ -70,9 +73,21 @@ public class PrettyPrinter extends CodePrinter implements CssCompilerPass {
   }
 
   public String getPrettyPrintedString() {
+    if (prettyPrintedString == null && printed) {
+      prettyPrintedString = getOutputBuffer();
+    }
     return prettyPrintedString;
   }
 
+  /**
+   * Writes the pretty printed output to {@code out}, without materializing it as a String like
+   * {@link #getPrettyPrintedString} does.
+   */
+  public void writePrettyPrintedStringTo(Appendable out) throws IOException {
+    Preconditions.checkState(printed, "The pass has not been run");
+    writeOutputBufferTo(out);
+  }
+
   @Override
   protected CssTreeVisitor createVisitor(VisitController visitController, CodeBuffer codeBuffer) {
     return new PrettyPrintingVisitor(codeBuffer, stripQuotes, preserveComments);
@@ -82,6 +97,7 @@ public class PrettyPrinter extends CodePrinter implements CssCompilerPass {
   public void runPass() {
     resetBuffer();
     visit();
-    prettyPrintedString = getOutputBuffer();
+    prettyPrintedString = null;
+    printed = true;
   }
 }
@@ -60,7 +60,7 @@ public class ProcessComponents<T> extends DefaultTreeVisitor
   private static final String CLASS_SEP = "-";
   private static final String DEF_SEP = "__";
 
-  private final Map<String, CssComponentNode> components = Maps.newHashMap();
+  private final Map<String, CssComponentNode> components;
 
   private final MutatingVisitController visitController;
   private final ErrorManager errorManager;
@@ -85,9 +85,24 @@ public class ProcessComponents<T> extends DefaultTreeVisitor
   public ProcessComponents(
       MutatingVisitController visitController, ErrorManager errorManager,
       @Nullable Map<String, T> fileToChunk) {
+    this(visitController, errorManager, fileToChunk,
+        Maps.<String, CssComponentNode>newHashMap());
+  }
+
+  /**
+   * Creates a new pass like {@link #ProcessComponents(MutatingVisitController,
+   * ErrorManager, Map)} that starts from the components already defined in
+   * the given map, e.g. by trees compiled before, and adds the components of
+   * its tree to it.
+   */
+  public ProcessComponents(
+      MutatingVisitController visitController, ErrorManager errorManager,
+      @Nullable Map<String, T> fileToChunk,
+      Map<String, CssComponentNode> components) {
     this.visitController = visitController;
     this.errorManager = errorManager;
     this.fileToChunk = fileToChunk;
+    this.components = components;
   }
 
   @Override
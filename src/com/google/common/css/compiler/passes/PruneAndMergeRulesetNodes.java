@@ -0,0 +1,327 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.passes;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.collect.Table;
+import com.google.common.css.compiler.ast.CssBlockNode;
+import com.google.common.css.compiler.ast.CssCompilerPass;
+import com.google.common.css.compiler.ast.CssDeclarationNode;
+import com.google.common.css.compiler.ast.CssNode;
+import com.google.common.css.compiler.ast.CssPriorityNode;
+import com.google.common.css.compiler.ast.CssPropertyNode;
+import com.google.common.css.compiler.ast.CssRulesetNode;
+import com.google.common.css.compiler.ast.CssSelectorNode;
+import com.google.common.css.compiler.ast.CssValueNode;
+import com.google.common.css.compiler.ast.DefaultTreeVisitor;
+import com.google.common.css.compiler.ast.MutatingVisitController;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compiler pass that eliminates dead styles without splitting the ruleset
+ * nodes first. It has the same output as running {@link SplitRulesetNodes},
+ * {@link MarkRemovableRulesetNodes},
+ * {@link MergeAdjacentRulesetNodesWithSameSelector} and
+ * {@link MergeAdjacentRulesetNodesWithSameDeclarations}, each followed by
+ * {@link EliminateUselessRulesetNodes}.
+ *
+ * <p>Instead of replacing every ruleset by one ruleset per selector and
+ * declaration, the pass indexes the (selector, declaration) pairs of the
+ * rulesets of each block, finds the overridden pairs with the same rules as
+ * {@link MarkRemovableRulesetNodes}, and then builds the merged rulesets
+ * from the remaining pairs. As there, overridden declarations are only looked
+ * for among the rulesets of the top-level block, while the rulesets of every
+ * block are merged. A declaration is moved to the first merged ruleset that
+ * contains it and only copied into the other ones.
+ */
+public class PruneAndMergeRulesetNodes extends DefaultTreeVisitor
+    implements CssCompilerPass {
+
+  private final MutatingVisitController visitController;
+
+  /** The nodes replacing each ruleset of the blocks entered so far. */
+  private final Map<CssRulesetNode, List<CssNode>> replacements =
+      Maps.newIdentityHashMap();
+
+  /** The number of blocks being visited. */
+  private int blockDepth = 0;
+
+  public PruneAndMergeRulesetNodes(MutatingVisitController visitController) {
+    this.visitController = visitController;
+  }
+
+  @Override
+  public boolean enterBlock(CssBlockNode block) {
+    planBlock(block, blockDepth == 0);
+    blockDepth++;
+    return true;
+  }
+
+  @Override
+  public void leaveBlock(CssBlockNode block) {
+    blockDepth--;
+  }
+
+  @Override
+  public boolean enterRuleset(CssRulesetNode node) {
+    List<CssNode> replacement = replacements.remove(node);
+    if (replacement == null) {
+      // The ruleset is not the child of a block, so it would not be merged
+      // again after being split.
+      replacement = split(node);
+    }
+    if (replacement.isEmpty()) {
+      visitController.removeCurrentNode();
+    } else {
+      visitController.replaceCurrentBlockChildWith(replacement, false);
+    }
+    return false;
+  }
+
+  @Override
+  public void runPass() {
+    visitController.startVisit(this);
+  }
+
+  /**
+   * Computes the rulesets that replace the rulesets of the given block. All
+   * the rulesets of a run of adjacent rulesets are replaced by the merged
+   * rulesets of the run, which take the place of the first one.
+   *
+   * @param block the block whose rulesets to replace
+   * @param eliminateOverridden whether to eliminate overridden declarations
+   */
+  private void planBlock(CssBlockNode block, boolean eliminateOverridden) {
+    List<Pair> pairs = Lists.newArrayList();
+    List<CssRulesetNode> run = Lists.newArrayList();
+    List<List<CssRulesetNode>> runs = Lists.newArrayList();
+    for (CssNode child : block.childIterable()) {
+      if (!(child instanceof CssRulesetNode)) {
+        if (!run.isEmpty()) {
+          runs.add(run);
+          run = Lists.newArrayList();
+        }
+        continue;
+      }
+      CssRulesetNode ruleset = (CssRulesetNode) child;
+      run.add(ruleset);
+      for (CssSelectorNode selector : ruleset.getSelectors().childIterable()) {
+        String selectorKey = PassUtil.printSelector(selector);
+        for (CssNode declaration : ruleset.getDeclarations().childIterable()) {
+          pairs.add(new Pair(ruleset, runs.size(), selector, selectorKey, declaration));
+        }
+      }
+    }
+    if (!run.isEmpty()) {
+      runs.add(run);
+    }
+    if (runs.isEmpty()) {
+      return;
+    }
+
+    if (eliminateOverridden) {
+      markOverriddenPairs(pairs);
+    }
+
+    Set<CssNode> movedDeclarations = Sets.newIdentityHashSet();
+    int next = 0;
+    for (int i = 0; i < runs.size(); i++) {
+      List<CssRulesetNode> rulesets = mergeAdjacentWithSameSelector(
+          pairs, next, i, movedDeclarations);
+      while (next < pairs.size() && pairs.get(next).run == i) {
+        next++;
+      }
+      List<CssNode> merged = mergeAdjacentWithSameDeclarations(rulesets);
+      List<CssRulesetNode> runRulesets = runs.get(i);
+      replacements.put(runRulesets.get(0), merged);
+      for (int j = 1; j < runRulesets.size(); j++) {
+        replacements.put(runRulesets.get(j), ImmutableList.<CssNode>of());
+      }
+    }
+  }
+
+  /**
+   * Marks the pairs whose declaration is overridden by a later pair with the
+   * same selector, following {@link MarkRemovableRulesetNodes}.
+   */
+  private static void markOverriddenPairs(List<Pair> pairs) {
+    Table<String, String, Pair> rules = HashBasedTable.create();
+    for (int i = pairs.size() - 1; i >= 0; i--) {
+      Pair pair = pairs.get(i);
+      Preconditions.checkArgument(pair.declaration instanceof CssDeclarationNode);
+      CssDeclarationNode declaration = (CssDeclarationNode) pair.declaration;
+      CssPropertyNode propertyNode = declaration.getPropertyName();
+      String propertyName = propertyNode.getPropertyName();
+      if (MarkRemovableRulesetNodes.PROPERTIES_NOT_TO_BE_CHECKED.contains(propertyName)) {
+        continue;
+      }
+      if (declaration.hasStarHack()) {
+        propertyName = "*" + propertyName;
+      }
+
+      Pair previous = rules.get(pair.selectorKey, propertyName);
+      if (previous != null) {
+        if (isImportant(declaration) && !isImportant(previous.declaration)) {
+          previous.overridden = true;
+          rules.put(pair.selectorKey, propertyName, pair);
+        } else {
+          pair.overridden = true;
+        }
+      } else if (hasOverridingShorthand(propertyNode, pair.selectorKey, rules, declaration)) {
+        pair.overridden = true;
+      } else if (!PassUtil.hasAlternateAnnotation(declaration)) {
+        rules.put(pair.selectorKey, propertyName, pair);
+      }
+    }
+  }
+
+  private static boolean hasOverridingShorthand(CssPropertyNode propertyNode,
+      String selectorKey, Table<String, String, Pair> rules,
+      CssDeclarationNode declaration) {
+    for (String shorthand : propertyNode.getProperty().getShorthands()) {
+      Pair shorthandPair = rules.get(selectorKey, shorthand);
+      if (shorthandPair != null
+          && (!isImportant(declaration) || isImportant(shorthandPair.declaration))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean isImportant(CssNode declaration) {
+    for (CssValueNode value
+        : ((CssDeclarationNode) declaration).getPropertyValue().childIterable()) {
+      if (value instanceof CssPriorityNode) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Builds one ruleset for each sequence of remaining pairs of the given run
+   * that have the same selector, following
+   * {@link MergeAdjacentRulesetNodesWithSameSelector}.
+   */
+  private static List<CssRulesetNode> mergeAdjacentWithSameSelector(
+      List<Pair> pairs, int start, int run, Set<CssNode> movedDeclarations) {
+    List<CssRulesetNode> rulesets = Lists.newArrayList();
+    Pair first = null;
+    CssRulesetNode ruleset = null;
+    for (int i = start; i < pairs.size() && pairs.get(i).run == run; i++) {
+      Pair pair = pairs.get(i);
+      if (pair.overridden) {
+        continue;
+      }
+      if (first == null || !sameSelector(first, pair)) {
+        first = pair;
+        ruleset = new CssRulesetNode();
+        ruleset.setSourceCodeLocation(pair.ruleset.getSourceCodeLocation());
+        ruleset.addSelector(pair.selector.deepCopy());
+        rulesets.add(ruleset);
+      }
+      CssNode declaration = pair.declaration;
+      ruleset.addDeclaration(movedDeclarations.add(declaration)
+          ? declaration : declaration.deepCopy());
+    }
+    return rulesets;
+  }
+
+  private static boolean sameSelector(Pair p1, Pair p2) {
+    if (!p1.selectorKey.equals(p2.selectorKey)) {
+      return false;
+    }
+    Object m1 = p1.selector.getChunk();
+    Object m2 = p2.selector.getChunk();
+    if ((m1 == null) != (m2 == null)) {
+      throw new IllegalStateException();
+    }
+    return m1 == null || m1.equals(m2);
+  }
+
+  /**
+   * Merges the selectors of adjacent rulesets with the same declarations,
+   * following {@link MergeAdjacentRulesetNodesWithSameDeclarations}.
+   */
+  private static List<CssNode> mergeAdjacentWithSameDeclarations(
+      List<CssRulesetNode> rulesets) {
+    List<CssNode> merged = Lists.newArrayListWithCapacity(rulesets.size());
+    CssRulesetNode ruleToMergeTo = null;
+    for (CssRulesetNode ruleset : rulesets) {
+      if (MergeAdjacentRulesetNodesWithSameDeclarations.hasProblematicSelectors(ruleset)) {
+        ruleToMergeTo = null;
+        merged.add(ruleset);
+        continue;
+      }
+      if (ruleToMergeTo != null
+          && ruleToMergeTo.getDeclarations().structurallyEquals(ruleset.getDeclarations())) {
+        for (CssSelectorNode selector : ruleset.getSelectors().childIterable()) {
+          ruleToMergeTo.addSelector(selector);
+        }
+      } else {
+        ruleToMergeTo = ruleset;
+        merged.add(ruleset);
+      }
+    }
+    return merged;
+  }
+
+  /** Splits a ruleset the same way as {@link SplitRulesetNodes}. */
+  private static List<CssNode> split(CssRulesetNode node) {
+    List<CssNode> replacementNodes = Lists.newArrayList();
+    for (CssSelectorNode sel : node.getSelectors().childIterable()) {
+      for (CssNode child : node.getDeclarations().childIterable()) {
+        CssRulesetNode ruleset = new CssRulesetNode();
+        ruleset.setSourceCodeLocation(node.getSourceCodeLocation());
+        ruleset.addDeclaration(child.deepCopy());
+        ruleset.addSelector(sel.deepCopy());
+        replacementNodes.add(ruleset);
+      }
+    }
+    return replacementNodes;
+  }
+
+  /**
+   * A selector of a ruleset together with one of its declarations, which is
+   * what {@link SplitRulesetNodes} turns into a ruleset of its own.
+   */
+  private static class Pair {
+    final CssRulesetNode ruleset;
+    final int run;
+    final CssSelectorNode selector;
+    final String selectorKey;
+    final CssNode declaration;
+    boolean overridden = false;
+
+    Pair(CssRulesetNode ruleset, int run, CssSelectorNode selector,
+        String selectorKey, CssNode declaration) {
+      this.ruleset = ruleset;
+      this.run = run;
+      this.selector = selector;
+      this.selectorKey = selectorKey;
+      this.declaration = declaration;
+    }
+  }
+}
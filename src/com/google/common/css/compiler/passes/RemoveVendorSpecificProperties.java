@@ -58,7 +58,7 @@ import javax.annotation.Nonnull;
  * @author bolinfest@google.com (Michael Bolin)
  */
 public class RemoveVendorSpecificProperties extends DefaultTreeVisitor
-    implements CssCompilerPass {
+    implements FusablePass {
 
   private final Vendor vendorToKeep;
   private final MutatingVisitController visitController;
@@ -164,19 +164,28 @@ public class ReplaceConstantReferences extends DefaultTreeVisitor
     // propagation of changes of the original node to nodes that proxy it.
     if (constantDefinitions != null) {
       for (String constantName : constantDefinitions.getConstantsNames()) {
-        CssDefinitionNode node =
-            constantDefinitions.getConstantDefinition(constantName);
-        List<CssValueNode> params = node.getParameters();
-        for (int i = 0; i < params.size(); i++) {
-          CssValueNode n = params.get(i);
-          if (n instanceof Proxiable) {
-            @SuppressWarnings("unchecked")
-            Proxiable<CssValueNode> proxiable = (Proxiable<CssValueNode>) n;
-            node.replaceChildAt(i, ImmutableList.of(proxiable.createProxy()));
-          }
-        }
+        replaceParametersWithProxies(
+            constantDefinitions.getConstantDefinition(constantName));
       }
     }
     visitController.startVisit(this);
   }
+
+  /**
+   * Replaces the {@link Proxiable} parameters of the definition with proxies,
+   * as {@link #runPass} does for the definitions it is given. Definitions
+   * that are only looked up once the pass runs are expected to be prepared
+   * with this method.
+   */
+  public static void replaceParametersWithProxies(CssDefinitionNode node) {
+    List<CssValueNode> params = node.getParameters();
+    for (int i = 0; i < params.size(); i++) {
+      CssValueNode n = params.get(i);
+      if (n instanceof Proxiable) {
+        @SuppressWarnings("unchecked")
+        Proxiable<CssValueNode> proxiable = (Proxiable<CssValueNode>) n;
+        node.replaceChildAt(i, ImmutableList.of(proxiable.createProxy()));
+      }
+    }
+  }
 }
@@ -0,0 +1,232 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.passes;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.css.PrefixMap;
+import com.google.common.css.compiler.ast.CssAbstractBlockNode;
+import com.google.common.css.compiler.ast.CssCommentNode;
+import com.google.common.css.compiler.ast.CssCompilerPass;
+import com.google.common.css.compiler.ast.CssDeclarationNode;
+import com.google.common.css.compiler.ast.CssFontFaceNode;
+import com.google.common.css.compiler.ast.CssKeyframeRulesetNode;
+import com.google.common.css.compiler.ast.CssKeyframesNode;
+import com.google.common.css.compiler.ast.CssMediaRuleNode;
+import com.google.common.css.compiler.ast.CssNode;
+import com.google.common.css.compiler.ast.CssPageRuleNode;
+import com.google.common.css.compiler.ast.CssPageSelectorNode;
+import com.google.common.css.compiler.ast.CssRootNode;
+import com.google.common.css.compiler.ast.CssRulesetNode;
+import com.google.common.css.compiler.ast.CssSupportsRuleNode;
+import com.google.common.css.compiler.ast.CssTree;
+import com.google.common.css.compiler.ast.CssUnknownAtRuleNode;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import javax.annotation.Nullable;
+
+/**
+ * Splits the declarations added by {@link AutoExpandBrowserPrefix} out of a
+ * tree for the {@code --output-browser-prefix} flag. The tree is walked once:
+ * the expanded declarations are moved into a separate tree of prefixes, which
+ * only repeats the rules enclosing them, and the JSON map of the properties
+ * and values to test for in the browser is filled in along the way.
+ *
+ * <p>Expanded declarations that match the given prefixes, i.e. the ones the
+ * browsers are known to need, stay in the main tree instead. Rulesets,
+ * keyframe rulesets and media, page and keyframes rules left empty are not
+ * added to the prefixes tree; the other at-rules are kept as they are.
+ */
+public class SplitBrowserPrefixes implements CssCompilerPass {
+
+  private final CssTree tree;
+  private final HashMap<String, ArrayList<String>> prefixes;
+  private final PrefixMap prefixMap;
+  private CssTree prefixesTree;
+
+  public SplitBrowserPrefixes(CssTree tree,
+      HashMap<String, ArrayList<String>> prefixes, PrefixMap prefixMap) {
+    this.tree = tree;
+    this.prefixes = prefixes;
+    this.prefixMap = prefixMap;
+  }
+
+  /**
+   * Returns the tree of the expanded declarations, or {@code null} before the
+   * pass has run.
+   */
+  public CssTree getPrefixesTree() {
+    return prefixesTree;
+  }
+
+  @Override
+  public void runPass() {
+    CssRootNode root = tree.getRoot();
+    CssRootNode prefixesRoot = root.shallowCopy();
+    splitBlock(root.getBody(), prefixesRoot.getBody());
+    prefixesTree = new CssTree(tree.getSourceCode(), prefixesRoot);
+  }
+
+  /**
+   * Moves the expanded declarations of a block to its copy in the prefixes
+   * tree, and adds the copies of the nested rules that end up non-empty.
+   */
+  private void splitBlock(CssAbstractBlockNode block,
+      CssAbstractBlockNode prefixesBlock) {
+    int i = 0;
+    while (i < block.numChildren()) {
+      CssNode child = block.getChildAt(i);
+      if (child instanceof CssDeclarationNode) {
+        CssDeclarationNode declaration = (CssDeclarationNode) child;
+        if (!declaration.autoExpanded || keepInMainTree(declaration)) {
+          i++;
+          continue;
+        }
+        if (declaration.autoExpandedFromProp == null
+            && declaration.autoExpandedFromValue == null) {
+          // Not traced back to a rule, so it is printed in both trees.
+          declaration = declaration.deepCopy();
+          i++;
+        } else {
+          block.replaceChildAt(i, ImmutableList.<CssNode>of());
+        }
+        // remove /* @alternate */ comment
+        declaration.setComments(new ArrayList<CssCommentNode>());
+        prefixesBlock.addChildToBack(declaration);
+      } else {
+        CssNode prefixesChild = split(child);
+        if (prefixesChild != null) {
+          prefixesBlock.addChildToBack(prefixesChild);
+        }
+        i++;
+      }
+    }
+  }
+
+  /**
+   * Returns the copy of a rule for the prefixes tree, or {@code null} if it is
+   * left out because none of its declarations were expanded.
+   */
+  @Nullable
+  private CssNode split(CssNode node) {
+    if (node instanceof CssRulesetNode) {
+      CssRulesetNode ruleset = (CssRulesetNode) node;
+      CssRulesetNode copy = ruleset.shallowCopy();
+      splitBlock(ruleset.getDeclarations(), copy.getDeclarations());
+      return copy.getDeclarations().isEmpty() ? null : copy;
+    } else if (node instanceof CssKeyframeRulesetNode) {
+      CssKeyframeRulesetNode ruleset = (CssKeyframeRulesetNode) node;
+      CssKeyframeRulesetNode copy = ruleset.shallowCopy();
+      splitBlock(ruleset.getDeclarations(), copy.getDeclarations());
+      return copy.getDeclarations().isEmpty() ? null : copy;
+    } else if (node instanceof CssMediaRuleNode) {
+      CssMediaRuleNode rule = (CssMediaRuleNode) node;
+      CssMediaRuleNode copy = rule.shallowCopy();
+      splitBlock(rule.getBlock(), copy.getBlock());
+      return copy.getBlock().isEmpty() ? null : copy;
+    } else if (node instanceof CssPageRuleNode) {
+      CssPageRuleNode rule = (CssPageRuleNode) node;
+      CssPageRuleNode copy = rule.shallowCopy();
+      splitBlock(rule.getBlock(), copy.getBlock());
+      return copy.getBlock().isEmpty() ? null : copy;
+    } else if (node instanceof CssKeyframesNode) {
+      CssKeyframesNode rule = (CssKeyframesNode) node;
+      CssKeyframesNode copy = rule.shallowCopy();
+      splitBlock(rule.getBlock(), copy.getBlock());
+      return copy.getBlock().isEmpty() ? null : copy;
+    } else if (node instanceof CssSupportsRuleNode) {
+      CssSupportsRuleNode rule = (CssSupportsRuleNode) node;
+      CssSupportsRuleNode copy = rule.shallowCopy();
+      splitBlock(rule.getBlock(), copy.getBlock());
+      return copy;
+    } else if (node instanceof CssFontFaceNode) {
+      CssFontFaceNode rule = (CssFontFaceNode) node;
+      CssFontFaceNode copy = rule.shallowCopy();
+      splitBlock(rule.getBlock(), copy.getBlock());
+      return copy;
+    } else if (node instanceof CssPageSelectorNode) {
+      CssPageSelectorNode rule = (CssPageSelectorNode) node;
+      CssPageSelectorNode copy = rule.shallowCopy();
+      splitBlock(rule.getBlock(), copy.getBlock());
+      return copy;
+    } else if (node instanceof CssUnknownAtRuleNode
+        && ((CssUnknownAtRuleNode) node).getBlock() != null) {
+      CssUnknownAtRuleNode rule = (CssUnknownAtRuleNode) node;
+      CssUnknownAtRuleNode copy = rule.shallowCopy();
+      splitBlock(rule.getBlock(), copy.getBlock());
+      return copy;
+    }
+    return node.deepCopy();
+  }
+
+  /**
+   * Returns whether an expanded declaration stays in the main tree because
+   * the browsers are known to need it.
+   */
+  private boolean keepInMainTree(CssDeclarationNode declaration) {
+    if (declaration.autoExpandedFromProp != null) {
+      return shouldPreserve(declaration);
+    } else if (declaration.autoExpandedFromValue != null) {
+      // functions
+      return prefixes.containsKey(declaration.autoExpandedFromValue);
+    }
+    return false;
+  }
+
+  /**
+   * Returns false if the property didn't match by value;
+   */
+  private boolean valueInPrefixes(String propName, String value) {
+    ArrayList<String> values = this.prefixes.get(propName);
+    if (values == null) return false;
+    if (values.size() == 0) return true;
+    if (values.contains(value)) return true;
+    return false;
+  }
+
+  private void addToPrefixMap(CssDeclarationNode declaration, String propName, String propValue) {
+    // e.g., hyphens
+    if (declaration.autoExpandedFromValue == null) {
+      prefixMap.addAlternativePropertyName(declaration.autoExpandedFromProp, propName);
+    } else { // e.g., display: flex
+      prefixMap.addProperty(propName, propValue, declaration.autoExpandedFromValue);
+    }
+  }
+
+  private boolean shouldPreserve(CssDeclarationNode declaration) {
+    String fromProp = declaration.autoExpandedFromProp;
+    String fromValue = declaration.autoExpandedFromValue;
+    // 1. check the property it was expanded from
+    if (valueInPrefixes(fromProp, fromValue)) {
+      if (fromValue == null) {
+        prefixMap.addGlobalProp(fromProp);
+      } else {
+        prefixMap.addGlobalPropValue(fromProp, fromValue);
+      }
+      return true;
+    }
+    // 2. check the expanded match itself
+    String propName = declaration.getPropertyName().getValue();
+    String propValue = PassUtil.printPropertyValue(declaration.getPropertyValue());
+    if (valueInPrefixes(propName, propValue)) {
+      addToPrefixMap(declaration, propName, propValue);
+      return true;
+    }
+    return false;
+  }
+}
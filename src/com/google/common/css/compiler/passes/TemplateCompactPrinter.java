@@ -19,6 +19,7 @@ package com.google.common.css.compiler.passes;
 import com.google.common.css.compiler.ast.CssTree;
 import com.google.common.css.compiler.ast.CssTreeVisitor;
 import com.google.common.css.compiler.ast.VisitController;
+import javax.annotation.Nullable;
 
 /**
  * Printer for templates, which outputs GSS with holes to be filled
@@ -64,7 +65,19 @@ public class TemplateCompactPrinter<T> extends CompactPrinter {
    * @param chunk the chunk selected for printing
    */
   public TemplateCompactPrinter(CssTree tree, T chunk) {
-    super(tree, new CodeBufferForTemplate(), null /* generator */);
+    this(tree, chunk, null /* generator */);
+  }
+
+  /**
+   * Create a template printer for a given chunk, recording a source map of the printed template.
+   *
+   * @param tree CSS AST to be printed (with regard to a selected chunk)
+   * @param chunk the chunk selected for printing
+   * @param generator the source map generator for the chunk's template, or {@code null}
+   */
+  public TemplateCompactPrinter(
+      CssTree tree, T chunk, @Nullable GssSourceMapGenerator generator) {
+    super(tree, new CodeBufferForTemplate(), generator);
     this.chunk = chunk;
   }
 
@@ -439,9 +439,22 @@ public class UnsafeMergeRulesetNodes implements CssCompilerPass {
     }
   }
 
-  /** Compares objects by their string representation. */
+  /**
+   * Compares objects by their string representation. Nodes that are
+   * structurally equal have the same string representation, so they are
+   * found equal without printing them.
+   */
   @VisibleForTesting
-  static final Comparator<Object> TO_STRING_COMPARATOR = Ordering.usingToString();
+  static final Comparator<Object> TO_STRING_COMPARATOR = new Comparator<Object>() {
+    @Override
+    public int compare(Object o1, Object o2) {
+      if (o1 instanceof CssNode && o2 instanceof CssNode
+          && ((CssNode) o1).structurallyEquals((CssNode) o2)) {
+        return 0;
+      }
+      return Ordering.usingToString().compare(o1, o2);
+    }
+  };
 
   /**
    * Create a comparator for iterables that compares element pairwise using the
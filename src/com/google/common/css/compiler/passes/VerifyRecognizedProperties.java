@@ -18,7 +18,6 @@ package com.google.common.css.compiler.passes;
 
 import com.google.common.collect.ImmutableSet;
 import com.google.common.css.SourceCodeLocation;
-import com.google.common.css.compiler.ast.CssCompilerPass;
 import com.google.common.css.compiler.ast.CssDeclarationNode;
 import com.google.common.css.compiler.ast.CssNode;
 import com.google.common.css.compiler.ast.CssPropertyNode;
@@ -38,7 +37,7 @@ import java.util.Set;
  * @author bolinfest@google.com (Michael Bolin)
  */
 public class VerifyRecognizedProperties extends DefaultTreeVisitor
-    implements CssCompilerPass {
+    implements FusablePass {
 
   private final Set<String> allowedUnrecognizedProperties;
   private final VisitController visitController;
@@ -242,4 +242,78 @@ public class SourceCodeLocationTest {
     assertThat(loc4).hasSpan(1, 1, 1, 6);
     assertThat(loc4).matches("abcde");
   }
+
+  @Test
+  public void testFromCharacterIndexes() {
+    SourceCode sourceCode = new SourceCode("testfile", "abc\ndefg\n\nh");
+    SourceCodeLocation loc = SourceCodeLocation.fromCharacterIndexes(sourceCode, 2, 7);
+    assertThat(loc).hasSpan(1, 3, 2, 4);
+    assertThat(loc).matches("c\ndef");
+    assertThat(loc.getBegin().getCharacterIndex()).isEqualTo(2);
+    assertThat(loc.getEnd().getLineNumber()).isEqualTo(2);
+    assertThat(loc).isEqualTo(new SourceCodeLocation(sourceCode, 2, 1, 3, 7, 2, 4));
+    assertThat(loc.hashCode())
+        .isEqualTo(new SourceCodeLocation(sourceCode, 2, 1, 3, 7, 2, 4).hashCode());
+
+    assertThat(SourceCodeLocation.fromCharacterIndexes(sourceCode, 9, 10)).hasSpan(3, 1, 3, 2);
+    assertThat(SourceCodeLocation.fromCharacterIndexes(sourceCode, 10, 11)).hasSpan(4, 1, 4, 2);
+  }
+
+  @Test
+  public void testComparisonOfLocationsWithDifferentLines() {
+    SourceCode sourceCode = new SourceCode("testfile", "abc\ndefg");
+    SourceCodeLocation derived = SourceCodeLocation.fromCharacterIndexes(sourceCode, 4, 5);
+    SourceCodeLocation loc1 = new SourceCodeLocation(sourceCode, 4, 2, 1, 5, 2, 2);
+    SourceCodeLocation loc2 = new SourceCodeLocation(sourceCode, 4, 1, 5, 5, 1, 6);
+    assertThat(loc1.equals(loc2)).isFalse();
+    assertThat(loc2.equals(loc1)).isFalse();
+    assertThat(loc1.hashCode()).isNotEqualTo(loc2.hashCode());
+    assertThat(derived.equals(loc1)).isTrue();
+    assertThat(derived.hashCode()).isEqualTo(loc1.hashCode());
+    assertThat(derived.equals(loc2)).isFalse();
+    assertThat(loc2.equals(derived)).isFalse();
+  }
+
+  @Test
+  public void testFromCharacterIndexes_endsWithLineBreak() {
+    SourceCode sourceCode = new SourceCode("testfile", "abc\ndefg");
+    // The parser reports a token ending with a line break as ending on the
+    // line of the break.
+    SourceCodeLocation loc = SourceCodeLocation.fromCharacterIndexes(sourceCode, 1, 4);
+    assertThat(loc).hasSpan(1, 2, 1, 5);
+    assertThat(loc).matches("bc\n");
+    assertThat(SourceCodeLocation.fromCharacterIndexes(sourceCode, 4, 4)).hasSpan(2, 1, 2, 1);
+  }
+
+  @Test
+  public void testFromCharacterIndexes_merge() {
+    SourceCode sourceCode = new SourceCode("testfile", "abc\ndefg");
+    SourceCodeLocation loc1 = SourceCodeLocation.fromCharacterIndexes(sourceCode, 1, 2);
+    SourceCodeLocation loc2 = SourceCodeLocation.fromCharacterIndexes(sourceCode, 5, 7);
+    SourceCodeLocation loc3 = new SourceCodeLocation(sourceCode, 4, 2, 1, 5, 2, 2);
+
+    assertThat(SourceCodeLocation.merge(loc1, loc2)).hasSpan(1, 2, 2, 4);
+    assertThat(SourceCodeLocation.mergeAll(ImmutableList.of(loc2, loc3, loc1)))
+        .hasSpan(1, 2, 2, 4);
+    assertThat(SourceCodeLocation.merge(loc1, loc3)).matches("bc\nd");
+  }
+
+  @Test
+  public void testFromCharacterIndexes_badIndexes() {
+    SourceCode sourceCode = new SourceCode("testfile", "abc");
+    try {
+      SourceCodeLocation.fromCharacterIndexes(sourceCode, 2, 1);
+      Assert.fail("The begin index must not be after the end index");
+    } catch (IllegalArgumentException expected) {
+      assertThat(expected)
+          .hasMessageThat()
+          .isEqualTo("Beginning location must come before the end location.");
+    }
+    try {
+      SourceCodeLocation.fromCharacterIndexes(sourceCode, -1, 1);
+      Assert.fail("The begin index must not be negative");
+    } catch (IllegalArgumentException expected) {
+      // expected
+    }
+  }
 }
@@ -18,6 +18,8 @@ package com.google.common.css.compiler.ast;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
+import com.google.common.css.SourceCode;
+import com.google.common.css.SourceCodeLocation;
 import java.util.List;
 import org.junit.Assert;
 import org.junit.Test;
@@ -59,6 +61,24 @@ public class CssAbstractBlockNodeTest {
     }
   }
 
+  @Test
+  public void testShallowCopy() {
+    SourceCode sourceCode = new SourceCode("test", "a 20px");
+    CssLiteralNode a = new CssLiteralNode("a",
+        new SourceCodeLocation(sourceCode, 0, 1, 1, 0, 1, 1));
+    CssNumericNode length = new CssNumericNode("20", "px",
+        new SourceCodeLocation(sourceCode, 2, 1, 3, 5, 1, 6));
+    TestBlock testBlock = new TestBlock(
+        Lists.<CssNode>newArrayList(a, length), validSuperclasses);
+    SourceCodeLocation location = testBlock.getSourceCodeLocation();
+
+    TestBlock copy = testBlock.shallowCopy();
+    Assert.assertTrue(copy.isEmpty());
+    Assert.assertEquals(location, copy.getSourceCodeLocation());
+    Assert.assertEquals(2, testBlock.numChildren());
+    Assert.assertSame(testBlock, testBlock.getChildAt(0).getParent());
+  }
+
   @Test
   public void testAddChild() {
     TestBlock testBlock = new TestBlock(validSuperclasses);
@@ -125,9 +145,18 @@ public class CssAbstractBlockNodeTest {
       super(node);
     }
 
+    private TestBlock(TestBlock node, boolean copyChildren) {
+      super(node, copyChildren);
+    }
+
     @Override
     public TestBlock deepCopy() {
       return new TestBlock(this);
     }
+
+    @Override
+    public TestBlock shallowCopy() {
+      return new TestBlock(this, false /* copyChildren */);
+    }
   }
 }
@@ -18,6 +18,7 @@ package com.google.common.css.compiler.ast;
 
 import static com.google.common.truth.Truth.assertThat;
 
+import com.google.common.collect.ImmutableList;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
@@ -57,4 +58,50 @@ public class CssNodeTest {
     parentNode.removeAsParentOfNode(childNode);
     assertThat(childNode.getParent()).isNull();
   }
+
+  @Test
+  public void testStructuralEquality() {
+    CssDeclarationBlockNode block1 = createBlock("red");
+    CssDeclarationBlockNode block2 = createBlock("red");
+
+    assertThat(block1.structurallyEquals(block2)).isTrue();
+    assertThat(block1.structuralHashCode()).isEqualTo(block2.structuralHashCode());
+    assertThat(block1.structurallyEquals(createBlock("blue"))).isFalse();
+    assertThat(block1.structurallyEquals(block1.deepCopy())).isTrue();
+  }
+
+  @Test
+  public void testStructuralHashCodeIsInvalidatedByMutations() {
+    CssDeclarationBlockNode block1 = createBlock("red");
+    CssDeclarationBlockNode block2 = createBlock("red");
+    assertThat(block1.structurallyEquals(block2)).isTrue();
+
+    CssDeclarationNode declaration = (CssDeclarationNode) block1.getChildAt(0);
+    CssValueNode value = declaration.getPropertyValue().getChildAt(0);
+    value.setValue("blue");
+    assertThat(block1.structurallyEquals(block2)).isFalse();
+
+    value.setValue("red");
+    assertThat(block1.structurallyEquals(block2)).isTrue();
+
+    block2.addChildToBack(new CssDeclarationNode(
+        new CssPropertyNode("top"),
+        new CssPropertyValueNode(ImmutableList.<CssValueNode>of(new CssLiteralNode("0")))));
+    assertThat(block1.structurallyEquals(block2)).isFalse();
+  }
+
+  private static CssDeclarationBlockNode createBlock(String color) {
+    CssFunctionNode function = new CssFunctionNode(
+        CssFunctionNode.Function.byName("rgba"), null);
+    function.setArguments(new CssFunctionArgumentsNode(
+        ImmutableList.<CssValueNode>of(new CssLiteralNode("0"), new CssLiteralNode("0"))));
+    CssDeclarationBlockNode block = new CssDeclarationBlockNode();
+    block.addChildToBack(new CssDeclarationNode(
+        new CssPropertyNode("color"),
+        new CssPropertyValueNode(ImmutableList.<CssValueNode>of(new CssLiteralNode(color)))));
+    block.addChildToBack(new CssDeclarationNode(
+        new CssPropertyNode("background"),
+        new CssPropertyValueNode(ImmutableList.<CssValueNode>of(function))));
+    return block;
+  }
 }
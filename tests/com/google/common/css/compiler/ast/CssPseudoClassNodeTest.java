@@ -77,4 +77,13 @@ public class CssPseudoClassNodeTest {
     assertThat(node.getNotSelector()).isEqualTo(selector);
     assertThat(node.getArgument()).isNull();
   }
+
+  @Test
+  public void testDeepCopyCopiesNotSelector() {
+    CssSelectorNode selector = new CssSelectorNode("foo");
+    CssPseudoClassNode node = new CssPseudoClassNode("not", selector, null);
+    CssPseudoClassNode copy = node.deepCopy();
+    assertThat(copy.getNotSelector()).isNotSameInstanceAs(selector);
+    assertThat(copy.getNotSelector().toString()).isEqualTo(selector.toString());
+  }
 }
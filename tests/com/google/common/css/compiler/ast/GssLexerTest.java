@@ -0,0 +1,156 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.ast;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.css.SourceCode;
+import com.google.common.io.Files;
+import java.io.File;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Differential tests for {@link GssLexer}, which must produce the same
+ * tokens as the token manager generated from {@code GssParserCC.jj}.
+ */
+@RunWith(JUnit4.class)
+public class GssLexerTest {
+
+  private static final ImmutableList<String> FIXTURE_DIRECTORIES =
+      ImmutableList.of("styles", "example", "tests");
+
+  private static final ImmutableList<String> FIXTURE_EXTENSIONS =
+      ImmutableList.of("css", "gss", "java");
+
+  private static final ImmutableList<String> EDGE_CASES = ImmutableList.of(
+      "",
+      " ",
+      "a",
+      "\n\n",
+      "/* unterminated",
+      "/**/",
+      "/*/ a */ \n\t/* b **/x/* c */",
+      "a { b: c } /* end */ \n",
+      "x - y  -  z -- --a ---b --> <!-- <! -1 -.5 - ",
+      "a+b > c ~ d ~= e  + f\n>g /deep/ h  /deep/ i /deep j",
+      "1 1.5 .5 5. 1.2.3 12px 1e3 #a #-_1 # #!",
+      "! important !important!  \n important !imp",
+      "\"a\" 'b' \"c\\\"d\" 'e\\'f' \"g\\\nh\" \"i\\\r\nj\" \"k\nl\" 'm",
+      "\"\\41 x\" \"\\abcdef0\" \"\\41\r\n\" \"\\A\" \"\\\" \"\\",
+      "url(a.png) url( a.png ) url('a.png') url(a b) url(a\nb) url(\n) url(",
+      "url-prefix(http://x/) domain(x.com) urls(x) url-prefixes(x)",
+      "not(a) lang(en) calc(1) -webkit-calc(1) -moz-calc(1) -o-calc(1) var(--x) nots(",
+      "U+26 U+0015-00FF U+4?? U+0-f U+abcdefa U+ U+x U+1- u+1",
+      "@list @lists @supports @keyframes @-webkit-keyframes @-moz-keyframes @-ms-keyframes",
+      "@-o-keyframes @page @pages @defmixin @font-face @font-faces @ @1 @-a @-$x",
+      "$x $ $= $1 a-$b a-$ a$b -$x x-$y-$z",
+      "&& & || | |= ^= ^ *= * ;:.,[](){}=%",
+      "\u00e9l\u00e8ve \u2603 \u0080 \uffff \u0000 \u007f \\ ` ?",
+      "a\rb\r\nc\fd\te");
+
+  private static final String FUZZ_ALPHABET =
+      " \t\n\r\f-+>~/*.!#\"'\\@$&|^=<,;:()[]{}%?_0159afAFUxurldmintpgvcek\u00e9";
+
+  @Test
+  public void testEdgeCases() throws Exception {
+    for (String input : EDGE_CASES) {
+      assertSameTokens(input, input);
+    }
+  }
+
+  @Test
+  public void testFixtures() throws Exception {
+    int fixtures = 0;
+    for (String directory : FIXTURE_DIRECTORIES) {
+      for (File file : Files.fileTraverser().depthFirstPreOrder(new File(directory))) {
+        if (file.isFile()
+            && FIXTURE_EXTENSIONS.contains(Files.getFileExtension(file.getName()))) {
+          assertSameTokens(file.getPath(), Files.asCharSource(file, UTF_8).read());
+          fixtures++;
+        }
+      }
+    }
+    assertThat(fixtures).isGreaterThan(100);
+  }
+
+  @Test
+  public void testRandomInputs() throws Exception {
+    Random random = new Random(42);
+    for (int i = 0; i < 2000; i++) {
+      StringBuilder input = new StringBuilder();
+      int length = random.nextInt(40);
+      for (int j = 0; j < length; j++) {
+        input.append(FUZZ_ALPHABET.charAt(random.nextInt(FUZZ_ALPHABET.length())));
+      }
+      assertSameTokens(input.toString(), input.toString());
+    }
+  }
+
+  @Test
+  public void testParsesWithLexer() throws Exception {
+    SourceCode source = new SourceCode("test.gss",
+        "/* @noflip */ .a { margin: 0 1px; background: url(x.png) }\n"
+        + "@def A 1px; /* trailing */");
+    CssTree generated = new GssParser(ImmutableList.of(source)).parse();
+    CssTree handWritten = new GssParser(ImmutableList.of(source), null, true).parse();
+    assertThat(handWritten.getRoot().getBody().toString())
+        .isEqualTo(generated.getRoot().getBody().toString());
+    assertThat(handWritten.getRoot().getBody().getChildAt(0).getComments().toString())
+        .isEqualTo(generated.getRoot().getBody().getChildAt(0).getComments().toString());
+  }
+
+  private static void assertSameTokens(String name, String input) {
+    List<String> expected =
+        tokenize(new GssParserCCTokenManager(new StringCharStream(input)));
+    List<String> actual = tokenize(new GssLexer(new StringCharStream(input)));
+    assertWithMessage(name).that(actual).containsExactlyElementsIn(expected).inOrder();
+  }
+
+  /** Describes the tokens up to EOF with their comments. */
+  private static List<String> tokenize(GssParserCCTokenManager tokenManager) {
+    List<String> tokens = Lists.newArrayList();
+    Token token;
+    do {
+      token = tokenManager.getNextToken();
+      List<String> comments = Lists.newArrayList();
+      for (Token special = token.specialToken; special != null;
+          special = special.specialToken) {
+        comments.add(0, describe(special));
+        if (special.specialToken != null) {
+          assertThat(special.specialToken.next).isSameInstanceAs(special);
+        }
+      }
+      tokens.addAll(comments);
+      tokens.add(describe(token));
+    } while (token.kind != GssParserCCConstants.EOF);
+    return tokens;
+  }
+
+  private static String describe(Token token) {
+    return GssParserCCConstants.tokenImage[token.kind] + " " + token.image + " "
+        + token.beginLine + ":" + token.beginColumn + "-"
+        + token.endLine + ":" + token.endColumn;
+  }
+}
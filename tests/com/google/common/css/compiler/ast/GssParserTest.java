@@ -25,6 +25,8 @@ import com.google.common.css.SourceCodeLocation;
 import com.google.common.css.compiler.passes.CompactPrinter;
 import com.google.common.css.compiler.passes.testing.AstPrinter;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -64,6 +66,71 @@ public class GssParserTest {
     assertThat(AstPrinter.print(tree)).isEqualTo("[[a]{[]}@component [c]{[x]{[y:[[z]];]}}[b]{[]}]");
   }
 
+  @Test
+  public void testManySourcesInParallel() throws Exception {
+    ImmutableList.Builder<SourceCode> sources = ImmutableList.builder();
+    for (int i = 0; i < 50; i++) {
+      sources.add(new SourceCode("test" + i,
+          "a" + i + " {x: y}\n@def C" + i + " " + i + "px;\nb" + i + " {}"));
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      CssTree tree = new GssParser(sources.build(), executor).parse();
+      assertThat(AstPrinter.print(tree))
+          .isEqualTo(AstPrinter.print(parse(sources.build())));
+      CssBlockNode body = tree.getRoot().getBody();
+      for (CssNode child : body.getChildren()) {
+        assertThat(child.getParent()).isSameInstanceAs(body);
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testParallelErrorsInInputOrder() throws Exception {
+    ImmutableList.Builder<SourceCode> sources = ImmutableList.builder();
+    for (int i = 0; i < 20; i++) {
+      sources.add(new SourceCode("test" + i, "a {x: y} b { c } d" + i + " {}"));
+    }
+    GssParser sequential = new GssParser(sources.build());
+    String expected = AstPrinter.print(sequential.parse(true));
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      GssParser parallel = new GssParser(sources.build(), executor);
+      assertThat(AstPrinter.print(parallel.parse(true))).isEqualTo(expected);
+      List<GssParserException> errors = parallel.getHandledErrors();
+      assertThat(errors).isNotEmpty();
+      assertThat(errors).hasSize(sequential.getHandledErrors().size());
+      for (int i = 0; i < errors.size(); i++) {
+        GssParserException expectedError = sequential.getHandledErrors().get(i);
+        assertThat(errors.get(i).getGssError().format())
+            .isEqualTo(expectedError.getGssError().format());
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testParallelThrowsFirstError() throws Exception {
+    ImmutableList<SourceCode> sources = ImmutableList.of(
+        new SourceCode("test1", "a {}"),
+        new SourceCode("test2", "b { c }"),
+        new SourceCode("test3", "d {}"),
+        new SourceCode("test4", "e { f }"));
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      new GssParser(sources, executor).parse();
+      Assert.fail("The parser should have failed on test2");
+    } catch (GssParserException e) {
+      assertThat(e.getGssError().getLocation().getSourceCode().getFileName())
+          .isEqualTo("test2");
+    } finally {
+      executor.shutdown();
+    }
+  }
+
   @Test
   public void testAst1() throws Exception {
     testTree("a {}", "[[a]{[]}]");
@@ -1138,6 +1205,26 @@ public class GssParserTest {
     testValid(".class { width: var(--test, calc(100% - 20px)); }");
   }
 
+  @Test
+  public void testRepeatedNamesShareStrings() throws GssParserException {
+    CssTree tree = parse(ImmutableList.of(
+        new SourceCode("a", ".a { color: red; } @media print { #x { color: red } }"),
+        new SourceCode("b", ".a { color: red; } @media print { #x { color: red } }")));
+    CssBlockNode body = tree.getRoot().getBody();
+    CssRulesetNode first = (CssRulesetNode) body.getChildAt(0);
+    CssRulesetNode second = (CssRulesetNode) body.getChildAt(2);
+    CssDeclarationNode firstDeclaration =
+        (CssDeclarationNode) first.getDeclarations().getChildAt(0);
+    CssDeclarationNode secondDeclaration =
+        (CssDeclarationNode) second.getDeclarations().getChildAt(0);
+    assertThat(secondDeclaration.getPropertyName().getValue())
+        .isSameInstanceAs(firstDeclaration.getPropertyName().getValue());
+    assertThat(secondDeclaration.getPropertyValue().getChildAt(0).getValue())
+        .isSameInstanceAs(firstDeclaration.getPropertyValue().getChildAt(0).getValue());
+    assertThat(((CssAtRuleNode) body.getChildAt(3)).getName().getValue())
+        .isSameInstanceAs(((CssAtRuleNode) body.getChildAt(1)).getName().getValue());
+  }
+
   private CssTree parse(List<SourceCode> sources) throws GssParserException {
     GssParser parser = new GssParser(sources);
     return parser.parse();
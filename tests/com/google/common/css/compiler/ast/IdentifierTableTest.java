@@ -0,0 +1,64 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.ast;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.base.Strings;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Unit tests for {@link IdentifierTable}.
+ */
+@RunWith(JUnit4.class)
+public class IdentifierTableTest {
+
+  @Test
+  public void testInternsRegions() {
+    IdentifierTable table = new IdentifierTable();
+    String px = table.intern("1px 2px", 1, 3);
+    assertThat(px).isEqualTo("px");
+    assertThat(table.intern("1px 2px", 5, 7)).isSameInstanceAs(px);
+    assertThat(table.intern(new StringBuilder("px"), 0, 2)).isSameInstanceAs(px);
+    assertThat(table.intern("p")).isEqualTo("p");
+    assertThat(table.intern("")).isSameInstanceAs(table.intern("x", 0, 0));
+    assertThat(table.size()).isEqualTo(3);
+  }
+
+  @Test
+  public void testDoesNotInternLongImages() {
+    IdentifierTable table = new IdentifierTable();
+    String image = Strings.repeat("a", IdentifierTable.MAX_LENGTH + 1);
+    assertThat(table.intern(image + " ", 0, image.length())).isEqualTo(image);
+    assertThat(table.size()).isEqualTo(0);
+  }
+
+  @Test
+  public void testKeepsInstancesWhenGrowing() {
+    IdentifierTable table = new IdentifierTable();
+    String first = table.intern("name0");
+    for (int i = 1; i < 10000; i++) {
+      table.intern("name" + i);
+    }
+    assertThat(table.size()).isEqualTo(10000);
+    assertThat(table.intern(new StringBuilder("name0"), 0, 5)).isSameInstanceAs(first);
+    assertThat(table.intern("name9999")).isEqualTo("name9999");
+    assertThat(table.size()).isEqualTo(10000);
+  }
+}
@@ -80,6 +80,27 @@ public class PropertyTest {
     assertThat(mozBorderRadiusTopLeft.getShorthands()).containsExactly("-moz-border-radius");
   }
 
+  @Test
+  public void testByNameIgnoresCase() {
+    assertThat(Property.byName("Border-Radius")).isSameInstanceAs(Property.byName("border-radius"));
+    assertThat(Property.byName("BORDER-HEIGHT").getName()).isEqualTo("border-height");
+    assertThat(Property.byName("--Custom").getName()).isEqualTo("--Custom");
+  }
+
+  @Test
+  public void testUserDefinedPropertiesAreCached() {
+    long hits = Property.getUserDefinedPropertyCacheStats().hitCount();
+    Property custom = Property.byName("--cached-property");
+    assertThat(custom.isCustom()).isTrue();
+    assertThat(Property.byName("--cached-property")).isSameInstanceAs(custom);
+    assertThat(Property.byName("Cached-Property"))
+        .isSameInstanceAs(Property.byName("cached-property"));
+    assertThat(Property.byName("--Cached-Property")).isNotSameInstanceAs(custom);
+    assertThat(Property.getUserDefinedPropertyCacheStats().hitCount() - hits).isAtLeast(2L);
+    assertThat(Property.getUserDefinedPropertyCacheSize())
+        .isAtMost(Property.MAX_USER_DEFINED_PROPERTIES);
+  }
+
   @Test
   public void testCustomBorderProperty() {
     Property borderHeight = Property.byName("border-height");
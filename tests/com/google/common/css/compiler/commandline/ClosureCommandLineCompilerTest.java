@@ -16,16 +16,31 @@
 package com.google.common.css.compiler.commandline;
 
 import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.Assert.fail;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.css.ExitCodeHandler;
 import com.google.common.css.JobDescription;
 import com.google.common.css.JobDescriptionBuilder;
+import com.google.common.css.MinimalSubstitutionMap;
 import com.google.common.css.SourceCode;
+import com.google.common.css.SplittingSubstitutionMap;
+import com.google.common.css.SubstitutionMap;
+import com.google.common.css.SubstitutionMapProvider;
+import com.google.common.css.compiler.ast.AccessibleErrorManager;
+import com.google.common.css.compiler.ast.CssCompilerPass;
 import com.google.common.css.compiler.ast.ErrorManager;
+import com.google.common.css.compiler.ast.GssError;
 import com.google.common.css.compiler.ast.testing.NewFunctionalTestBase;
+import com.google.common.css.compiler.passes.PassObserver;
+import com.google.common.css.compiler.passes.PassProfiler;
+import com.google.common.css.compiler.passes.PassRunner;
+import com.google.common.css.compiler.passes.PassStatistics;
 import com.google.common.io.Files;
 import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
@@ -65,6 +80,25 @@ public class ClosureCommandLineCompilerTest {
     assertThat(output).isEqualTo(".example{background:url('sprite.png') no-repeat}");
   }
 
+  @Test
+  public void testExecuteStreamsCssToSink() throws Exception {
+    JobDescription job =
+        new JobDescriptionBuilder()
+            .setCopyrightNotice("/* notice */")
+            .setAllowDefPropagation(false)
+            .addInput(new SourceCode("a.gss", ".a { color: red }"))
+            .addInput(new SourceCode("b.gss", ".b { color: blue }"))
+            .getJobDescription();
+    File outputFile = new File(Files.createTempDir(), "out.css");
+
+    new ClosureCommandLineCompiler(
+            job, EXIT_CODE_HANDLER, new NewFunctionalTestBase.TestErrorManager(new String[0]))
+        .execute(null, null, null, null, Files.asCharSink(outputFile, UTF_8));
+
+    assertThat(Files.asCharSource(outputFile, UTF_8).read())
+        .isEqualTo("/* notice */.a{color:red}.b{color:blue}");
+  }
+
   @Test
 
   public void testAllowDefPropagationDefaultsToTrue() throws Exception {
@@ -74,6 +108,249 @@ public class ClosureCommandLineCompilerTest {
     assertThat(jobDescription.allowDefPropagation).isTrue();
   }
 
+  @Test
+  public void testParallelCompilationMatchesSequential() throws Exception {
+    JobDescriptionBuilder builder = new JobDescriptionBuilder()
+        .setAllowDefPropagation(false)
+        .setSimplifyCss(true)
+        .setEliminateDeadStyles(true)
+        .setRootSelector(".root")
+        .setExcludedClassesFromRenaming(ImmutableList.of("root"))
+        .setCssSubstitutionMapProvider(new SubstitutionMapProvider() {
+          @Override
+          public SubstitutionMap get() {
+            return new SplittingSubstitutionMap(new MinimalSubstitutionMap());
+          }
+        });
+    for (int i = 0; i < 12; i++) {
+      builder.addInput(new SourceCode("input" + i + ".gss",
+          "@def COLOR #ff000" + (i % 10) + ";\n"
+          + ".shared-name, .name-" + i + " { color: COLOR; margin: 0px 1px 0px 1px }\n"
+          + ".root .name-" + (11 - i) + " > .other-" + i + " { unknown-" + i + ": 1px }\n"
+          + ".name-" + i + " { color: COLOR }"));
+    }
+    JobDescription sequentialJob = builder.getJobDescription();
+    JobDescription parallelJob = new JobDescriptionBuilder()
+        .copyFrom(sequentialJob)
+        .setThreadCount(4)
+        .getJobDescription();
+
+    AccessibleErrorManager sequentialErrors = new AccessibleErrorManager();
+    ClosureCommandLineCompiler sequential = new ClosureCommandLineCompiler(
+        sequentialJob, EXIT_CODE_HANDLER, sequentialErrors);
+    String sequentialOutput = sequential.compile();
+    AccessibleErrorManager parallelErrors = new AccessibleErrorManager();
+    ClosureCommandLineCompiler parallel = new ClosureCommandLineCompiler(
+        parallelJob, EXIT_CODE_HANDLER, parallelErrors);
+    String parallelOutput = parallel.compile();
+
+    assertThat(parallelOutput).isEqualTo(sequentialOutput);
+    assertThat(parallelOutput).contains(".root ");
+    assertThat(parallelOutput).doesNotContain("shared-name");
+    assertThat(parallelErrors.getErrors()).isNotEmpty();
+    assertThat(formatAll(parallelErrors.getErrors()))
+        .containsExactlyElementsIn(formatAll(sequentialErrors.getErrors()))
+        .inOrder();
+  }
+
+  @Test
+  public void testInputCacheMatchesFreshCompilation() throws Exception {
+    for (boolean allowDefPropagation : new boolean[] {false, true}) {
+      InputCache inputCache = new InputCache();
+      JobDescription job = createCachedJob(allowDefPropagation, "red");
+      assertCachedCompilationMatches(job, inputCache);
+      assertThat(inputCache.getMissCount()).isEqualTo(4);
+      assertThat(inputCache.getHitCount()).isEqualTo(0);
+
+      assertCachedCompilationMatches(job, inputCache);
+      assertThat(inputCache.getMissCount()).isEqualTo(4);
+      assertThat(inputCache.getHitCount()).isEqualTo(4);
+
+      // Only the input that changed is compiled again.
+      assertCachedCompilationMatches(
+          createCachedJob(allowDefPropagation, "blue"), inputCache);
+      assertThat(inputCache.getMissCount()).isEqualTo(5);
+      assertThat(inputCache.getHitCount()).isEqualTo(7);
+    }
+  }
+
+  @Test
+  public void testInputCacheRecompilesInputsUsingChangedDefinitions()
+      throws Exception {
+    InputCache inputCache = new InputCache();
+    String defs = "@def BASE red;\n@defmixin box(W) { width: W; }";
+    String uses = ".a { color: BASE }";
+    String mixins = ".b { @mixin box(1px); }";
+    // The first compilation runs the passes on every input, and an
+    // unchanged job on none.
+    assertThat(compileWithCache(inputCache, defs, uses, mixins, ".c {}"))
+        .containsExactly("ReplaceMixins", 4, "ReplaceConstantReferences", 4);
+    assertThat(compileWithCache(inputCache, defs, uses, mixins, ".c {}"))
+        .containsExactly("ReplaceMixins", 0, "ReplaceConstantReferences", 0);
+    // An input no other input depends on is compiled on its own.
+    assertThat(compileWithCache(
+            inputCache, defs, uses, mixins, ".c { color: green }"))
+        .containsExactly("ReplaceMixins", 1, "ReplaceConstantReferences", 1);
+    // The inputs using the definitions of a changed input are compiled again.
+    defs = "@def BASE blue;\n@defmixin box(W) { width: W; }";
+    assertThat(compileWithCache(
+            inputCache, defs, uses, mixins, ".c { color: green }"))
+        .containsExactly("ReplaceMixins", 2, "ReplaceConstantReferences", 3);
+    // So are the inputs whose constants a later input defines again.
+    assertThat(compileWithCache(
+            inputCache, defs, uses, mixins, "@def BASE green;"))
+        .containsExactly("ReplaceMixins", 1, "ReplaceConstantReferences", 2);
+  }
+
+  /**
+   * Compiles the given inputs with the cache, checks that the result matches
+   * a fresh compilation and returns how many times the passes replacing
+   * mixins and constants ran.
+   */
+  private Map<String, Integer> compileWithCache(InputCache inputCache,
+      String... inputs) throws Exception {
+    final Map<String, Integer> passCounts = new HashMap<>();
+    passCounts.put("ReplaceMixins", 0);
+    passCounts.put("ReplaceConstantReferences", 0);
+    JobDescriptionBuilder builder = new JobDescriptionBuilder()
+        .setAllowDefPropagation(true)
+        .setSimplifyCss(true)
+        .setEliminateDeadStyles(true);
+    for (int i = 0; i < inputs.length; i++) {
+      builder.addInput(new SourceCode("input" + i + ".gss", inputs[i]));
+    }
+    JobDescription freshJob = builder.getJobDescription();
+    JobDescription cachedJob = new JobDescriptionBuilder()
+        .copyFrom(freshJob)
+        .setPassObserver(new PassObserver() {
+          @Override
+          public void passStarted(CssCompilerPass pass) {
+            String name = PassRunner.getPassName(pass);
+            if (passCounts.containsKey(name)) {
+              passCounts.put(name, passCounts.get(name) + 1);
+            }
+          }
+
+          @Override
+          public void passFinished(
+              CssCompilerPass pass, PassStatistics statistics) {}
+        })
+        .getJobDescription();
+
+    String freshOutput = new ClosureCommandLineCompiler(
+        freshJob, EXIT_CODE_HANDLER, new AccessibleErrorManager()).compile();
+    ClosureCommandLineCompiler cached = new ClosureCommandLineCompiler(
+        cachedJob, EXIT_CODE_HANDLER, new AccessibleErrorManager());
+    cached.setInputCache(inputCache);
+    assertThat(cached.compile()).isEqualTo(freshOutput);
+    return passCounts;
+  }
+
+  private static JobDescription createCachedJob(
+      boolean allowDefPropagation, String lastColor) {
+    JobDescriptionBuilder builder = new JobDescriptionBuilder()
+        .setAllowDefPropagation(allowDefPropagation)
+        .setSimplifyCss(true)
+        .setEliminateDeadStyles(true)
+        .setCssSubstitutionMapProvider(new SubstitutionMapProvider() {
+          @Override
+          public SubstitutionMap get() {
+            return new MinimalSubstitutionMap();
+          }
+        });
+    for (int i = 0; i < 4; i++) {
+      builder.addInput(new SourceCode("input" + i + ".gss",
+          "@def COLOR " + (i == 3 ? lastColor : "red") + ";\n"
+          + ".name-" + i + ", .shared { color: COLOR; margin: 0px 1px }\n"
+          + ".name-" + i + ":not(.other-" + i + ") { unknown-" + i + ": 1px }"));
+    }
+    return builder.getJobDescription();
+  }
+
+  private void assertCachedCompilationMatches(
+      JobDescription job, InputCache inputCache) throws Exception {
+    AccessibleErrorManager freshErrors = new AccessibleErrorManager();
+    String freshOutput = new ClosureCommandLineCompiler(
+        job, EXIT_CODE_HANDLER, freshErrors).compile();
+    AccessibleErrorManager cachedErrors = new AccessibleErrorManager();
+    ClosureCommandLineCompiler cached = new ClosureCommandLineCompiler(
+        job, EXIT_CODE_HANDLER, cachedErrors);
+    cached.setInputCache(inputCache);
+    String cachedOutput = cached.compile();
+
+    assertThat(cachedOutput).isEqualTo(freshOutput);
+    assertThat(formatAll(cachedErrors.getErrors()))
+        .containsExactlyElementsIn(formatAll(freshErrors.getErrors()))
+        .inOrder();
+  }
+
+  private static ImmutableList<String> formatAll(Iterable<GssError> errors) {
+    ImmutableList.Builder<String> formatted = ImmutableList.builder();
+    for (GssError error : errors) {
+      formatted.add(error.format());
+    }
+    return formatted.build();
+  }
+
+  @Test
+  public void testProfilePassesSetsPassObserver() throws Exception {
+    ClosureCommandLineCompiler.Flags flags =
+        ClosureCommandLineCompiler.parseArgs(
+            new String[] {"--profile-passes", "/dev/null"}, EXIT_CODE_HANDLER);
+    JobDescription jobDescription = flags.createJobDescription();
+    assertThat(jobDescription.passObserver).isInstanceOf(PassProfiler.class);
+  }
+
+  @Test
+  public void testPassObserverIsNullByDefault() throws Exception {
+    ClosureCommandLineCompiler.Flags flags =
+        ClosureCommandLineCompiler.parseArgs(new String[] {"/dev/null"}, EXIT_CODE_HANDLER);
+    JobDescription jobDescription = flags.createJobDescription();
+    assertThat(jobDescription.passObserver).isNull();
+  }
+
+  @Test
+  public void testGssLexerFlagSelectsLexer() throws Exception {
+    ClosureCommandLineCompiler.Flags flags =
+        ClosureCommandLineCompiler.parseArgs(
+            new String[] {"--gss-lexer", "/dev/null"}, EXIT_CODE_HANDLER);
+    JobDescription jobDescription = flags.createJobDescription();
+    assertThat(jobDescription.useGssLexer).isTrue();
+    assertThat(jobDescription.toBuilder().getJobDescription().useGssLexer)
+        .isTrue();
+
+    flags = ClosureCommandLineCompiler.parseArgs(
+        new String[] {"/dev/null"}, EXIT_CODE_HANDLER);
+    assertThat(flags.createJobDescription().useGssLexer).isFalse();
+  }
+
+  @Test
+  public void testGssLexerCompilesLikeGeneratedLexer() throws Exception {
+    for (boolean allowDefPropagation : new boolean[] {false, true}) {
+      JobDescriptionBuilder builder = new JobDescriptionBuilder()
+          .setAllowDefPropagation(allowDefPropagation)
+          .setSimplifyCss(true)
+          .addInput(new SourceCode("a.gss",
+              "@def COLOR #f00;\n.a { color: COLOR; margin: 0 1px }"))
+          .addInput(new SourceCode("b.gss",
+              "/* b */ @media print { .b:hover > .c { top: -1px } }"));
+      JobDescription job = builder.getJobDescription();
+      String expected = new ClosureCommandLineCompiler(
+          job, EXIT_CODE_HANDLER, new AccessibleErrorManager()).compile();
+
+      JobDescription lexerJob = job.toBuilder()
+          .setUseGssLexer(true)
+          .getJobDescription();
+      ClosureCommandLineCompiler compiler = new ClosureCommandLineCompiler(
+          lexerJob, EXIT_CODE_HANDLER, new AccessibleErrorManager());
+      assertThat(compiler.compile()).isEqualTo(expected);
+      compiler = new ClosureCommandLineCompiler(
+          lexerJob, EXIT_CODE_HANDLER, new AccessibleErrorManager());
+      compiler.setInputCache(new InputCache());
+      assertThat(compiler.compile()).isEqualTo(expected);
+    }
+  }
+
   @Test
 
   public void testEmptyImportBlocks() throws Exception {
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.commandline;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.css.JobDescription;
+import com.google.common.css.JobDescriptionBuilder;
+import com.google.common.css.SimpleSubstitutionMap;
+import com.google.common.css.SourceCode;
+import com.google.common.css.SubstitutionMap;
+import com.google.common.css.SubstitutionMapProvider;
+import com.google.common.css.compiler.passes.BrowserPrefixRuleTable;
+import com.google.common.css.compiler.ast.BasicErrorManager;
+import com.google.common.io.Files;
+import java.io.File;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link CompilationCache}. */
+@RunWith(JUnit4.class)
+public class CompilationCacheTest {
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private File cacheDir;
+
+  @Before
+  public void setUp() throws Exception {
+    cacheDir = folder.newFolder("cache");
+  }
+
+  /** An error manager that keeps what it prints. */
+  private static class RecordingErrorManager extends BasicErrorManager {
+    final List<String> printed = Lists.newArrayList();
+
+    @Override
+    public void print(String msg) {
+      printed.add(msg);
+    }
+  }
+
+  private static JobDescription createJob(String css) {
+    return new JobDescriptionBuilder()
+        .addInput(new SourceCode("a.css", css))
+        .setSimplifyCss(true)
+        .setEliminateDeadStyles(true)
+        .setCreateSourceMap(true)
+        .setCssSubstitutionMapProvider(
+            RenamingType.DEBUG.getCssSubstitutionMapProvider())
+        .getJobDescription();
+  }
+
+  private String execute(JobDescription job, RecordingErrorManager errors,
+      CompilationCache cache) {
+    ClosureCommandLineCompiler compiler = new ClosureCommandLineCompiler(
+        job, ClosureCommandLineCompilerTest.EXIT_CODE_HANDLER, errors);
+    compiler.setCompilationCache(cache);
+    return compiler.execute(new File(folder.getRoot(), "map.json"),
+        new File(folder.getRoot(), "out.css.map"), null, null);
+  }
+
+  @Test
+  public void testHitReplaysOutputsAndWarnings() throws Exception {
+    CompilationCache cache = new CompilationCache(cacheDir, 1 << 20);
+    JobDescription job = createJob(".a { --b: 1px; color: red }");
+
+    RecordingErrorManager compiledErrors = new RecordingErrorManager();
+    String compiled = execute(job, compiledErrors, cache);
+    String compiledMap = read("map.json");
+    String compiledSourceMap = read("out.css.map");
+    assertThat(cacheDir.listFiles()).hasLength(1);
+
+    new File(folder.getRoot(), "map.json").delete();
+    new File(folder.getRoot(), "out.css.map").delete();
+    RecordingErrorManager replayedErrors = new RecordingErrorManager();
+    String replayed = execute(job, replayedErrors, cache);
+
+    assertThat(replayed).isEqualTo(compiled);
+    assertThat(read("map.json")).isEqualTo(compiledMap);
+    assertThat(read("out.css.map")).isEqualTo(compiledSourceMap);
+    assertThat(compiledErrors.printed).isNotEmpty();
+    assertThat(replayedErrors.printed)
+        .containsExactlyElementsIn(compiledErrors.printed).inOrder();
+    assertThat(cacheDir.listFiles()).hasLength(1);
+  }
+
+  @Test
+  public void testKeyDependsOnInputsAndOptions() throws Exception {
+    JobDescription job = createJob(".a { color: red }");
+    String key = CompilationCache.computeKey(job, "out.css.map");
+
+    assertThat(CompilationCache.computeKey(job, "out.css.map")).isEqualTo(key);
+    assertThat(CompilationCache.computeKey(
+        job.toBuilder().setThreadCount(4).getJobDescription(), "out.css.map"))
+        .isEqualTo(key);
+    assertThat(CompilationCache.computeKey(job, "other.css.map"))
+        .isNotEqualTo(key);
+    assertThat(CompilationCache.computeKey(
+        createJob(".a { color: blue }"), "out.css.map")).isNotEqualTo(key);
+    assertThat(CompilationCache.computeKey(
+        job.toBuilder().setTrueConditionNames(ImmutableList.of("MOBILE"))
+            .getJobDescription(), "out.css.map")).isNotEqualTo(key);
+    assertThat(CompilationCache.computeKey(
+        job.toBuilder().setOutputFormat(JobDescription.OutputFormat.PRETTY_PRINTED)
+            .getJobDescription(), "out.css.map")).isNotEqualTo(key);
+    assertThat(CompilationCache.computeKey(
+        job.toBuilder().setPrefixRules(BrowserPrefixRuleTable.parse("[]"))
+            .getJobDescription(), "out.css.map")).isNotEqualTo(key);
+  }
+
+  @Test
+  public void testKeyDescribesRenamingType() throws Exception {
+    JobDescription job = createJob(".a { color: red }");
+    assertThat(CompilationCache.computeKey(
+        job.toBuilder().setCssSubstitutionMapProvider(
+            RenamingType.CLOSURE.getCssSubstitutionMapProvider())
+            .getJobDescription(), "out.css.map"))
+        .isNotEqualTo(CompilationCache.computeKey(job, "out.css.map"));
+    assertThat(CompilationCache.canCache(
+        job.toBuilder().setCssSubstitutionMapProvider(null)
+            .getJobDescription())).isTrue();
+  }
+
+  @Test
+  public void testCustomSubstitutionMapProviderIsNotCached() throws Exception {
+    JobDescription job = createJob(".a { color: red }").toBuilder()
+        .setCssSubstitutionMapProvider(new SubstitutionMapProvider() {
+          @Override
+          public SubstitutionMap get() {
+            return new SimpleSubstitutionMap();
+          }
+        })
+        .getJobDescription();
+    assertThat(CompilationCache.canCache(job)).isFalse();
+
+    CompilationCache cache = new CompilationCache(cacheDir, 1 << 20);
+    execute(job, new RecordingErrorManager(), cache);
+    assertThat(cacheDir.listFiles()).isEmpty();
+  }
+
+  @Test
+  public void testVersionHashesClassFiles() throws Exception {
+    File classes = folder.newFolder("classes");
+    File classFile = new File(classes, "com/example/A.class");
+    Files.createParentDirs(classFile);
+    Files.asCharSink(classFile, UTF_8).write("first");
+    classes.setLastModified(1000);
+    String version = CompilationCache.hashContents(classes);
+
+    assertThat(CompilationCache.hashContents(classes)).isEqualTo(version);
+    Files.asCharSink(classFile, UTF_8).write("other");
+    classes.setLastModified(1000);
+    assertThat(CompilationCache.hashContents(classes)).isNotEqualTo(version);
+    Files.asCharSink(classFile, UTF_8).write("first");
+    assertThat(CompilationCache.hashContents(classes)).isEqualTo(version);
+    assertThat(CompilationCache.hashContents(classFile))
+        .isNotEqualTo(version);
+  }
+
+  @Test
+  public void testKeyIgnoresOrderOfNames() throws Exception {
+    JobDescription job = createJob(".a { color: red }");
+    assertThat(CompilationCache.computeKey(
+        job.toBuilder().setTrueConditionNames(ImmutableList.of("A", "B"))
+            .setExcludedClassesFromRenaming(ImmutableList.of("x", "y"))
+            .getJobDescription(), "out.css.map"))
+        .isEqualTo(CompilationCache.computeKey(
+            job.toBuilder().setTrueConditionNames(ImmutableList.of("B", "A"))
+                .setExcludedClassesFromRenaming(ImmutableList.of("y", "x"))
+                .getJobDescription(), "out.css.map"));
+  }
+
+  @Test
+  public void testEvictsLeastRecentlyUsed() throws Exception {
+    CompilationCache.Entry entry = new CompilationCache.Entry();
+    entry.css = new String(new char[100]).replace('\0', 'a');
+    CompilationCache cache = new CompilationCache(cacheDir, 450);
+
+    cache.put("first", entry);
+    cache.put("second", entry);
+    new File(cacheDir, "first.json").setLastModified(1000);
+    new File(cacheDir, "second.json").setLastModified(2000);
+    assertThat(cache.get("first")).isNotNull();
+    cache.put("third", entry);
+
+    assertThat(cache.get("first")).isNotNull();
+    assertThat(cache.get("second")).isNull();
+    assertThat(cache.get("third")).isNotNull();
+  }
+
+  @Test
+  public void testUnreadableEntryIsAMiss() throws Exception {
+    CompilationCache cache = new CompilationCache(cacheDir, 1 << 20);
+    Files.asCharSink(new File(cacheDir, "key.json"), UTF_8).write("{\"css\":");
+    assertThat(cache.get("key")).isNull();
+    assertThat(cache.get("missing")).isNull();
+  }
+
+  private String read(String fileName) throws Exception {
+    return Files.asCharSource(new File(folder.getRoot(), fileName), UTF_8).read();
+  }
+}
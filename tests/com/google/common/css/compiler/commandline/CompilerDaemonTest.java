@@ -0,0 +1,165 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.commandline;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.css.AbstractCommandLineCompiler;
+import com.google.common.io.Files;
+import com.google.gson.Gson;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link CompilerDaemon}. */
+@RunWith(JUnit4.class)
+public class CompilerDaemonTest {
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private final Gson gson = new Gson();
+  private String cwd;
+
+  @Before
+  public void setUp() throws Exception {
+    cwd = folder.getRoot().getPath();
+    Files.asCharSink(folder.newFile("a.css"), UTF_8)
+        .write(".a { color: red; margin: 0px; }");
+    Files.asCharSink(folder.newFile("bad.css"), UTF_8).write(".b { foo: 1; }");
+  }
+
+  private String job(String... args) {
+    CompilerDaemon.Request request = new CompilerDaemon.Request();
+    request.args = ImmutableList.copyOf(args);
+    request.cwd = cwd;
+    return gson.toJson(request);
+  }
+
+  private List<CompilerDaemon.Response> run(String... lines)
+      throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    new CompilerDaemon(new StringReader(String.join("\n", lines)),
+        new PrintStream(out, true, UTF_8.name())).run();
+    List<CompilerDaemon.Response> responses = Lists.newArrayList();
+    for (String line : Splitter.on('\n').omitEmptyStrings().split(
+        new String(out.toByteArray(), UTF_8))) {
+      responses.add(gson.fromJson(line, CompilerDaemon.Response.class));
+    }
+    return responses;
+  }
+
+  @Test
+  public void testRunsEveryJobAndKeepsGoingAfterErrors() throws Exception {
+    List<CompilerDaemon.Response> responses = run(
+        job("a.css"),
+        job("bad.css"),
+        "",
+        job("--pretty-print", "a.css"));
+
+    assertThat(responses).hasSize(3);
+    assertThat(responses.get(0).exitCode)
+        .isEqualTo(AbstractCommandLineCompiler.SUCCESS_EXIT_CODE);
+    assertThat(responses.get(0).css).isEqualTo(".a{color:red;margin:0}");
+    assertThat(responses.get(1).exitCode)
+        .isEqualTo(AbstractCommandLineCompiler.ERROR_MESSAGE_EXIT_CODE);
+    assertThat(responses.get(1).css).isNull();
+    assertThat(responses.get(1).stderr)
+        .contains("foo is an unrecognized property");
+    assertThat(responses.get(2).exitCode)
+        .isEqualTo(AbstractCommandLineCompiler.SUCCESS_EXIT_CODE);
+    assertThat(responses.get(2).css).contains("margin: 0;");
+  }
+
+  @Test
+  public void testOutputFilesAreResolvedAgainstTheDirectoryOfTheJob()
+      throws Exception {
+    CompilerDaemon.Response response = run(job(
+        "--rename", "DEBUG",
+        "--output-renaming-map", "map.json",
+        "--output-source-map", "out.css.map",
+        "--output-file", "out.css",
+        "a.css")).get(0);
+
+    assertThat(response.exitCode)
+        .isEqualTo(AbstractCommandLineCompiler.SUCCESS_EXIT_CODE);
+    assertThat(response.css).isNull();
+    assertThat(Files.asCharSource(new File(cwd, "out.css"), UTF_8).read())
+        .isEqualTo(".a_{color:red;margin:0}");
+    assertThat(response.renamingMap).isEqualTo(
+        Files.asCharSource(new File(cwd, "map.json"), UTF_8).read());
+    assertThat(response.renamingMap).contains("\"a\": \"a_\"");
+    assertThat(response.sourceMap).isEqualTo(
+        Files.asCharSource(new File(cwd, "out.css.map"), UTF_8).read());
+    assertThat(response.sourceMap).contains("\"sources\":[\"a.css\"]");
+  }
+
+  @Test
+  public void testPrefixRulesAreReadPerJob() throws Exception {
+    Files.asCharSink(folder.newFile("flex.css"), UTF_8).write(".f { display: flex; }");
+    Files.asCharSink(folder.newFile("webkit.json"), UTF_8).write(
+        "[{\"name\": \"display\", \"value\": \"flex\","
+            + " \"expandValues\": [\"-webkit-flex\"]}]");
+    Files.asCharSink(folder.newFile("none.json"), UTF_8).write("[]");
+    Files.asCharSink(folder.newFile("invalid.json"), UTF_8).write("[{}]");
+
+    List<CompilerDaemon.Response> responses = run(
+        job("--expand-browser-prefix", "--prefix-rules", "webkit.json", "flex.css"),
+        job("--expand-browser-prefix", "--prefix-rules", "none.json", "flex.css"),
+        job("--expand-browser-prefix", "--prefix-rules", "webkit.json", "flex.css"),
+        job("--expand-browser-prefix", "--prefix-rules", "invalid.json", "flex.css"));
+
+    assertThat(responses.get(0).css).isEqualTo(".f{display:flex;display:-webkit-flex}");
+    assertThat(responses.get(1).css).isEqualTo(".f{display:flex}");
+    assertThat(responses.get(2).css).isEqualTo(responses.get(0).css);
+    assertThat(responses.get(3).exitCode)
+        .isEqualTo(AbstractCommandLineCompiler.INTERNAL_ERROR_EXIT_CODE);
+    assertThat(responses.get(3).stderr)
+        .contains("Prefix rules file invalid.json is not valid: Rule 0");
+  }
+
+  @Test
+  public void testInvalidJobsAreReported() throws Exception {
+    List<CompilerDaemon.Response> responses = run(
+        "not json",
+        job("--daemon"),
+        job("--no-such-flag", "a.css"),
+        job("missing.css"));
+
+    assertThat(responses).hasSize(4);
+    assertThat(responses.get(0).stderr).startsWith("Invalid job");
+    assertThat(responses.get(1).stderr)
+        .contains("--daemon cannot be given to a job");
+    assertThat(responses.get(2).stderr).contains("Closure Stylesheets");
+    assertThat(responses.get(3).stderr).contains("missing.css does not exist");
+    for (CompilerDaemon.Response response : responses) {
+      assertThat(response.exitCode)
+          .isNotEqualTo(AbstractCommandLineCompiler.SUCCESS_EXIT_CODE);
+    }
+  }
+}
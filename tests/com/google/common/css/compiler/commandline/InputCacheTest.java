@@ -0,0 +1,78 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.commandline;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.css.SourceCode;
+import com.google.common.css.compiler.ast.CssTree;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Unit tests for {@link InputCache}.
+ */
+@RunWith(JUnit4.class)
+public class InputCacheTest {
+
+  /** Contents that fail the test if they are copied into a string. */
+  private static final class Contents implements CharSequence {
+    private final String contents;
+
+    Contents(String contents) {
+      this.contents = contents;
+    }
+
+    @Override
+    public int length() {
+      return contents.length();
+    }
+
+    @Override
+    public char charAt(int index) {
+      return contents.charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+      return new Contents(contents.substring(start, end));
+    }
+
+    @Override
+    public String toString() {
+      throw new AssertionError("The contents were copied into a string");
+    }
+  }
+
+  @Test
+  public void testComparesContentsWithoutCopyingThem() {
+    InputCache cache = new InputCache();
+    SourceCode input = new SourceCode("a.gss", new Contents(".a { top: 0 }"));
+    cache.putParsedTree(input, new CssTree(input));
+
+    assertThat(cache.getParsedTree(input)).isNotNull();
+    assertThat(cache.getParsedTree(
+        new SourceCode("a.gss", new Contents(".a { top: 0 }")))).isNotNull();
+    assertThat(cache.getParsedTree(
+        new SourceCode("a.gss", new Contents(".a { top: 1 }")))).isNull();
+    assertThat(cache.getParsedTree(
+        new SourceCode("b.gss", new Contents(".a { top: 0 }")))).isNull();
+    assertThat(cache.getHitCount()).isEqualTo(2);
+    assertThat(cache.getMissCount()).isEqualTo(2);
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.commandline;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.base.Strings;
+import com.google.common.css.SourceCode;
+import com.google.common.css.compiler.ast.CssTree;
+import com.google.common.css.compiler.ast.GssParser;
+import com.google.common.io.Files;
+import java.io.File;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Unit tests for {@link InputFiles}.
+ */
+@RunWith(JUnit4.class)
+public class InputFilesTest {
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private static final String RULE = ".a { color: red; }\n";
+
+  private String largeContents(String last) {
+    return Strings.repeat(RULE, InputFiles.MIN_MAPPED_SIZE / RULE.length() + 1) + last;
+  }
+
+  private File write(String contents) throws Exception {
+    File file = folder.newFile();
+    Files.asCharSink(file, UTF_8).write(contents);
+    return file;
+  }
+
+  @Test
+  public void testSmallFileIsReadIntoString() throws Exception {
+    CharSequence contents = InputFiles.read(write(RULE));
+    assertThat(contents).isInstanceOf(String.class);
+    assertThat(contents.toString()).isEqualTo(RULE);
+  }
+
+  @Test
+  public void testLargeAsciiFileIsMapped() throws Exception {
+    String expected = largeContents(".b { top: 0; }");
+    CharSequence contents = InputFiles.read(write(expected));
+    assertThat(contents).isNotInstanceOf(String.class);
+    assertThat(contents.length()).isEqualTo(expected.length());
+    assertThat(contents.charAt(expected.length() - 1)).isEqualTo('}');
+    assertThat(contents.subSequence(RULE.length(), 2 * RULE.length()).toString())
+        .isEqualTo(RULE);
+    assertThat(contents.toString()).isEqualTo(expected);
+  }
+
+  @Test
+  public void testLargeNonAsciiFileIsDecodedInChunks() throws Exception {
+    String expected = largeContents(".b { content: \"é\"; }");
+    CharSequence contents = InputFiles.read(write(expected));
+    assertThat(contents).isNotInstanceOf(String.class);
+    assertThat(contents.length()).isEqualTo(expected.length());
+    int accent = expected.indexOf('\u00e9');
+    assertThat(contents.charAt(accent)).isEqualTo('\u00e9');
+    assertThat(contents.charAt(0)).isEqualTo('.');
+    assertThat(contents.toString()).isEqualTo(expected);
+  }
+
+  @Test
+  public void testSurrogatePairsAcrossChunks() throws Exception {
+    // Mixes one, two, three and four byte characters so that chunk
+    // boundaries fall inside of all of them.
+    StringBuilder builder = new StringBuilder();
+    while (builder.length() < InputFiles.MIN_MAPPED_SIZE) {
+      builder.append("a\u00e9\u20ac\ud83d\ude00");
+    }
+    String expected = builder.toString();
+    CharSequence contents = InputFiles.read(write(expected));
+    assertThat(contents).isNotInstanceOf(String.class);
+    assertThat(contents.length()).isEqualTo(expected.length());
+    for (int i = 0; i < expected.length(); i++) {
+      assertThat(contents.charAt(i)).isEqualTo(expected.charAt(i));
+    }
+    // Reads backwards, so that every chunk is decoded again.
+    for (int i = expected.length() - 1; i >= 0; i -= InputFiles.CHUNK_SIZE / 3) {
+      assertThat(contents.charAt(i)).isEqualTo(expected.charAt(i));
+    }
+    int start = InputFiles.CHUNK_SIZE - 3;
+    int end = 3 * InputFiles.CHUNK_SIZE + 5;
+    assertThat(contents.subSequence(start, end).toString())
+        .isEqualTo(expected.substring(start, end));
+    assertThat(contents.toString()).isEqualTo(expected);
+  }
+
+  @Test
+  public void testMalformedFileIsDecodedIntoString() throws Exception {
+    byte[] bytes = largeContents("").getBytes(UTF_8);
+    bytes[bytes.length / 2] = (byte) 0xff;
+    File file = folder.newFile();
+    Files.write(bytes, file);
+    CharSequence contents = InputFiles.read(file);
+    assertThat(contents).isInstanceOf(String.class);
+    assertThat(contents.toString()).isEqualTo(Files.asCharSource(file, UTF_8).read());
+  }
+
+  @Test
+  public void testMappedFileIsParsed() throws Exception {
+    String expected = largeContents(".b { top: 0; }");
+    SourceCode source = new SourceCode("large.css", InputFiles.read(write(expected)));
+    CssTree tree = new GssParser(source).parse();
+    assertThat(tree.getRoot().getBody().numChildren())
+        .isEqualTo(InputFiles.MIN_MAPPED_SIZE / RULE.length() + 2);
+    assertThat(source.getFileContents()).isEqualTo(expected);
+  }
+}
@@ -45,7 +45,7 @@ public class AbbreviatePositionalValuesTest {
   @Captor ArgumentCaptor<List<CssNode>> cssNodesCaptor;
 
   @Test
-  public void testEnterDeclaration() {
+  public void testLeaveDeclaration() {
     MutatingVisitController mockVisitController = mock(MutatingVisitController.class);
 
     AbbreviatePositionalValues pass = new AbbreviatePositionalValues(mockVisitController);
@@ -62,7 +62,7 @@ public class AbbreviatePositionalValuesTest {
     BackDoorNodeMutation.addPropertyValueToDeclaration(declaration,
         new CssLiteralNode("A"));
 
-    pass.enterDeclaration(declaration);
+    pass.leaveDeclaration(declaration);
 
     verify(mockVisitController)
         .replaceCurrentBlockChildWith(cssNodesCaptor.capture(), Matchers.anyBoolean());
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.passes;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.css.compiler.ast.CssDeclarationNode;
+import com.google.common.css.compiler.ast.CssFunctionArgumentsNode;
+import com.google.common.css.compiler.ast.CssFunctionNode;
+import com.google.common.css.compiler.ast.CssLiteralNode;
+import com.google.common.css.compiler.ast.CssPropertyNode;
+import com.google.common.css.compiler.ast.CssPropertyValueNode;
+import com.google.common.css.compiler.ast.CssValueNode;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link BrowserPrefixRuleIndex}. */
+@RunWith(JUnit4.class)
+public class BrowserPrefixRuleIndexTest {
+
+  private final BrowserPrefixRule calc =
+      new BrowserPrefixRule.Builder()
+          .matchPropertyValue("calc")
+          .isFunction(true)
+          .addExpandPropertyValue("-webkit-calc")
+          .build();
+  private final BrowserPrefixRule displayFlex =
+      new BrowserPrefixRule.Builder()
+          .matchPropertyName("display")
+          .matchPropertyValue("flex")
+          .addExpandPropertyValue("-webkit-flex")
+          .build();
+  private final BrowserPrefixRule displayGrid =
+      new BrowserPrefixRule.Builder()
+          .matchPropertyName("display")
+          .matchPropertyValue("grid")
+          .addExpandPropertyValue("-ms-grid")
+          .build();
+  private final BrowserPrefixRule flexGrow =
+      new BrowserPrefixRule.Builder()
+          .matchPropertyName("flex-grow")
+          .addExpandPropertyName("-webkit-flex-grow")
+          .build();
+  private final BrowserPrefixRuleIndex index =
+      new BrowserPrefixRuleIndex(ImmutableList.of(calc, displayFlex, flexGrow, displayGrid));
+
+  @Test
+  public void testRulesOfThePropertyName() {
+    assertThat(index.getCandidateRules(declaration("display", new CssLiteralNode("grid"))))
+        .containsExactly(displayFlex, displayGrid)
+        .inOrder();
+    assertThat(index.getCandidateRules(declaration("color", new CssLiteralNode("red"))))
+        .isEmpty();
+  }
+
+  @Test
+  public void testFunctionRulesKeepTheirPosition() {
+    assertThat(index.getCandidateRules(declaration("flex-grow", calc(), calc())))
+        .containsExactly(calc, flexGrow)
+        .inOrder();
+    assertThat(index.getCandidateRules(declaration("width", calc())))
+        .containsExactly(calc);
+  }
+
+  private static CssDeclarationNode declaration(String name, CssValueNode... values) {
+    return new CssDeclarationNode(
+        new CssPropertyNode(name), new CssPropertyValueNode(ImmutableList.copyOf(values)));
+  }
+
+  private static CssFunctionNode calc() {
+    CssFunctionNode function = new CssFunctionNode(CssFunctionNode.Function.byName("calc"), null);
+    function.setArguments(new CssFunctionArgumentsNode());
+    return function;
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.passes;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+import com.google.common.css.SourceCode;
+import com.google.common.css.compiler.ast.CssTree;
+import com.google.common.css.compiler.ast.GssParser;
+import java.util.HashMap;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link BrowserPrefixRuleTable}. */
+@RunWith(JUnit4.class)
+public class BrowserPrefixRuleTableTest {
+
+  @Test
+  public void testDefaultTableHasTheBuiltInRules() {
+    assertThat(BrowserPrefixRuleTable.getDefault().getRules())
+        .isEqualTo(BrowserPrefixGenerator.getExpansionRules());
+    assertThat(BrowserPrefixRuleTable.getDefault().getSource()).isNull();
+  }
+
+  @Test
+  public void testParsedRulesExpandDeclarations() throws Exception {
+    String json = "["
+        + "{\"name\": \"flex-grow\", \"expandNames\": [\"-webkit-flex-grow\"]},"
+        + "{\"name\": \"display\", \"value\": \"flex\", \"expandValues\": [\"-webkit-flex\"]},"
+        + "{\"value\": \"calc\", \"function\": true, \"expandValues\": [\"-webkit-calc\"]}"
+        + "]";
+    BrowserPrefixRuleTable table = BrowserPrefixRuleTable.parse(json);
+    assertThat(table.getRules()).hasSize(3);
+    assertThat(table.getSource()).isEqualTo(json);
+
+    assertThat(expand(table, ".a{flex-grow:1;display:flex;width:calc(1px + 2px);order:1}"))
+        .isEqualTo(".a{"
+            + "flex-grow:1;-webkit-flex-grow:1;"
+            + "display:flex;display:-webkit-flex;"
+            + "width:calc(1px + 2px);width:-webkit-calc(1px + 2px);"
+            + "order:1}");
+  }
+
+  @Test
+  public void testInvalidTablesAreRejected() {
+    assertInvalid("{", null);
+    assertInvalid("{\"name\": \"a\"}", null);
+    assertInvalid("[{\"expandNames\": [\"b\"]}]", "Rule 0 matches neither a name nor a value");
+    assertInvalid("[{\"name\": \"a\"}]", "Rule 0 must have either expandNames or expandValues");
+    assertInvalid(
+        "[{\"name\": \"a\", \"expandNames\": [\"b\"]},"
+            + " {\"name\": \"a\", \"value\": \"b\", \"expandNames\": [\"c\"]}]",
+        "Rule 1 cannot expand the name of a declaration matched by its value");
+    assertInvalid(
+        "[{\"name\": \"a\", \"expandValues\": [\"b\"]}]",
+        "Rule 0 cannot expand the value of a declaration matched by its name only");
+    assertInvalid(
+        "[{\"value\": \"calc\", \"function\": true, \"expandValues\": [\"-no-calc\"]}]",
+        "Rule 0 expands into the unknown function -no-calc");
+  }
+
+  private static void assertInvalid(String json, String message) {
+    try {
+      BrowserPrefixRuleTable.parse(json);
+      fail("Expected " + json + " to be rejected");
+    } catch (IllegalArgumentException e) {
+      if (message != null) {
+        assertThat(e).hasMessageThat().isEqualTo(message);
+      }
+    }
+  }
+
+  private static String expand(BrowserPrefixRuleTable table, String css) throws Exception {
+    CssTree tree = new GssParser(new SourceCode("test.css", css)).parse();
+    new AutoExpandBrowserPrefix(tree.getMutatingVisitController(), new HashMap<>(), table)
+        .runPass();
+    CompactPrinter printer = new CompactPrinter(tree);
+    printer.runPass();
+    return printer.getCompactPrintedString();
+  }
+}
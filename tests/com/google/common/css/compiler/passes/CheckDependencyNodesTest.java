@@ -19,8 +19,13 @@ package com.google.common.css.compiler.passes;
 import static com.google.common.truth.Truth.assertThat;
 
 import com.google.common.collect.ImmutableMap;
+import com.google.common.css.compiler.ast.CssAtRuleNode;
+import com.google.common.css.compiler.ast.CssProvideNode;
+import com.google.common.css.compiler.ast.CssRequireNode;
 import com.google.common.css.compiler.ast.GssParserException;
 import com.google.common.css.compiler.ast.testing.NewFunctionalTestBase;
+import java.util.ArrayList;
+import java.util.List;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
@@ -34,11 +39,12 @@ import org.junit.runners.JUnit4;
 public class CheckDependencyNodesTest extends NewFunctionalTestBase {
 
   private CheckDependencyNodes processDependencyNodes;
+  private boolean checkOrder = true;
 
   @Override
   protected void runPass() {
     processDependencyNodes = new CheckDependencyNodes(
-        tree.getMutatingVisitController(), errorManager, false);
+        tree.getMutatingVisitController(), errorManager, false, checkOrder);
     processDependencyNodes.runPass();
   }
 
@@ -77,4 +83,19 @@ public class CheckDependencyNodesTest extends NewFunctionalTestBase {
         .containsExactly("foo", "bar", "baz", "buzz")
         .inOrder();
   }
+
+  @Test
+  public void testDependenciesWithoutCheckingOrder() throws GssParserException {
+    checkOrder = false;
+    parseAndRun("@require 'foo'; @provide 'bar'; @provide 'bar';");
+    List<String> dependencies = new ArrayList<>();
+    for (CssAtRuleNode node : processDependencyNodes.getDependencies()) {
+      dependencies.add(node instanceof CssProvideNode
+          ? "provide " + ((CssProvideNode) node).getProvide()
+          : "require " + ((CssRequireNode) node).getRequire());
+    }
+    assertThat(dependencies)
+        .containsExactly("require foo", "provide bar", "provide bar")
+        .inOrder();
+  }
 }
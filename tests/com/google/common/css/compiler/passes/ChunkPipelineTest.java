@@ -0,0 +1,141 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.passes;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.css.compiler.ast.CssBlockNode;
+import com.google.common.css.compiler.ast.CssNode;
+import com.google.common.css.compiler.ast.CssTree;
+import com.google.common.css.compiler.ast.GssParserException;
+import com.google.common.css.compiler.ast.testing.NewFunctionalTestBase;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link ChunkPipeline}. */
+@RunWith(JUnit4.class)
+public class ChunkPipelineTest extends NewFunctionalTestBase {
+
+  private static final ImmutableList<String> CHUNKS = ImmutableList.of("A", "B", "C");
+
+  private static final ImmutableMap<String, String> FILE_TO_CHUNK =
+      ImmutableMap.of("a.gss", "A", "b.gss", "B", "c.gss", "C");
+
+  private static final ImmutableMap<String, String> INPUTS =
+      ImmutableMap.of(
+          "a.gss",
+          "/* @preserve Chunk A */ .x{color:red} .y,.x{color:blue;top:0} .x{color:green}"
+              + " @media print{.x{top:1px}} @page{margin:0}",
+          "b.gss",
+          ".x{color:red} .z,.w{left:0} @keyframes k{from{top:0}to{top:1px}}"
+              + " .x{color:red !important} .z{left:1px}",
+          "c.gss",
+          "@font-face{font-family:f} .q{margin-left:1px;margin:0} .q{margin:2px} .r{}");
+
+  private boolean split;
+  private ForkJoinPool pool;
+
+  @Before
+  public void setUp() {
+    pool = new ForkJoinPool(CHUNKS.size());
+  }
+
+  @After
+  public void tearDown() {
+    pool.shutdownNow();
+  }
+
+  @Override
+  protected void runPass() {
+    new CreateStandardAtRuleNodes(tree.getMutatingVisitController(), errorManager).runPass();
+    new MapChunkAwareNodesToChunk<>(tree, FILE_TO_CHUNK).runPass();
+    if (split) {
+      new SplitRulesetNodes(tree.getMutatingVisitController()).runPass();
+    }
+  }
+
+  @Test
+  public void testTemplatesMatchSerialPipeline() throws GssParserException {
+    ImmutableMap<String, String> serial = compile(false /* parallel */, false, false);
+    assertThat(serial.get("A")).contains(".x{");
+    assertThat(serial.get("A")).contains("@page");
+    assertThat(serial.get("B")).contains("@page");
+    assertThat(serial.get("B")).contains("@keyframes k");
+    assertThat(serial.get("C")).contains("@font-face");
+    assertThat(serial.get("C")).doesNotContain(".x{");
+
+    assertThat(compile(true /* parallel */, false, false)).isEqualTo(serial);
+  }
+
+  @Test
+  public void testTemplatesMatchSerialPipelineWithDeadStyleElimination()
+      throws GssParserException {
+    split = true;
+    ImmutableMap<String, String> serial = compile(false /* parallel */, true, false);
+    assertThat(serial.get("A")).doesNotContain("color:red");
+    assertThat(serial.get("C")).doesNotContain("margin-left");
+
+    assertThat(compile(true /* parallel */, true, false)).isEqualTo(serial);
+  }
+
+  @Test
+  public void testTemplatesMatchSerialPipelineWithMarkedComments() throws GssParserException {
+    ImmutableMap<String, String> serial = compile(false /* parallel */, false, true);
+    assertThat(serial.get("A")).contains("@preserve Chunk A");
+
+    assertThat(compile(true /* parallel */, false, true)).isEqualTo(serial);
+  }
+
+  @Test
+  public void testParallelPipelineLeavesTreeUnchanged() throws GssParserException {
+    split = true;
+    CssTree tree = parseAndRun(INPUTS);
+    String before = CompactPrinter.printCompactly(tree);
+    CssBlockNode body = tree.getRoot().getBody();
+    List<CssNode> nodes = ImmutableList.copyOf(body.childIterable());
+
+    ChunkPipeline<String> pipeline = new ChunkPipeline<>(tree, CHUNKS, pool);
+    pipeline.setEliminateDeadStyles(true);
+    pipeline.runPass();
+
+    assertThat(CompactPrinter.printCompactly(tree)).isEqualTo(before);
+    assertThat(body.getChildren()).containsExactlyElementsIn(nodes).inOrder();
+    for (CssNode node : nodes) {
+      assertThat(node.getParent()).isSameInstanceAs(body);
+    }
+  }
+
+  private ImmutableMap<String, String> compile(
+      boolean parallel, boolean eliminateDeadStyles, boolean preserveMarkedComments)
+      throws GssParserException {
+    CssTree tree = parseAndRun(INPUTS);
+    ChunkPipeline<String> pipeline = new ChunkPipeline<>(tree, CHUNKS, parallel ? pool : null);
+    pipeline.setEliminateDeadStyles(eliminateDeadStyles);
+    pipeline.setPreserveMarkedComments(preserveMarkedComments);
+    pipeline.runPass();
+    assertThat(pipeline.getCompactPrintedStrings().keySet()).containsExactlyElementsIn(CHUNKS)
+        .inOrder();
+    return pipeline.getCompactPrintedStrings();
+  }
+}
@@ -18,6 +18,9 @@ package com.google.common.css.compiler.passes;
 
 import static com.google.common.truth.Truth.assertThat;
 
+import com.google.common.base.Strings;
+import java.io.IOException;
+import java.io.StringWriter;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
@@ -99,6 +102,46 @@ public class CodeBufferTest {
     assertThat(buffer.getLastLineIndex()).isEqualTo(1);
   }
 
+  @Test
+  public void testAppendKeepsIndexesInSyncWithContents() {
+    CodeBuffer buffer = new CodeBuffer();
+    String[] strings = {"a{", "\n", "  color:red;\n", "", "b", "\n\n", "}\nc{d:e}", "x\n", ";"};
+    for (int round = 0; round < 100; round++) {
+      for (String string : strings) {
+        buffer.append(string);
+        String output = buffer.getOutput();
+        int lastNewline = output.lastIndexOf('\n');
+        int newlineBeforeLastChar = output.lastIndexOf('\n', output.length() - 2);
+        assertThat(buffer.getNextLineIndex())
+            .isEqualTo(output.length() - output.replace("\n", "").length());
+        assertThat(buffer.getNextCharIndex()).isEqualTo(output.length() - lastNewline - 1);
+        assertThat(buffer.getLastCharIndex())
+            .isEqualTo(output.length() - newlineBeforeLastChar - 2);
+      }
+    }
+  }
+
+  @Test
+  public void testWriteToWriter() throws IOException {
+    CodeBuffer buffer = new CodeBuffer();
+    // Longer than the initial capacity of the buffer, so that it has to grow.
+    String contents = Strings.repeat("foo{bar:baz}\n", 2000);
+    buffer.append(contents);
+    StringWriter out = new StringWriter();
+    buffer.writeTo(out);
+    assertThat(out.toString()).isEqualTo(contents);
+  }
+
+  @Test
+  public void testWriteToAppendable() throws IOException {
+    CodeBuffer buffer = new CodeBuffer();
+    buffer.append("foo");
+    StringBuilder out = new StringBuilder("bar");
+    buffer.writeTo(out);
+    new CodeBuffer().writeTo(out);
+    assertThat(out.toString()).isEqualTo("barfoo");
+  }
+
   @Test
   public void testAppendObject() {
     CodeBuffer buffer = new CodeBuffer();
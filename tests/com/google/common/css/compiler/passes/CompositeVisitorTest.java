@@ -0,0 +1,179 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.passes;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.css.SourceCode;
+import com.google.common.css.Vendor;
+import com.google.common.css.compiler.ast.CssCompilerPass;
+import com.google.common.css.compiler.ast.CssDeclarationNode;
+import com.google.common.css.compiler.ast.CssNode;
+import com.google.common.css.compiler.ast.CssTree;
+import com.google.common.css.compiler.ast.CssTreeVisitor;
+import com.google.common.css.compiler.ast.DefaultTreeVisitor;
+import com.google.common.css.compiler.ast.GssParser;
+import com.google.common.css.compiler.ast.MutatingVisitController;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link CompositeVisitor}. */
+@RunWith(JUnit4.class)
+public class CompositeVisitorTest {
+
+  private static final String STYLESHEET = ""
+      + ".a { margin: 0px 0 0em 0; color: rgb(1.0, 0, 0); }\n"
+      + ".b {}\n"
+      + ".c { padding: #ffffff #fff; border-color: rgb(100%, 0%, 0%) #f00; }\n"
+      + ".d { -moz-border-radius: 2px; -webkit-border-radius: 0.50px; }\n"
+      + ".e { padding: 1.0px 01.00px 1px 1px; width: calc(0px + 1px); }";
+
+  private static CssTree parse() throws Exception {
+    return new GssParser(new SourceCode("test", STYLESHEET)).parse();
+  }
+
+  private static List<CssCompilerPass> createPasses(
+      MutatingVisitController controller) {
+    return ImmutableList.<CssCompilerPass>of(
+        new EliminateEmptyRulesetNodes(controller),
+        new EliminateUnitsFromZeroNumericValues(controller),
+        new ColorValueOptimizer(controller),
+        new AbbreviatePositionalValues(controller),
+        new RemoveVendorSpecificProperties(Vendor.WEBKIT, controller));
+  }
+
+  private static String print(CssTree tree) {
+    CompactPrinter printer = new CompactPrinter(tree);
+    printer.runPass();
+    return printer.getCompactPrintedString();
+  }
+
+  @Test
+  public void testFusedPassesGiveTheSameTreeAsPassesRunInSequence()
+      throws Exception {
+    CssTree sequentialTree = parse();
+    for (CssCompilerPass pass
+        : createPasses(sequentialTree.getMutatingVisitController())) {
+      pass.runPass();
+    }
+
+    CssTree fusedTree = parse();
+    CompositeVisitor composite = new CompositeVisitor("test",
+        fusedTree.getMutatingVisitController());
+    for (CssCompilerPass pass
+        : createPasses(composite.getVisitController())) {
+      composite.add((FusablePass) pass);
+    }
+    composite.runPass();
+
+    assertThat(print(fusedTree)).isEqualTo(print(sequentialTree));
+    assertThat(print(fusedTree)).isEqualTo(".a{margin:0;color:#010000}"
+        + ".c{padding:#fff;border-color:#f00}"
+        + ".d{-webkit-border-radius:.5px}"
+        + ".e{padding:1px;width:calc(0px + 1px)}");
+  }
+
+  @Test
+  public void testAllPassesShareOneTraversal() throws Exception {
+    CssTree tree = parse();
+    final int[] visits = new int[1];
+    final MutatingVisitController treeController =
+        tree.getMutatingVisitController();
+    MutatingVisitController countingController =
+        new MutatingVisitController() {
+          @Override
+          public void startVisit(CssTreeVisitor visitor) {
+            visits[0]++;
+            treeController.startVisit(visitor);
+          }
+
+          @Override
+          public void stopVisit() {
+            treeController.stopVisit();
+          }
+
+          @Override
+          public void removeCurrentNode() {
+            treeController.removeCurrentNode();
+          }
+
+          @Override
+          public <T extends CssNode> void replaceCurrentBlockChildWith(
+              List<T> replacementNodes, boolean visitTheReplacementNodes) {
+            treeController.replaceCurrentBlockChildWith(
+                replacementNodes, visitTheReplacementNodes);
+          }
+        };
+    CompositeVisitor composite =
+        new CompositeVisitor("test", countingController);
+    for (CssCompilerPass pass
+        : createPasses(composite.getVisitController())) {
+      composite.add((FusablePass) pass);
+    }
+    composite.runPass();
+
+    assertThat(visits[0]).isEqualTo(1);
+  }
+
+  @Test
+  public void testRemovedNodesAreNotDispatchedToLaterPasses()
+      throws Exception {
+    CssTree tree = parse();
+    CompositeVisitor composite = new CompositeVisitor("test",
+        tree.getMutatingVisitController());
+    RecordingPass before = new RecordingPass();
+    RecordingPass after = new RecordingPass();
+    composite.add(before);
+    composite.add(new RemoveVendorSpecificProperties(Vendor.WEBKIT,
+        composite.getVisitController()));
+    composite.add(after);
+    composite.runPass();
+
+    assertThat(before.properties).contains("-moz-border-radius");
+    assertThat(after.properties).doesNotContain("-moz-border-radius");
+    assertThat(after.properties).contains("-webkit-border-radius");
+  }
+
+  @Test
+  public void testPassNameOfCompositeVisitor() throws Exception {
+    CompositeVisitor composite = new CompositeVisitor("SimplifyCss",
+        parse().getMutatingVisitController());
+    assertThat(PassRunner.getPassName(composite)).isEqualTo("SimplifyCss");
+    assertThat(PassRunner.getPassName(new RecordingPass()))
+        .isEqualTo("RecordingPass");
+  }
+
+  private static class RecordingPass extends DefaultTreeVisitor
+      implements FusablePass {
+    private final List<String> properties = Lists.newArrayList();
+
+    @Override
+    public boolean enterDeclaration(CssDeclarationNode declaration) {
+      properties.add(declaration.getPropertyName().getPropertyName());
+      return true;
+    }
+
+    @Override
+    public void runPass() {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
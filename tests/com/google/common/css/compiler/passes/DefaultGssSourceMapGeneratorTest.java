@@ -0,0 +1,147 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.passes;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.css.JobDescription.SourceMapDetailLevel;
+import com.google.common.css.SourceCode;
+import com.google.common.css.SourceCodeLocation;
+import com.google.common.css.compiler.ast.CssLiteralNode;
+import com.google.common.css.compiler.ast.CssNode;
+import com.google.common.css.compiler.ast.GssParser;
+import com.google.debugging.sourcemap.proto.Mapping.OriginalMapping;
+import com.google.debugging.sourcemap.SourceMapConsumerV3;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link DefaultGssSourceMapGenerator}. */
+@RunWith(JUnit4.class)
+public class DefaultGssSourceMapGeneratorTest {
+
+  private static final SourceCode A = new SourceCode("a.css", ".a{color:red}\n.b{top:0}");
+  private static final SourceCode B = new SourceCode("b.css", ".c{left:0}");
+
+  @Test
+  public void testSourcesContentIsListedOncePerFile() throws Exception {
+    DefaultGssSourceMapGenerator generator =
+        new DefaultGssSourceMapGenerator(SourceMapDetailLevel.ALL, true);
+    map(generator, node(A, 0, 1), 0, 0, 13);
+    map(generator, node(A, 14, 2), 0, 13, 22);
+    map(generator, node(B, 0, 1), 0, 22, 32);
+    map(generator, node(A, 3, 1), 0, 32, 40);
+
+    SourceMapConsumerV3 consumer = parse(generator);
+    assertThat(consumer.getOriginalSources()).containsExactly("a.css", "b.css").inOrder();
+    assertThat(consumer.getOriginalSourcesContent())
+        .containsExactly(A.getFileContents(), B.getFileContents())
+        .inOrder();
+  }
+
+  @Test
+  public void testMappingsStartedOutOfOrderAreMerged() throws Exception {
+    DefaultGssSourceMapGenerator generator =
+        new DefaultGssSourceMapGenerator(SourceMapDetailLevel.ALL, false);
+    map(generator, node(A, 0, 1), 0, 0, 10);
+    map(generator, node(A, 14, 2), 0, 20, 30);
+    // Starts over before the previous mapping, as a printer writing a
+    // second buffer would.
+    map(generator, node(B, 0, 1), 0, 10, 20);
+
+    SourceMapConsumerV3 consumer = parse(generator);
+    assertThat(consumer.getMappingForLine(1, 1).getOriginalFile()).isEqualTo("a.css");
+    assertThat(consumer.getMappingForLine(1, 11).getOriginalFile()).isEqualTo("b.css");
+    assertThat(consumer.getMappingForLine(1, 21).getOriginalFile()).isEqualTo("a.css");
+    assertThat(consumer.getMappingForLine(1, 21).getLineNumber()).isEqualTo(2);
+  }
+
+  @Test
+  public void testMappingsThatAreNeverFinishedAreDropped() throws Exception {
+    DefaultGssSourceMapGenerator generator =
+        new DefaultGssSourceMapGenerator(SourceMapDetailLevel.ALL, true);
+    CssNode parent = node(A, 0, 1);
+    generator.startSourceMapping(parent, 0, 0);
+    generator.startSourceMapping(node(B, 0, 1), 0, 5);
+    generator.endSourceMapping(parent, 0, 9);
+
+    SourceMapConsumerV3 consumer = parse(generator);
+    assertThat(consumer.getOriginalSources()).containsExactly("a.css");
+    assertThat(consumer.getOriginalSourcesContent()).containsExactly(A.getFileContents());
+  }
+
+  @Test
+  public void testAllLevelMapsValues() throws Exception {
+    SourceMapConsumerV3 consumer = compile(SourceMapDetailLevel.ALL, ".a{color:red}");
+    assertThat(column(consumer, 10)).isNotEqualTo(column(consumer, 4));
+  }
+
+  @Test
+  public void testDefaultLevelMapsDeclarationsButNotValues() throws Exception {
+    SourceMapConsumerV3 consumer = compile(SourceMapDetailLevel.DEFAULT, ".a{color:red}");
+    assertThat(column(consumer, 10)).isEqualTo(column(consumer, 4));
+    assertThat(column(consumer, 4)).isNotEqualTo(column(consumer, 1));
+  }
+
+  @Test
+  public void testRulesLevelMapsOnlyRules() throws Exception {
+    SourceMapConsumerV3 consumer =
+        compile(SourceMapDetailLevel.RULES, ".a{color:red}@media print{.b{top:0}}");
+    assertThat(column(consumer, 10)).isEqualTo(column(consumer, 1));
+    assertThat(column(consumer, 4)).isEqualTo(column(consumer, 1));
+    // The ruleset inside the media rule has its own mapping.
+    assertThat(column(consumer, 31)).isNotEqualTo(column(consumer, 14));
+    assertThat(column(consumer, 31)).isEqualTo(column(consumer, 27));
+  }
+
+  private static int column(SourceMapConsumerV3 consumer, int column) {
+    OriginalMapping mapping = consumer.getMappingForLine(1, column);
+    return mapping.getColumnPosition();
+  }
+
+  private static SourceMapConsumerV3 compile(SourceMapDetailLevel level, String css)
+      throws Exception {
+    DefaultGssSourceMapGenerator generator = new DefaultGssSourceMapGenerator(level, false);
+    CompactPrinter printer =
+        new CompactPrinter(new GssParser(new SourceCode("test.css", css)).parse(), generator);
+    printer.runPass();
+    assertThat(printer.getCompactPrintedString()).isEqualTo(css);
+    return parse(generator);
+  }
+
+  private static CssNode node(SourceCode source, int characterIndex, int lineNumber) {
+    return new CssLiteralNode(
+        "x",
+        new SourceCodeLocation(
+            source, characterIndex, lineNumber, 1, characterIndex + 1, lineNumber, 2));
+  }
+
+  private static void map(
+      DefaultGssSourceMapGenerator generator, CssNode node, int line, int start, int end) {
+    generator.startSourceMapping(node, line, start);
+    generator.endSourceMapping(node, line, end - 1);
+  }
+
+  private static SourceMapConsumerV3 parse(DefaultGssSourceMapGenerator generator)
+      throws Exception {
+    StringBuilder sourceMap = new StringBuilder();
+    generator.appendOutputTo(sourceMap, "test.css");
+    SourceMapConsumerV3 consumer = new SourceMapConsumerV3();
+    consumer.parse(sourceMap.toString());
+    return consumer;
+  }
+}
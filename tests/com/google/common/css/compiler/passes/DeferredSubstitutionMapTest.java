@@ -0,0 +1,102 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.passes;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.base.Predicates;
+import com.google.common.css.MinimalSubstitutionMap;
+import com.google.common.css.RecordingSubstitutionMap;
+import com.google.common.css.SourceCode;
+import com.google.common.css.compiler.ast.CssTree;
+import com.google.common.css.compiler.ast.GssParser;
+import com.google.common.css.compiler.ast.GssParserException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Unit tests for {@link DeferredSubstitutionMap}.
+ */
+@RunWith(JUnit4.class)
+public class DeferredSubstitutionMapTest {
+
+  @Test
+  public void testResolveMatchesDirectRenaming() throws Exception {
+    String first = ".foo .bar, .baz { color: red } .bar { margin: 0 }";
+    String second = ".qux .foo { color: blue }";
+
+    RecordingSubstitutionMap direct = newRecordingMap();
+    String expectedFirst = rename(parse(first), direct);
+    String expectedSecond = rename(parse(second), direct);
+
+    // Rename the trees in the opposite order, then resolve them in input
+    // order.
+    DeferredSubstitutionMap firstDeferred = new DeferredSubstitutionMap();
+    DeferredSubstitutionMap secondDeferred = new DeferredSubstitutionMap();
+    CssTree secondTree = parse(second);
+    new CssClassRenaming(secondTree.getMutatingVisitController(),
+        secondDeferred, null).runPass();
+    CssTree firstTree = parse(first);
+    new CssClassRenaming(firstTree.getMutatingVisitController(),
+        firstDeferred, null).runPass();
+
+    RecordingSubstitutionMap deferred = newRecordingMap();
+    firstDeferred.resolve(deferred, firstTree);
+    secondDeferred.resolve(deferred, secondTree);
+
+    assertThat(print(firstTree)).isEqualTo(expectedFirst);
+    assertThat(print(secondTree)).isEqualTo(expectedSecond);
+    assertThat(deferred.getMappings()).containsExactlyEntriesIn(
+        direct.getMappings()).inOrder();
+  }
+
+  @Test
+  public void testResolveKeepsNamesTheMapDoesNotRename() throws Exception {
+    CssTree tree = parse(".foo { color: red }");
+    DeferredSubstitutionMap deferred = new DeferredSubstitutionMap();
+    new CssClassRenaming(tree.getMutatingVisitController(), deferred, null)
+        .runPass();
+    deferred.resolve(new RecordingSubstitutionMap.Builder()
+        .shouldRecordMappingForCodeGeneration(
+            Predicates.not(Predicates.equalTo("foo")))
+        .build(), tree);
+    assertThat(print(tree)).isEqualTo(".foo{color:red}");
+  }
+
+  private static RecordingSubstitutionMap newRecordingMap() {
+    return new RecordingSubstitutionMap.Builder()
+        .withSubstitutionMap(new MinimalSubstitutionMap())
+        .build();
+  }
+
+  private static CssTree parse(String css) throws GssParserException {
+    return new GssParser(new SourceCode("test", css)).parse();
+  }
+
+  private static String rename(CssTree tree, RecordingSubstitutionMap map) {
+    new CssClassRenaming(tree.getMutatingVisitController(), map, null)
+        .runPass();
+    return print(tree);
+  }
+
+  private static String print(CssTree tree) {
+    CompactPrinter printer = new CompactPrinter(tree);
+    printer.runPass();
+    return printer.getCompactPrintedString();
+  }
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.passes;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.css.JobDescription.SourceMapDetailLevel;
+import java.io.IOException;
+import java.util.Map;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link MultiChunkTemplateCompactPrinter}. */
+@RunWith(JUnit4.class)
+public class MultiChunkTemplateCompactPrinterTest extends AbstractCompactPrinterTest {
+
+  private static final ImmutableList<String> CHUNKS = ImmutableList.of("foo", "bar", "baz");
+
+  private static final ImmutableMap<String, String> SELECTOR_TO_CHUNK =
+      new ImmutableMap.Builder<String, String>()
+          .put("foo", "foo")
+          .put("a", "foo")
+          .put("a#a", "foo")
+          .put("a#a b", "foo")
+          .put("b+i", "foo")
+          .put(".bar", "bar")
+          .put("b", "bar")
+          .put("b#b", "bar")
+          .put("b>i+em", "bar")
+          .put("hr", "baz")
+          .put("i", "baz")
+          .put("a i", "baz")
+          .put("a+i", "baz")
+          .put("my-animation", "bar")
+          .put("print", "foo")
+          .put("screen", "baz")
+          .build();
+
+  private static final String SOURCE =
+      "/* Header comment @preserve */\n"
+          + "foo,hr,.bar,i{color:red} "
+          + "a,i{width:calc((100% - 24px)*0.375)} "
+          + "b,hr{} "
+          + "a#a{top:0;left:0} "
+          + "b#b{} "
+          + "i,hr{}"
+          + "a i{}"
+          + "b > i + em, a#a b {margin:1px 2px}"
+          + "b + i, a+i {}"
+          + "@media print { foo {color:blue} a i {top:1px} }"
+          + "@media screen { hr {color:green} }"
+          + "@keyframes my-animation { 0% {top:0} to {top:1px} }"
+          + "@font-face { font-family:'Roboto'; }";
+
+  @Test
+  public void testTemplatesMatchOnePrinterPerChunk() {
+    parseStyleSheet(SOURCE);
+    new TemplateCompactPrinterTest.SetSelectorChunk(newTree, SELECTOR_TO_CHUNK).runPass();
+
+    MultiChunkTemplateCompactPrinter<String> printer =
+        new MultiChunkTemplateCompactPrinter<>(newTree, CHUNKS);
+    printer.runPass();
+
+    assertThat(printer.getCompactPrintedStrings().keySet()).containsExactlyElementsIn(CHUNKS)
+        .inOrder();
+    for (String chunk : CHUNKS) {
+      TemplateCompactPrinter<String> single = new TemplateCompactPrinter<>(newTree, chunk);
+      single.runPass();
+      assertThat(printer.getCompactPrintedString(chunk))
+          .isEqualTo(single.getCompactPrintedString());
+    }
+  }
+
+  @Test
+  public void testTemplatesMatchWithMarkedComments() {
+    parseStyleSheet(SOURCE);
+    new TemplateCompactPrinterTest.SetSelectorChunk(newTree, SELECTOR_TO_CHUNK).runPass();
+
+    MultiChunkTemplateCompactPrinter<String> printer =
+        new MultiChunkTemplateCompactPrinter<>(newTree, CHUNKS);
+    printer.setPreserveMarkedComments(true);
+    printer.runPass();
+
+    for (String chunk : CHUNKS) {
+      TemplateCompactPrinter<String> single = new TemplateCompactPrinter<>(newTree, chunk);
+      single.setPreserveMarkedComments(true);
+      single.runPass();
+      assertThat(printer.getCompactPrintedString(chunk))
+          .isEqualTo(single.getCompactPrintedString());
+    }
+  }
+
+  @Test
+  public void testSourceMapsMatchOnePrinterPerChunk() throws IOException {
+    parseStyleSheet(SOURCE);
+    new TemplateCompactPrinterTest.SetSelectorChunk(newTree, SELECTOR_TO_CHUNK).runPass();
+
+    ImmutableMap.Builder<String, DefaultGssSourceMapGenerator> generators = ImmutableMap.builder();
+    for (String chunk : CHUNKS) {
+      generators.put(chunk, new DefaultGssSourceMapGenerator(SourceMapDetailLevel.ALL, false));
+    }
+    Map<String, DefaultGssSourceMapGenerator> multiGenerators = generators.build();
+    MultiChunkTemplateCompactPrinter<String> printer =
+        new MultiChunkTemplateCompactPrinter<>(newTree, multiGenerators);
+    printer.runPass();
+
+    for (String chunk : CHUNKS) {
+      DefaultGssSourceMapGenerator generator =
+          new DefaultGssSourceMapGenerator(SourceMapDetailLevel.ALL, false);
+      TemplateCompactPrinter<String> single =
+          new TemplateCompactPrinter<>(newTree, chunk, generator);
+      single.runPass();
+      assertThat(printer.getCompactPrintedString(chunk))
+          .isEqualTo(single.getCompactPrintedString());
+      assertThat(printSourceMap(multiGenerators.get(chunk), chunk))
+          .isEqualTo(printSourceMap(generator, chunk));
+    }
+  }
+
+  @Test
+  public void testUnknownChunkPrintsNothing() {
+    parseStyleSheet(SOURCE);
+    new TemplateCompactPrinterTest.SetSelectorChunk(newTree, SELECTOR_TO_CHUNK).runPass();
+
+    MultiChunkTemplateCompactPrinter<String> printer =
+        new MultiChunkTemplateCompactPrinter<>(newTree, ImmutableList.of("foo", "qux"));
+    printer.runPass();
+
+    TemplateCompactPrinter<String> single = new TemplateCompactPrinter<>(newTree, "foo");
+    single.runPass();
+    assertThat(printer.getCompactPrintedString("foo"))
+        .isEqualTo(single.getCompactPrintedString());
+    assertThat(printer.getCompactPrintedString("qux")).isEmpty();
+    assertThat(printer.getCompactPrintedString("bar")).isNull();
+  }
+
+  @Test
+  public void testManyChunksMatchOnePrinterPerChunk() throws IOException {
+    // Rulesets and media rules spread over many chunks, some of them with comments to preserve,
+    // which are printed in every chunk that visits their node.
+    ImmutableList.Builder<String> chunks = ImmutableList.builder();
+    ImmutableMap.Builder<String, String> selectorToChunk = ImmutableMap.builder();
+    StringBuilder source = new StringBuilder();
+    for (int i = 0; i < 60; i++) {
+      String chunk = "c" + i;
+      chunks.add(chunk);
+      selectorToChunk.put(".s" + i, chunk).put(".t" + i, chunk).put("m" + i, chunk);
+      if (i % 7 == 0) {
+        source.append("/* @license chunk " + (i / 14) + " */\n");
+      } else if (i % 5 == 0) {
+        source.append("/*! chunk " + i + " */\n");
+      }
+      source.append(".s" + i + ", .t" + ((i + 1) % 60) + " { top: " + i + "px }\n");
+      if (i % 3 == 0) {
+        source.append("/*! media " + i + " */ @media m" + i + " { .t" + i + " { left: 0 } }\n");
+      }
+    }
+    parseStyleSheet(source.toString());
+    new TemplateCompactPrinterTest.SetSelectorChunk(newTree, selectorToChunk.build()).runPass();
+
+    ImmutableMap.Builder<String, DefaultGssSourceMapGenerator> generators = ImmutableMap.builder();
+    for (String chunk : chunks.build()) {
+      generators.put(chunk, new DefaultGssSourceMapGenerator(SourceMapDetailLevel.ALL, false));
+    }
+    Map<String, DefaultGssSourceMapGenerator> multiGenerators = generators.build();
+    MultiChunkTemplateCompactPrinter<String> printer =
+        new MultiChunkTemplateCompactPrinter<>(newTree, multiGenerators);
+    printer.setPreserveMarkedComments(true);
+    printer.runPass();
+
+    for (String chunk : chunks.build()) {
+      DefaultGssSourceMapGenerator generator =
+          new DefaultGssSourceMapGenerator(SourceMapDetailLevel.ALL, false);
+      TemplateCompactPrinter<String> single =
+          new TemplateCompactPrinter<>(newTree, chunk, generator);
+      single.setPreserveMarkedComments(true);
+      single.runPass();
+      assertThat(printer.getCompactPrintedString(chunk))
+          .isEqualTo(single.getCompactPrintedString());
+      assertThat(printSourceMap(multiGenerators.get(chunk), chunk))
+          .isEqualTo(printSourceMap(generator, chunk));
+    }
+    assertThat(printer.getCompactPrintedString("c5")).contains("/*! chunk 5 */");
+    assertThat(printer.getCompactPrintedString("c5")).contains("/*! media 3 */");
+  }
+
+  private static String printSourceMap(DefaultGssSourceMapGenerator generator, String chunk)
+      throws IOException {
+    StringBuilder sb = new StringBuilder();
+    generator.appendOutputTo(sb, chunk + ".css");
+    return sb.toString();
+  }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.passes;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.css.JobDescription;
+import com.google.common.css.JobDescriptionBuilder;
+import com.google.common.css.SourceCode;
+import com.google.common.css.compiler.ast.CssCompilerPass;
+import com.google.common.css.compiler.ast.CssTree;
+import com.google.common.css.compiler.ast.GssParser;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Unit tests for {@link PassProfiler} and the {@link PassObserver} support of
+ * {@link PassRunner}.
+ */
+@RunWith(JUnit4.class)
+public class PassProfilerTest {
+
+  private static final String STYLESHEET =
+      ".a, .c { color: red; margin: 1px; }\n.a { color: blue; }\n.b { margin: 0px; }";
+
+  private void runPasses(PassObserver observer) throws Exception {
+    JobDescription job = new JobDescriptionBuilder()
+        .setSimplifyCss(true)
+        .setEliminateDeadStyles(true)
+        .setAllowDuplicateDeclarations(true)
+        .setPassObserver(observer)
+        .getJobDescription();
+    CssTree tree = new GssParser(new SourceCode("test", STYLESHEET)).parse();
+    new PassRunner(job, DummyErrorManager.getInstance()).runPasses(tree);
+  }
+
+  @Test
+  public void testObserverIsNotifiedAroundEveryPass() throws Exception {
+    final List<String> events = Lists.newArrayList();
+    final List<PassStatistics> statistics = Lists.newArrayList();
+    runPasses(new PassObserver() {
+      @Override
+      public void passStarted(CssCompilerPass pass) {
+        events.add("start " + pass.getClass().getSimpleName());
+      }
+
+      @Override
+      public void passFinished(CssCompilerPass pass, PassStatistics stats) {
+        events.add("finish " + stats.getPassName());
+        statistics.add(stats);
+      }
+    });
+
+    assertThat(events).containsAtLeast(
+        "start SplitRulesetNodes", "finish SplitRulesetNodes").inOrder();
+    assertThat(events.size()).isEqualTo(2 * statistics.size());
+    for (PassStatistics stats : statistics) {
+      assertThat(stats.getWallTimeNanos()).isAtLeast(0L);
+      assertThat(stats.getNodeCountBefore()).isGreaterThan(0);
+    }
+  }
+
+  @Test
+  public void testNodeCounts() throws Exception {
+    final List<PassStatistics> statistics = Lists.newArrayList();
+    runPasses(new PassObserver() {
+      @Override
+      public void passStarted(CssCompilerPass pass) {}
+
+      @Override
+      public void passFinished(CssCompilerPass pass, PassStatistics stats) {
+        statistics.add(stats);
+      }
+    });
+
+    for (PassStatistics stats : statistics) {
+      if (stats.getPassName().equals("SplitRulesetNodes")) {
+        assertThat(stats.getNodeCountAfter())
+            .isGreaterThan(stats.getNodeCountBefore());
+      }
+      if (stats.getPassName().equals("MarkRemovableRulesetNodes")) {
+        assertThat(stats.getNodeCountAfter())
+            .isEqualTo(stats.getNodeCountBefore());
+      }
+    }
+  }
+
+  @Test
+  public void testProfilerSumsUpRunsByPassName() throws Exception {
+    PassProfiler profiler = new PassProfiler();
+    runPasses(profiler);
+
+    ImmutableList<PassProfiler.Entry> entries = profiler.getEntries();
+    PassProfiler.Entry eliminateUseless = null;
+    for (PassProfiler.Entry entry : entries) {
+      if (entry.getPassName().equals("EliminateUselessRulesetNodes")) {
+        eliminateUseless = entry;
+      }
+    }
+    assertThat(eliminateUseless).isNotNull();
+    assertThat(eliminateUseless.getRuns()).isEqualTo(3);
+    for (int i = 1; i < entries.size(); i++) {
+      assertThat(entries.get(i).getWallTimeNanos())
+          .isAtMost(entries.get(i - 1).getWallTimeNanos());
+    }
+  }
+
+  @Test
+  public void testPrintTableAndJson() throws Exception {
+    PassProfiler profiler = new PassProfiler();
+    runPasses(profiler);
+
+    StringWriter table = new StringWriter();
+    profiler.printTable(new PrintWriter(table));
+    assertThat(table.toString()).contains("SplitRulesetNodes");
+    assertThat(table.toString()).contains("total");
+
+    StringWriter json = new StringWriter();
+    profiler.writeJson(new PrintWriter(json));
+    assertThat(json.toString()).contains("\"passName\": \"SplitRulesetNodes\"");
+    assertThat(json.toString()).contains("\"wallTimeNanos\"");
+  }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.passes;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.css.SourceCode;
+import com.google.common.css.compiler.ast.CssNode;
+import com.google.common.css.compiler.ast.CssRulesetNode;
+import com.google.common.css.compiler.ast.CssSelectorNode;
+import com.google.common.css.compiler.ast.CssTree;
+import com.google.common.css.compiler.ast.GssParser;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link PassUtil}. */
+@RunWith(JUnit4.class)
+public class PassUtilTest {
+
+  private static final String SELECTORS =
+      "a{}"
+      + "*{}"
+      + ".a.b#c{}"
+      + "div > p + ul ~ li a{}"
+      + "a:hover::before{}"
+      + "li:nth-child(2n + 1){}"
+      + "p:lang(fr){}"
+      + "a:not(.b){}"
+      + "div:not(p):not([x]){}"
+      + "input[type=\"text\"]{}"
+      + "a[href^='http'],a[href$=\".pdf\"]{}"
+      + "html body .x:first-child, #y .z::after{}";
+
+  @Test
+  public void testPrintSelectorListMatchesCompactPrinter() throws Exception {
+    CssTree tree = new GssParser(new SourceCode("test", SELECTORS)).parse();
+    new ProcessRefiners(tree.getMutatingVisitController(), null, true).runPass();
+
+    StringBuilder expected = new StringBuilder();
+    for (CssNode node : tree.getRoot().getBody().childIterable()) {
+      CssRulesetNode ruleset = (CssRulesetNode) node;
+      expected.append(PassUtil.printSelectorList(ruleset.getSelectors())).append("{}");
+    }
+    assertThat(CompactPrinter.printCompactly(tree)).isEqualTo(expected.toString());
+  }
+
+  @Test
+  public void testPrintSelectorDoesNotChangeParent() throws Exception {
+    CssTree tree = new GssParser(new SourceCode("test", "a > b.c:not(.d){}")).parse();
+    CssRulesetNode ruleset = (CssRulesetNode) tree.getRoot().getBody().getChildAt(0);
+    CssSelectorNode selector = ruleset.getSelectors().getChildAt(0);
+
+    assertThat(PassUtil.printSelector(selector)).isEqualTo("a>b.c:not(.d)");
+    assertThat(selector.getParent()).isSameInstanceAs(ruleset.getSelectors());
+  }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.passes;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.css.JobDescription;
+import com.google.common.css.JobDescription.DeadStyleElimination;
+import com.google.common.css.JobDescriptionBuilder;
+import com.google.common.css.SourceCode;
+import com.google.common.css.compiler.ast.CssTree;
+import com.google.common.css.compiler.ast.GssParser;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Unit tests for {@link PruneAndMergeRulesetNodes}, which compare its output
+ * with that of the passes eliminating dead styles after splitting rulesets.
+ */
+@RunWith(JUnit4.class)
+public class PruneAndMergeRulesetNodesTest {
+
+  @Test
+  public void testOverriddenDeclarations() throws Exception {
+    assertSameOutput(
+        ".a{color:red;top:0}.b{color:red}.a{color:blue}",
+        ".a{top:0}.b{color:red}.a{color:blue}");
+  }
+
+  @Test
+  public void testImportantAndStarHack() throws Exception {
+    assertSameOutput(
+        ".a{color:red!important;*color:red}.a{color:blue;*color:blue}",
+        ".a{color:red!important;*color:blue}");
+  }
+
+  @Test
+  public void testShorthands() throws Exception {
+    assertSameOutput(
+        ".a{margin-top:1px;border-left-color:red}.a{margin:0;border:0!important}"
+            + ".b{padding-left:1px!important}.b{padding:0}",
+        ".a{margin:0;border:0!important}.b{padding-left:1px!important;padding:0}");
+  }
+
+  @Test
+  public void testAlternateAndUncheckedProperties() throws Exception {
+    assertSameOutput(
+        ".a{display:block;cursor:hand;width:1px}"
+            + ".a{display:flex;cursor:pointer;/* @alternate */width:2px}",
+        null);
+  }
+
+  @Test
+  public void testMergesAdjacentRulesets() throws Exception {
+    assertSameOutput(
+        ".a,.b{color:red;top:0}.b{top:1px}.c{color:red;top:0}.d{color:red;top:0}",
+        ".a{color:red;top:0}.b{color:red;top:1px}.c,.d{color:red;top:0}");
+  }
+
+  @Test
+  public void testProblematicSelectorsAreNotMerged() throws Exception {
+    assertSameOutput(".a{color:red}input::-ms-clear{color:red}.b{color:red}", null);
+  }
+
+  @Test
+  public void testMediaRules() throws Exception {
+    assertSameOutput(
+        ".a{color:red}@media print{.a{color:red}.a{top:0}.b{top:0}}"
+            + ".a{color:blue}.c{color:blue}",
+        "@media print{.a{color:red;top:0}.b{top:0}}.a,.c{color:blue}");
+  }
+
+  @Test
+  public void testComplexSelectors() throws Exception {
+    assertSameOutput(
+        "div > p + a:not(.x)[href]{color:red}div>p+a:not(.x)[href]{color:blue}"
+            + "li:nth-child(2n + 1) a{top:0}li:nth-child(2n+1) a{left:0}",
+        null);
+  }
+
+  /**
+   * Checks that both ways to eliminate dead styles give the same output, and
+   * that it is the expected one unless that is null.
+   */
+  private static void assertSameOutput(String stylesheet, String expected)
+      throws Exception {
+    String split = compile(stylesheet, DeadStyleElimination.SPLIT);
+    String indexed = compile(stylesheet, DeadStyleElimination.INDEXED);
+    assertThat(indexed).isEqualTo(split);
+    if (expected != null) {
+      assertThat(indexed).isEqualTo(expected);
+    }
+  }
+
+  private static String compile(String stylesheet,
+      DeadStyleElimination deadStyleElimination) throws Exception {
+    JobDescription job = new JobDescriptionBuilder()
+        .setEliminateDeadStyles(true)
+        .setDeadStyleElimination(deadStyleElimination)
+        .setAllowDuplicateDeclarations(true)
+        .setAllowUnrecognizedProperties(true)
+        .getJobDescription();
+    CssTree tree = new GssParser(new SourceCode("test", stylesheet)).parse();
+    new PassRunner(job, DummyErrorManager.getInstance()).runPasses(tree);
+    return CompactPrinter.printCompactly(tree);
+  }
+}
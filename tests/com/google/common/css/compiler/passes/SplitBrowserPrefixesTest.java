@@ -0,0 +1,122 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.passes;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.Lists;
+import com.google.common.css.compiler.ast.CssRulesetNode;
+import com.google.common.css.compiler.passes.testing.AstPrinter;
+import com.google.common.css.compiler.passes.testing.PassesTestBase;
+import java.util.ArrayList;
+import java.util.HashMap;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link SplitBrowserPrefixes}. */
+@RunWith(JUnit4.class)
+public class SplitBrowserPrefixesTest extends PassesTestBase {
+
+  private HashMap<String, ArrayList<String>> prefixes = new HashMap<>();
+  private AutoExpandBrowserPrefix expansion;
+  private SplitBrowserPrefixes split;
+
+  @Test
+  public void testMovesExpandedDeclarations() {
+    testTreeConstruction(linesToString(
+        "p {",
+        "  display: flex;",
+        "  color: red;",
+        "}",
+        "q {",
+        "  color: blue;",
+        "}"),
+        "[[p]{[display:[[flex]];color:[[red]];]}[q]{[color:[[blue]];]}]");
+    assertThat(AstPrinter.print(split.getPrefixesTree())).isEqualTo(
+        "[[p]{[display:[[-webkit-box]];display:[[-moz-box]];"
+        + "display:[[-webkit-flex]];display:[[-ms-flexbox]];]}]");
+  }
+
+  @Test
+  public void testKeepsExpandedDeclarationsMatchingPrefixes() {
+    prefixes.put("display", Lists.newArrayList("flex"));
+    testTreeConstruction(linesToString(
+        "p {",
+        "  display: flex;",
+        "  flex-grow: 1;",
+        "}"),
+        "[[p]{[display:[[flex]];"
+        + "[/* @alternate */]display:[[-webkit-box]];[/* @alternate */]display:[[-moz-box]];"
+        + "[/* @alternate */]display:[[-webkit-flex]];[/* @alternate */]display:[[-ms-flexbox]];"
+        + "flex-grow:[[1]];]}]");
+    assertThat(AstPrinter.print(split.getPrefixesTree())).isEqualTo(
+        "[[p]{[-webkit-box-flex:[[1]];box-flex:[[1]];"
+        + "-ms-flex-positive:[[1]];-webkit-flex-grow:[[1]];]}]");
+    // Only the properties moved to the prefixes tree are tested for.
+    assertThat(expansion.prefixMap.getHashMap().keySet()).containsExactly("flex-grow");
+  }
+
+  @Test
+  public void testLeavesOutEmptyMediaRules() {
+    testTreeConstruction(linesToString(
+        "@media print {",
+        "  p {",
+        "    color: red;",
+        "  }",
+        "}",
+        "@media screen {",
+        "  p {",
+        "    flex-grow: 1;",
+        "  }",
+        "}",
+        "@font-face {",
+        "  font-family: x;",
+        "}"),
+        "[@media [print]{[p]{[color:[[red]];]}}@media [screen]{[p]{[flex-grow:[[1]];]}}"
+        + "@font-face{[font-family:[[x]];]}]");
+    assertThat(AstPrinter.print(split.getPrefixesTree())).isEqualTo(
+        "[@media [screen]{[p]{[-webkit-box-flex:[[1]];box-flex:[[1]];"
+        + "-ms-flex-positive:[[1]];-webkit-flex-grow:[[1]];]}}@font-face{[]}]");
+  }
+
+  @Test
+  public void testCopiesKeepSourceCodeLocations() throws Exception {
+    parseAndRun(linesToString(
+        "p {",
+        "  display: flex;",
+        "}"));
+    CssRulesetNode ruleset = (CssRulesetNode) tree.getRoot().getBody().getChildAt(0);
+    CssRulesetNode copy =
+        (CssRulesetNode) split.getPrefixesTree().getRoot().getBody().getChildAt(0);
+    assertThat(copy).isNotSameInstanceAs(ruleset);
+    assertThat(copy.getSourceCodeLocation()).isEqualTo(ruleset.getSourceCodeLocation());
+    assertThat(copy.getDeclarations().getSourceCodeLocation())
+        .isEqualTo(ruleset.getDeclarations().getSourceCodeLocation());
+    assertThat(copy.getDeclarations().getSourceCodeLocation()).isNotNull();
+    assertThat(ruleset.getDeclarations().numChildren()).isEqualTo(1);
+  }
+
+  @Override
+  protected void runPass() {
+    new CreateStandardAtRuleNodes(tree.getMutatingVisitController(), errorManager).runPass();
+    expansion = new AutoExpandBrowserPrefix(tree.getMutatingVisitController(), prefixes);
+    expansion.runPass();
+    split = new SplitBrowserPrefixes(tree, prefixes, expansion.prefixMap);
+    split.runPass();
+  }
+}